@@ -279,7 +279,7 @@ public static ArrayBuilder builder() {
   static Collection<Canonical> fixCollection(Collection<? extends JsonValue> c) {
     if (c instanceof CJArray) {
       // already fixed
-      return ((CJArray) c).myList;
+      return ((CJArray) c).list();
     }
 
     ArrayList<Canonical> list = new ArrayList<>(c.size());
@@ -290,8 +290,17 @@ static Collection<Canonical> fixCollection(Collection<? extends JsonValue> c) {
   }
 
 
-  /** The backing list. */
-  private final List<Canonical> myList;
+  /** The backing list. While {@link #shared} is set, copies of this may be using the same list, so it must not be changed. */
+  private volatile List<Canonical> myList;
+
+  /**
+   * Set when the backing list, or a structure within it, may be reachable from outside this. Such a list can never be shared with a copy. This is always set
+   * before checking {@link #shared}, and a copy sets {@link #shared} before checking this, so concurrent threads cannot both miss the other's change.
+   */
+  private transient volatile boolean exposed;
+
+  /** Set when copies of this may be using the same backing list. */
+  private transient volatile boolean shared;
 
 
   /** New instance. */
@@ -316,17 +325,38 @@ public CJArray(int size) {
    * @param c the collection of values
    */
   public CJArray(Collection<?> c) {
-    myList = new ArrayList<>(asArray(c).myList);
+    myList = new ArrayList<>(fixCollection(asArray(c)));
+    exposed = true;
   }
 
 
   private CJArray(CJArray jsonValues, int fromIndex, int toIndex) {
-    myList = jsonValues.myList.subList(fromIndex, toIndex);
+    myList = jsonValues.list().subList(fromIndex, toIndex);
+    exposed = true;
   }
 
 
-  private CJArray(List<Canonical> list) {
+  /**
+   * New instance which owns its list.
+   *
+   * @param list     the list, which nothing else can change
+   * @param isShared true if copies may be using the same list
+   */
+  private CJArray(List<Canonical> list, boolean isShared) {
     myList = list;
+    shared = isShared;
+  }
+
+
+  /**
+   * Create an instance backed by the provided list. The list is used directly, not copied, and must not contain any Java nulls. This allows sub-classes
+   * to provide alternative storage.
+   *
+   * @param list the backing list
+   */
+  protected CJArray(List<Canonical> list) {
+    myList = list;
+    exposed = true;
   }
 
 
@@ -366,7 +396,8 @@ public void add(int index, Number number) {
 
   @Override
   public void add(int index, JsonValue element) {
-    myList.add(index, Canonical.cast(element));
+    Canonical canonical = Canonical.cast(element);
+    editableList(canonical).add(index, canonical);
   }
 
 
@@ -395,7 +426,8 @@ public boolean add(Number number) {
 
   @Override
   public boolean add(JsonValue e) {
-    return myList.add(Canonical.cast(e));
+    Canonical canonical = Canonical.cast(e);
+    return editableList(canonical).add(canonical);
   }
 
 
@@ -413,13 +445,13 @@ public boolean add(String string) {
 
   @Override
   public boolean addAll(@Nonnull Collection<? extends JsonValue> c) {
-    return myList.addAll(fixCollection(c));
+    return list().addAll(fixCollection(c));
   }
 
 
   @Override
   public boolean addAll(int index, @Nonnull Collection<? extends JsonValue> c) {
-    return myList.addAll(index, fixCollection(c));
+    return list().addAll(index, fixCollection(c));
   }
 
 
@@ -455,7 +487,7 @@ public CJArray asJsonArray() {
    * @param action the consumer
    */
   public void canonicalForEach(Consumer<? super Canonical> action) {
-    myList.forEach(action);
+    list().forEach(action);
   }
 
 
@@ -476,7 +508,7 @@ public Iterator<Canonical> canonicalIterator() {
    * @return the list iterator
    */
   public ListIterator<Canonical> canonicalListIterator() {
-    return myList.listIterator();
+    return list().listIterator();
   }
 
 
@@ -488,7 +520,7 @@ public ListIterator<Canonical> canonicalListIterator() {
    * @return the list iterator
    */
   public ListIterator<Canonical> canonicalListIterator(int index) {
-    return myList.listIterator(index);
+    return list().listIterator(index);
   }
 
 
@@ -499,7 +531,7 @@ public ListIterator<Canonical> canonicalListIterator(int index) {
    */
   @Nonnull
   public Stream<Canonical> canonicalParallelStream() {
-    return myList.parallelStream();
+    return list().parallelStream();
   }
 
 
@@ -510,7 +542,7 @@ public Stream<Canonical> canonicalParallelStream() {
    */
   @Nonnull
   public Spliterator<Canonical> canonicalSpliterator() {
-    return myList.spliterator();
+    return list().spliterator();
   }
 
 
@@ -521,13 +553,13 @@ public Spliterator<Canonical> canonicalSpliterator() {
    */
   @Nonnull
   public Stream<Canonical> canonicalStream() {
-    return myList.stream();
+    return list().stream();
   }
 
 
   @Override
   public void clear() {
-    myList.clear();
+    editableList().clear();
   }
 
 
@@ -548,11 +580,85 @@ public boolean containsAll(@Nonnull Collection<?> c) {
   }
 
 
+  /**
+   * Get a copy of this. The copy behaves as a deep copy, but it shares its contents with this until either needs to change them or give out a structure
+   * from within them. Only the structures on the path to a change are ever copied.
+   *
+   * <p>Once this has given out a structure, or has been given one, the structure may be changed from outside. The copy then takes its own list holding
+   * copies of the values, which can still share their own contents.</p>
+   *
+   * @return the copy
+   */
   @Override
   public CJArray copy() {
-    CJArray other = new CJArray(this);
-    other.replaceAll(Canonical::create);
-    return other;
+    if (!exposed) {
+      // The list is read before it is marked as shared, as marking it may cause this to take a new list.
+      List<Canonical> list = myList;
+      shared = true;
+      if (!exposed) {
+        return new CJArray(list, true);
+      }
+    }
+    return new CJArray(copyValues(), false);
+  }
+
+
+  /**
+   * Get a copy of this which uses the same backing list until it needs to change it or give out one of its values. It then takes a list of its own, holding
+   * copies of the values. This is only valid if the backing list never changes, and allows immutable sub-classes to provide cheap mutable copies.
+   *
+   * @return the copy
+   */
+  protected CJArray copyOfImmutable() {
+    return new CJArray(myList, true);
+  }
+
+
+  /**
+   * Create a new list holding copies of the values in this.
+   *
+   * @return the new list
+   */
+  private ArrayList<Canonical> copyValues() {
+    ArrayList<Canonical> list = new ArrayList<>(myList.size());
+    for (Canonical canonical : myList) {
+      list.add(canonical.copy());
+    }
+    return list;
+  }
+
+
+  /**
+   * Get the backing list so that it can be changed. If copies may be using the list, this first takes a list of its own.
+   *
+   * @return the backing list
+   */
+  private List<Canonical> editableList() {
+    if (shared) {
+      synchronized (this) {
+        if (shared) {
+          // The values are copied so that this and the copies do not share structures which could be changed or given out later.
+          myList = copyValues();
+          shared = false;
+        }
+      }
+    }
+    return myList;
+  }
+
+
+  /**
+   * Get the backing list so that a value can be stored in it. A structure stored in the list may also be changed by whoever supplied it.
+   *
+   * @param value the value which will be stored
+   *
+   * @return the backing list
+   */
+  private List<Canonical> editableList(Canonical value) {
+    if (value instanceof CJStructure) {
+      exposed = true;
+    }
+    return editableList();
   }
 
 
@@ -563,8 +669,9 @@ public CJArray copy() {
    */
   public void ensureCapacity(int size) {
     // Cannot ensure capacity of sub-lists.
-    if (myList instanceof ArrayList) {
-      ((ArrayList<?>) myList).ensureCapacity(size);
+    List<Canonical> list = editableList();
+    if (list instanceof ArrayList) {
+      ((ArrayList<?>) list).ensureCapacity(size);
     }
   }
 
@@ -575,19 +682,25 @@ public boolean equals(Object o) {
     if (this == o) {
       return true;
     }
+    if (o instanceof CJArray) {
+      // Compare the backing lists directly, as that does not give out any values
+      return myList.equals(((CJArray) o).myList);
+    }
     return myList.equals(o);
   }
 
 
   @Override
   public void forEach(Consumer<? super JsonValue> action) {
-    myList.forEach(action);
+    list().forEach(action);
   }
 
 
   @Override
   public Canonical get(int index) {
-    return myList.get(index);
+    Canonical value = myList.get(index);
+    // Only a structure could be changed by whoever receives it
+    return value instanceof CJStructure ? list().get(index) : value;
   }
 
 
@@ -786,7 +899,7 @@ public boolean getBoolean(int index) {
    * @return the canonical JSON value
    */
   public Canonical getCanonical(int i) {
-    return myList.get(i);
+    return get(i);
   }
 
 
@@ -841,7 +954,7 @@ public double getDouble(int index) {
   @Override
   public List<Object> getExternalValue() {
     ArrayList<Object> list = new ArrayList<>(size());
-    for (Canonical canonical : myList) {
+    for (Canonical canonical : list()) {
       list.add(canonical.getValue());
     }
     return list;
@@ -1025,7 +1138,7 @@ private <T> T getQuiet(Class<T> clazz, int index, IntFunction<T> function) {
     if (index < 0 || size() <= index) {
       return function.apply(index);
     }
-    Object value = myList.get(index).getValue();
+    Object value = get(index).getValue();
     if (clazz.isInstance(value)) {
       return clazz.cast(value);
     }
@@ -1042,7 +1155,7 @@ private <T> T getSafe(Class<T> clazz, ValueType type, int index) {
     if (index < 0 || size() <= index) {
       throw new MissingItemException(index, type);
     }
-    Canonical canonical = myList.get(index);
+    Canonical canonical = get(index);
     Object value = canonical.getValue();
     if (clazz.isInstance(value)) {
       return clazz.cast(value);
@@ -1173,6 +1286,17 @@ public int lastIndexOf(Object o) {
   }
 
 
+  /**
+   * Get the backing list so that it can be changed, or so that its values or a view of it can be given out.
+   *
+   * @return the backing list
+   */
+  private List<Canonical> list() {
+    exposed = true;
+    return editableList();
+  }
+
+
   @Override
   @Nonnull
   public ListIterator<JsonValue> listIterator() {
@@ -1183,7 +1307,7 @@ public ListIterator<JsonValue> listIterator() {
   @Override
   @Nonnull
   public ListIterator<JsonValue> listIterator(int index) {
-    return new MyIterator(myList.listIterator(index));
+    return new MyIterator(list().listIterator(index));
   }
 
 
@@ -1273,7 +1397,7 @@ public Integer optInt(int index) {
 
 
   private <T extends Canonical> T optJsonSafe(Class<T> clazz, ValueType type, int index) {
-    Canonical canonical = myList.get(index);
+    Canonical canonical = get(index);
     if (clazz.isInstance(canonical)) {
       return clazz.cast(canonical);
     }
@@ -1351,7 +1475,7 @@ public void optimiseStorage() {
    * @param values the unique values
    */
   void optimiseStorage(HashMap<Canonical, Canonical> values) {
-    ListIterator<Canonical> iterator = myList.listIterator();
+    ListIterator<Canonical> iterator = list().listIterator();
     while (iterator.hasNext()) {
       Canonical current = iterator.next();
       switch (current.getValueType()) {
@@ -1376,19 +1500,30 @@ void optimiseStorage(HashMap<Canonical, Canonical> values) {
   @Override
   @Nonnull
   public Stream<JsonValue> parallelStream() {
-    return myList.parallelStream().map(JsonValue.class::cast);
+    return list().parallelStream().map(JsonValue.class::cast);
+  }
+
+
+  /**
+   * Get the backing list without giving it out. Unlike {@link #list()}, this does not stop the list being shared with copies, so the caller must not change
+   * any structure within it, nor keep it.
+   *
+   * @return an unmodifiable view of the backing list
+   */
+  List<Canonical> readOnlyList() {
+    return Collections.unmodifiableList(myList);
   }
 
 
   @Override
   public Canonical remove(int index) {
-    return myList.remove(index);
+    return editableList().remove(index);
   }
 
 
   @Override
   public boolean remove(Object o) {
-    return myList.remove(Canonical.cast(o));
+    return editableList().remove(Canonical.cast(o));
   }
 
 
@@ -1396,7 +1531,7 @@ public boolean remove(Object o) {
   public boolean removeAll(@Nonnull Collection<?> c) {
     boolean b = false;
     for (Object o : c) {
-      if (myList.remove(Canonical.cast(o))) {
+      if (editableList().remove(Canonical.cast(o))) {
         b = true;
       }
     }
@@ -1406,13 +1541,13 @@ public boolean removeAll(@Nonnull Collection<?> c) {
 
   @Override
   public boolean removeIf(@Nonnull Predicate<? super JsonValue> filter) {
-    return myList.removeIf(filter);
+    return list().removeIf(filter);
   }
 
 
   @Override
   public void replaceAll(@Nonnull UnaryOperator<JsonValue> operator) {
-    myList.replaceAll(p -> Canonical.cast(operator.apply(p)));
+    list().replaceAll(p -> Canonical.cast(operator.apply(p)));
   }
 
 
@@ -1422,14 +1557,15 @@ public boolean retainAll(@Nonnull Collection<?> c) {
     for (Object o : c) {
       set.add(Canonical.cast(o));
     }
-    return myList.retainAll(set);
+    return editableList().retainAll(set);
   }
 
 
   @Override
   @Nonnull
   public Canonical set(int index, JsonValue element) {
-    return myList.set(index, Canonical.cast(element));
+    Canonical canonical = Canonical.cast(element);
+    return editableList(canonical).set(index, canonical);
   }
 
 
@@ -1443,7 +1579,7 @@ public Canonical set(int index, JsonValue element) {
    */
   @Nonnull
   public Canonical set(int index, Boolean value) {
-    return myList.set(index, CJTrue.valueOf(value));
+    return editableList().set(index, CJTrue.valueOf(value));
   }
 
 
@@ -1458,7 +1594,7 @@ public Canonical set(int index, Boolean value) {
   @Nonnull
   public Canonical set(int index, Number number) {
     Canonical p = (number != null) ? CJNumber.cast(number) : CJNull.NULL;
-    return myList.set(index, p);
+    return editableList().set(index, p);
   }
 
 
@@ -1473,7 +1609,7 @@ public Canonical set(int index, Number number) {
   @Nonnull
   public Canonical set(int index, String string) {
     Canonical p = (string != null) ? CJString.create(string) : CJNull.NULL;
-    return myList.set(index, p);
+    return editableList().set(index, p);
   }
 
 
@@ -1486,7 +1622,7 @@ public Canonical set(int index, String string) {
    */
   @Nonnull
   public Canonical setNull(int index) {
-    return myList.set(index, CJNull.NULL);
+    return editableList().set(index, CJNull.NULL);
   }
 
 
@@ -1498,21 +1634,21 @@ public int size() {
 
   @Override
   public void sort(Comparator<? super JsonValue> c) {
-    myList.sort(c);
+    list().sort(c);
   }
 
 
   @Override
   @Nonnull
   public Spliterator<JsonValue> spliterator() {
-    return new MySpliterator(myList.spliterator());
+    return new MySpliterator(list().spliterator());
   }
 
 
   @Override
   @Nonnull
   public Stream<JsonValue> stream() {
-    return myList.stream().map(JsonValue.class::cast);
+    return list().stream().map(JsonValue.class::cast);
   }
 
 
@@ -1526,20 +1662,20 @@ public CJArray subList(int fromIndex, int toIndex) {
   @Override
   @Nonnull
   public Object[] toArray() {
-    return myList.toArray();
+    return list().toArray();
   }
 
 
   @Override
   @Nonnull
   public <T> T[] toArray(@Nonnull T[] a) {
-    return myList.toArray(a);
+    return list().toArray(a);
   }
 
 
   @Override
   public <T> T[] toArray(@Nonnull IntFunction<T[]> generator) {
-    return myList.toArray(generator);
+    return list().toArray(generator);
   }
 
 
@@ -1583,7 +1719,7 @@ public String toString() {
    * @return an unmodifiable view onto the same data
    */
   public CJArray unmodifiable() {
-    return new CJArray(Collections.unmodifiableList(myList));
+    return new CJArray(Collections.unmodifiableList(list()));
   }
 
 
@@ -1595,7 +1731,7 @@ public void writeTo(Appendable writer) throws IOException {
       if (i > 0) {
         writer.append(',');
       }
-      Canonical.cast(get(i)).writeTo(writer);
+      myList.get(i).writeTo(writer);
     }
     writer.append(']');
   }
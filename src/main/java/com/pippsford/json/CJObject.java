@@ -578,8 +578,17 @@ public static ObjectBuilder builder() {
   }
 
 
-  /** The backing map. */
-  private final NavigableMap<String, Canonical> myMap;
+  /** The backing map. While {@link #shared} is set, copies of this may be using the same map, so it must not be changed. */
+  private volatile NavigableMap<String, Canonical> myMap;
+
+  /**
+   * Set when the backing map, or a structure within it, may be reachable from outside this. Such a map can never be shared with a copy. This is always set
+   * before checking {@link #shared}, and a copy sets {@link #shared} before checking this, so concurrent threads cannot both miss the other's change.
+   */
+  private transient volatile boolean exposed;
+
+  /** Set when copies of this may be using the same backing map. */
+  private transient volatile boolean shared;
 
 
   /** New instance. */
@@ -601,6 +610,17 @@ public CJObject(Map<String, ?> map) {
   }
 
 
+  /**
+   * Create an instance backed by the provided map. The map is used directly, not copied, and must be ordered by {@link CodePointOrder}. This allows
+   * sub-classes to provide alternative storage.
+   *
+   * @param map the backing map
+   */
+  protected CJObject(NavigableMap<String, Canonical> map) {
+    this(map, false);
+  }
+
+
   private CJObject(NavigableMap<String, Canonical> map, boolean makeCopy) {
     this(map, makeCopy, Function.identity());
   }
@@ -618,13 +638,26 @@ private CJObject(
         tmpMap.put(e.getKey(), e.getValue().copy());
       }
     } else {
+      // The map belongs to someone else, or is a view of one which does.
       tmpMap = map;
+      exposed = true;
     }
 
     myMap = mapper.apply(tmpMap);
   }
 
 
+  /**
+   * New copy which shares the original's backing map until either of them needs to change it or give out one of its values.
+   *
+   * @param original the original
+   */
+  private CJObject(CJObject original) {
+    myMap = original.myMap;
+    shared = true;
+  }
+
+
   @Override
   public CJObject asJsonObject() {
     return this;
@@ -639,7 +672,7 @@ public CJObject asJsonObject() {
    * @return the entry, or null
    */
   public Entry<String, Canonical> canonicalCeilingEntry(String key) {
-    return myMap.ceilingEntry(key);
+    return map().ceilingEntry(key);
   }
 
 
@@ -650,7 +683,7 @@ public Entry<String, Canonical> canonicalCeilingEntry(String key) {
    */
   @Nonnull
   public Set<Entry<String, Canonical>> canonicalEntrySet() {
-    return myMap.entrySet();
+    return map().entrySet();
   }
 
 
@@ -660,7 +693,7 @@ public Set<Entry<String, Canonical>> canonicalEntrySet() {
    * @return the first entry
    */
   public Entry<String, Canonical> canonicalFirstEntry() {
-    return myMap.firstEntry();
+    return map().firstEntry();
   }
 
 
@@ -672,7 +705,7 @@ public Entry<String, Canonical> canonicalFirstEntry() {
    * @return the first entry
    */
   public Entry<String, Canonical> canonicalFloorEntry(String key) {
-    return myMap.floorEntry(key);
+    return map().floorEntry(key);
   }
 
 
@@ -682,7 +715,7 @@ public Entry<String, Canonical> canonicalFloorEntry(String key) {
    * @param action the consumer
    */
   public void canonicalForEach(BiConsumer<? super String, ? super Canonical> action) {
-    myMap.forEach(action);
+    map().forEach(action);
   }
 
 
@@ -694,7 +727,7 @@ public void canonicalForEach(BiConsumer<? super String, ? super Canonical> actio
    * @return the entry or null
    */
   public Entry<String, Canonical> canonicalHigherEntry(String key) {
-    return myMap.higherEntry(key);
+    return map().higherEntry(key);
   }
 
 
@@ -704,7 +737,7 @@ public Entry<String, Canonical> canonicalHigherEntry(String key) {
    * @return the entry or null
    */
   public Entry<String, Canonical> canonicalLastEntry() {
-    return myMap.lastEntry();
+    return map().lastEntry();
   }
 
 
@@ -716,7 +749,7 @@ public Entry<String, Canonical> canonicalLastEntry() {
    * @return the entry or null
    */
   public Entry<String, Canonical> canonicalLowerEntry(String key) {
-    return myMap.lowerEntry(key);
+    return map().lowerEntry(key);
   }
 
 
@@ -726,7 +759,7 @@ public Entry<String, Canonical> canonicalLowerEntry(String key) {
    * @return the removed first entry of this map, or {@code null} if this map is empty
    */
   public Entry<String, Canonical> canonicalPollFirstEntry() {
-    return myMap.pollFirstEntry();
+    return editableMap().pollFirstEntry();
   }
 
 
@@ -736,7 +769,7 @@ public Entry<String, Canonical> canonicalPollFirstEntry() {
    * @return the removed first entry of this map, or {@code null} if this map is empty
    */
   public Entry<String, Canonical> canonicalPollLastEntry() {
-    return myMap.pollLastEntry();
+    return editableMap().pollLastEntry();
   }
 
 
@@ -747,13 +780,13 @@ public Entry<String, Canonical> canonicalPollLastEntry() {
    */
   @Nonnull
   public Collection<Canonical> canonicalValues() {
-    return myMap.values();
+    return map().values();
   }
 
 
   @Override
   public Entry<String, JsonValue> ceilingEntry(String key) {
-    return new MyEntry(myMap.ceilingEntry(key));
+    return new MyEntry(map().ceilingEntry(key));
   }
 
 
@@ -765,7 +798,7 @@ public String ceilingKey(String key) {
 
   @Override
   public void clear() {
-    myMap.clear();
+    editableMap().clear();
   }
 
 
@@ -780,7 +813,7 @@ public Canonical compute(
       String key, @Nonnull BiFunction<? super String, ? super JsonValue, ? extends JsonValue> remappingFunction) {
     final BiFunction<String, Canonical, Canonical> myFunction = (k, v) -> Canonical.cast(
         remappingFunction.apply(k, v));
-    return myMap.compute(key, myFunction);
+    return map().compute(key, myFunction);
   }
 
 
@@ -788,7 +821,7 @@ public Canonical compute(
   public Canonical computeIfAbsent(
       String key, @Nonnull Function<? super String, ? extends JsonValue> mappingFunction) {
     final Function<String, Canonical> myFunction = k -> Canonical.cast(mappingFunction.apply(k));
-    return myMap.computeIfAbsent(key, myFunction);
+    return map().computeIfAbsent(key, myFunction);
   }
 
 
@@ -797,7 +830,7 @@ public Canonical computeIfPresent(
       String key, @Nonnull BiFunction<? super String, ? super JsonValue, ? extends JsonValue> remappingFunction) {
     final BiFunction<String, Canonical, Canonical> myFunction = (k, v) -> Canonical.cast(
         remappingFunction.apply(k, v));
-    return myMap.computeIfPresent(key, myFunction);
+    return map().computeIfPresent(key, myFunction);
   }
 
 
@@ -813,28 +846,92 @@ public boolean containsValue(Object value) {
   }
 
 
+  /**
+   * Get a copy of this. The copy behaves as a deep copy, but it shares its contents with this until either needs to change them or give out a structure
+   * from within them. Only the structures on the path to a change are ever copied.
+   *
+   * <p>Once this has given out a structure, or has been given one, the structure may be changed from outside. The copy then takes its own map holding
+   * copies of the values, which can still share their own contents.</p>
+   *
+   * @return the copy
+   */
   @Override
   public CJObject copy() {
+    if (!exposed) {
+      // The map is read before this is marked as shared, as marking it may cause this to take a new map.
+      CJObject copy = new CJObject(this);
+      shared = true;
+      if (!exposed) {
+        return copy;
+      }
+    }
     return new CJObject(myMap, true);
   }
 
 
+  /**
+   * Get a copy of this which uses the same backing map until it needs to change it or give out one of its values. It then takes a map of its own, holding
+   * copies of the values. This is only valid if the backing map never changes, and allows immutable sub-classes to provide cheap mutable copies.
+   *
+   * @return the copy
+   */
+  protected CJObject copyOfImmutable() {
+    return new CJObject(this);
+  }
+
+
   @Override
   public NavigableSet<String> descendingKeySet() {
-    return myMap.descendingKeySet();
+    return map().descendingKeySet();
   }
 
 
   @Override
   public CJObject descendingMap() {
-    return new CJObject(myMap.descendingMap(), false);
+    return new CJObject(map().descendingMap(), false);
+  }
+
+
+  /**
+   * Get the backing map so that it can be changed. If copies may be using the map, this first takes a map of its own.
+   *
+   * @return the backing map
+   */
+  private NavigableMap<String, Canonical> editableMap() {
+    if (shared) {
+      synchronized (this) {
+        if (shared) {
+          // The values are copied so that this and the copies do not share structures which could be changed or given out later.
+          TreeMap<String, Canonical> own = new TreeMap<>(myMap);
+          own.replaceAll((k, v) -> v.copy());
+          myMap = own;
+          shared = false;
+        }
+      }
+    }
+    return myMap;
+  }
+
+
+  /**
+   * Get the backing map so that a value can be stored in it. A structure stored in the map may also be changed by whoever supplied it.
+   *
+   * @param value the value which will be stored
+   *
+   * @return the backing map
+   */
+  private NavigableMap<String, Canonical> editableMap(Canonical value) {
+    if (value instanceof CJStructure) {
+      exposed = true;
+    }
+    return editableMap();
   }
 
 
   @Override
   @Nonnull
   public Set<Entry<String, JsonValue>> entrySet() {
-    return new MyEntries(myMap.entrySet());
+    return new MyEntries(map().entrySet());
   }
 
 
@@ -844,13 +941,17 @@ public boolean equals(Object o) {
     if (o == this) {
       return true;
     }
+    if (o instanceof CJObject) {
+      // Compare the backing maps directly, as that does not give out any values
+      return myMap.equals(((CJObject) o).myMap);
+    }
     return myMap.equals(o);
   }
 
 
   @Override
   public Entry<String, JsonValue> firstEntry() {
-    return new MyEntry(myMap.firstEntry());
+    return new MyEntry(map().firstEntry());
   }
 
 
@@ -862,7 +963,7 @@ public String firstKey() {
 
   @Override
   public Entry<String, JsonValue> floorEntry(String key) {
-    return new MyEntry(myMap.floorEntry(key));
+    return new MyEntry(map().floorEntry(key));
   }
 
 
@@ -874,13 +975,15 @@ public String floorKey(String key) {
 
   @Override
   public void forEach(BiConsumer<? super String, ? super JsonValue> action) {
-    myMap.forEach(action);
+    map().forEach(action);
   }
 
 
   @Override
   public Canonical get(Object key) {
-    return myMap.get(key);
+    Canonical value = myMap.get(key);
+    // Only a structure could be changed by whoever receives it
+    return value instanceof CJStructure ? map().get(key) : value;
   }
 
 
@@ -1130,7 +1233,7 @@ public double getDouble(String key) {
   @Override
   public Map<String, Object> getExternalValue() {
     TreeMap<String, Object> map = new TreeMap<>();
-    for (var entry : myMap.entrySet()) {
+    for (var entry : map().entrySet()) {
       map.put(entry.getKey(), entry.getValue().getValue());
     }
     return map;
@@ -1358,7 +1461,7 @@ public Canonical getOrDefault(Object key, JsonValue defaultValue) {
       return null;
     }
 
-    Canonical value = myMap.get((String) key);
+    Canonical value = get(key);
     return value != null ? value : Canonical.cast(defaultValue);
   }
 
@@ -1470,20 +1573,20 @@ public int hashCode() {
 
 
   public CJObject headMap(String toKey, boolean inclusive) {
-    return new CJObject(myMap.headMap(toKey, inclusive), false);
+    return new CJObject(map().headMap(toKey, inclusive), false);
   }
 
 
   @Override
   @Nonnull
   public CJObject headMap(String toKey) {
-    return new CJObject(myMap.headMap(toKey, false), false);
+    return new CJObject(map().headMap(toKey, false), false);
   }
 
 
   @Override
   public Entry<String, JsonValue> higherEntry(String key) {
-    return new MyEntry(myMap.higherEntry(key));
+    return new MyEntry(map().higherEntry(key));
   }
 
 
@@ -1531,13 +1634,13 @@ public boolean isType(String key, ValueType type) {
   @Override
   @Nonnull
   public Set<String> keySet() {
-    return myMap.keySet();
+    return map().keySet();
   }
 
 
   @Override
   public Entry<String, JsonValue> lastEntry() {
-    return new MyEntry(myMap.lastEntry());
+    return new MyEntry(map().lastEntry());
   }
 
 
@@ -1549,7 +1652,7 @@ public String lastKey() {
 
   @Override
   public Entry<String, JsonValue> lowerEntry(String key) {
-    return new MyEntry(myMap.lowerEntry(key));
+    return new MyEntry(map().lowerEntry(key));
   }
 
 
@@ -1559,6 +1662,17 @@ public String lowerKey(String key) {
   }
 
 
+  /**
+   * Get the backing map so that it can be changed, or so that its values or a view of it can be given out.
+   *
+   * @return the backing map
+   */
+  private NavigableMap<String, Canonical> map() {
+    exposed = true;
+    return editableMap();
+  }
+
+
   @Override
   public JsonValue merge(
       String key,
@@ -1566,13 +1680,13 @@ public JsonValue merge(
       @Nonnull BiFunction<? super JsonValue, ? super JsonValue, ? extends JsonValue> remappingFunction
   ) {
     final BinaryOperator<Canonical> myFunction = (v1, v2) -> Canonical.cast(remappingFunction.apply(v1, v2));
-    return myMap.merge(key, Canonical.cast(value), myFunction);
+    return map().merge(key, Canonical.cast(value), myFunction);
   }
 
 
   @Override
   public NavigableSet<String> navigableKeySet() {
-    return myMap.navigableKeySet();
+    return map().navigableKeySet();
   }
 
 
@@ -1739,7 +1853,7 @@ public void optimiseStorage() {
    * @param values the unique values
    */
   void optimiseStorage(HashMap<Canonical, Canonical> values) {
-    for (Entry<String, Canonical> e : myMap.entrySet()) {
+    for (Entry<String, Canonical> e : map().entrySet()) {
       Canonical current = e.getValue();
       switch (current.getValueType()) {
         case ARRAY:
@@ -1777,7 +1891,7 @@ public Entry<String, JsonValue> pollLastEntry() {
 
   @Override
   public JsonValue put(String key, JsonValue value) {
-    return myMap.put(key, Canonical.cast(value));
+    return put(key, Canonical.cast(value));
   }
 
 
@@ -1790,7 +1904,7 @@ public JsonValue put(String key, JsonValue value) {
    * @return the old value
    */
   public Canonical put(String key, Canonical value) {
-    return myMap.put(key, value);
+    return editableMap(value).put(key, value);
   }
 
 
@@ -1887,7 +2001,7 @@ public void put(String key, String value) {
    */
   public void putAll(@Nonnull Map<? extends String, ? extends JsonValue> m) {
     if (m instanceof CJObject) {
-      myMap.putAll(((CJObject) m).myMap);
+      map().putAll(((CJObject) m).map());
     } else {
       for (Entry<? extends String, ? extends JsonValue> e : m.entrySet()) {
         put(e.getKey(), e.getValue());
@@ -1898,19 +2012,30 @@ public void putAll(@Nonnull Map<? extends String, ? extends JsonValue> m) {
 
   @Override
   public Canonical putIfAbsent(String key, JsonValue value) {
-    return myMap.putIfAbsent(key, Canonical.cast(value));
+    return map().putIfAbsent(key, Canonical.cast(value));
+  }
+
+
+  /**
+   * Get the entries of the backing map without giving out the map. Unlike {@link #canonicalEntrySet()}, this does not stop the map being shared with copies,
+   * so the caller must not change any structure within the entries, nor keep them.
+   *
+   * @return an unmodifiable view of the backing map's entries
+   */
+  Set<Entry<String, Canonical>> readOnlyEntries() {
+    return Collections.unmodifiableSet(myMap.entrySet());
   }
 
 
   @Override
   public Canonical remove(Object key) {
-    return myMap.remove(key);
+    return editableMap().remove(key);
   }
 
 
   @Override
   public boolean remove(Object key, Object value) {
-    return myMap.remove(key, value);
+    return editableMap().remove(key, value);
   }
 
 
@@ -2020,20 +2145,22 @@ public String removeString(String key) {
 
   @Override
   public boolean replace(String key, JsonValue oldValue, JsonValue newValue) {
-    return myMap.replace(key, Canonical.cast(oldValue), Canonical.cast(newValue));
+    Canonical canonical = Canonical.cast(newValue);
+    return editableMap(canonical).replace(key, Canonical.cast(oldValue), canonical);
   }
 
 
   @Override
   public Canonical replace(String key, JsonValue value) {
-    return myMap.replace(key, Canonical.cast(value));
+    Canonical canonical = Canonical.cast(value);
+    return editableMap(canonical).replace(key, canonical);
   }
 
 
   @Override
   public void replaceAll(BiFunction<? super String, ? super JsonValue, ? extends JsonValue> function) {
     final BiFunction<String, Canonical, Canonical> myFunction = (k, v) -> Canonical.cast(function.apply(k, v));
-    myMap.replaceAll(myFunction);
+    map().replaceAll(myFunction);
   }
 
 
@@ -2045,27 +2172,27 @@ public int size() {
 
   @Override
   public CJObject subMap(String fromKey, boolean fromInclusive, String toKey, boolean toInclusive) {
-    return new CJObject(myMap.subMap(fromKey, fromInclusive, toKey, toInclusive), false);
+    return new CJObject(map().subMap(fromKey, fromInclusive, toKey, toInclusive), false);
   }
 
 
   @Override
   @Nonnull
   public CJObject subMap(String fromKey, String toKey) {
-    return new CJObject(myMap.subMap(fromKey, true, toKey, false), false);
+    return new CJObject(map().subMap(fromKey, true, toKey, false), false);
   }
 
 
   @Override
   public CJObject tailMap(String fromKey, boolean inclusive) {
-    return new CJObject(myMap.tailMap(fromKey, inclusive), false);
+    return new CJObject(map().tailMap(fromKey, inclusive), false);
   }
 
 
   @Override
   @Nonnull
   public CJObject tailMap(String fromKey) {
-    return new CJObject(myMap.tailMap(fromKey, true), false);
+    return new CJObject(map().tailMap(fromKey, true), false);
   }
 
 
@@ -2109,14 +2236,14 @@ public String toString() {
    * @return an unmodifiable instance
    */
   public CJObject unmodifiable() {
-    return new CJObject(myMap, false, Collections::unmodifiableNavigableMap);
+    return new CJObject(map(), false, Collections::unmodifiableNavigableMap);
   }
 
 
   @Override
   @Nonnull
   public Collection<JsonValue> values() {
-    return new MyValues(myMap.values());
+    return new MyValues(map().values());
   }
 
 
@@ -2124,7 +2251,7 @@ public Collection<JsonValue> values() {
   public void writeTo(Appendable writer) throws IOException {
     writer.append('{');
     boolean isNotFirst = false;
-    for (Map.Entry<String, JsonValue> e : entrySet()) {
+    for (Map.Entry<String, Canonical> e : myMap.entrySet()) {
       if (isNotFirst) {
         writer.append(',');
       } else {
@@ -2133,7 +2260,7 @@ public void writeTo(Appendable writer) throws IOException {
 
       CJString.format(writer, e.getKey());
       writer.append(':');
-      ((Canonical) e.getValue()).writeTo(writer);
+      e.getValue().writeTo(writer);
     }
     writer.append('}');
   }
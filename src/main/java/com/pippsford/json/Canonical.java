@@ -360,7 +360,8 @@ default CJObject asJsonObject() {
 
 
   /**
-   * Get a copy of this. If this is immutable, then returns this. Otherwise, returns a deep copy.
+   * Get a copy of this. If this is immutable, then returns this. Otherwise, returns a deep copy. A copied structure may share its contents with the original
+   * until one of them is changed, so taking a copy is cheap even when little of it will be changed.
    *
    * @return a copy of this
    */
@@ -1,23 +1,28 @@
 package com.pippsford.json;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.OutputStream;
-import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeSet;
 
-import com.pippsford.json.exception.JsonIOException;
 import com.pippsford.json.ijson.ForbiddenIJsonException;
-import com.pippsford.json.ijson.IJsonNumberSerializer;
+import com.pippsford.json.parser.CJParser;
+import com.pippsford.json.primitive.CodePointOrder;
 import com.pippsford.json.primitive.numbers.CJNumber;
 import jakarta.annotation.Nonnull;
 import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
 import jakarta.json.JsonNumber;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser.Event;
 
 /**
  * Support for "Internet JSON" (RFC-7493) and the "JSON Canonicalization Scheme" based upon it (RFC-8785).
@@ -26,6 +31,11 @@
  * The "I-JSON" is a subset of JSON. Not all JSON data can be represented in I-JSON. Numeric values are limited to IEEE 64-bit floating point precision.
  * Strings may not contain invalid Unicode such as lone surrogates.
  * </p>
+ *
+ * <p>
+ * Values are checked as they are written, so there is no need to call {@link #isCompatible(JsonValue)} first. If a value cannot be represented, a
+ * {@link ForbiddenIJsonException} is thrown which gives the JSON Pointer to the value.
+ * </p>
  */
 public class IJson {
 
@@ -44,13 +54,40 @@ public class IJson {
   /** Canonical form uses lower-case hexadecimal. */
   private static final char[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
 
-  private static final long MAX_SAFE_LONG = 1L << 53;
+  /** A member name contains no characters at or above U+D800. */
+  private static final int HIGH_NONE = 0;
 
-  private static final long MIN_SAFE_LONG = -(1L << 53);
+  /** A member name contains characters from U+E000 to U+FFFF, but no surrogates. */
+  private static final int HIGH_PRIVATE = 1;
+
+  /** A member name contains surrogates. */
+  private static final int HIGH_SURROGATE = 2;
+
+
+  /**
+   * Find whether a member name contains characters whose code point order and UTF-16 order may differ.
+   *
+   * @param key the member name
+   *
+   * @return HIGH_SURROGATE if it contains a surrogate, HIGH_PRIVATE if it contains a character from U+E000 to U+FFFF, otherwise HIGH_NONE
+   */
+  private static int highCharacters(String key) {
+    int high = HIGH_NONE;
+    for (int i = key.length() - 1; i >= 0; i--) {
+      char ch = key.charAt(i);
+      if (ch >= Character.MIN_HIGH_SURROGATE) {
+        if (ch <= Character.MAX_LOW_SURROGATE) {
+          return HIGH_SURROGATE;
+        }
+        high = HIGH_PRIVATE;
+      }
+    }
+    return high;
+  }
 
 
   private static boolean isArrayCompatible(JsonArray array) {
-    for (JsonValue v : array) {
+    for (JsonValue v : values(array)) {
       if (!isCompatible(v)) {
         return false;
       }
@@ -97,27 +134,8 @@ private static boolean isCompatible(String value) {
 
 
   private static boolean isCompatible(CJNumber value) {
-    // 32-bit integers are always OK.
-    if (value.getNumberType() == CJNumber.TYPE_INT) {
-      return true;
-    }
-
-    if (value.getNumberType() == CJNumber.TYPE_LONG) {
-      long longValue = value.longValue();
-      if (MIN_SAFE_LONG <= longValue && longValue <= MAX_SAFE_LONG) {
-        return true;
-      }
-    }
-
-    BigDecimal bdOriginal = value.bigDecimalValue();
-    double doubleValue = bdOriginal.doubleValue();
-    if (!Double.isFinite(doubleValue)) {
-      return false;
-    }
-
-    String jsonValue = IJsonNumberSerializer.serialize(doubleValue);
-    BigDecimal bdJson = new BigDecimal(jsonValue);
-    return bdOriginal.compareTo(bdJson) == 0;
+    // The check is cached on the number, and avoids conversions for numbers which are obviously exact.
+    return value.isIJsonCompatible();
   }
 
 
@@ -128,7 +146,7 @@ private static boolean isNonCharacter(int cp) {
 
 
   private static boolean isObjectCompatible(JsonObject object) {
-    for (var e : object.entrySet()) {
+    for (var e : members(object)) {
       if ((!isCompatible(e.getKey())) || (!isCompatible(e.getValue()))) {
         return false;
       }
@@ -143,18 +161,22 @@ private static boolean isSurrogate(int cp) {
   }
 
 
+  /** Get the members of an object. A CJObject's own map is read directly, so that reading it does not stop it being shared with its copies. */
+  private static Set<? extends Entry<String, ? extends JsonValue>> members(JsonObject object) {
+    return (object instanceof CJObject) ? ((CJObject) object).readOnlyEntries() : object.entrySet();
+  }
+
+
   /**
-   * Serialize the JsonValue to the specified stream.
+   * Serialize the JsonValue to the specified stream. The output is passed to the stream in large blocks, so a buffered stream is not needed.
    *
    * @param out   the output stream to write to
    * @param value the JsonValue to write as canonical I-JSON
    */
   public static void serialize(@Nonnull OutputStream out, JsonValue value) {
-    try {
-      serializeInternal(out, value);
-    } catch (IOException e) {
-      throw new JsonIOException(e);
-    }
+    IJsonBuffer buffer = new IJsonBuffer(out);
+    serializeInternal(buffer, value);
+    buffer.flush();
   }
 
 
@@ -166,14 +188,38 @@ public static void serialize(@Nonnull OutputStream out, JsonValue value) {
    * @return the JsonValue as canonical I-JSON
    */
   public static byte[] serialize(JsonValue value) {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    serialize(baos, value);
-    return baos.toByteArray();
+    IJsonBuffer buffer = new IJsonBuffer();
+    serializeInternal(buffer, value);
+    return buffer.toByteArray();
+  }
+
+
+  /**
+   * Serialize the JsonValue into a byte buffer, starting at the buffer's position. On success, the position is advanced past the output. If the output does
+   * not fit, the position is unchanged, though the buffer's remaining content may have been overwritten.
+   *
+   * @param value       the value to write
+   * @param destination the buffer to write to
+   *
+   * @throws BufferOverflowException if the output does not fit in the buffer's remaining space
+   */
+  public static void serialize(JsonValue value, @Nonnull ByteBuffer destination) {
+    if (destination.hasArray()) {
+      // Write straight into the backing array.
+      int offset = destination.arrayOffset();
+      IJsonBuffer buffer = new IJsonBuffer(destination.array(), offset + destination.position(), destination.remaining());
+      serializeInternal(buffer, value);
+      destination.position(buffer.position() - offset);
+    } else {
+      IJsonBuffer buffer = new IJsonBuffer();
+      serializeInternal(buffer, value);
+      buffer.writeTo(destination);
+    }
   }
 
 
   /** Write an array. */
-  private static void serializeArray(@Nonnull OutputStream out, JsonArray value) throws IOException {
+  private static void serializeArray(@Nonnull IJsonBuffer out, JsonArray value) {
     if (value.isEmpty()) {
       out.write('[');
       out.write(']');
@@ -181,58 +227,64 @@ private static void serializeArray(@Nonnull OutputStream out, JsonArray value) t
     }
 
     byte prefix = '[';
-    for (JsonValue v : value) {
+    int index = 0;
+    for (JsonValue v : values(value)) {
       out.write(prefix);
       prefix = ',';
 
-      serializeInternal(out, v);
+      try {
+        serializeInternal(out, v);
+      } catch (ForbiddenIJsonException e) {
+        throw e.within(Integer.toString(index));
+      }
+      index++;
     }
     out.write(']');
   }
 
 
-  private static int serializeAscii(OutputStream out, String value, int i) throws IOException {
+  private static int serializeAscii(IJsonBuffer out, String value, int i) {
     final int l = value.length();
+    int run = i;
     while (i < l) {
       char ch = value.charAt(i);
       if (ch >= 128) {
-        return i;
+        break;
       }
 
-      switch (ESCAPES[ch]) {
-        case 0:
-          // normal character
-          out.write((byte) ch);
-          break;
-        case 1:
+      if (ESCAPES[ch] != 0) {
+        // Copy the preceding run of normal characters in bulk
+        out.writeAscii(value, run, i);
+        run = i + 1;
+        out.write('\\');
+        if (ESCAPES[ch] == 1) {
           // Unicode escape
-          out.write('\\');
           out.write('u');
           out.write('0');
           out.write('0');
           out.write(HEX[ch >>> 4]);
           out.write(HEX[ch & 0xf]);
-          break;
-        default:
+        } else {
           // special escape
-          out.write('\\');
           out.write(ESCAPES[ch]);
-          break;
+        }
       }
 
       i++;
     }
+    out.writeAscii(value, run, i);
     return i;
   }
 
 
   /** Write a boolean. */
-  private static void serializeBoolean(@Nonnull OutputStream out, boolean value) throws IOException {
-    out.write(value ? BYTES_TRUE : BYTES_FALSE);
+  private static void serializeBoolean(@Nonnull IJsonBuffer out, boolean value) {
+    byte[] bytes = value ? BYTES_TRUE : BYTES_FALSE;
+    out.write(bytes, 0, bytes.length);
   }
 
 
-  private static void serializeInternal(@Nonnull OutputStream out, JsonValue value) throws IOException {
+  private static void serializeInternal(@Nonnull IJsonBuffer out, JsonValue value) {
     if (value == null) {
       serializeNull(out);
       return;
@@ -264,22 +316,64 @@ private static void serializeInternal(@Nonnull OutputStream out, JsonValue value
   }
 
 
-  private static void serializeNull(@Nonnull OutputStream out) throws IOException {
-    out.write(BYTES_NULL);
+  /**
+   * Write an object member.
+   *
+   * @param out    the buffer
+   * @param prefix the byte to write before the member
+   * @param key    the member's name
+   * @param value  the member's value
+   */
+  private static void serializeMember(IJsonBuffer out, byte prefix, String key, JsonValue value) {
+    out.write(prefix);
+    try {
+      serializeString(out, key);
+      out.write(':');
+      serializeInternal(out, value);
+    } catch (ForbiddenIJsonException e) {
+      throw e.within(key);
+    }
   }
 
 
-  private static void serializeNumber(OutputStream out, JsonNumber value) throws IOException {
-    CJNumber cjNumber = CJNumber.cast(value);
+  /**
+   * Write a run of object members.
+   *
+   * @param <V>     the type of the members' values
+   * @param out     the buffer
+   * @param prefix  the byte to write before the first member
+   * @param members the members, in code point order
+   * @param resort  true if the members must be sorted into UTF-16 order
+   *
+   * @return the byte to write before the next member
+   */
+  private static <V extends JsonValue> byte serializeMembers(IJsonBuffer out, byte prefix, List<Entry<String, V>> members, boolean resort) {
+    if (resort) {
+      members.sort(Entry.comparingByKey());
+    }
+    for (Entry<String, V> entry : members) {
+      serializeMember(out, prefix, entry.getKey(), entry.getValue());
+      prefix = ',';
+    }
+    return prefix;
+  }
+
 
+  private static void serializeNull(@Nonnull IJsonBuffer out) {
+    out.write(BYTES_NULL, 0, BYTES_NULL.length);
+  }
+
+
+  private static void serializeNumber(IJsonBuffer out, JsonNumber value) {
+    CJNumber cjNumber = CJNumber.cast(value);
     // Integers are so common it is worth optimising for.
     if (cjNumber.getNumberType() == CJNumber.TYPE_INT) {
-      IJsonNumberSerializer.serialize(out, value.intValue());
+      out.writeNumber(value.intValue());
       return;
     }
 
     if (isCompatible(cjNumber)) {
-      IJsonNumberSerializer.serialize(out, value.doubleValue());
+      out.writeNumber(value.doubleValue());
       return;
     }
 
@@ -287,12 +381,16 @@ private static void serializeNumber(OutputStream out, JsonNumber value) throws I
   }
 
 
-  private static void serializeObject(@Nonnull OutputStream out, JsonObject value) throws IOException {
+  private static void serializeObject(@Nonnull IJsonBuffer out, JsonObject value) {
     if (value.isEmpty()) {
       out.write('{');
       out.write('}');
       return;
     }
+    if (value instanceof CJObject) {
+      serializeSortedObject(out, (CJObject) value);
+      return;
+    }
 
     // Canonical I-JSON uses the same String order that Java uses naturally.
     TreeSet<String> keys = new TreeSet<>(Comparator.naturalOrder());
@@ -300,18 +398,67 @@ private static void serializeObject(@Nonnull OutputStream out, JsonObject value)
 
     byte prefix = '{';
     for (String key : keys) {
-      out.write(prefix);
+      serializeMember(out, prefix, key, value.get(key));
       prefix = ',';
+    }
+    out.write('}');
+  }
 
-      serializeString(out, key);
-      out.write(':');
-      serializeInternal(out, value.get(key));
+
+  /**
+   * Read a value from a parser and write it as canonical I-JSON, without building the value in memory. The object members in the input must be in code point
+   * order, as they are in canonical JSON. Members whose order differs in I-JSON are rare, and only they are held in memory to be re-sorted.
+   *
+   * @param out    the output stream to write to
+   * @param parser the parser supplying the value
+   *
+   * @throws ForbiddenIJsonException if the value cannot be represented in I-JSON. Some of the output will have been written.
+   * @throws JsonException           if the object members in the input are not in code point order
+   */
+  public static void serializeParsed(@Nonnull OutputStream out, @Nonnull CJParser parser) {
+    IJsonBuffer buffer = new IJsonBuffer(out);
+    streamValue(buffer, parser, parser.next());
+    buffer.flush();
+  }
+
+
+  /**
+   * Write an object whose members are already in code point order. Code point order and the UTF-16 order that canonical I-JSON uses only differ where a
+   * surrogate is compared with a character from U+E000 to U+FFFF, so only runs of members whose names contain such characters need to be re-sorted. Every
+   * member between two such names in code point order also has such a character, so the runs are contiguous.
+   */
+  private static void serializeSortedObject(@Nonnull IJsonBuffer out, CJObject value) {
+    // The current run of members with names which may be out of order, if any.
+    List<Entry<String, Canonical>> run = null;
+    boolean runHasSurrogate = false;
+    byte prefix = '{';
+    for (Entry<String, Canonical> entry : value.readOnlyEntries()) {
+      int high = highCharacters(entry.getKey());
+      if (high != HIGH_NONE) {
+        if (run == null) {
+          run = new ArrayList<>();
+        }
+        run.add(entry);
+        runHasSurrogate |= high == HIGH_SURROGATE;
+        continue;
+      }
+
+      if (run != null && !run.isEmpty()) {
+        prefix = serializeMembers(out, prefix, run, runHasSurrogate);
+        run.clear();
+        runHasSurrogate = false;
+      }
+      serializeMember(out, prefix, entry.getKey(), entry.getValue());
+      prefix = ',';
+    }
+    if (run != null && !run.isEmpty()) {
+      serializeMembers(out, prefix, run, runHasSurrogate);
     }
     out.write('}');
   }
 
 
-  private static void serializeString(OutputStream out, String value) throws IOException {
+  private static void serializeString(IJsonBuffer out, String value) {
     // I-JSON strings may not contain non-characters nor lone surrogates per section 2.1 of RFC-7493
     out.write('"');
 
@@ -337,7 +484,7 @@ private static void serializeString(OutputStream out, String value) throws IOExc
   }
 
 
-  private static int serializeSurrogate(OutputStream out, String value, int i) throws IOException {
+  private static int serializeSurrogate(IJsonBuffer out, String value, int i) {
     int cp = value.codePointAt(i);
     if (cp < 0x1_0000) {
       throw new ForbiddenIJsonException(String.format("Lone surrogate \\u%04x at index %d", cp, i));
@@ -347,6 +494,23 @@ private static int serializeSurrogate(OutputStream out, String value, int i) thr
   }
 
 
+  /**
+   * Serialize the JsonValue into a byte array.
+   *
+   * @param value       the value to write
+   * @param destination the array to write to, starting at index zero
+   *
+   * @return the number of bytes written
+   *
+   * @throws BufferOverflowException if the output does not fit in the array
+   */
+  public static int serializeTo(JsonValue value, @Nonnull byte[] destination) {
+    IJsonBuffer buffer = new IJsonBuffer(destination, 0, destination.length);
+    serializeInternal(buffer, value);
+    return buffer.position();
+  }
+
+
   /**
    * Serialize the JsonValue to a String.
    *
@@ -355,13 +519,13 @@ private static int serializeSurrogate(OutputStream out, String value, int i) thr
    * @return the JsonValue as canonical I-JSON
    */
   public static String serializeToText(JsonValue value) {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    serialize(baos, value);
-    return baos.toString(StandardCharsets.UTF_8);
+    IJsonBuffer buffer = new IJsonBuffer();
+    serializeInternal(buffer, value);
+    return buffer.toText();
   }
 
 
-  private static void serializeUTF8(OutputStream out, int cp) throws IOException {
+  private static void serializeUTF8(IJsonBuffer out, int cp) {
     assert cp >= 0x80;
     if ((0xfdd0 <= cp && cp <= 0xfdef) || (((cp & 0xfffe) == 0xfffe))) {
       throw new ForbiddenIJsonException("Non-characters are not permitted: U+" + Integer.toHexString(cp));
@@ -382,6 +546,104 @@ private static void serializeUTF8(OutputStream out, int cp) throws IOException {
   }
 
 
+  private static void streamArray(IJsonBuffer out, CJParser parser) {
+    byte prefix = '[';
+    int index = 0;
+    Event event;
+    while ((event = parser.next()) != Event.END_ARRAY) {
+      out.write(prefix);
+      prefix = ',';
+      try {
+        streamValue(out, parser, event);
+      } catch (ForbiddenIJsonException e) {
+        throw e.within(Integer.toString(index));
+      }
+      index++;
+    }
+    if (prefix == '[') {
+      out.write('[');
+    }
+    out.write(']');
+  }
+
+
+  private static void streamObject(IJsonBuffer out, CJParser parser) {
+    // The current run of members with names which may be out of order, as in serializeSortedObject.
+    List<Entry<String, JsonValue>> run = new ArrayList<>();
+    boolean runHasSurrogate = false;
+    byte prefix = '{';
+    String previous = null;
+    while (parser.next() != Event.END_OBJECT) {
+      String key = parser.getString();
+      if (previous != null && CodePointOrder.INSTANCE.compare(previous, key) >= 0) {
+        throw new JsonException("Object members are not in code point order at \"" + key + "\"");
+      }
+      previous = key;
+
+      Event event = parser.next();
+      int high = highCharacters(key);
+      if (high != HIGH_NONE) {
+        run.add(new SimpleImmutableEntry<>(key, parser.getValue()));
+        runHasSurrogate |= high == HIGH_SURROGATE;
+        continue;
+      }
+
+      if (!run.isEmpty()) {
+        prefix = serializeMembers(out, prefix, run, runHasSurrogate);
+        run.clear();
+        runHasSurrogate = false;
+      }
+      out.write(prefix);
+      prefix = ',';
+      try {
+        serializeString(out, key);
+        out.write(':');
+        streamValue(out, parser, event);
+      } catch (ForbiddenIJsonException e) {
+        throw e.within(key);
+      }
+    }
+    prefix = serializeMembers(out, prefix, run, runHasSurrogate);
+    if (prefix == '{') {
+      out.write('{');
+    }
+    out.write('}');
+  }
+
+
+  private static void streamValue(IJsonBuffer out, CJParser parser, Event event) {
+    switch (event) {
+      case START_OBJECT:
+        streamObject(out, parser);
+        break;
+      case START_ARRAY:
+        streamArray(out, parser);
+        break;
+      case VALUE_STRING:
+        serializeString(out, parser.getString());
+        break;
+      case VALUE_NUMBER:
+        serializeNumber(out, (JsonNumber) parser.getValue());
+        break;
+      case VALUE_TRUE:
+        serializeBoolean(out, true);
+        break;
+      case VALUE_FALSE:
+        serializeBoolean(out, false);
+        break;
+      default:
+        serializeNull(out);
+        break;
+    }
+  }
+
+
+  /** Get the values in an array. A CJArray's own list is read directly, so that reading it does not stop it being shared with its copies. */
+  private static List<? extends JsonValue> values(JsonArray array) {
+    return (array instanceof CJArray) ? ((CJArray) array).readOnlyList() : array;
+  }
+
+
   static {
     byte[] escaped = new byte[128];
 
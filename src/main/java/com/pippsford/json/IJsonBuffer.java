@@ -0,0 +1,247 @@
+package com.pippsford.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.pippsford.json.exception.JsonIOException;
+import com.pippsford.json.ijson.IJsonNumberSerializer;
+
+/**
+ * A byte buffer for writing I-JSON. Output is collected in an array and passed on in large blocks, so writing a character is an array store rather than a
+ * call to a stream.
+ *
+ * <p>A buffer may grow as needed, pass its contents to a stream whenever it fills, or write into a fixed region of an array supplied by the caller.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class IJsonBuffer extends OutputStream {
+
+  /** The size of the blocks passed to a stream. */
+  static final int BLOCK_SIZE = 8192;
+
+  /** Initial size of a growable buffer. */
+  private static final int INITIAL_SIZE = 256;
+
+  /** True if the buffer writes into a fixed region and cannot grow. */
+  private final boolean fixed;
+
+  /** The stream which receives the output, if any. */
+  private final OutputStream sink;
+
+  /** The start of the output in the array. */
+  private final int start;
+
+  /** The array holding the output. */
+  private byte[] buffer;
+
+  /** The position of the next byte in the array. */
+  private int count;
+
+  /** The end of the usable region of the array. */
+  private int limit;
+
+
+  /** New growable buffer. */
+  IJsonBuffer() {
+    this(new byte[INITIAL_SIZE], 0, INITIAL_SIZE, false, null);
+  }
+
+
+  /**
+   * New buffer which passes its contents to a stream whenever it fills. The final contents are only passed on when {@link #flush()} is called.
+   *
+   * @param sink the stream
+   */
+  IJsonBuffer(OutputStream sink) {
+    this(new byte[BLOCK_SIZE], 0, BLOCK_SIZE, false, sink);
+  }
+
+
+  /**
+   * New buffer which writes into a fixed region of an array. If the region is too small, a {@link BufferOverflowException} is thrown.
+   *
+   * @param array  the array
+   * @param offset the start of the region
+   * @param length the length of the region
+   */
+  IJsonBuffer(byte[] array, int offset, int length) {
+    this(array, offset, offset + length, true, null);
+  }
+
+
+  private IJsonBuffer(byte[] buffer, int start, int limit, boolean fixed, OutputStream sink) {
+    this.buffer = buffer;
+    this.start = start;
+    this.count = start;
+    this.limit = limit;
+    this.fixed = fixed;
+    this.sink = sink;
+  }
+
+
+  /**
+   * Make room for at least one more byte, and up to the requested number of bytes.
+   *
+   * @param needed the number of bytes wanted
+   *
+   * @return the number of bytes available, which is at least one
+   */
+  private int ensure(int needed) {
+    int available = limit - count;
+    if (available >= needed) {
+      return available;
+    }
+    if (sink != null) {
+      flush();
+      return limit - count;
+    }
+    if (fixed) {
+      if (available > 0) {
+        return available;
+      }
+      throw new BufferOverflowException();
+    }
+    buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + needed));
+    limit = buffer.length;
+    return limit - count;
+  }
+
+
+  /**
+   * Pass the contents of the buffer to the stream. A buffer without a stream keeps its contents.
+   *
+   * @throws JsonIOException if the stream fails
+   */
+  @Override
+  public void flush() {
+    if (sink == null || count == start) {
+      return;
+    }
+    try {
+      sink.write(buffer, start, count - start);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    count = start;
+  }
+
+
+  /**
+   * Get the position just after the last byte written into the array.
+   *
+   * @return the position
+   */
+  int position() {
+    return count;
+  }
+
+
+  /**
+   * Get the contents of the buffer.
+   *
+   * @return a copy of the contents
+   */
+  byte[] toByteArray() {
+    return Arrays.copyOfRange(buffer, start, count);
+  }
+
+
+  /**
+   * Get the contents of the buffer as text.
+   *
+   * @return the contents decoded as UTF-8
+   */
+  String toText() {
+    return new String(buffer, start, count - start, StandardCharsets.UTF_8);
+  }
+
+
+  @Override
+  public void write(int b) {
+    if (count == limit) {
+      ensure(1);
+    }
+    buffer[count++] = (byte) b;
+  }
+
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) {
+    while (length > 0) {
+      int size = Math.min(length, ensure(length));
+      System.arraycopy(bytes, offset, buffer, count, size);
+      count += size;
+      offset += size;
+      length -= size;
+    }
+  }
+
+
+  /**
+   * Write characters which are known to be in the ASCII range.
+   *
+   * @param text the text containing the characters
+   * @param from the index of the first character
+   * @param to   the index after the last character
+   */
+  @SuppressWarnings("deprecation") // The deprecated method is exactly the bulk narrowing copy wanted here.
+  void writeAscii(String text, int from, int to) {
+    while (from < to) {
+      int size = Math.min(to - from, ensure(to - from));
+      text.getBytes(from, from + size, buffer, count);
+      count += size;
+      from += size;
+    }
+  }
+
+
+  /**
+   * Write a number in its I-JSON form. The digits are formatted straight into the array.
+   *
+   * @param value the number
+   */
+  void writeNumber(double value) {
+    if (ensure(IJsonNumberSerializer.MAX_DOUBLE_LENGTH) >= IJsonNumberSerializer.MAX_DOUBLE_LENGTH) {
+      count = IJsonNumberSerializer.serialize(buffer, count, value);
+      return;
+    }
+
+    // Only a fixed region can run short, so format the number aside and let the copy find out if it fits.
+    byte[] bytes = new byte[IJsonNumberSerializer.MAX_DOUBLE_LENGTH];
+    write(bytes, 0, IJsonNumberSerializer.serialize(bytes, 0, value));
+  }
+
+
+  /**
+   * Write an integer as plain decimal digits. The digits are formatted straight into the array.
+   *
+   * @param value the integer
+   */
+  void writeNumber(long value) {
+    if (ensure(IJsonNumberSerializer.MAX_LONG_LENGTH) >= IJsonNumberSerializer.MAX_LONG_LENGTH) {
+      count = IJsonNumberSerializer.serialize(buffer, count, value);
+      return;
+    }
+
+    // Only a fixed region can run short, so format the number aside and let the copy find out if it fits.
+    byte[] bytes = new byte[IJsonNumberSerializer.MAX_LONG_LENGTH];
+    write(bytes, 0, IJsonNumberSerializer.serialize(bytes, 0, value));
+  }
+
+
+  /**
+   * Copy the contents of the buffer into a byte buffer.
+   *
+   * @param destination the byte buffer
+   *
+   * @throws BufferOverflowException if the contents do not fit
+   */
+  void writeTo(ByteBuffer destination) {
+    destination.put(buffer, start, count - start);
+  }
+
+}
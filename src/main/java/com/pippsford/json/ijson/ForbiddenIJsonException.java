@@ -1,19 +1,74 @@
 package com.pippsford.json.ijson;
 
 import com.pippsford.json.exception.ForbiddenJsonException;
+import com.pippsford.json.pointer.Pointer;
 
 /**
  * Thrown when attempting to write a JSON value which is outside the I-JSON subset.
  */
 public class ForbiddenIJsonException extends ForbiddenJsonException {
 
+  /** The JSON Pointer to the forbidden value. */
+  private final String path;
+
+  /** The reason the value is forbidden. */
+  private final String reason;
+
+
   /**
    * New instance with the detail message.
    *
    * @param message the message
    */
   public ForbiddenIJsonException(String message) {
-    super(message);
+    this(message, "");
+  }
+
+
+  /**
+   * New instance for a forbidden value at a location.
+   *
+   * @param reason the reason the value is forbidden
+   * @param path   the JSON Pointer to the value
+   */
+  public ForbiddenIJsonException(String reason, String path) {
+    super(path.isEmpty() ? reason : reason + " [path=" + path + "]");
+    this.reason = reason;
+    this.path = path;
+  }
+
+
+  /**
+   * Get the JSON Pointer to the forbidden value, relative to the value being written. The pointer is empty if the value being written is forbidden itself.
+   *
+   * @return the pointer
+   */
+  public String getPath() {
+    return path;
+  }
+
+
+  /**
+   * Get the reason the value is forbidden.
+   *
+   * @return the reason
+   */
+  public String getReason() {
+    return reason;
+  }
+
+
+  /**
+   * Create the equivalent exception for the structure which contains the forbidden value.
+   *
+   * @param key the member name or array index of the value which contained the forbidden value
+   *
+   * @return the new exception
+   */
+  public ForbiddenIJsonException within(String key) {
+    ForbiddenIJsonException outer = new ForbiddenIJsonException(reason, "/" + Pointer.escapeKey(key) + path);
+    outer.setStackTrace(getStackTrace());
+    return outer;
   }
 
 }
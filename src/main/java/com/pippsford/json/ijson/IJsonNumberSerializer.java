@@ -19,11 +19,10 @@
  *
  */
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.UncheckedIOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -32,6 +31,12 @@
  */
 public final class IJsonNumberSerializer {
 
+  /** The maximum number of bytes needed to write a double, including its sign. */
+  public static final int MAX_DOUBLE_LENGTH = 25;
+
+  /** The maximum number of bytes needed to write a long, including its sign. */
+  public static final int MAX_LONG_LENGTH = 20;
+
   private static final int DOUBLE_EXPONENT_BITS = 11;
 
   private static final int DOUBLE_EXPONENT_BIAS = (1 << (DOUBLE_EXPONENT_BITS - 1)) - 1;
@@ -221,28 +226,14 @@ private static int pow5bits(int e) {
    * @throws IOException if the output stream fails
    */
   public static void serialize(OutputStream out, int value) throws IOException {
-    // Convert
-    long longValue = value;
-    if (longValue < 0) {
-      out.write('-');
-      longValue = -longValue;
-    }
-
     // Need special handling for zero, so may as well do all single digit integers.
-    if (longValue < 10) {
-      out.write((byte) ('0' + longValue));
+    if (0 <= value && value < 10) {
+      out.write('0' + value);
       return;
     }
 
-    // Multi-digit integer.
-    byte[] bytes = new byte[10];
-    int i = 10;
-    while (longValue > 0) {
-      i--;
-      bytes[i] = (byte) ('0' + (longValue % 10));
-      longValue /= 10;
-    }
-    out.write(bytes, i, 10 - i);
+    byte[] bytes = new byte[MAX_LONG_LENGTH];
+    out.write(bytes, 0, serialize(bytes, 0, value));
   }
 
 
@@ -258,16 +249,8 @@ public static void serialize(OutputStream out, int value) throws IOException {
    * @throws IOException if the output stream fails
    */
   public static void serialize(OutputStream out, double value) throws IOException {
-    // First, handle the JSON cases.
-    if (value == 0.0) {
-      out.write('0');
-      return;
-    }
-    if (Double.isNaN(value) || Double.isInfinite(value)) {
-      throw new ForbiddenIJsonException("NaN/Infinity not allowed in JSON");
-    }
-
-    new IJsonNumberSerializer(value).serialize0(out);
+    byte[] bytes = new byte[MAX_DOUBLE_LENGTH];
+    out.write(bytes, 0, serialize(bytes, 0, value));
   }
 
 
@@ -286,19 +269,109 @@ public static String serialize(double value) {
     if (value == 0.0) {
       return "0";
     }
+
+    byte[] bytes = new byte[MAX_DOUBLE_LENGTH];
+    return new String(bytes, 0, serialize(bytes, 0, value), StandardCharsets.US_ASCII);
+  }
+
+
+  /**
+   * Formats a number into an array, according to ECMAScript. At most {@value #MAX_DOUBLE_LENGTH} bytes are written.
+   *
+   * @param buffer the array
+   * @param offset the position of the first byte to write
+   * @param value  the value to be formatted
+   *
+   * @return the position just after the last byte written
+   *
+   * @throws IndexOutOfBoundsException if the array is too short
+   */
+  public static int serialize(byte[] buffer, int offset, double value) {
+    // First, handle the JSON cases.
+    if (value == 0.0) {
+      buffer[offset] = '0';
+      return offset + 1;
+    }
     if (!Double.isFinite(value)) {
       throw new ForbiddenIJsonException("NaN/Infinity not allowed in JSON");
     }
 
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    try {
-      serialize(out, value);
-    } catch (IOException e) {
-      // Should never happen as ByteArrayOutputStream does not throw IOExceptions
-      throw new UncheckedIOException(e);
+    return new IJsonNumberSerializer(value).serialize0(buffer, offset);
+  }
+
+
+  /**
+   * Formats an integer into an array as plain decimal digits. At most {@value #MAX_LONG_LENGTH} bytes are written. Only integers within the safe range of
+   * I-JSON are exactly representable in ECMAScript, which the caller must check if required.
+   *
+   * @param buffer the array
+   * @param offset the position of the first byte to write
+   * @param value  the value to be formatted
+   *
+   * @return the position just after the last byte written
+   *
+   * @throws IndexOutOfBoundsException if the array is too short
+   */
+  public static int serialize(byte[] buffer, int offset, long value) {
+    // Work with the negative value, as Long.MIN_VALUE cannot be negated.
+    long negative = value;
+    if (value < 0) {
+      buffer[offset++] = '-';
+    } else {
+      negative = -value;
     }
 
-    return out.toString(StandardCharsets.US_ASCII);
+    int end = offset + (negative == Long.MIN_VALUE ? 19 : decimalLength(-negative));
+    int index = end;
+    do {
+      buffer[--index] = (byte) ('0' - negative % 10);
+      negative /= 10;
+    } while (negative != 0);
+    return end;
+  }
+
+
+  /**
+   * Formats a number into a byte buffer, according to ECMAScript. The digits are written straight into a buffer's backing array where possible.
+   *
+   * @param buffer the buffer
+   * @param value  the value to be formatted
+   *
+   * @return the new position of the buffer
+   *
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+   */
+  public static int serialize(ByteBuffer buffer, double value) {
+    if (buffer.hasArray() && buffer.remaining() >= MAX_DOUBLE_LENGTH) {
+      int start = buffer.arrayOffset() + buffer.position();
+      int end = serialize(buffer.array(), start, value);
+      return buffer.position(buffer.position() + end - start).position();
+    }
+
+    byte[] bytes = new byte[MAX_DOUBLE_LENGTH];
+    return buffer.put(bytes, 0, serialize(bytes, 0, value)).position();
+  }
+
+
+  /**
+   * Formats an integer into a byte buffer as plain decimal digits. The digits are written straight into a buffer's backing array where possible.
+   *
+   * @param buffer the buffer
+   * @param value  the value to be formatted
+   *
+   * @return the new position of the buffer
+   *
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+   */
+  public static int serialize(ByteBuffer buffer, long value) {
+    if (buffer.hasArray() && buffer.remaining() >= MAX_LONG_LENGTH) {
+      int start = buffer.arrayOffset() + buffer.position();
+      int end = serialize(buffer.array(), start, value);
+      return buffer.position(buffer.position() + end - start).position();
+    }
+
+    byte[] bytes = new byte[MAX_LONG_LENGTH];
+    return buffer.put(bytes, 0, serialize(bytes, 0, value)).position();
   }
 
 
@@ -388,7 +461,7 @@ public static String serialize(double value) {
    * This code is emulating 7.1.12.1 of the EcmaScript V6 specification.
    * </p>
    */
-  private void serialize0(OutputStream out) throws IOException {
+  private int serialize0(byte[] result, int index) {
     step1and2();
 
     step3();
@@ -397,19 +470,15 @@ private void serialize0(OutputStream out) throws IOException {
 
     // Step 5: Print the decimal representation.
     // We follow ECMAScript/JCS semantics here.
-    byte[] result = new byte[25];
-    int index = 0;
     if (sign) {
-      out.write('-');
+      result[index++] = '-';
     }
 
     if (scientificNotation) {
       // Print in the format x.xxxxxE-yy.
-      index = writeScientific(result, index);
-    } else {
-      index = writeNormal(result, index);
+      return writeScientific(result, index);
     }
-    out.write(result, 0, index);
+    return writeNormal(result, index);
   }
 
 
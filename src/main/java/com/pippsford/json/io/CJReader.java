@@ -1,5 +1,6 @@
 package com.pippsford.json.io;
 
+import java.io.IOException;
 import java.io.Reader;
 
 import com.pippsford.json.CJArray;
@@ -13,7 +14,9 @@
 import jakarta.json.JsonValue.ValueType;
 import jakarta.json.stream.JsonParsingException;
 
+import com.pippsford.json.parser.LazyParser;
 import com.pippsford.json.parser.Parser;
+import com.pippsford.json.pointer.tree.Projection;
 
 /**
  * A JSON reader implementation.
@@ -22,8 +25,14 @@
  */
 public class CJReader implements JsonReader {
 
+  private final KeyStrategy keyStrategy;
+
+  /** The parser, if not reading lazily. */
   private final Parser parser;
 
+  /** The text source, if reading lazily. */
+  private final Reader reader;
+
   private boolean isUsed = false;
 
 
@@ -34,7 +43,43 @@ public class CJReader implements JsonReader {
    * @param keyStrategy the key strategy
    */
   CJReader(Reader reader, KeyStrategy keyStrategy) {
-    parser = new Parser(reader, keyStrategy);
+    this(reader, keyStrategy, false, null);
+  }
+
+
+  /**
+   * New instance.
+   *
+   * @param reader      the text source
+   * @param keyStrategy the key strategy
+   * @param lazy        if true, structures are decoded lazily
+   * @param projection  if not null, only the parts of the value accepted by this projection are read
+   */
+  CJReader(Reader reader, KeyStrategy keyStrategy, boolean lazy, Projection projection) {
+    this(reader, keyStrategy, lazy, projection, false);
+  }
+
+
+  /**
+   * New instance.
+   *
+   * @param reader      the text source
+   * @param keyStrategy the key strategy
+   * @param lazy        if true, structures are decoded lazily. Ignored if I-JSON is required.
+   * @param projection  if not null, only the parts of the value accepted by this projection are read
+   * @param ijsonStrict if true, strings and numbers must be valid I-JSON
+   */
+  CJReader(Reader reader, KeyStrategy keyStrategy, boolean lazy, Projection projection, boolean ijsonStrict) {
+    this.keyStrategy = keyStrategy;
+    if (lazy && !ijsonStrict) {
+      this.reader = reader;
+      parser = null;
+    } else {
+      this.reader = null;
+      parser = new Parser(reader, keyStrategy);
+      parser.setProjection(projection);
+      parser.setIJsonStrict(ijsonStrict);
+    }
   }
 
 
@@ -45,6 +90,16 @@ private JsonParsingException badType(String expected, ValueType actual) {
 
   @Override
   public void close() {
+    if (parser == null) {
+      // The lazy parser has already checked for additional data.
+      isUsed = true;
+      try {
+        reader.close();
+      } catch (IOException e) {
+        throw new JsonParsingException("I/O failure", e, Location.UNSET);
+      }
+      return;
+    }
     if (isUsed && parser.hasNext()) {
       // Currently, JParser.hasNext fails if there is more than one root, so this line is unnecessary
       throw new JsonParsingException("Additional data found after first value", parser.getLocation());
@@ -92,6 +147,9 @@ public Canonical readValue() {
       throw new IllegalStateException("This JsonReader has already been used");
     }
     isUsed = true;
+    if (parser == null) {
+      return LazyParser.parse(reader, keyStrategy);
+    }
     if (!parser.hasNext()) {
       throw new JsonParsingException("No data found in document", Location.UNSET);
     }
@@ -6,6 +6,7 @@
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
@@ -13,6 +14,10 @@
 import jakarta.json.JsonConfig.KeyStrategy;
 import jakarta.json.JsonReaderFactory;
 
+import com.pippsford.json.parser.ParserFactory;
+import com.pippsford.json.pointer.tree.PointerTree;
+import com.pippsford.json.pointer.tree.Projection;
+
 /**
  * A factory for creating JSON readers.
  *
@@ -20,28 +25,65 @@
  */
 public class ReaderFactory implements JsonReaderFactory {
 
+  /**
+   * Configuration property to check strings and numbers against the I-JSON (RFC 7493) rules as they are read. If true, lone surrogates, non-characters and
+   * numbers which are not exactly representable as IEEE doubles are rejected with a parsing exception. If set, documents are not read lazily, as the checks
+   * must happen before the document is returned. The default is false.
+   */
+  public static final String IJSON_STRICT = "com.pippsford.json.reader.ijsonStrict";
+
+  /**
+   * Configuration property to read documents lazily. If true, the whole document is read into memory and indexed, but objects and arrays only decode
+   * their members when they are requested. The default is false.
+   */
+  public static final String LAZY = "com.pippsford.json.reader.lazy";
+
+  /**
+   * Configuration property to only read part of each document. The value may be a {@link PointerTree} or a {@link Projection}, and the value read is the
+   * same as the tree would copy from the full document. Parts of the document which are not required are skipped over without being decoded. If set,
+   * documents are not read lazily.
+   */
+  public static final String PROJECTION = "com.pippsford.json.reader.projection";
+
   /** A factory with the default configuration. */
   public static final ReaderFactory STANDARD = new ReaderFactory();
 
+
+  private static boolean isSet(Map<String, ?> settings, String name) {
+    Object val = settings.get(name);
+    return val != null && Boolean.parseBoolean(String.valueOf(val));
+  }
+
+
   private final Map<String, ?> config;
 
+  private final boolean ijsonStrict;
+
   private final KeyStrategy keyStrategy;
 
+  private final boolean lazy;
+
+  private final Projection projection;
+
 
   /** New instance. */
   public ReaderFactory() {
     config = Map.of(JsonConfig.KEY_STRATEGY, KeyStrategy.LAST);
+    ijsonStrict = false;
     keyStrategy = KeyStrategy.LAST;
+    lazy = false;
+    projection = null;
   }
 
 
   /**
-   * New instance. Note the only configuration option is the key strategy.
+   * New instance. Note the only configuration options are the key strategy, lazy reading, a projection, and I-JSON checking.
    *
    * @param config the reader configuration
    */
   public ReaderFactory(Map<String, ?> config) {
-    Object val = (config != null) ? config.get(JsonConfig.KEY_STRATEGY) : null;
+    Map<String, ?> settings = (config != null) ? config : Map.of();
+    Object val = settings.get(JsonConfig.KEY_STRATEGY);
     if (val == null) {
       keyStrategy = KeyStrategy.LAST;
     } else {
@@ -59,13 +101,30 @@ public ReaderFactory(Map<String, ?> config) {
       }
     }
 
-    this.config = Map.of(JsonConfig.KEY_STRATEGY, keyStrategy);
+    Object projectionConfig = settings.get(PROJECTION);
+    projection = ParserFactory.toProjection(projectionConfig);
+
+    ijsonStrict = isSet(settings, IJSON_STRICT);
+    lazy = projection == null && !ijsonStrict && isSet(settings, LAZY);
+
+    HashMap<String, Object> map = new HashMap<>();
+    map.put(JsonConfig.KEY_STRATEGY, keyStrategy);
+    if (lazy) {
+      map.put(LAZY, true);
+    }
+    if (ijsonStrict) {
+      map.put(IJSON_STRICT, true);
+    }
+    if (projection != null) {
+      map.put(PROJECTION, projectionConfig);
+    }
+    this.config = Map.copyOf(map);
   }
 
 
   @Override
   public CJReader createReader(Reader reader) {
-    return new CJReader(reader, keyStrategy);
+    return new CJReader(reader, keyStrategy, lazy, projection, ijsonStrict);
   }
 
 
@@ -77,7 +136,7 @@ public CJReader createReader(InputStream in) {
 
   @Override
   public CJReader createReader(InputStream in, Charset charset) {
-    return new CJReader(new InputStreamReader(in, charset), keyStrategy);
+    return createReader(new InputStreamReader(in, charset));
   }
 
 
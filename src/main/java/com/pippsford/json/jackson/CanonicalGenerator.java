@@ -19,6 +19,7 @@
 import com.pippsford.json.primitive.CJJson;
 import com.pippsford.json.primitive.CJNull;
 import com.pippsford.json.primitive.CJTrue;
+import com.pippsford.json.primitive.numbers.CJNumber;
 import jakarta.json.JsonValue;
 import jakarta.json.JsonValue.ValueType;
 import java.io.ByteArrayInputStream;
@@ -508,13 +509,13 @@ public void writeNull() throws IOException {
 
   @Override
   public void writeNumber(int v) throws IOException {
-    writeCanonical(Canonical.create(v));
+    writeCanonical(CJNumber.create(v));
   }
 
 
   @Override
   public void writeNumber(long v) throws IOException {
-    writeCanonical(Canonical.create(v));
+    writeCanonical(CJNumber.create(v));
   }
 
 
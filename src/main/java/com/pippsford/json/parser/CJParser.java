@@ -3,6 +3,7 @@
 import com.pippsford.json.CJArray;
 import com.pippsford.json.CJObject;
 import com.pippsford.json.Canonical;
+import jakarta.json.JsonConfig.KeyStrategy;
 import jakarta.json.stream.JsonParser;
 
 /** A JsonParser that returns Canonical values. */
@@ -14,6 +15,15 @@ public interface CJParser extends JsonParser {
   @Override
   CJObject getObject();
 
+  /**
+   * Get the strategy this parser uses when an object contains the same key more than once.
+   *
+   * @return the key strategy
+   */
+  default KeyStrategy getKeyStrategy() {
+    return KeyStrategy.LAST;
+  }
+
   @Override
   Canonical getValue();
 
@@ -0,0 +1,50 @@
+package com.pippsford.json.parser;
+
+import java.io.Serial;
+
+import com.pippsford.json.CJArray;
+
+/**
+ * A JSON array whose elements are only decoded from the document's text when they are first requested. Once the array is modified, it is fully decoded and
+ * behaves exactly like a regular {@link CJArray}. Nested objects and arrays are themselves lazy.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class LazyArray extends CJArray {
+
+  /** The lazily decoded backing list. */
+  private final transient LazyList lazyList;
+
+
+  /**
+   * New instance.
+   *
+   * @param list the backing list
+   */
+  LazyArray(LazyList list) {
+    super(list);
+    lazyList = list;
+  }
+
+
+  /**
+   * Has this array been fully decoded?. Nested structures may still be only partially decoded.
+   *
+   * @return true if this array's elements have all been decoded
+   */
+  public boolean isMaterialised() {
+    return lazyList.isMaterialised();
+  }
+
+
+  /**
+   * Serialize as a regular array, as the document's text is not retained.
+   *
+   * @return a regular array with the same elements
+   */
+  @Serial
+  protected Object writeReplace() {
+    return new CJArray(this);
+  }
+
+}
@@ -0,0 +1,633 @@
+package com.pippsford.json.parser;
+
+import static com.pippsford.json.parser.Parser.isWhite;
+import static com.pippsford.json.parser.Parser.safe;
+
+import java.io.CharArrayReader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import jakarta.json.JsonConfig.KeyStrategy;
+import jakarta.json.stream.JsonLocation;
+import jakarta.json.stream.JsonParsingException;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.io.Input;
+import com.pippsford.json.io.Location;
+import com.pippsford.json.io.MutableLocation;
+import com.pippsford.json.primitive.CJFalse;
+import com.pippsford.json.primitive.CJNull;
+import com.pippsford.json.primitive.CJString;
+import com.pippsford.json.primitive.CJTrue;
+import com.pippsford.json.primitive.numbers.NumberParser;
+
+/**
+ * A structural index over a JSON document held in memory. A single pass over the text validates the syntax of the document, including its literals, numbers
+ * and escape sequences, and records where every structure starts and ends. Nothing is decoded during that pass. Members are decoded on demand by the lazy
+ * maps and lists that use this index.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class LazyIndex {
+
+  /** Scanner state: expecting a value. */
+  private static final int STATE_VALUE = 0;
+
+  /** Scanner state: expecting a value or the end of an array. */
+  private static final int STATE_VALUE_OR_END = 1;
+
+  /** Scanner state: expecting a key or the end of an object. */
+  private static final int STATE_KEY_OR_END = 2;
+
+  /** Scanner state: expecting a key. */
+  private static final int STATE_KEY = 3;
+
+  /** Scanner state: expecting a colon. */
+  private static final int STATE_COLON = 4;
+
+  /** Scanner state: expecting a comma or the end of a structure. */
+  private static final int STATE_AFTER_VALUE = 5;
+
+
+  /**
+   * Test if a character terminates a scalar token.
+   *
+   * @param c the character
+   *
+   * @return true if the character ends a scalar
+   */
+  private static boolean isScalarEnd(char c) {
+    switch (c) {
+      case ',': // falls through
+      case ':': // falls through
+      case '[': // falls through
+      case ']': // falls through
+      case '{': // falls through
+      case '}': // falls through
+      case '"':
+        return true;
+      default:
+        return isWhite(c);
+    }
+  }
+
+
+  /**
+   * Test if a character can start a number or a literal.
+   *
+   * @param c the character
+   *
+   * @return true if the character can start a scalar
+   */
+  private static boolean isScalarStart(char c) {
+    switch (c) {
+      case '-': // falls through
+      case 'f': // falls through
+      case 'n': // falls through
+      case 't':
+        return true;
+      default:
+        return '0' <= c && c <= '9';
+    }
+  }
+
+
+  /** The state of the single pass over the document's text. */
+  private class Scanner {
+
+    /** The current nesting depth. */
+    int depth = 0;
+
+    /** The indices of the currently open structures. */
+    int[] stack = new int[16];
+
+    /** What the scanner expects to see next. */
+    int state = STATE_VALUE;
+
+
+    /**
+     * Accept the next non-white character.
+     *
+     * @param pos the position of the character
+     *
+     * @return the position of the last character consumed
+     */
+    int accept(int pos) {
+      char c = buffer[pos];
+      switch (state) {
+        case STATE_VALUE_OR_END:
+          if (c == ']') {
+            return close(pos);
+          }
+          return value(pos);
+        case STATE_VALUE:
+          return value(pos);
+        case STATE_KEY_OR_END:
+          if (c == '}') {
+            return close(pos);
+          }
+          return key(pos);
+        case STATE_KEY:
+          return key(pos);
+        case STATE_COLON:
+          if (c != ':') {
+            throw new JsonParsingException(String.format("A ':' is required after a field name. Saw %s", safe(c)), locationOf(pos));
+          }
+          state = STATE_VALUE;
+          return pos;
+        default:
+          return afterValue(pos);
+      }
+    }
+
+
+    /**
+     * Accept a character after a value.
+     *
+     * @param pos the position of the character
+     *
+     * @return the position of the last character consumed
+     */
+    private int afterValue(int pos) {
+      char c = buffer[pos];
+      if (depth == 0) {
+        throw new JsonParsingException(String.format("Saw %s after root value.", safe(c)), locationOf(pos));
+      }
+      boolean inObject = buffer[opens[stack[depth - 1]]] == '{';
+      if (c == ',') {
+        state = inObject ? STATE_KEY : STATE_VALUE;
+        return pos;
+      }
+      if (c == (inObject ? '}' : ']')) {
+        return close(pos);
+      }
+      throw new JsonParsingException(String.format("Expected a legitimate post-value character, but saw %s", safe(c)), locationOf(pos));
+    }
+
+
+    /**
+     * Close the current structure.
+     *
+     * @param pos the position of the closing bracket
+     *
+     * @return the position of the closing bracket
+     */
+    private int close(int pos) {
+      depth--;
+      closes[stack[depth]] = pos;
+      state = STATE_AFTER_VALUE;
+      return pos;
+    }
+
+
+    /**
+     * Accept a key.
+     *
+     * @param pos the position of the key's opening quote
+     *
+     * @return the position of the key's closing quote
+     */
+    private int key(int pos) {
+      if (buffer[pos] != '"') {
+        throw new JsonParsingException(String.format("Expecting a key-name, but saw %s", safe(buffer[pos])), locationOf(pos));
+      }
+      state = STATE_COLON;
+      return endOfString(pos);
+    }
+
+
+    /**
+     * Accept a value.
+     *
+     * @param pos the position of the value's first character
+     *
+     * @return the position of the last character consumed
+     */
+    private int value(int pos) {
+      if (rootStart == -1) {
+        rootStart = pos;
+      }
+      char c = buffer[pos];
+      if (c == '{' || c == '[') {
+        if (depth >= Parser.MAX_RECURSION_DEPTH) {
+          throw new JsonParsingException("Json structure has exceeded the configured maximum nesting depth of " + Parser.MAX_RECURSION_DEPTH,
+              locationOf(pos));
+        }
+        if (depth == stack.length) {
+          stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = open(pos);
+        state = (c == '{') ? STATE_KEY_OR_END : STATE_VALUE_OR_END;
+        return pos;
+      }
+
+      state = STATE_AFTER_VALUE;
+      if (c == '"') {
+        return endOfString(pos);
+      }
+      if (isScalarStart(c)) {
+        return scalarEnd(pos) - 1;
+      }
+      throw new JsonParsingException(String.format("Invalid input: %s", safe(c)), locationOf(pos));
+    }
+
+  }
+
+
+
+  /** The text of the document. */
+  private final char[] buffer;
+
+  /** The strategy for handling duplicate keys. */
+  private final KeyStrategy keyStrategy;
+
+  /** The length of the text in the buffer. */
+  private final int length;
+
+  /** The positions of every structure's closing bracket, in the same order as the opening brackets. */
+  private int[] closes = new int[16];
+
+  /** The number of structures in the document. */
+  private int count = 0;
+
+  /** The positions of every structure's opening bracket, in ascending order. */
+  private int[] opens = new int[16];
+
+  /** The position of the root value. */
+  private int rootStart = -1;
+
+
+  /**
+   * Create and populate the index.
+   *
+   * @param buffer      the document's text
+   * @param length      the length of the text in the buffer
+   * @param keyStrategy the strategy for handling duplicate keys
+   */
+  LazyIndex(char[] buffer, int length, KeyStrategy keyStrategy) {
+    this.buffer = buffer;
+    this.length = length;
+    this.keyStrategy = keyStrategy;
+    scan();
+  }
+
+
+  /**
+   * Get the character at a given position.
+   *
+   * @param pos the position
+   *
+   * @return the character
+   */
+  char charAt(int pos) {
+    return buffer[pos];
+  }
+
+
+  /**
+   * Find the position of the bracket that closes the structure opened at the given position.
+   *
+   * @param open the position of the opening bracket
+   *
+   * @return the position of the closing bracket
+   */
+  int closeOf(int open) {
+    int i = Arrays.binarySearch(opens, 0, count, open);
+    if (i < 0) {
+      throw new IllegalArgumentException("No structure starts at " + open);
+    }
+    return closes[i];
+  }
+
+
+  /**
+   * Decode the value starting at the specified position. Structures are returned as lazy instances backed by this index.
+   *
+   * @param start the first character of the value
+   * @param end   the position just after the last character of the value
+   *
+   * @return the value
+   */
+  Canonical decode(int start, int end) {
+    char c = buffer[start];
+    if (c == '{') {
+      return new LazyObject(new LazyMap(this, start));
+    }
+    if (c == '[') {
+      return new LazyArray(new LazyList(this, start));
+    }
+    if (c == '"') {
+      return CJString.create(decodeString(start, end - 1));
+    }
+
+    // Scalars are decoded straight from the buffer, which holds exactly the token.
+    CharBuffer text = CharBuffer.wrap(buffer, start, end - start);
+    switch (c) {
+      case 't':
+        return literal(text, "true", CJTrue.TRUE, start);
+      case 'f':
+        return literal(text, "false", CJFalse.FALSE, start);
+      case 'n':
+        return literal(text, "null", CJNull.NULL, start);
+      default:
+        return NumberParser.parseText(text, () -> locationOf(start));
+    }
+  }
+
+
+  /**
+   * Decode a string.
+   *
+   * @param open  the position of the opening quote
+   * @param close the position of the closing quote
+   *
+   * @return the string
+   */
+  String decodeString(int open, int close) {
+    for (int i = open + 1; i < close; i++) {
+      if (buffer[i] == '\\') {
+        return new StringParser(new Input(new CharArrayReader(buffer, open + 1, close - open))).parse();
+      }
+    }
+    return new String(buffer, open + 1, close - open - 1);
+  }
+
+
+  /**
+   * Find the end of the string starting at the given position.
+   *
+   * @param open the position of the opening quote
+   *
+   * @return the position of the closing quote
+   */
+  private int endOfString(int open) {
+    int pos = open + 1;
+    while (pos < length) {
+      char c = buffer[pos];
+      if (c == '"') {
+        return pos;
+      }
+      if (c == '\\') {
+        pos = escapeEnd(pos) - 1;
+      } else if (c < 32) {
+        throw new JsonParsingException(String.format("JSON strings must not contain C0 control codes, including 0x%04x", (int) c), locationOf(pos));
+      }
+      pos++;
+    }
+    throw new JsonParsingException("Unterminated string", locationOf(length));
+  }
+
+
+  /**
+   * Check an escape sequence in a string.
+   *
+   * @param pos the position of the backslash
+   *
+   * @return the position after the escape sequence
+   */
+  private int escapeEnd(int pos) {
+    int c = pos + 1 < length ? buffer[pos + 1] : -1;
+    if (c == 'u') {
+      for (int i = pos + 2; i < pos + 6; i++) {
+        if (i >= length || !Tape.isHex(buffer[i])) {
+          throw new JsonParsingException(String.format("Invalid hex character in \\u escape. Saw %s", safe(i < length ? buffer[i] : -1)), locationOf(i));
+        }
+      }
+      return pos + 6;
+    }
+    if (c == -1 || Tape.SIMPLE_ESCAPES.indexOf(c) < 0) {
+      throw new JsonParsingException(String.format("Invalid escape sequence '\\' followed by %s", safe(c)), locationOf(pos + 1));
+    }
+    return pos + 2;
+  }
+
+
+  /**
+   * Find the end of the exponent of a number, checking its syntax.
+   *
+   * @param start the start of the number
+   * @param pos   the position after the 'e'
+   *
+   * @return the position after the exponent
+   */
+  private int exponentEnd(int start, int pos) {
+    if (pos < length && (buffer[pos] == '+' || buffer[pos] == '-')) {
+      pos++;
+    }
+    return requireDigits(start, pos);
+  }
+
+
+  /**
+   * Get the strategy for handling duplicate keys.
+   *
+   * @return the key strategy
+   */
+  KeyStrategy getKeyStrategy() {
+    return keyStrategy;
+  }
+
+
+  /**
+   * Get the root value of the document.
+   *
+   * @return the root value
+   */
+  Canonical getRoot() {
+    return decode(rootStart, valueEnd(rootStart));
+  }
+
+
+  /**
+   * Get the location of a position in the text. This is only needed when reporting errors, so it is calculated by replaying the text.
+   *
+   * @param pos the position
+   *
+   * @return the location
+   */
+  JsonLocation locationOf(int pos) {
+    MutableLocation location = new MutableLocation();
+    int end = Math.min(pos, length);
+    for (int i = 0; i < end; i++) {
+      location.update(buffer[i]);
+    }
+    return new Location(location);
+  }
+
+
+  /**
+   * Check that a token is the expected literal.
+   *
+   * @param text     the token
+   * @param expected the literal's text
+   * @param value    the literal's value
+   * @param start    the position of the token
+   *
+   * @return the literal's value
+   */
+  private Canonical literal(CharBuffer text, String expected, Canonical value, int start) {
+    if (expected.contentEquals(text)) {
+      return value;
+    }
+    throw new JsonParsingException(String.format("Invalid literal: %s", text), locationOf(start));
+  }
+
+
+  /**
+   * Find the end of a number, checking its syntax.
+   *
+   * @param start the start of the number
+   *
+   * @return the position after the valid number, which may not be the end of the token
+   */
+  private int numberEnd(int start) {
+    int pos = buffer[start] == '-' ? start + 1 : start;
+    int digitStart = pos;
+    pos = requireDigits(start, pos);
+    if (buffer[digitStart] == '0' && pos - digitStart > 1) {
+      throw numberError(start);
+    }
+    if (pos < length && buffer[pos] == '.') {
+      pos = requireDigits(start, pos + 1);
+    }
+    if (pos < length && (buffer[pos] == 'e' || buffer[pos] == 'E')) {
+      pos = exponentEnd(start, pos + 1);
+    }
+    return pos;
+  }
+
+
+  /**
+   * Create the exception for an invalid number.
+   *
+   * @param start the start of the number
+   *
+   * @return the exception
+   */
+  private JsonParsingException numberError(int start) {
+    return new JsonParsingException("Invalid JSON number: \"" + new String(buffer, start, valueEnd(start) - start) + "\"", locationOf(start));
+  }
+
+
+  /**
+   * Record the start of a structure.
+   *
+   * @param pos the position of the opening bracket
+   *
+   * @return the index of the structure
+   */
+  private int open(int pos) {
+    if (count == opens.length) {
+      int newSize = count * 2;
+      opens = Arrays.copyOf(opens, newSize);
+      closes = Arrays.copyOf(closes, newSize);
+    }
+    opens[count] = pos;
+    return count++;
+  }
+
+
+  /**
+   * Skip over digits in a number, requiring at least one.
+   *
+   * @param start the start of the number
+   * @param pos   the position of the first digit
+   *
+   * @return the position after the digits
+   */
+  private int requireDigits(int start, int pos) {
+    int digitStart = pos;
+    while (pos < length && '0' <= buffer[pos] && buffer[pos] <= '9') {
+      pos++;
+    }
+    if (pos == digitStart) {
+      throw numberError(start);
+    }
+    return pos;
+  }
+
+
+  /**
+   * Find the end of a number or literal, checking its syntax without decoding it.
+   *
+   * @param start the first character of the scalar
+   *
+   * @return the position just after the last character of the scalar
+   */
+  private int scalarEnd(int start) {
+    int end = valueEnd(start);
+    CharBuffer text = CharBuffer.wrap(buffer, start, end - start);
+    switch (buffer[start]) {
+      case 't':
+        literal(text, "true", CJTrue.TRUE, start);
+        break;
+      case 'f':
+        literal(text, "false", CJFalse.FALSE, start);
+        break;
+      case 'n':
+        literal(text, "null", CJNull.NULL, start);
+        break;
+      default:
+        if (numberEnd(start) != end) {
+          throw numberError(start);
+        }
+        break;
+    }
+    return end;
+  }
+
+
+  /** Scan the whole document, validating its syntax and recording the extent of every array and object. */
+  private void scan() {
+    Scanner scanner = new Scanner();
+    int pos = skipWhite(0);
+    while (pos < length) {
+      pos = skipWhite(scanner.accept(pos) + 1);
+    }
+
+    if (rootStart == -1) {
+      throw new JsonParsingException("No data found in document", Location.UNSET);
+    }
+    if (scanner.depth != 0 || scanner.state != STATE_AFTER_VALUE) {
+      throw new JsonParsingException("Saw EOF when there were " + scanner.depth + " unclosed structures", locationOf(length));
+    }
+  }
+
+
+  /**
+   * Skip whitespace.
+   *
+   * @param pos the position to start from
+   *
+   * @return the position of the first non-white character, or the length of the text if there are none
+   */
+  int skipWhite(int pos) {
+    while (pos < length && isWhite(buffer[pos])) {
+      pos++;
+    }
+    return pos;
+  }
+
+
+  /**
+   * Find the end of the value starting at the given position. The document has already been validated, so this only needs to find the extent.
+   *
+   * @param start the first character of the value
+   *
+   * @return the position just after the last character of the value
+   */
+  int valueEnd(int start) {
+    char c = buffer[start];
+    if (c == '{' || c == '[') {
+      return closeOf(start) + 1;
+    }
+    if (c == '"') {
+      return endOfString(start) + 1;
+    }
+    int pos = start + 1;
+    while (pos < length && !isScalarEnd(buffer[pos])) {
+      pos++;
+    }
+    return pos;
+  }
+
+}
@@ -0,0 +1,185 @@
+package com.pippsford.json.parser;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+import com.pippsford.json.Canonical;
+
+/**
+ * A list backed by a JSON array's text. The extent of each element is found when the list is created, but an element is only decoded when it is first
+ * requested. Any modification causes the whole list to be decoded into a regular list, after which all operations are delegated to that list.
+ *
+ * <p>As elements are decoded on first access, even read operations update the list's state. Decoding is synchronized and the index is kept once the list is
+ * fully decoded, so like a regular list this may be read by several threads at once, but not read while it is being modified.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class LazyList extends AbstractList<Canonical> implements RandomAccess {
+
+  /** The index over the document's text. */
+  private final LazyIndex index;
+
+  /** The end of each element in the text. */
+  private final int[] ends;
+
+  /** The number of elements. */
+  private final int size;
+
+  /** The start of each element in the text. */
+  private final int[] starts;
+
+  /** The elements which have been decoded. Guarded by this. */
+  private final Canonical[] values;
+
+  /** The list once it has been fully decoded. */
+  private volatile ArrayList<Canonical> list = null;
+
+
+  /**
+   * New instance.
+   *
+   * @param index the index of the document
+   * @param open  the position of the array's opening bracket
+   */
+  LazyList(LazyIndex index, int open) {
+    this.index = index;
+    int close = index.closeOf(open);
+    int[] newStarts = new int[8];
+    int[] newEnds = new int[8];
+    int count = 0;
+
+    int pos = index.skipWhite(open + 1);
+    while (pos < close) {
+      if (count == newStarts.length) {
+        newStarts = Arrays.copyOf(newStarts, count * 2);
+        newEnds = Arrays.copyOf(newEnds, count * 2);
+      }
+      int end = index.valueEnd(pos);
+      newStarts[count] = pos;
+      newEnds[count] = end;
+      count++;
+
+      // skip over the comma, if present
+      pos = index.skipWhite(end);
+      if (index.charAt(pos) == ',') {
+        pos = index.skipWhite(pos + 1);
+      }
+    }
+    starts = newStarts;
+    ends = newEnds;
+    size = count;
+    values = new Canonical[count];
+  }
+
+
+  @Override
+  public void add(int i, Canonical element) {
+    list().add(i, element);
+    modCount++;
+  }
+
+
+  @Override
+  public Canonical get(int i) {
+    List<Canonical> current = list;
+    if (current != null) {
+      return current.get(i);
+    }
+    if (i < 0 || size <= i) {
+      throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + size);
+    }
+    return value(i);
+  }
+
+
+  /**
+   * Has this list been fully decoded?.
+   *
+   * @return true if fully decoded
+   */
+  boolean isMaterialised() {
+    return list != null;
+  }
+
+
+  @Override
+  public Iterator<Canonical> iterator() {
+    List<Canonical> current = list;
+    return (current != null) ? current.iterator() : super.iterator();
+  }
+
+
+  /**
+   * Get the fully decoded list, decoding it if necessary.
+   *
+   * @return the decoded list
+   */
+  private List<Canonical> list() {
+    List<Canonical> current = list;
+    if (current != null) {
+      return current;
+    }
+    synchronized (this) {
+      if (list == null) {
+        // The index is kept, as other threads may still be reading through it.
+        ArrayList<Canonical> newList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          newList.add(value(i));
+        }
+        list = newList;
+      }
+      return list;
+    }
+  }
+
+
+  @Override
+  public ListIterator<Canonical> listIterator(int i) {
+    List<Canonical> current = list;
+    return (current != null) ? current.listIterator(i) : super.listIterator(i);
+  }
+
+
+  @Override
+  public Canonical remove(int i) {
+    Canonical old = list().remove(i);
+    modCount++;
+    return old;
+  }
+
+
+  @Override
+  public Canonical set(int i, Canonical element) {
+    return list().set(i, element);
+  }
+
+
+  @Override
+  public int size() {
+    List<Canonical> current = list;
+    return (current != null) ? current.size() : size;
+  }
+
+
+  /**
+   * Get an element, decoding it if necessary.
+   *
+   * @param i the index of the element
+   *
+   * @return the element
+   */
+  private synchronized Canonical value(int i) {
+    Canonical value = values[i];
+    if (value == null) {
+      value = index.decode(starts[i], ends[i]);
+      values[i] = value;
+    }
+    return value;
+  }
+
+}
@@ -0,0 +1,425 @@
+package com.pippsford.json.parser;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import jakarta.json.stream.JsonParsingException;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.primitive.CodePointOrder;
+
+/**
+ * A map backed by a JSON object's text. The keys are decoded when the map is created, but a value is only decoded when it is first requested. Any
+ * operation other than a simple look-up causes the whole map to be decoded into a regular map, after which all operations are delegated to that map.
+ *
+ * <p>As values are decoded on first access, even read operations update the map's state. Decoding is synchronized and the index is kept once the map is
+ * fully decoded, so like a regular map this may be read by several threads at once, but not read while it is being modified.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class LazyMap implements NavigableMap<String, Canonical> {
+
+  /** The index over the document's text. */
+  private final LazyIndex index;
+
+  /** The keys, in code point order. */
+  private final String[] keys;
+
+  /** The end of each value in the text. */
+  private final int[] valueEnds;
+
+  /** The start of each value in the text. */
+  private final int[] valueStarts;
+
+  /** The values which have been decoded. Guarded by this. */
+  private final Canonical[] values;
+
+  /** The map once it has been fully decoded. */
+  private volatile TreeMap<String, Canonical> map = null;
+
+
+  /**
+   * New instance.
+   *
+   * @param index the index of the document
+   * @param open  the position of the object's opening brace
+   */
+  LazyMap(LazyIndex index, int open) {
+    this.index = index;
+    int close = index.closeOf(open);
+
+    // Use a tree map to sort the keys and apply the key strategy. Each value's location is packed into a long.
+    TreeMap<String, Long> locations = new TreeMap<>(CodePointOrder.INSTANCE);
+    int pos = index.skipWhite(open + 1);
+    while (pos < close) {
+      int keyEnd = index.valueEnd(pos) - 1;
+      String key = index.decodeString(pos, keyEnd);
+
+      // skip over the colon
+      int start = index.skipWhite(index.skipWhite(keyEnd + 1) + 1);
+      int end = index.valueEnd(start);
+      Long location = ((long) start << 32) | end;
+      switch (index.getKeyStrategy()) {
+        case FIRST:
+          locations.putIfAbsent(key, location);
+          break;
+        case NONE:
+          if (locations.containsKey(key)) {
+            throw new JsonParsingException("Duplicate key: " + key, index.locationOf(pos));
+          }
+          locations.put(key, location);
+          break;
+        default:
+          locations.put(key, location);
+          break;
+      }
+
+      // skip over the comma, if present
+      pos = index.skipWhite(end);
+      if (index.charAt(pos) == ',') {
+        pos = index.skipWhite(pos + 1);
+      }
+    }
+
+    int size = locations.size();
+    keys = new String[size];
+    valueStarts = new int[size];
+    valueEnds = new int[size];
+    values = new Canonical[size];
+    int i = 0;
+    for (Entry<String, Long> e : locations.entrySet()) {
+      long location = e.getValue();
+      keys[i] = e.getKey();
+      valueStarts[i] = (int) (location >>> 32);
+      valueEnds[i] = (int) location;
+      i++;
+    }
+  }
+
+
+  @Override
+  public Entry<String, Canonical> ceilingEntry(String key) {
+    return map().ceilingEntry(key);
+  }
+
+
+  @Override
+  public String ceilingKey(String key) {
+    return map().ceilingKey(key);
+  }
+
+
+  @Override
+  public void clear() {
+    map().clear();
+  }
+
+
+  @Override
+  public Comparator<? super String> comparator() {
+    return CodePointOrder.INSTANCE;
+  }
+
+
+  @Override
+  public boolean containsKey(Object key) {
+    if (map != null) {
+      return map.containsKey(key);
+    }
+    return indexOf(key) >= 0;
+  }
+
+
+  @Override
+  public boolean containsValue(Object value) {
+    return map().containsValue(value);
+  }
+
+
+  @Override
+  public NavigableSet<String> descendingKeySet() {
+    return map().descendingKeySet();
+  }
+
+
+  @Override
+  public NavigableMap<String, Canonical> descendingMap() {
+    return map().descendingMap();
+  }
+
+
+  @Override
+  public Set<Entry<String, Canonical>> entrySet() {
+    return map().entrySet();
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    return map().equals(o);
+  }
+
+
+  @Override
+  public Entry<String, Canonical> firstEntry() {
+    return map().firstEntry();
+  }
+
+
+  @Override
+  public String firstKey() {
+    if (map != null) {
+      return map.firstKey();
+    }
+    if (keys.length == 0) {
+      throw new NoSuchElementException();
+    }
+    return keys[0];
+  }
+
+
+  @Override
+  public Entry<String, Canonical> floorEntry(String key) {
+    return map().floorEntry(key);
+  }
+
+
+  @Override
+  public String floorKey(String key) {
+    return map().floorKey(key);
+  }
+
+
+  @Override
+  public Canonical get(Object key) {
+    if (map != null) {
+      return map.get(key);
+    }
+    int i = indexOf(key);
+    return (i >= 0) ? value(i) : null;
+  }
+
+
+  @Override
+  public int hashCode() {
+    return map().hashCode();
+  }
+
+
+  @Override
+  public NavigableMap<String, Canonical> headMap(String toKey, boolean inclusive) {
+    return map().headMap(toKey, inclusive);
+  }
+
+
+  @Override
+  public SortedMap<String, Canonical> headMap(String toKey) {
+    return map().headMap(toKey);
+  }
+
+
+  @Override
+  public Entry<String, Canonical> higherEntry(String key) {
+    return map().higherEntry(key);
+  }
+
+
+  @Override
+  public String higherKey(String key) {
+    return map().higherKey(key);
+  }
+
+
+  /**
+   * Find the index of a key in the sorted keys.
+   *
+   * @param key the key
+   *
+   * @return the index, or a negative value if the key is not present
+   */
+  private int indexOf(Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+    return Arrays.binarySearch(keys, (String) key, CodePointOrder.INSTANCE);
+  }
+
+
+  @Override
+  public boolean isEmpty() {
+    return (map != null) ? map.isEmpty() : keys.length == 0;
+  }
+
+
+  /**
+   * Has this map been fully decoded?.
+   *
+   * @return true if fully decoded
+   */
+  boolean isMaterialised() {
+    return map != null;
+  }
+
+
+  @Override
+  public Set<String> keySet() {
+    return map().keySet();
+  }
+
+
+  @Override
+  public Entry<String, Canonical> lastEntry() {
+    return map().lastEntry();
+  }
+
+
+  @Override
+  public String lastKey() {
+    if (map != null) {
+      return map.lastKey();
+    }
+    if (keys.length == 0) {
+      throw new NoSuchElementException();
+    }
+    return keys[keys.length - 1];
+  }
+
+
+  @Override
+  public Entry<String, Canonical> lowerEntry(String key) {
+    return map().lowerEntry(key);
+  }
+
+
+  @Override
+  public String lowerKey(String key) {
+    return map().lowerKey(key);
+  }
+
+
+  /**
+   * Get the fully decoded map, decoding it if necessary.
+   *
+   * @return the decoded map
+   */
+  private TreeMap<String, Canonical> map() {
+    TreeMap<String, Canonical> current = map;
+    if (current != null) {
+      return current;
+    }
+    synchronized (this) {
+      if (map == null) {
+        // The index is kept, as other threads may still be reading through it.
+        TreeMap<String, Canonical> newMap = new TreeMap<>(CodePointOrder.INSTANCE);
+        for (int i = 0; i < keys.length; i++) {
+          newMap.put(keys[i], value(i));
+        }
+        map = newMap;
+      }
+      return map;
+    }
+  }
+
+
+  @Override
+  public NavigableSet<String> navigableKeySet() {
+    return map().navigableKeySet();
+  }
+
+
+  @Override
+  public Entry<String, Canonical> pollFirstEntry() {
+    return map().pollFirstEntry();
+  }
+
+
+  @Override
+  public Entry<String, Canonical> pollLastEntry() {
+    return map().pollLastEntry();
+  }
+
+
+  @Override
+  public Canonical put(String key, Canonical value) {
+    return map().put(key, value);
+  }
+
+
+  @Override
+  public void putAll(Map<? extends String, ? extends Canonical> m) {
+    map().putAll(m);
+  }
+
+
+  @Override
+  public Canonical remove(Object key) {
+    return map().remove(key);
+  }
+
+
+  @Override
+  public int size() {
+    return (map != null) ? map.size() : keys.length;
+  }
+
+
+  @Override
+  public NavigableMap<String, Canonical> subMap(String fromKey, boolean fromInclusive, String toKey, boolean toInclusive) {
+    return map().subMap(fromKey, fromInclusive, toKey, toInclusive);
+  }
+
+
+  @Override
+  public SortedMap<String, Canonical> subMap(String fromKey, String toKey) {
+    return map().subMap(fromKey, toKey);
+  }
+
+
+  @Override
+  public NavigableMap<String, Canonical> tailMap(String fromKey, boolean inclusive) {
+    return map().tailMap(fromKey, inclusive);
+  }
+
+
+  @Override
+  public SortedMap<String, Canonical> tailMap(String fromKey) {
+    return map().tailMap(fromKey);
+  }
+
+
+  @Override
+  public String toString() {
+    return map().toString();
+  }
+
+
+  /**
+   * Get a value, decoding it if necessary.
+   *
+   * @param i the index of the value
+   *
+   * @return the value
+   */
+  private synchronized Canonical value(int i) {
+    Canonical value = values[i];
+    if (value == null) {
+      value = index.decode(valueStarts[i], valueEnds[i]);
+      values[i] = value;
+    }
+    return value;
+  }
+
+
+  @Override
+  public Collection<Canonical> values() {
+    return map().values();
+  }
+
+}
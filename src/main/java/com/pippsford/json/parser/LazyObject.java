@@ -0,0 +1,52 @@
+package com.pippsford.json.parser;
+
+import java.io.Serial;
+
+import com.pippsford.json.CJObject;
+
+/**
+ * A JSON object whose members are only decoded from the document's text when they are first requested. Once the object is used as anything other than a
+ * simple look-up, it is fully decoded and behaves exactly like a regular {@link CJObject}. Nested objects and arrays are themselves lazy.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class LazyObject extends CJObject {
+
+  /** The lazily decoded backing map. */
+  private final transient LazyMap lazyMap;
+
+
+  /**
+   * New instance.
+   *
+   * @param map the backing map
+   */
+  LazyObject(LazyMap map) {
+    super(map);
+    lazyMap = map;
+  }
+
+
+  /**
+   * Has this object been fully decoded?. Nested structures may still be only partially decoded.
+   *
+   * @return true if this object's members have all been decoded
+   */
+  public boolean isMaterialised() {
+    return lazyMap.isMaterialised();
+  }
+
+
+  /**
+   * Serialize as a regular object, as the document's text is not retained.
+   *
+   * @return a regular object with the same members
+   */
+  @Serial
+  protected Object writeReplace() {
+    CJObject object = new CJObject();
+    object.putAll(this);
+    return object;
+  }
+
+}
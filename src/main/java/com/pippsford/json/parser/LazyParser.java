@@ -0,0 +1,58 @@
+package com.pippsford.json.parser;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Reader;
+import jakarta.json.JsonConfig.KeyStrategy;
+import jakarta.json.stream.JsonParsingException;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.io.Location;
+
+/**
+ * Parse a whole document into lazily decoded values. The document's text is held in memory together with a structural index. Objects and arrays are
+ * returned as {@link LazyObject} and {@link LazyArray} instances which only decode a member when it is requested. This is useful when only a few values
+ * are read from a large document.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public final class LazyParser {
+
+  /**
+   * Parse a document held in memory. The buffer is used directly, so must not be modified after it is passed to this method.
+   *
+   * @param buffer      the document's text
+   * @param length      the length of the text in the buffer
+   * @param keyStrategy the strategy for handling duplicate keys
+   *
+   * @return the root value
+   */
+  public static Canonical parse(char[] buffer, int length, KeyStrategy keyStrategy) {
+    return new LazyIndex(buffer, length, keyStrategy).getRoot();
+  }
+
+
+  /**
+   * Read a whole document and parse it.
+   *
+   * @param reader      the source of the document
+   * @param keyStrategy the strategy for handling duplicate keys
+   *
+   * @return the root value
+   */
+  public static Canonical parse(Reader reader, KeyStrategy keyStrategy) {
+    CharArrayWriter writer = new CharArrayWriter();
+    try {
+      reader.transferTo(writer);
+    } catch (IOException e) {
+      throw new JsonParsingException("I/O failure", e, Location.UNSET);
+    }
+    return parse(writer.toCharArray(), writer.size(), keyStrategy);
+  }
+
+
+  private LazyParser() {
+    // utility class
+  }
+
+}
@@ -2,6 +2,7 @@
 
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Map.Entry;
 import java.util.stream.Stream;
 
@@ -16,6 +17,7 @@
 import com.pippsford.json.CJObject;
 import com.pippsford.json.Canonical;
 import com.pippsford.json.io.Input;
+import com.pippsford.json.pointer.tree.Projection;
 import com.pippsford.json.primitive.CJFalse;
 import com.pippsford.json.primitive.CJNull;
 import com.pippsford.json.primitive.CJString;
@@ -45,7 +47,7 @@ public class Parser extends BaseIterator<JsonParser.Event> implements CJParser {
    */
   private static final char[] LITERAL_TRUE = {'r', 'u', 'e'};
 
-  private static final int MAX_RECURSION_DEPTH = Integer.getInteger(Parser.class.getPackageName() + ".maxRecursion", 1_000);
+  static final int MAX_RECURSION_DEPTH = Integer.getInteger(Parser.class.getPackageName() + ".maxRecursion", 1_000);
 
 
   private static boolean isNumberStart(int r) {
@@ -53,6 +55,26 @@ private static boolean isNumberStart(int r) {
   }
 
 
+  /**
+   * Check if input marks the end of a literal or a number.
+   *
+   * @param r the input
+   *
+   * @return true if the end of a value
+   */
+  private static boolean isValueEnd(int r) {
+    switch (r) {
+      case -1: // falls through
+      case ',': // falls through
+      case ']': // falls through
+      case '}':
+        return true;
+      default:
+        return isWhite(r);
+    }
+  }
+
+
   /**
    * Check if input represents whitespace.
    *
@@ -101,6 +123,11 @@ public static String safe(int r) {
   /** Currently expecting a key name?. */
   private boolean expectingKey = false;
 
+  /**
+   * Must strings and numbers be valid I-JSON?.
+   */
+  private boolean ijsonStrict = false;
+
   /**
    * Are the nesting containers arrays or objects?. True for objects.
    */
@@ -116,6 +143,11 @@ public static String safe(int r) {
    */
   private Event nextEvent = null;
 
+  /**
+   * The projection applied to root values, if any.
+   */
+  private Projection projection = null;
+
   /**
    * Have we seen our first root value?.
    */
@@ -180,6 +212,13 @@ protected boolean checkNext() {
   }
 
 
+  private void checkClose(int level, int r) {
+    if (isObject[level] != (r == '}')) {
+      throw new JsonParsingException(String.format("Saw %s which does not match the structure being closed", safe(r)), input.getLocation());
+    }
+  }
+
+
   private void checkNotSeenRoot(int r) {
     if (singleRoot && seenFirstRoot && r != -1) {
       throw new JsonParsingException(String.format("Saw %s after root value.", safe(r)), input.getLocation());
@@ -396,27 +435,116 @@ private CJObject doObject(int recursion) {
         throw new IllegalStateException("Invalid event generated during parsing: " + lastEvent);
       }
 
-      Canonical value = doValue(recursion);
-      switch (keyStrategy) {
-        case FIRST:
-          object.putIfAbsent(key, value);
-          break;
-        case NONE:
-          if (object.containsKey(key)) {
-            throw new JsonParsingException("Duplicate key: " + key, input.getLocation());
-          }
-          object.put(key, value);
-          break;
-        default:
-          object.put(key, value);
-          break;
-      }
+      putMember(object, key, doValue(recursion));
     }
 
     return object;
   }
 
 
+  /**
+   * Create the parts of an array that are required by a projection.
+   *
+   * @param projection the projection of the array
+   * @param recursion  the recursion depth
+   *
+   * @return the projected array
+   */
+  private CJArray doProjectedArray(Projection projection, int recursion) {
+    CJArray array = new CJArray();
+    int size = projection.getArraySize();
+    while (size == -1 || array.size() < size) {
+      if (!hasNext()) {
+        throw new JsonParsingException("Array was not terminated.", input.getLocation());
+      }
+      iteratorFetchNext();
+      if (lastEvent == Event.END_ARRAY) {
+        // pad the array to the required size
+        while (array.size() < size) {
+          array.add(CJNull.NULL);
+        }
+        return array;
+      }
+      Canonical element = doProjectedValue(projection.getElement(array.size()), recursion);
+      array.add(element != null ? element : CJNull.NULL);
+    }
+
+    // All the required elements have been read, so skip the remainder.
+    skipStructure(depth, false);
+    return array;
+  }
+
+
+  /**
+   * Create the parts of an object that are required by a projection.
+   *
+   * @param projection the projection of the object
+   * @param recursion  the recursion depth
+   *
+   * @return the projected object
+   */
+  private CJObject doProjectedObject(Projection projection, int recursion) {
+    CJObject object = new CJObject();
+    while (true) {
+      ensureNextInObject();
+      iteratorFetchNext();
+      if (lastEvent == Event.END_OBJECT) {
+        return object;
+      }
+      if (lastEvent != Event.KEY_NAME) {
+        throw new JsonParsingException("Encountered " + lastEvent + " when only key name was valid.", input.getLocation());
+      }
+      String key = getString();
+      Projection member = projection.getMember(key);
+      if (member == null) {
+        skipMemberValue();
+        continue;
+      }
+
+      ensureNextInObject();
+      iteratorFetchNext();
+      Canonical memberValue = doProjectedValue(member, recursion);
+      if (memberValue != null) {
+        putMember(object, key, memberValue);
+      }
+    }
+  }
+
+
+  /**
+   * Create the parts of the current value that are required by a projection.
+   *
+   * @param projection the projection, which may be null if nothing is required
+   * @param recursion  the recursion depth
+   *
+   * @return the projected value, or null if the value is not required
+   */
+  private Canonical doProjectedValue(Projection projection, int recursion) {
+    if (projection == null) {
+      if (lastEvent == Event.START_ARRAY || lastEvent == Event.START_OBJECT) {
+        skipStructure(depth, lastEvent == Event.START_OBJECT);
+      }
+      return null;
+    }
+    if (projection.allowValue()) {
+      return doValue(recursion);
+    }
+
+    if (recursion > MAX_RECURSION_DEPTH) {
+      throw new JsonParsingException("Json structure has exceeded the configured maximum nesting depth of " + MAX_RECURSION_DEPTH, input.getLocation());
+    }
+    if (lastEvent == Event.START_ARRAY) {
+      return doProjectedArray(projection, recursion + 1);
+    }
+    if (lastEvent == Event.START_OBJECT) {
+      return doProjectedObject(projection, recursion + 1);
+    }
+
+    // a non-structural value which is not required
+    return null;
+  }
+
+
   private Canonical doValue(int recursion) {
     if (recursion > MAX_RECURSION_DEPTH) {
       throw new JsonParsingException("Json structure has exceeded the configured maximum nesting depth of " + MAX_RECURSION_DEPTH, input.getLocation());
@@ -471,7 +599,8 @@ protected Event fetchNext() {
 
   @Override
   public CJArray getArray() {
-    return doArray(0);
+    checkState(Event.START_ARRAY);
+    return (CJArray) getValue();
   }
 
 
@@ -497,6 +626,12 @@ public int getInt() {
   }
 
 
+  @Override
+  public KeyStrategy getKeyStrategy() {
+    return keyStrategy;
+  }
+
+
   /**
    * Get the last event returned from "next".
    *
@@ -522,7 +657,8 @@ public long getLong() {
 
   @Override
   public CJObject getObject() {
-    return doObject(0);
+    checkState(Event.START_OBJECT);
+    return (CJObject) getValue();
   }
 
 
@@ -550,6 +686,10 @@ StructureTag getTag() {
 
   @Override
   public Canonical getValue() {
+    if (projection != null && depth == 0 && (lastEvent == Event.START_ARRAY || lastEvent == Event.START_OBJECT)) {
+      // at the start of a root structure
+      return doProjectedValue(projection, 0);
+    }
     return doValue(0);
   }
 
@@ -636,7 +776,7 @@ private void parseNull() {
    * @param r the initial character of the number
    */
   private void parseNumber(int r) {
-    NumberParser numberParser = new NumberParser(input);
+    NumberParser numberParser = new NumberParser(input, ijsonStrict);
     value = numberParser.parse(r);
     nextEvent = Event.VALUE_NUMBER;
   }
@@ -646,12 +786,61 @@ private void parseNumber(int r) {
    * Parse a string from the input.
    */
   private void parseString() {
-    StringParser parser = new StringParser(input);
+    StringParser parser = new StringParser(input, ijsonStrict);
     String val = parser.parse();
     value = CJString.create(val);
   }
 
 
+  /**
+   * Put a member into an object, applying the key strategy.
+   *
+   * @param object the object
+   * @param key    the member's key
+   * @param value  the member's value
+   */
+  private void putMember(CJObject object, String key, Canonical value) {
+    switch (keyStrategy) {
+      case FIRST:
+        object.putIfAbsent(key, value);
+        break;
+      case NONE:
+        if (object.containsKey(key)) {
+          throw new JsonParsingException("Duplicate key: " + key, input.getLocation());
+        }
+        object.put(key, value);
+        break;
+      default:
+        object.put(key, value);
+        break;
+    }
+  }
+
+
+  /**
+   * Set whether strings and numbers must be valid I-JSON. If true, lone surrogates, non-characters and numbers which are not exactly representable as
+   * doubles are rejected as they are read. Parts of the input skipped over by a projection or by {@link #skipArray()} and {@link #skipObject()} are not
+   * checked.
+   *
+   * @param ijsonStrict if true, require valid I-JSON
+   */
+  public void setIJsonStrict(boolean ijsonStrict) {
+    this.ijsonStrict = ijsonStrict;
+  }
+
+
+  /**
+   * Set a projection to apply to root values. When a projection is set, a root structure returned by {@link #getValue()}, {@link #getArray()} or {@link
+   * #getObject()} only contains the parts the projection accepts. Everything else is skipped over without being decoded or validated. Non-structural root
+   * values and structures nested within a root value are not affected.
+   *
+   * @param projection the projection, or null for none
+   */
+  public void setProjection(Projection projection) {
+    this.projection = projection;
+  }
+
+
   /**
    * Set whether a single root value is required. If true, the parser will throw an exception if it encounters a second root value.
    *
@@ -664,39 +853,198 @@ public void setRequireSingleRoot(boolean singleRoot) {
 
   @Override
   public void skipArray() {
-    if (depth == -1 || isObject[depth]) {
+    int current = skipDepth();
+    if (current == -1 || isObject[current]) {
       // not in an array, so do nothing
       return;
     }
-    int endDepth = depth - 1;
-    while (true) {
-      if (!hasNext()) {
-        throw new JsonParsingException("Array was not terminated", input.getLocation());
-      }
-      Event event = next();
-      if (event == Event.END_ARRAY && depth == endDepth) {
-        break;
-      }
+    skipStructure(current, false);
+  }
+
+
+  /**
+   * Get the depth of the structure the last event was in. If the parser has already looked ahead, the look-ahead may have opened or closed a structure.
+   *
+   * @return the depth of the structure which contains the last event
+   */
+  private int skipDepth() {
+    if (!hasNextCalled || nextEvent == null) {
+      return depth;
+    }
+    switch (nextEvent) {
+      case START_ARRAY: // falls through
+      case START_OBJECT:
+        return depth - 1;
+      case END_ARRAY: // falls through
+      case END_OBJECT:
+        return depth + 1;
+      default:
+        return depth;
     }
   }
 
 
   @Override
   public void skipObject() {
-    if (depth == -1 || !isObject[depth]) {
+    int current = skipDepth();
+    if (current == -1 || !isObject[current]) {
       // not in an object, so do nothing
       return;
     }
-    int endDepth = depth - 1;
+    skipStructure(current, true);
+  }
+
+
+  /**
+   * Skip over the value of an object member without decoding it. The key has just been read.
+   */
+  private void skipMemberValue() {
+    int r = skipWhite();
+    if (r != ':') {
+      throw new JsonParsingException(String.format("A ':' is required after a field name. Saw %s", safe(r)), input.getLocation());
+    }
+    r = skipWhite();
+    switch (r) {
+      case '"':
+        skipString();
+        break;
+      case '[': // falls through
+      case '{':
+        skipNested(r == '{');
+        break;
+      default:
+        skipScalar(r);
+        break;
+    }
+
+    // Pretend a value was read, so the next thing expected is another key or the end of the object.
+    expectingKey = true;
+    lastEvent = Event.VALUE_NULL;
+  }
+
+
+  /**
+   * Skip over a structure which has been opened in the raw input, but which has not generated an event.
+   *
+   * @param startObject true if the structure is an object
+   */
+  private void skipNested(boolean startObject) {
+    int level = depth + 1;
+    if (level == isObject.length) {
+      isObject = Arrays.copyOf(isObject, level * 2);
+    }
+    isObject[level] = startObject;
+    skipRaw(level, level);
+  }
+
+
+  /**
+   * Scan the raw input until the structure at the target depth is closed.
+   *
+   * @param targetDepth the depth of the structure being skipped
+   * @param start       the depth of the innermost structure which is currently open
+   */
+  private void skipRaw(int targetDepth, int start) {
+    int level = start;
+    while (level >= targetDepth) {
+      int r = input.read();
+      switch (r) {
+        case -1:
+          throw new JsonParsingException((isObject[targetDepth] ? "Object" : "Array") + " was not terminated", input.getLocation());
+        case '"':
+          skipString();
+          break;
+        case '[': // falls through
+        case '{':
+          level++;
+          if (level == isObject.length) {
+            isObject = Arrays.copyOf(isObject, level * 2);
+          }
+          isObject[level] = r == '{';
+          break;
+        case ']': // falls through
+        case '}':
+          checkClose(level, r);
+          level--;
+          break;
+        default:
+          // Nothing to do for any other character.
+          break;
+      }
+    }
+  }
+
+
+  /**
+   * Skip over a literal or a number without decoding it.
+   *
+   * @param r the first character of the value
+   */
+  private void skipScalar(int r) {
+    if (isValueEnd(r)) {
+      throw new JsonParsingException(String.format("Invalid input: %s", safe(r)), input.getLocation());
+    }
+    do {
+      r = input.read();
+    } while (!isValueEnd(r));
+    if (r == -1) {
+      throw new JsonParsingException("Object was not terminated", input.getLocation());
+    }
+    input.unread(r);
+  }
+
+
+  /** Skip over the rest of a string without decoding it. */
+  private void skipString() {
     while (true) {
+      int r = input.read();
+      if (r == '"') {
+        return;
+      }
+      if (r == '\\') {
+        // skip the escaped character, which may be a quote
+        r = input.read();
+      }
+      if (r == -1) {
+        throw new JsonParsingException("Unterminated string", input.getLocation());
+      }
+    }
+  }
+
+
+  /**
+   * Skip to the end of the current structure. Only the nesting of brackets and the extent of strings are tracked, so no values are created. The content
+   * that is skipped is not validated.
+   *
+   * @param targetDepth the depth of the structure to skip
+   * @param endObject   true if the structure is an object
+   */
+  private void skipStructure(int targetDepth, boolean endObject) {
+    if (hasNextCalled) {
+      // The next event has already been read. Consume it, as it may have been the end of this structure.
       if (!hasNext()) {
-        throw new JsonParsingException("Object was not terminated", input.getLocation());
+        throw new JsonParsingException((endObject ? "Object" : "Array") + " was not terminated", input.getLocation());
       }
-      Event event = next();
-      if (event == Event.END_OBJECT && depth == endDepth) {
-        break;
+      next();
+      if (depth < targetDepth) {
+        return;
       }
     }
+
+    skipRaw(targetDepth, depth);
+
+    // Structures opened by events have tags, those opened during the skip do not.
+    for (int i = targetDepth; i <= depth; i++) {
+      structureTag = structureTag.parent;
+    }
+    depth = targetDepth - 1;
+    lastEvent = endObject ? Event.END_OBJECT : Event.END_ARRAY;
+    nextEvent = null;
+    hasNextCalled = false;
+    if (depth == -1) {
+      seenFirstRoot = true;
+    }
+    expectingKey = depth >= 0 && isObject[depth];
   }
 
 
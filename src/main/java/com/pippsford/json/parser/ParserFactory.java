@@ -14,6 +14,9 @@
 import jakarta.json.stream.JsonParser;
 import jakarta.json.stream.JsonParserFactory;
 
+import com.pippsford.json.pointer.tree.PointerTree;
+import com.pippsford.json.pointer.tree.Projection;
+
 /**
  * Factory for generating parsers.
  *
@@ -21,21 +24,65 @@
  */
 public class ParserFactory implements JsonParserFactory {
 
+  /**
+   * Should strings and numbers be checked against the I-JSON (RFC 7493) rules as they are read?. If true, lone surrogates, non-characters and numbers which
+   * are not exactly representable as IEEE doubles are rejected with a parsing exception. By default, they are accepted.
+   */
+  public static final String IJSON_STRICT = "com.pippsford.json.parser.ijsonStrict";
+
+  /**
+   * A projection to apply to root structures. The value may be a {@link PointerTree} or a {@link Projection}. Only the parts of a root structure the
+   * projection accepts are created when the structure is read as a value. By default, there is no projection.
+   */
+  public static final String PROJECTION = "com.pippsford.json.parser.projection";
+
   /** Should the parser expect a single root value in a stream, or multiple ones?. By default, the parser expects a single root. */
   public static final String REQUIRE_SINGLE_ROOT = "com.pippsford.json.parser.requireSingleRoot";
 
+  /**
+   * Convert a configuration value to a projection.
+   *
+   * @param value the configured value, which may be null, a pointer tree, or a projection
+   *
+   * @return the projection, or null
+   */
+  public static Projection toProjection(Object value) {
+    if (value == null || value instanceof Projection) {
+      return (Projection) value;
+    }
+    if (value instanceof PointerTree) {
+      return ((PointerTree) value).getProjection();
+    }
+    throw new IllegalArgumentException("A projection must be a PointerTree or a Projection, not a " + value.getClass());
+  }
+
+
+  /** Are strings and numbers checked against the I-JSON rules?. */
+  private boolean ijsonStrict = false;
+
+  /** The configured projection, or null. */
+  private Object projection = null;
+
   private boolean singleRoot = true;
 
 
   /**
    * New instance.
    *
-   * @param config Configuration - may be null or specify if a single root is required (which defaults to true).
+   * @param config Configuration - may be null or specify if a single root is required (which defaults to true), a projection, and I-JSON checking.
    */
   public ParserFactory(Map<String, ?> config) {
     if (config != null && config.containsKey(REQUIRE_SINGLE_ROOT)) {
       singleRoot = Boolean.parseBoolean(String.valueOf(config.get(REQUIRE_SINGLE_ROOT)));
     }
+    if (config != null && config.containsKey(IJSON_STRICT)) {
+      ijsonStrict = Boolean.parseBoolean(String.valueOf(config.get(IJSON_STRICT)));
+    }
+    if (config != null && config.get(PROJECTION) != null) {
+      projection = config.get(PROJECTION);
+      // verify the projection is valid
+      toProjection(projection);
+    }
   }
 
 
@@ -43,6 +90,8 @@ public ParserFactory(Map<String, ?> config) {
   public CJParser createParser(Reader reader) {
     Parser parser = new Parser(reader);
     parser.setRequireSingleRoot(singleRoot);
+    parser.setProjection(toProjection(projection));
+    parser.setIJsonStrict(ijsonStrict);
     return parser;
   }
 
@@ -75,6 +124,12 @@ public CJParser createParser(JsonArray array) {
   public Map<String, ?> getConfigInUse() {
     TreeMap<String, Object> map = new TreeMap<>();
     map.put(REQUIRE_SINGLE_ROOT, singleRoot);
+    if (ijsonStrict) {
+      map.put(IJSON_STRICT, true);
+    }
+    if (projection != null) {
+      map.put(PROJECTION, projection);
+    }
     return Collections.unmodifiableSortedMap(map);
   }
 
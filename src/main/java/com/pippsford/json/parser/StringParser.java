@@ -19,9 +19,71 @@ class StringParser {
   /** The input. */
   final Input input;
 
+  /** If true, reject strings which I-JSON forbids. */
+  final boolean ijsonStrict;
+
+  /** In strict mode, the last character if it was a high surrogate which must be followed by a low surrogate, otherwise zero. */
+  private char pendingHigh = 0;
+
 
   StringParser(Input input) {
+    this(input, false);
+  }
+
+
+  /**
+   * New instance.
+   *
+   * @param input       the input
+   * @param ijsonStrict if true, reject lone surrogates and non-characters, which I-JSON forbids
+   */
+  StringParser(Input input, boolean ijsonStrict) {
     this.input = input;
+    this.ijsonStrict = ijsonStrict;
+  }
+
+
+  /**
+   * Append a character to the string, checking it if required.
+   *
+   * @param ch the character
+   */
+  private void append(char ch) {
+    if (ijsonStrict) {
+      checkIJson(ch);
+    }
+    buf.append(ch);
+  }
+
+
+  /**
+   * Check a character against the I-JSON rules, which forbid lone surrogates and non-characters.
+   *
+   * @param ch the character
+   */
+  private void checkIJson(char ch) {
+    if (pendingHigh != 0) {
+      if (!Character.isLowSurrogate(ch)) {
+        throw new JsonParsingException("I-JSON forbids lone surrogates", input.getLocation());
+      }
+      // Supplementary non-characters are those ending in 0xFFFE or 0xFFFF
+      int cp = Character.toCodePoint(pendingHigh, ch);
+      pendingHigh = 0;
+      if ((cp & 0xfffe) == 0xfffe) {
+        throw new JsonParsingException("I-JSON forbids non-characters", input.getLocation());
+      }
+      return;
+    }
+    if (ch < 0xd800) {
+      return;
+    }
+    if (Character.isHighSurrogate(ch)) {
+      pendingHigh = ch;
+    } else if (Character.isLowSurrogate(ch)) {
+      throw new JsonParsingException("I-JSON forbids lone surrogates", input.getLocation());
+    } else if ((0xfdd0 <= ch && ch <= 0xfdef) || ch >= 0xfffe) {
+      throw new JsonParsingException("I-JSON forbids non-characters", input.getLocation());
+    }
   }
 
 
@@ -30,6 +92,9 @@ String parse() {
       int r = input.read();
       if (r == '"') {
         // seen closing quote, we are done.
+        if (pendingHigh != 0) {
+          throw new JsonParsingException("I-JSON forbids lone surrogates", input.getLocation());
+        }
         return buf.toString();
       }
       if (r == -1) {
@@ -43,7 +108,7 @@ String parse() {
       if (r == '\\') {
         parseEscape();
       } else {
-        buf.append((char) r);
+        append((char) r);
       }
     }
   }
@@ -54,28 +119,28 @@ private void parseEscape() {
     int r = input.read();
     switch (r) {
       case '"':
-        buf.append('\"');
+        append('\"');
         break;
       case '\\':
-        buf.append('\\');
+        append('\\');
         break;
       case '/':
-        buf.append('/');
+        append('/');
         break;
       case 'b':
-        buf.append('\b');
+        append('\b');
         break;
       case 'f':
-        buf.append('\f');
+        append('\f');
         break;
       case 'n':
-        buf.append('\n');
+        append('\n');
         break;
       case 'r':
-        buf.append('\r');
+        append('\r');
         break;
       case 't':
-        buf.append('\t');
+        append('\t');
         break;
       case 'u':
         parseUnicode();
@@ -102,7 +167,7 @@ private void parseUnicode() {
         throw new JsonParsingException(String.format("Invalid hex character in \\u escape. Saw %s", safe(r)), input.getLocation());
       }
     }
-    buf.append((char) u);
+    append((char) u);
   }
 
 }
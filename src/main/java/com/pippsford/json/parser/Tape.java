@@ -0,0 +1,777 @@
+package com.pippsford.json.parser;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import jakarta.json.stream.JsonParser.Event;
+import jakarta.json.stream.JsonParsingException;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.io.Input;
+import com.pippsford.json.io.Location;
+import com.pippsford.json.primitive.CJFalse;
+import com.pippsford.json.primitive.CJNull;
+import com.pippsford.json.primitive.CJString;
+import com.pippsford.json.primitive.CJTrue;
+import com.pippsford.json.primitive.numbers.NumberParser;
+
+/**
+ * A flat "tape" of token descriptors over a UTF-8 encoded document. Each token is described by a single <code>long</code> which holds the token's type,
+ * its offset in the buffer, and either its length or, for the start and end of a structure, the index of the matching bracket on the tape.
+ *
+ * <p>Creating a tape validates the document's syntax but does not decode any strings or numbers. Values are decoded on demand, so a tape can be filtered
+ * or projected with very little allocation. A tape can be walked through the standard parser events by {@link #createParser()} and any value on it can be
+ * converted to a {@link Canonical} value.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public final class Tape {
+
+  /** The events, indexed by the type stored on the tape. */
+  private static final Event[] EVENTS = Event.values();
+
+  /** Mask for the length or matching index field. */
+  private static final long FIELD_MASK = (1L << 28) - 1;
+
+  /** The maximum supported size of a token, or number of tokens. */
+  private static final int MAX_FIELD = (int) FIELD_MASK;
+
+  /** Mask for the offset field. */
+  private static final long OFFSET_MASK = 0xffff_ffffL;
+
+  /** The literal "false". */
+  private static final byte[] LITERAL_FALSE = "false".getBytes(UTF_8);
+
+  /** The literal "null". */
+  private static final byte[] LITERAL_NULL = "null".getBytes(UTF_8);
+
+  /** The literal "true". */
+  private static final byte[] LITERAL_TRUE = "true".getBytes(UTF_8);
+
+  /** The characters which may follow a backslash in a string, other than 'u'. */
+  static final String SIMPLE_ESCAPES = "\"\\/bfnrt";
+
+
+
+  /** Builder for a tape. */
+  private static class Builder {
+
+    /** The input. */
+    final byte[] buffer;
+
+    /** The end of the input. */
+    final int end;
+
+    /** The tape indices of the currently open structures. */
+    int[] stack = new int[16];
+
+    /** The current nesting depth. */
+    int depth = 0;
+
+    /** True if the last token completed a value. */
+    boolean afterValue = false;
+
+    /** True if the next token must be a key. */
+    boolean expectKey = false;
+
+    /** True if the next token must be a colon. */
+    boolean expectColon = false;
+
+    /** The number of tokens. */
+    int size = 0;
+
+    /** The tokens. */
+    long[] tape = new long[64];
+
+
+    Builder(byte[] buffer, int end) {
+      this.buffer = buffer;
+      this.end = end;
+    }
+
+
+    /**
+     * Add a token to the tape.
+     *
+     * @param event  the token's event
+     * @param offset the token's offset in the buffer
+     * @param field  the token's length or matching index
+     *
+     * @return the index of the token on the tape
+     */
+    int add(Event event, int offset, int field) {
+      if (size == tape.length) {
+        if (size >= MAX_FIELD) {
+          throw new JsonParsingException("Document contains too many tokens", new Location(-1, -1, offset));
+        }
+        tape = Arrays.copyOf(tape, Math.min(MAX_FIELD, size * 2));
+      }
+      tape[size] = encode(event, offset, field);
+      return size++;
+    }
+
+
+    /**
+     * Accept a character after a value.
+     *
+     * @param pos the position of the character
+     */
+    private void afterValue(int pos) {
+      int b = buffer[pos];
+      if (depth == 0) {
+        throw error(String.format("Saw %s after root value.", safe(b)), pos);
+      }
+      boolean inObject = typeOf(stack[depth - 1]) == Event.START_OBJECT;
+      if (b == ',') {
+        afterValue = false;
+        expectKey = inObject;
+        return;
+      }
+      if (b != (inObject ? '}' : ']')) {
+        throw error(String.format("Expected a legitimate post-value character, but saw %s", safe(b)), pos);
+      }
+      close(pos, inObject);
+    }
+
+
+    /**
+     * Build the tape.
+     *
+     * @param start the start of the document in the buffer
+     *
+     * @return the tape
+     */
+    Tape build(int start) {
+      int pos = skipWhite(start);
+      if (pos == end) {
+        throw new JsonParsingException("No data found in document", Location.UNSET);
+      }
+      while (pos < end) {
+        pos = skipWhite(next(pos));
+      }
+      if (depth != 0 || !afterValue) {
+        throw error("Saw EOF when there were " + depth + " unclosed structures", end);
+      }
+      return new Tape(buffer, Arrays.copyOf(tape, size), size);
+    }
+
+
+    /**
+     * Close the current structure.
+     *
+     * @param pos      the position of the closing bracket
+     * @param isObject true if the structure is an object
+     */
+    private void close(int pos, boolean isObject) {
+      depth--;
+      int open = stack[depth];
+      int close = add(isObject ? Event.END_OBJECT : Event.END_ARRAY, pos, open);
+      tape[open] = encode(typeOf(open), (int) offsetOf(tape[open]), close);
+      afterValue = true;
+    }
+
+
+    /**
+     * Check an escape sequence in a string.
+     *
+     * @param pos the position of the backslash
+     *
+     * @return the position after the escape sequence
+     */
+    private int escapeEnd(int pos) {
+      int b = pos + 1 < end ? buffer[pos + 1] & 0xff : -1;
+      if (b == 'u') {
+        for (int i = pos + 2; i < pos + 6; i++) {
+          if (i >= end || !isHex(buffer[i])) {
+            throw error("Invalid unicode escape sequence", pos);
+          }
+        }
+        return pos + 6;
+      }
+      if (b == -1 || SIMPLE_ESCAPES.indexOf(b) < 0) {
+        throw error(String.format("Invalid escape sequence: backslash followed by %s", safe(b)), pos);
+      }
+      return pos + 2;
+    }
+
+
+    /**
+     * Skip over the exponent of a number.
+     *
+     * @param start the start of the number
+     * @param pos   the position after the 'e'
+     *
+     * @return the position after the exponent
+     */
+    private int exponent(int start, int pos) {
+      if (pos < end && (buffer[pos] == '+' || buffer[pos] == '-')) {
+        pos++;
+      }
+      return requireDigits(start, pos);
+    }
+
+
+    /**
+     * Is the last token the start of the current array?.
+     *
+     * @return true if the current structure is an array with no elements yet
+     */
+    private boolean isEmptyArray() {
+      return depth > 0 && stack[depth - 1] == size - 1 && typeOf(size - 1) == Event.START_ARRAY;
+    }
+
+
+    /**
+     * Accept a key, or the end of an empty object.
+     *
+     * @param pos the position of the key's opening quote
+     *
+     * @return the position after the key
+     */
+    private int key(int pos) {
+      int b = buffer[pos];
+      if (b == '}' && typeOf(size - 1) == Event.START_OBJECT) {
+        close(pos, true);
+        return pos + 1;
+      }
+      if (b != '"') {
+        throw error(String.format("Expecting a key-name, but saw %s", safe(b)), pos);
+      }
+      int stringEnd = stringEnd(pos);
+      add(Event.KEY_NAME, pos, stringEnd - pos);
+      expectKey = false;
+      expectColon = true;
+      return stringEnd;
+    }
+
+
+    /**
+     * Accept a literal.
+     *
+     * @param pos     the start of the literal
+     * @param literal the expected literal
+     * @param event   the event for the literal
+     *
+     * @return the position after the literal
+     */
+    private int literal(int pos, byte[] literal, Event event) {
+      int length = literal.length;
+      if (pos + length > end || !Arrays.equals(buffer, pos, pos + length, literal, 0, length)) {
+        throw error("Invalid literal", pos);
+      }
+      add(event, pos, length);
+      return pos + length;
+    }
+
+
+    /**
+     * Process the next token.
+     *
+     * @param pos the position of the token
+     *
+     * @return the position after the token
+     */
+    private int next(int pos) {
+      int b = buffer[pos];
+      if (expectColon) {
+        if (b != ':') {
+          throw error(String.format("A ':' is required after a field name. Saw %s", safe(b)), pos);
+        }
+        expectColon = false;
+        return pos + 1;
+      }
+      if (afterValue) {
+        afterValue(pos);
+        return pos + 1;
+      }
+      if (expectKey) {
+        return key(pos);
+      }
+      if (b == ']' && isEmptyArray()) {
+        close(pos, false);
+        return pos + 1;
+      }
+      return value(pos);
+    }
+
+
+    /**
+     * Accept a number.
+     *
+     * @param start the start of the number
+     *
+     * @return the position after the number
+     */
+    private int number(int start) {
+      int pos = start;
+      if (buffer[pos] == '-') {
+        pos++;
+      }
+      int digitStart = pos;
+      pos = requireDigits(start, pos);
+      if (buffer[digitStart] == '0' && pos - digitStart > 1) {
+        throw error("Invalid number", start);
+      }
+      if (pos < end && buffer[pos] == '.') {
+        pos = requireDigits(start, pos + 1);
+      }
+      if (pos < end && (buffer[pos] == 'e' || buffer[pos] == 'E')) {
+        pos = exponent(start, pos + 1);
+      }
+      add(Event.VALUE_NUMBER, start, pos - start);
+      return pos;
+    }
+
+
+    /**
+     * Open a structure.
+     *
+     * @param pos      the position of the opening bracket
+     * @param isObject true if the structure is an object
+     *
+     * @return the position after the bracket
+     */
+    private int open(int pos, boolean isObject) {
+      if (depth >= Parser.MAX_RECURSION_DEPTH) {
+        throw error("Json structure has exceeded the configured maximum nesting depth of " + Parser.MAX_RECURSION_DEPTH, pos);
+      }
+      if (depth == stack.length) {
+        stack = Arrays.copyOf(stack, depth * 2);
+      }
+      stack[depth++] = add(isObject ? Event.START_OBJECT : Event.START_ARRAY, pos, 0);
+      expectKey = isObject;
+      return pos + 1;
+    }
+
+
+    /**
+     * Skip over digits in a number, requiring at least one.
+     *
+     * @param start the start of the number
+     * @param pos   the position of the first digit
+     *
+     * @return the position after the digits
+     */
+    private int requireDigits(int start, int pos) {
+      int digitStart = pos;
+      while (pos < end && isDigit(buffer[pos])) {
+        pos++;
+      }
+      if (pos == digitStart) {
+        throw error("Invalid number", start);
+      }
+      return pos;
+    }
+
+
+    private int skipWhite(int pos) {
+      while (pos < end && Parser.isWhite(buffer[pos])) {
+        pos++;
+      }
+      return pos;
+    }
+
+
+    /**
+     * Find the end of a string.
+     *
+     * @param start the position of the opening quote
+     *
+     * @return the position after the closing quote
+     */
+    private int stringEnd(int start) {
+      int pos = start + 1;
+      while (pos < end) {
+        int b = buffer[pos] & 0xff;
+        if (b == '"') {
+          if (pos + 1 - start > MAX_FIELD) {
+            throw error("String is too long", start);
+          }
+          return pos + 1;
+        }
+        if (b == '\\') {
+          pos = escapeEnd(pos);
+        } else if (b < 32) {
+          throw error(String.format("JSON strings must not contain C0 control codes, including 0x%04x", b), pos);
+        } else {
+          pos++;
+        }
+      }
+      throw error("Unterminated string", end);
+    }
+
+
+    private Event typeOf(int index) {
+      return EVENTS[(int) (tape[index] >>> 60)];
+    }
+
+
+    /**
+     * Accept a value.
+     *
+     * @param pos the start of the value
+     *
+     * @return the position after the value
+     */
+    private int value(int pos) {
+      int b = buffer[pos];
+      if (b == '{' || b == '[') {
+        return open(pos, b == '{');
+      }
+
+      afterValue = true;
+      switch (b) {
+        case '"':
+          int stringEnd = stringEnd(pos);
+          add(Event.VALUE_STRING, pos, stringEnd - pos);
+          return stringEnd;
+        case 't':
+          return literal(pos, LITERAL_TRUE, Event.VALUE_TRUE);
+        case 'f':
+          return literal(pos, LITERAL_FALSE, Event.VALUE_FALSE);
+        case 'n':
+          return literal(pos, LITERAL_NULL, Event.VALUE_NULL);
+        case '-':
+          return number(pos);
+        default:
+          if (isDigit(b)) {
+            return number(pos);
+          }
+          throw error(String.format("Invalid input: %s", safe(b)), pos);
+      }
+    }
+
+  }
+
+
+  /**
+   * Encode a token.
+   *
+   * @param event  the token's event
+   * @param offset the token's offset in the buffer
+   * @param field  the token's length or matching index
+   *
+   * @return the encoded token
+   */
+  private static long encode(Event event, int offset, int field) {
+    long type = (long) event.ordinal() << 60;
+    long length = (field & FIELD_MASK) << 32;
+    return type | length | (offset & OFFSET_MASK);
+  }
+
+
+  private static JsonParsingException error(String message, int pos) {
+    return new JsonParsingException(message, new Location(-1, -1, pos));
+  }
+
+
+  private static boolean isDigit(int b) {
+    return '0' <= b && b <= '9';
+  }
+
+
+  static boolean isHex(int b) {
+    // Setting the 0x20 bit maps upper case letters to lower case.
+    int lower = b | 0x20;
+    return isDigit(b) || ('a' <= lower && lower <= 'f');
+  }
+
+
+  private static long offsetOf(long token) {
+    return token & OFFSET_MASK;
+  }
+
+
+  /**
+   * Create a tape for a complete document.
+   *
+   * @param buffer the UTF-8 encoded document. The buffer is used directly, so must not be modified afterwards.
+   *
+   * @return the tape
+   */
+  public static Tape parse(byte[] buffer) {
+    return parse(buffer, 0, buffer.length);
+  }
+
+
+  /**
+   * Create a tape for a complete document.
+   *
+   * @param buffer the buffer holding the UTF-8 encoded document. The buffer is used directly, so must not be modified afterwards.
+   * @param offset the start of the document in the buffer
+   * @param length the length of the document
+   *
+   * @return the tape
+   */
+  public static Tape parse(byte[] buffer, int offset, int length) {
+    return new Builder(buffer, offset + length).build(offset);
+  }
+
+
+  /**
+   * Read a complete UTF-8 encoded document and create a tape for it.
+   *
+   * @param input the document's source
+   *
+   * @return the tape
+   */
+  public static Tape parse(InputStream input) {
+    byte[] buffer;
+    try {
+      buffer = input.readAllBytes();
+    } catch (IOException e) {
+      throw new JsonParsingException("I/O failure", e, Location.UNSET);
+    }
+    return parse(buffer);
+  }
+
+
+  private static String safe(int b) {
+    return Parser.safe(b & 0xff);
+  }
+
+
+  /** The UTF-8 encoded document. */
+  private final byte[] buffer;
+
+  /** The number of tokens. */
+  private final int size;
+
+  /** The tokens. */
+  private final long[] tape;
+
+
+  private Tape(byte[] buffer, long[] tape, int size) {
+    this.buffer = buffer;
+    this.tape = tape;
+    this.size = size;
+  }
+
+
+  /**
+   * Create a parser that walks this tape.
+   *
+   * @return a parser
+   */
+  public TapeParser createParser() {
+    return new TapeParser(this);
+  }
+
+
+  /**
+   * Find a member of an object.
+   *
+   * @param index the index of the object's start on the tape
+   * @param key   the key to look for
+   *
+   * @return the index of the member's value on the tape, or -1 if there is no such member
+   */
+  public int findMember(int index, String key) {
+    if (getEvent(index) != Event.START_OBJECT) {
+      throw new IllegalArgumentException("Token at " + index + " is " + getEvent(index) + ", not START_OBJECT");
+    }
+    int found = -1;
+    int end = getMatch(index);
+    int i = index + 1;
+    while (i < end) {
+      if (getString(i).equals(key)) {
+        // The last matching key wins, as in the standard parser.
+        found = i + 1;
+      }
+      i = skip(i + 1);
+    }
+    return found;
+  }
+
+
+  /**
+   * Get the event for a token.
+   *
+   * @param index the index of the token on the tape
+   *
+   * @return the event
+   */
+  public Event getEvent(int index) {
+    return EVENTS[(int) (tape[index] >>> 60)];
+  }
+
+
+  /**
+   * Get the length in bytes of a token. Strings and keys include their quotes. The start or end of a structure has a length of one.
+   *
+   * @param index the index of the token on the tape
+   *
+   * @return the length
+   */
+  public int getLength(int index) {
+    switch (getEvent(index)) {
+      case START_ARRAY: // falls through
+      case START_OBJECT: // falls through
+      case END_ARRAY: // falls through
+      case END_OBJECT:
+        return 1;
+      default:
+        return (int) ((tape[index] >>> 32) & FIELD_MASK);
+    }
+  }
+
+
+  /**
+   * Get the index of the bracket on the tape that matches the bracket at the given index.
+   *
+   * @param index the index of the start or end of a structure
+   *
+   * @return the index of the matching bracket
+   */
+  public int getMatch(int index) {
+    switch (getEvent(index)) {
+      case START_ARRAY: // falls through
+      case START_OBJECT: // falls through
+      case END_ARRAY: // falls through
+      case END_OBJECT:
+        return (int) ((tape[index] >>> 32) & FIELD_MASK);
+      default:
+        throw new IllegalArgumentException("Token at " + index + " is " + getEvent(index) + ", not a structure bracket");
+    }
+  }
+
+
+  /**
+   * Get the offset of a token in the buffer.
+   *
+   * @param index the index of the token on the tape
+   *
+   * @return the offset
+   */
+  public int getOffset(int index) {
+    return (int) offsetOf(tape[index]);
+  }
+
+
+  /**
+   * Get the raw text of a number, string or key. Strings and keys include their quotes and any escape sequences.
+   *
+   * @param index the index of the token on the tape
+   *
+   * @return the raw text
+   */
+  public String getRawText(int index) {
+    return new String(buffer, getOffset(index), getLength(index), UTF_8);
+  }
+
+
+  /**
+   * Get the value of a key, a string, or the text of a number.
+   *
+   * @param index the index of the token on the tape
+   *
+   * @return the string
+   */
+  public String getString(int index) {
+    Event event = getEvent(index);
+    if (event == Event.VALUE_NUMBER) {
+      return getRawText(index);
+    }
+    if (event != Event.KEY_NAME && event != Event.VALUE_STRING) {
+      throw new IllegalArgumentException("Token at " + index + " is " + event + ", not a string");
+    }
+    int offset = getOffset(index);
+    int length = getLength(index);
+    for (int i = offset + 1; i < offset + length - 1; i++) {
+      if (buffer[i] == '\\') {
+        // Include the closing quote as the string parser expects it.
+        String raw = new String(buffer, offset + 1, length - 1, UTF_8);
+        return new StringParser(new Input(new StringReader(raw))).parse();
+      }
+    }
+    return new String(buffer, offset + 1, length - 2, UTF_8);
+  }
+
+
+  /**
+   * Convert the value starting at the given index to a canonical value.
+   *
+   * @param index the index of the value's first token on the tape
+   *
+   * @return the value
+   */
+  public Canonical getValue(int index) {
+    switch (getEvent(index)) {
+      case START_ARRAY: {
+        CJArray array = new CJArray();
+        int end = getMatch(index);
+        int i = index + 1;
+        while (i < end) {
+          array.add(getValue(i));
+          i = skip(i);
+        }
+        return array;
+      }
+      case START_OBJECT: {
+        CJObject object = new CJObject();
+        int end = getMatch(index);
+        int i = index + 1;
+        while (i < end) {
+          object.put(getString(i), getValue(i + 1));
+          i = skip(i + 1);
+        }
+        return object;
+      }
+      case VALUE_STRING:
+        return CJString.create(getString(index));
+      case VALUE_NUMBER:
+        // The number's syntax was checked when the tape was built.
+        return NumberParser.parseText(getRawText(index), () -> new Location(-1, -1, getOffset(index)));
+      case VALUE_TRUE:
+        return CJTrue.TRUE;
+      case VALUE_FALSE:
+        return CJFalse.FALSE;
+      case VALUE_NULL:
+        return CJNull.NULL;
+      default:
+        throw new IllegalArgumentException("Token at " + index + " is " + getEvent(index) + ", not the start of a value");
+    }
+  }
+
+
+  /**
+   * Get the number of tokens on this tape.
+   *
+   * @return the number of tokens
+   */
+  public int size() {
+    return size;
+  }
+
+
+  /**
+   * Get the index of the token after the value that starts at the given index. This is a constant time operation, even for large structures.
+   *
+   * @param index the index of the value's first token
+   *
+   * @return the index of the next token
+   */
+  public int skip(int index) {
+    Event event = getEvent(index);
+    if (event == Event.START_ARRAY || event == Event.START_OBJECT) {
+      return getMatch(index) + 1;
+    }
+    return index + 1;
+  }
+
+
+  /**
+   * Convert the whole document to a canonical value.
+   *
+   * @return the document's root value
+   */
+  public Canonical toCanonical() {
+    return getValue(0);
+  }
+
+}
@@ -0,0 +1,268 @@
+package com.pippsford.json.parser;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.stream.Stream;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonLocation;
+import jakarta.json.stream.JsonParser.Event;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.io.Location;
+import com.pippsford.json.primitive.numbers.CJNumber;
+
+/**
+ * A parser that generates events by walking a {@link Tape}. As the tape records where every structure ends, skipping an array or an object takes
+ * constant time.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class TapeParser extends BaseIterator<Event> implements CJParser {
+
+  /** The tape being walked. */
+  private final Tape tape;
+
+  /** The index of the token for the last event. */
+  private int current = -1;
+
+  /** The current nesting depth. */
+  private int depth = -1;
+
+  /** The last event returned by next(). */
+  private Event lastEvent = null;
+
+  /** The index of the token for the next event. */
+  private int position = 0;
+
+  /** The tape indices of the currently open structures. */
+  private int[] starts = new int[16];
+
+  /** Tag for the current structure. */
+  private StructureTag structureTag = new StructureTag(null);
+
+
+  /**
+   * New instance.
+   *
+   * @param tape the tape to walk
+   */
+  public TapeParser(Tape tape) {
+    this.tape = tape;
+  }
+
+
+  @Override
+  protected boolean checkNext() {
+    return position < tape.size();
+  }
+
+
+  private void checkState(Event required) {
+    if (required != lastEvent) {
+      throw new IllegalStateException("State must be " + required + ", not " + lastEvent);
+    }
+  }
+
+
+  @Override
+  public void close() {
+    position = tape.size();
+    hasNextCalled = false;
+  }
+
+
+  /**
+   * Move past the end of the current structure.
+   *
+   * @param end the index of the structure's closing bracket
+   */
+  private void endStructure(int end) {
+    current = end;
+    position = end + 1;
+    depth--;
+    structureTag = structureTag.parent;
+    lastEvent = tape.getEvent(end);
+    hasNextCalled = false;
+  }
+
+
+  @Override
+  protected Event fetchNext() {
+    current = position++;
+    Event event = tape.getEvent(current);
+    switch (event) {
+      case START_ARRAY: // falls through
+      case START_OBJECT:
+        depth++;
+        if (depth == starts.length) {
+          starts = Arrays.copyOf(starts, depth * 2);
+        }
+        starts[depth] = current;
+        structureTag = new StructureTag(structureTag);
+        break;
+      case END_ARRAY: // falls through
+      case END_OBJECT:
+        depth--;
+        structureTag = structureTag.parent;
+        break;
+      default:
+        // do nothing
+        break;
+    }
+    lastEvent = event;
+    return event;
+  }
+
+
+  @Override
+  public CJArray getArray() {
+    checkState(Event.START_ARRAY);
+    return (CJArray) getValue();
+  }
+
+
+  @Override
+  public Stream<JsonValue> getArrayStream() {
+    checkState(Event.START_ARRAY);
+    return new ArrayIterator(this::getTag, this).asStream();
+  }
+
+
+  @Override
+  public BigDecimal getBigDecimal() {
+    return getNumber().bigDecimalValue();
+  }
+
+
+  /**
+   * Get the index on the tape of the token for the last event.
+   *
+   * @return the index, or -1 if no event has been returned
+   */
+  public int getIndex() {
+    return current;
+  }
+
+
+  @Override
+  public int getInt() {
+    return getNumber().intValue();
+  }
+
+
+  /**
+   * Get the last event returned from "next".
+   *
+   * @return the last event
+   */
+  public Event getLastEvent() {
+    return lastEvent;
+  }
+
+
+  @Override
+  public JsonLocation getLocation() {
+    if (current == -1) {
+      return Location.UNSET;
+    }
+    return new Location(-1, -1, tape.getOffset(current));
+  }
+
+
+  @Override
+  public long getLong() {
+    return getNumber().longValue();
+  }
+
+
+  private CJNumber getNumber() {
+    checkState(Event.VALUE_NUMBER);
+    return (CJNumber) tape.getValue(current);
+  }
+
+
+  @Override
+  public CJObject getObject() {
+    checkState(Event.START_OBJECT);
+    return (CJObject) getValue();
+  }
+
+
+  @Override
+  public Stream<Entry<String, JsonValue>> getObjectStream() {
+    checkState(Event.START_OBJECT);
+    return new ObjectIterator(this::getTag, this).asStream();
+  }
+
+
+  @Override
+  public String getString() {
+    if (lastEvent != Event.KEY_NAME && lastEvent != Event.VALUE_STRING && lastEvent != Event.VALUE_NUMBER) {
+      throw new IllegalStateException("Current event is " + lastEvent + " not a string, key or number");
+    }
+    return tape.getString(current);
+  }
+
+
+  StructureTag getTag() {
+    return structureTag;
+  }
+
+
+  /**
+   * Get the tape this parser is walking.
+   *
+   * @return the tape
+   */
+  public Tape getTape() {
+    return tape;
+  }
+
+
+  @Override
+  public Canonical getValue() {
+    if (lastEvent == null || lastEvent == Event.KEY_NAME || lastEvent == Event.END_ARRAY || lastEvent == Event.END_OBJECT) {
+      throw new IllegalStateException("Parser is not at start of value, but at " + lastEvent);
+    }
+    Canonical value = tape.getValue(current);
+    if (lastEvent == Event.START_ARRAY || lastEvent == Event.START_OBJECT) {
+      endStructure(tape.getMatch(current));
+    }
+    return value;
+  }
+
+
+  @Override
+  public Stream<JsonValue> getValueStream() {
+    if (depth != -1) {
+      throw new IllegalStateException("Parser is within a JSON structure");
+    }
+    return new ValueIterator(this::getTag, this).asStream();
+  }
+
+
+  @Override
+  public boolean isIntegralNumber() {
+    return getNumber().isIntegral();
+  }
+
+
+  @Override
+  public void skipArray() {
+    if (depth != -1 && tape.getEvent(starts[depth]) == Event.START_ARRAY) {
+      endStructure(tape.getMatch(starts[depth]));
+    }
+  }
+
+
+  @Override
+  public void skipObject() {
+    if (depth != -1 && tape.getEvent(starts[depth]) == Event.START_OBJECT) {
+      endStructure(tape.getMatch(starts[depth]));
+    }
+  }
+
+}
@@ -0,0 +1,35 @@
+package com.pippsford.json.patch;
+
+/**
+ * How a patch is applied to its target.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public enum ApplyMode {
+
+  /**
+   * The whole target is copied, and the copy is patched. The target is not changed. This is the default.
+   */
+  COPY,
+
+  /**
+   * Only the objects and arrays which contain a location the patch changes are copied. Everything else in the result is shared with the target, so the cost
+   * depends on the size of the changes rather than the size of the target. The target is not changed, but as parts of it are shared, the target and the result
+   * must be treated as immutable.
+   */
+  PATH_COPY,
+
+  /**
+   * The target is patched directly, with no copying. If the patch fails, the target may be left partially patched. If the target is not a canonical
+   * structure, it is converted to one first, so the target itself is not changed.
+   */
+  IN_PLACE,
+
+  /**
+   * The target is patched directly, but each change is recorded so it can be undone. If any operation fails, including a test, the changes are undone and the
+   * target is left as it was. Only the values which are replaced or removed are kept, so the cost depends on the size of the changes rather than the size of
+   * the target. As with {@link #IN_PLACE}, a target which is not a canonical structure is converted to one first.
+   */
+  IN_PLACE_ATOMIC
+
+}
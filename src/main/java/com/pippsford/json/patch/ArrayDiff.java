@@ -0,0 +1,354 @@
+package com.pippsford.json.patch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import jakarta.json.JsonValue;
+
+import com.pippsford.json.patch.PatchFactory.Item;
+
+/**
+ * Finds a common subsequence of two arrays. Common prefixes and suffixes are removed first. Then elements which occur exactly once in both arrays are used
+ * as anchors, as in a "patience" diff. The gaps between anchors are compared with Myers' O((N+M)D) algorithm, using the linear space refinement which
+ * recursively finds the middle snake of each gap.
+ *
+ * <p>The subsequence found is not guaranteed to be the longest, but it always is a valid common subsequence. If comparing a gap would be excessively
+ * expensive, the gap is treated as having nothing in common.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class ArrayDiff {
+
+  /** The maximum number of steps to spend looking for the middle snake of a gap before giving up. */
+  private static final long MAX_COST = 1L << 26;
+
+
+  /**
+   * Find the longest strictly increasing subsequence using patience sorting.
+   *
+   * @param values the values
+   * @param size   the number of values to consider
+   *
+   * @return the indices of the values in the subsequence, in order
+   */
+  private static int[] longestIncreasing(int[] values, int size) {
+    // tails[k] is the index of the smallest value which ends an increasing run of length k+1
+    int[] tails = new int[size];
+    int[] previous = new int[size];
+    int length = 0;
+    for (int i = 0; i < size; i++) {
+      int lo = 0;
+      int hi = length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (values[tails[mid]] < values[i]) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      previous[i] = (lo > 0) ? tails[lo - 1] : -1;
+      tails[lo] = i;
+      if (lo == length) {
+        length++;
+      }
+    }
+
+    int[] output = new int[length];
+    int k = (length > 0) ? tails[length - 1] : -1;
+    for (int i = length - 1; i >= 0; i--) {
+      output[i] = k;
+      k = previous[k];
+    }
+    return output;
+  }
+
+
+  /**
+   * Find a common subsequence of two arrays.
+   *
+   * @param source the source array
+   * @param target the target array
+   *
+   * @return for each source index, the target index it matches, or -1 if it is not part of the subsequence
+   */
+  static int[] match(List<? extends JsonValue> source, List<? extends JsonValue> target) {
+    return match(source, target, new Fingerprints());
+  }
+
+
+  /**
+   * Find a common subsequence of two arrays, using known fingerprints to identify equal elements.
+   *
+   * @param source       the source array
+   * @param target       the target array
+   * @param fingerprints the fingerprints of the elements
+   *
+   * @return for each source index, the target index it matches, or -1 if it is not part of the subsequence
+   */
+  static int[] match(List<? extends JsonValue> source, List<? extends JsonValue> target, Fingerprints fingerprints) {
+    HashMap<Item, Integer> ids = new HashMap<>();
+    int[] a = identify(ids, fingerprints, source);
+    int[] b = identify(ids, fingerprints, target);
+    ArrayDiff diff = new ArrayDiff(a, b, ids.size());
+    diff.patience();
+    return diff.matches;
+  }
+
+
+  private static int[] identify(HashMap<Item, Integer> ids, Fingerprints fingerprints, List<? extends JsonValue> values) {
+    int[] output = new int[values.size()];
+    int i = 0;
+    for (JsonValue value : values) {
+      Integer newId = ids.size();
+      Integer id = ids.putIfAbsent(fingerprints.item(value), newId);
+      output[i] = (id != null) ? id : newId;
+      i++;
+    }
+    return output;
+  }
+
+
+  /** The source sequence. */
+  private final int[] a;
+
+  /** The target sequence. */
+  private final int[] b;
+
+  /** The number of distinct values in the sequences. */
+  private final int distinct;
+
+  /** The matches found. */
+  private final int[] matches;
+
+
+  private ArrayDiff(int[] a, int[] b, int distinct) {
+    this.a = a;
+    this.b = b;
+    this.distinct = distinct;
+    matches = new int[a.length];
+    Arrays.fill(matches, -1);
+  }
+
+
+  /**
+   * Find the middle snake of a gap and split the gap around it. The gap must not have a common prefix or suffix, and neither side may be empty.
+   *
+   * @param aLo the start of the gap in the source
+   * @param aHi the end of the gap in the source
+   * @param bLo the start of the gap in the target
+   * @param bHi the end of the gap in the target
+   */
+  @SuppressWarnings({"java:S3776", "JavaNCSS", "CyclomaticComplexity", "NPathComplexity"}) // Ignore the complexity of Myers' algorithm.
+  private void bisect(int aLo, int aHi, int bLo, int bHi) {
+    final int n = aHi - aLo;
+    final int m = bHi - bLo;
+    final int maxD = (n + m + 1) / 2;
+    final int offset = maxD;
+    final int[] forward = new int[2 * maxD + 2];
+    final int[] reverse = new int[2 * maxD + 2];
+    Arrays.fill(forward, -1);
+    Arrays.fill(reverse, -1);
+    forward[offset + 1] = 0;
+    reverse[offset + 1] = 0;
+    final int delta = n - m;
+    final boolean front = (delta & 1) != 0;
+
+    // Trim the ranges of diagonals which have run off the edge of the grid
+    int k1start = 0;
+    int k1end = 0;
+    int k2start = 0;
+    int k2end = 0;
+    for (int d = 0; d < maxD; d++) {
+      if ((long) d * (n + m) > MAX_COST) {
+        // give up
+        return;
+      }
+
+      // Walk the forward path one step
+      for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+        int k1Offset = offset + k1;
+        int x1 = (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])) ? forward[k1Offset + 1] : forward[k1Offset - 1] + 1;
+        int y1 = x1 - k1;
+        while (x1 < n && y1 < m && a[aLo + x1] == b[bLo + y1]) {
+          x1++;
+          y1++;
+        }
+        forward[k1Offset] = x1;
+        if (x1 > n) {
+          k1end += 2;
+        } else if (y1 > m) {
+          k1start += 2;
+        } else if (front) {
+          int k2Offset = offset + delta - k1;
+          if (0 <= k2Offset && k2Offset < reverse.length && reverse[k2Offset] != -1 && x1 >= n - reverse[k2Offset]) {
+            // the paths overlap
+            split(aLo, aHi, bLo, bHi, x1, y1);
+            return;
+          }
+        }
+      }
+
+      // Walk the reverse path one step
+      for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+        int k2Offset = offset + k2;
+        int x2 = (k2 == -d || (k2 != d && reverse[k2Offset - 1] < reverse[k2Offset + 1])) ? reverse[k2Offset + 1] : reverse[k2Offset - 1] + 1;
+        int y2 = x2 - k2;
+        while (x2 < n && y2 < m && a[aHi - x2 - 1] == b[bHi - y2 - 1]) {
+          x2++;
+          y2++;
+        }
+        reverse[k2Offset] = x2;
+        if (x2 > n) {
+          k2end += 2;
+        } else if (y2 > m) {
+          k2start += 2;
+        } else if (!front) {
+          int k1Offset = offset + delta - k2;
+          if (0 <= k1Offset && k1Offset < forward.length && forward[k1Offset] != -1 && forward[k1Offset] >= n - x2) {
+            // the paths overlap
+            int x1 = forward[k1Offset];
+            split(aLo, aHi, bLo, bHi, x1, x1 - (k1Offset - offset));
+            return;
+          }
+        }
+      }
+    }
+
+    // The paths always meet before this point.
+  }
+
+
+  /**
+   * Match the elements which occur exactly once in both sides of a gap, taking the longest increasing run of them as anchors, then compare the gaps between
+   * the anchors.
+   *
+   * @param aLo the start of the gap in the source
+   * @param aHi the end of the gap in the source
+   * @param bLo the start of the gap in the target
+   * @param bHi the end of the gap in the target
+   */
+  private void anchor(int aLo, int aHi, int bLo, int bHi) {
+    // For each value, how many times it occurs on each side, and where it was last seen in the target
+    int[] countA = new int[distinct];
+    int[] countB = new int[distinct];
+    int[] positionB = new int[distinct];
+    for (int i = aLo; i < aHi; i++) {
+      countA[a[i]]++;
+    }
+    for (int j = bLo; j < bHi; j++) {
+      countB[b[j]]++;
+      positionB[b[j]] = j;
+    }
+
+    // The candidates, in source order, with their target positions
+    int[] candA = new int[Math.min(aHi - aLo, bHi - bLo)];
+    int[] candB = new int[candA.length];
+    int candidates = 0;
+    for (int i = aLo; i < aHi; i++) {
+      int id = a[i];
+      if (countA[id] == 1 && countB[id] == 1) {
+        candA[candidates] = i;
+        candB[candidates] = positionB[id];
+        candidates++;
+      }
+    }
+
+    // Compare the gaps between the anchors
+    for (int anchor : longestIncreasing(candB, candidates)) {
+      int i = candA[anchor];
+      int j = candB[anchor];
+      myers(aLo, i, bLo, j);
+      matches[i] = j;
+      aLo = i + 1;
+      bLo = j + 1;
+    }
+    myers(aLo, aHi, bLo, bHi);
+  }
+
+
+  /**
+   * Compare a gap using Myers' algorithm.
+   *
+   * @param aLo the start of the gap in the source
+   * @param aHi the end of the gap in the source
+   * @param bLo the start of the gap in the target
+   * @param bHi the end of the gap in the target
+   */
+  private void myers(int aLo, int aHi, int bLo, int bHi) {
+    int prefix = prefix(aLo, aHi, bLo, bHi);
+    aLo += prefix;
+    bLo += prefix;
+    int suffix = suffix(aLo, aHi, bLo, bHi);
+    if (aLo < aHi - suffix && bLo < bHi - suffix) {
+      bisect(aLo, aHi - suffix, bLo, bHi - suffix);
+    }
+  }
+
+
+  /** Match the common prefix and suffix of the whole arrays, then anchor the remainder. */
+  private void patience() {
+    int prefix = prefix(0, a.length, 0, b.length);
+    int suffix = suffix(prefix, a.length, prefix, b.length);
+    if (prefix < a.length - suffix && prefix < b.length - suffix) {
+      anchor(prefix, a.length - suffix, prefix, b.length - suffix);
+    }
+  }
+
+
+  /**
+   * Match the common prefix of a gap.
+   *
+   * @param aLo the start of the gap in the source
+   * @param aHi the end of the gap in the source
+   * @param bLo the start of the gap in the target
+   * @param bHi the end of the gap in the target
+   *
+   * @return the length of the common prefix
+   */
+  private int prefix(int aLo, int aHi, int bLo, int bHi) {
+    int length = 0;
+    while (aLo + length < aHi && bLo + length < bHi && a[aLo + length] == b[bLo + length]) {
+      matches[aLo + length] = bLo + length;
+      length++;
+    }
+    return length;
+  }
+
+
+  /**
+   * Split a gap at a point on the middle snake, and compare the two halves.
+   *
+   * @param aLo the start of the gap in the source
+   * @param aHi the end of the gap in the source
+   * @param bLo the start of the gap in the target
+   * @param bHi the end of the gap in the target
+   * @param x   the offset of the split in the source
+   * @param y   the offset of the split in the target
+   */
+  private void split(int aLo, int aHi, int bLo, int bHi, int x, int y) {
+    myers(aLo, aLo + x, bLo, bLo + y);
+    myers(aLo + x, aHi, bLo + y, bHi);
+  }
+
+
+  /**
+   * Match the common suffix of a gap.
+   *
+   * @param aLo the start of the gap in the source
+   * @param aHi the end of the gap in the source
+   * @param bLo the start of the gap in the target
+   * @param bHi the end of the gap in the target
+   *
+   * @return the length of the common suffix
+   */
+  private int suffix(int aLo, int aHi, int bLo, int bHi) {
+    int length = 0;
+    while (aLo < aHi - length && bLo < bHi - length && a[aHi - length - 1] == b[bHi - length - 1]) {
+      length++;
+      matches[aHi - length] = bHi - length;
+    }
+    return length;
+  }
+
+}
@@ -0,0 +1,485 @@
+package com.pippsford.json.patch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonPatch.Operation;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonValue.ValueType;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.patch.ops.Add;
+import com.pippsford.json.patch.ops.Copy;
+import com.pippsford.json.patch.ops.Move;
+import com.pippsford.json.patch.ops.Replace;
+import com.pippsford.json.pointer.JsonExtendedPointer;
+import com.pippsford.json.pointer.PathElement;
+
+/**
+ * A patch prepared for repeated application. Every pointer is split into the path to its parent and its final element when the patch is compiled. When the
+ * patch is applied, the containers along the most recent parent path are remembered, so an operation only has to navigate from the point where its parent
+ * path differs from the previous one. How much of each path can be reused is worked out once, when the patch is compiled.
+ *
+ * <p>Every operation only changes the children of its parent, so the remembered containers from the root to the parent remain valid afterwards. A "move"
+ * resolves the parent of its source and the parent of its destination once each, instead of navigating from the root three times.</p>
+ *
+ * <p>A compiled patch holds no state between applications, so it may be shared between threads.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class CompiledPatch {
+
+  /** The containers along the path most recently resolved, during a single application. */
+  private static class Cursor {
+
+    /** The containers, from the root. */
+    final JsonStructure[] containers;
+
+    /** The number of valid containers. */
+    int valid = 1;
+
+
+    Cursor(JsonStructure root, int maxDepth) {
+      containers = new JsonStructure[maxDepth + 1];
+      containers[0] = root;
+    }
+
+
+    /**
+     * Find the parent container of a location.
+     *
+     * @param location the location
+     *
+     * @return the parent, or null if the parent path does not lead to a container
+     */
+    JsonStructure resolve(Location location) {
+      PathElement[] parent = location.parent;
+      int depth = Math.min(location.reuse, valid - 1);
+      while (depth < parent.length) {
+        JsonStructure child = child(containers[depth], parent[depth]);
+        if (child == null) {
+          valid = depth + 1;
+          return null;
+        }
+        depth++;
+        containers[depth] = child;
+      }
+      valid = depth + 1;
+      return containers[depth];
+    }
+
+
+    /**
+     * Start again from a new root.
+     *
+     * @param root the root
+     */
+    void restart(JsonStructure root) {
+      containers[0] = root;
+      valid = 1;
+    }
+
+  }
+
+
+
+  /** A location in the document, split into the path to its parent and its final element. */
+  private static class Location {
+
+    /** The path to the parent. */
+    final PathElement[] parent;
+
+    /** The number of elements of the parent path which are shared with the previous path resolved. */
+    final int reuse;
+
+    /** The final element of the path. */
+    final PathElement terminal;
+
+
+    Location(PathElement[] elements, PathElement[] previous) {
+      parent = new PathElement[elements.length - 1];
+      System.arraycopy(elements, 0, parent, 0, parent.length);
+      terminal = elements[parent.length];
+
+      int common = 0;
+      while (common < parent.length && common < previous.length && isSameStep(parent[common], previous[common])) {
+        common++;
+      }
+      reuse = common;
+    }
+
+  }
+
+
+
+  /** A compiled operation. */
+  private static class Step {
+
+    /** The source location for "copy" and "move" operations. */
+    final Location from;
+
+    /** The operation. */
+    final PatchOperation operation;
+
+    /** The target location, if the operation is not applied from the root. */
+    final Location path;
+
+    /** How the operation is performed. */
+    final StepType type;
+
+    /** The value for "add" and "replace" operations. */
+    final JsonValue value;
+
+
+    Step(StepType type, PatchOperation operation, Location from, Location path, JsonValue value) {
+      this.type = type;
+      this.operation = operation;
+      this.from = from;
+      this.path = path;
+      this.value = value;
+    }
+
+  }
+
+
+
+  /** How a step is performed. */
+  private enum StepType {
+    /** The operation changes a child of its parent. */
+    EDIT,
+
+    /** The operation only reads the document, so it is applied from the root. */
+    READ,
+
+    /** The operation may replace the whole document, so it is applied from the root. */
+    ROOT,
+
+    /** The operation copies or moves a value. */
+    TRANSFER
+  }
+
+
+  private static void add(JsonStructure parent, PathElement terminal, JsonValue value) {
+    if (parent.getValueType() == ValueType.OBJECT) {
+      terminal.add((JsonObject) parent, value);
+    } else {
+      terminal.add((JsonArray) parent, value);
+    }
+  }
+
+
+  /**
+   * Get the child of a container.
+   *
+   * @param container the container
+   * @param element   the element identifying the child
+   *
+   * @return the child, or null if it does not exist or is not a container
+   */
+  private static JsonStructure child(JsonStructure container, PathElement element) {
+    JsonValue value;
+    if (container.getValueType() == ValueType.OBJECT) {
+      value = ((JsonObject) container).get(element.getKey());
+    } else {
+      JsonArray array = (JsonArray) container;
+      int index = element.getIndex();
+      value = (element.isArrayType() && 0 <= index && index < array.size()) ? array.get(index) : null;
+    }
+    return (value instanceof JsonStructure) ? (JsonStructure) value : null;
+  }
+
+
+  private static Step compile(PatchOperation operation, PathElement[] previous) {
+    PathElement[] elements = elements(operation.getPathPointer());
+    if (elements.length == 0) {
+      JsonValue value = (operation.getOperation() == Operation.ADD) ? ((Add) operation).getValue() : null;
+      return new Step(StepType.ROOT, operation, null, null, value);
+    }
+
+    JsonExtendedPointer fromPointer;
+    switch (operation.getOperation()) {
+      case ADD:
+        return new Step(StepType.EDIT, operation, null, new Location(elements, previous), ((Add) operation).getValue());
+      case REPLACE:
+        return new Step(StepType.EDIT, operation, null, new Location(elements, previous), ((Replace) operation).getValue());
+      case REMOVE:
+        return new Step(StepType.EDIT, operation, null, new Location(elements, previous), null);
+      case COPY:
+        fromPointer = ((Copy) operation).getFromPointer();
+        break;
+      case MOVE:
+        fromPointer = ((Move) operation).getFromPointer();
+        break;
+      default:
+        return new Step(StepType.READ, operation, null, null, null);
+    }
+
+    PathElement[] fromElements = elements(fromPointer);
+    if (fromElements.length == 0) {
+      // copying or moving the whole document
+      return new Step(StepType.ROOT, operation, null, null, null);
+    }
+    Location from = new Location(fromElements, previous);
+    return new Step(StepType.TRANSFER, operation, from, new Location(elements, from.parent), null);
+  }
+
+
+  private static PathElement[] elements(JsonExtendedPointer pointer) {
+    ArrayList<PathElement> list = new ArrayList<>();
+    PathElement element = pointer.getPathElement();
+    while (element != null) {
+      list.add(element);
+      element = element.getChild();
+    }
+    return list.toArray(new PathElement[0]);
+  }
+
+
+  /**
+   * Get a value to insert into a document. Structures are copied, so that changes to the document cannot change this patch.
+   *
+   * @param value the value from the patch
+   *
+   * @return the value to insert
+   */
+  private static JsonValue fresh(JsonValue value) {
+    return (value instanceof JsonStructure) ? Canonical.cast(value).copy() : value;
+  }
+
+
+  private static JsonValue getValue(JsonStructure parent, PathElement terminal) {
+    if (parent.getValueType() == ValueType.OBJECT) {
+      return terminal.getValue((JsonObject) parent);
+    }
+    return terminal.getValue((JsonArray) parent);
+  }
+
+
+  /**
+   * Do two path elements navigate to the same child?.
+   *
+   * @param a the first element
+   * @param b the second element
+   *
+   * @return true if they are the same
+   */
+  private static boolean isSameStep(PathElement a, PathElement b) {
+    return a.isArrayType() == b.isArrayType() && a.getKey().equals(b.getKey());
+  }
+
+
+  private static void remove(JsonStructure parent, PathElement terminal) {
+    if (parent.getValueType() == ValueType.OBJECT) {
+      terminal.remove((JsonObject) parent);
+    } else {
+      terminal.remove((JsonArray) parent);
+    }
+  }
+
+
+  private static void replace(JsonStructure parent, PathElement terminal, JsonValue value) {
+    if (parent.getValueType() == ValueType.OBJECT) {
+      terminal.replace((JsonObject) parent, value);
+    } else {
+      terminal.replace((JsonArray) parent, value);
+    }
+  }
+
+
+  /** The deepest parent path of any operation. */
+  private final int maxDepth;
+
+  /** The patch this was compiled from. */
+  private final Patch patch;
+
+  /** The compiled operations. */
+  private final List<Step> steps;
+
+
+  /**
+   * Compile a patch.
+   *
+   * @param patch the patch
+   */
+  public CompiledPatch(Patch patch) {
+    this.patch = new Patch(patch.getOperations());
+    List<PatchOperation> operations = this.patch.getOperations();
+    steps = new ArrayList<>(operations.size());
+    PathElement[] previous = new PathElement[0];
+    int depth = 0;
+    for (PatchOperation operation : operations) {
+      Step step = compile(operation, previous);
+      steps.add(step);
+      if (step.type == StepType.ROOT) {
+        previous = new PathElement[0];
+      } else if (step.path != null) {
+        previous = step.path.parent;
+        depth = Math.max(depth, previous.length);
+        if (step.from != null) {
+          depth = Math.max(depth, step.from.parent.length);
+        }
+      }
+    }
+    maxDepth = depth;
+  }
+
+
+  /**
+   * Apply this patch to a copy of the target.
+   *
+   * @param target the target
+   * @param <T>    the target's type
+   *
+   * @return the patched copy
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends JsonStructure> T apply(T target) {
+    return applySteps((T) Canonical.cast(target).copy());
+  }
+
+
+  /**
+   * Apply this patch to a target.
+   *
+   * @param target the target
+   * @param mode   how the patch should be applied
+   * @param <T>    the target's type
+   *
+   * @return the patched result
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends JsonStructure> T apply(T target, ApplyMode mode) {
+    switch (mode) {
+      case PATH_COPY:
+      case IN_PLACE_ATOMIC:
+        // Path copying replaces containers as it goes, and undoing changes needs each parent to be checked, so neither benefits from remembering containers.
+        return patch.apply(target, mode);
+      case IN_PLACE:
+        return applySteps((T) Canonical.cast(target));
+      default:
+        return apply(target);
+    }
+  }
+
+
+  /**
+   * Apply this patch to a copy of each document in a stream.
+   *
+   * @param targets the documents
+   * @param <T>     the documents' type
+   *
+   * @return a stream of the patched documents
+   */
+  public <T extends JsonStructure> Stream<T> apply(Stream<T> targets) {
+    return targets.map(this::apply);
+  }
+
+
+  @SuppressWarnings("unchecked")
+  private <T extends JsonStructure> T applySteps(T target) {
+    Cursor cursor = new Cursor(target, maxDepth);
+    for (Step step : steps) {
+      switch (step.type) {
+        case EDIT:
+          edit(cursor, step);
+          break;
+        case TRANSFER:
+          transfer(cursor, step);
+          break;
+        case READ:
+          step.operation.apply(cursor.containers[0]);
+          break;
+        default:
+          root(cursor, step);
+          break;
+      }
+    }
+    return (T) cursor.containers[0];
+  }
+
+
+  /**
+   * Perform an "add", "remove" or "replace" operation.
+   *
+   * @param cursor the cursor
+   * @param step   the operation
+   */
+  private void edit(Cursor cursor, Step step) {
+    JsonStructure parent = cursor.resolve(step.path);
+    if (parent == null) {
+      // Let the operation report the problem
+      cursor.restart(step.operation.apply(cursor.containers[0]));
+      return;
+    }
+
+    switch (step.operation.getOperation()) {
+      case ADD:
+        add(parent, step.path.terminal, fresh(step.value));
+        break;
+      case REMOVE:
+        remove(parent, step.path.terminal);
+        break;
+      default:
+        replace(parent, step.path.terminal, fresh(step.value));
+        break;
+    }
+  }
+
+
+  /**
+   * Get a copy of the patch this was compiled from.
+   *
+   * @return the patch
+   */
+  public Patch getPatch() {
+    return new Patch(patch.getOperations());
+  }
+
+
+  /**
+   * Perform an operation which may replace the whole document.
+   *
+   * @param cursor the cursor
+   * @param step   the operation
+   */
+  private void root(Cursor cursor, Step step) {
+    JsonStructure root = cursor.containers[0];
+    if (step.value != null) {
+      cursor.restart(step.operation.getPathPointer().add(root, fresh(step.value)));
+    } else {
+      cursor.restart(step.operation.apply(root));
+    }
+  }
+
+
+  /**
+   * Perform a "copy" or "move" operation.
+   *
+   * @param cursor the cursor
+   * @param step   the operation
+   */
+  private void transfer(Cursor cursor, Step step) {
+    JsonStructure fromParent = cursor.resolve(step.from);
+    if (fromParent == null) {
+      // Let the operation report the problem
+      cursor.restart(step.operation.apply(cursor.containers[0]));
+      return;
+    }
+    JsonValue value = getValue(fromParent, step.from.terminal);
+    if (step.operation.getOperation() == Operation.MOVE) {
+      remove(fromParent, step.from.terminal);
+    }
+
+    JsonStructure parent = cursor.resolve(step.path);
+    if (parent != null) {
+      add(parent, step.path.terminal, value);
+    } else {
+      // Let the pointer report the problem
+      cursor.restart(step.operation.getPathPointer().add(cursor.containers[0], value));
+    }
+  }
+
+}
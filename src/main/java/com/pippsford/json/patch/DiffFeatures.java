@@ -6,12 +6,14 @@
 public enum DiffFeatures {
 
   /**
-   * Try to create "move" operations. (Not yet implemented)
+   * Try to create "move" operations. Array elements which have been relocated within their array, and object members which have been renamed, are moved
+   * rather than being removed and added again.
    */
   CREATE_MOVES,
 
   /**
-   * Try to create "copy" operations. (Not yet implemented)
+   * Try to create "copy" operations. When an object or array is added, and an identical value already exists in a part of the document which has been
+   * patched, it is copied rather than being included in the patch.
    */
   CREATE_COPIES,
 
@@ -31,7 +33,13 @@ public enum DiffFeatures {
    * <p>The resulting patches are NOT standard per RFC 6902 and can only be processed by a library that understand canonical form and the "digest" extension.
    * This isn't default behavior.
    */
-  EMIT_DIGEST
+  EMIT_DIGEST,
+
+  /**
+   * Compare the members of large objects in parallel, using the common fork-join pool. The patch created is identical to the one created sequentially. This
+   * has no effect when creating copies, as then each member's operations depend on the members before it.
+   */
+  PARALLEL
 
 
 }
@@ -0,0 +1,170 @@
+package com.pippsford.json.patch;
+
+import java.util.IdentityHashMap;
+import java.util.Map.Entry;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+import com.pippsford.json.patch.PatchFactory.Item;
+
+/**
+ * Content fingerprints of the values in documents being compared. The fingerprint of a structure is calculated once, from the fingerprints of its contents,
+ * so fingerprinting a whole document takes linear time. Afterwards, two values with different fingerprints are known to be different without examining them.
+ *
+ * <p>Equal values always have equal fingerprints. Different values may have equal fingerprints, though with 64 bits it is very unlikely, so values with equal
+ * fingerprints are still checked for equality.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class Fingerprints {
+
+  /** Initial value for the fingerprint of an array. */
+  private static final long ARRAY_SEED = 0x6a09e667f3bcc908L;
+
+  /** Multiplier used to combine the fingerprints of array elements. */
+  private static final long ELEMENT_PRIME = 0x100000001b3L;
+
+  /** Multiplier used to combine an object member's name and value. */
+  private static final long MEMBER_PRIME = 0x9e3779b97f4a7c15L;
+
+  /** Initial value for the fingerprint of an object. */
+  private static final long OBJECT_SEED = 0xbb67ae8584caa73bL;
+
+
+  /**
+   * Scramble the bits of a value. This is the finalizer from the SplitMix64 generator.
+   *
+   * @param value the value
+   *
+   * @return the scrambled value
+   */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+
+
+  /**
+   * Fingerprint a string. This is the 64-bit FNV-1a hash of its UTF-16 characters.
+   *
+   * @param text the string
+   *
+   * @return the fingerprint
+   */
+  private static long text(String text) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < text.length(); i++) {
+      hash = (hash ^ text.charAt(i)) * ELEMENT_PRIME;
+    }
+    return hash;
+  }
+
+
+  /** The fingerprints calculated so far. Values are identified by identity, so an equality check is never needed to find one. */
+  private final IdentityHashMap<JsonValue, Long> cache = new IdentityHashMap<>();
+
+  /** Fingerprints shared with other threads, which are read but never updated. */
+  private final Fingerprints shared;
+
+
+  /** New instance. */
+  Fingerprints() {
+    shared = null;
+  }
+
+
+  /**
+   * New instance which uses the fingerprints already calculated by another instance. If the other instance is itself sharing, this shares the same root
+   * instance, as that is where the fingerprints were calculated. The shared instance must not be modified whilst this one is in use.
+   *
+   * @param shared the instance to share
+   */
+  Fingerprints(Fingerprints shared) {
+    this.shared = shared.shared != null ? shared.shared : shared;
+  }
+
+
+  private long array(JsonArray array) {
+    long hash = ARRAY_SEED;
+    for (JsonValue value : array) {
+      hash = hash * ELEMENT_PRIME + get(value);
+    }
+    return mix(hash + array.size());
+  }
+
+
+  /**
+   * Get the fingerprint of a value, calculating it if necessary.
+   *
+   * @param value the value
+   *
+   * @return the fingerprint
+   */
+  long get(JsonValue value) {
+    Long known = cache.get(value);
+    if (known == null && shared != null) {
+      known = shared.cache.get(value);
+    }
+    if (known != null) {
+      return known;
+    }
+
+    long hash;
+    switch (value.getValueType()) {
+      case ARRAY:
+        hash = array((JsonArray) value);
+        break;
+      case OBJECT:
+        hash = object((JsonObject) value);
+        break;
+      case STRING:
+        hash = mix(text(((JsonString) value).getString()));
+        break;
+      default:
+        // numbers and literals are equal if they have equal hash codes
+        hash = mix(((long) (value.getValueType().ordinal() + 1) << 32) ^ value.hashCode());
+        break;
+    }
+    cache.put(value, hash);
+    return hash;
+  }
+
+
+  /**
+   * Create an item which uses the fingerprint of a value as its hash code.
+   *
+   * @param value the value
+   *
+   * @return the item
+   */
+  Item item(JsonValue value) {
+    return new Item(value, get(value));
+  }
+
+
+  private long object(JsonObject object) {
+    // The members are combined by addition, so the order of the members does not matter
+    long hash = OBJECT_SEED;
+    for (Entry<String, JsonValue> entry : object.entrySet()) {
+      hash += mix(text(entry.getKey()) * MEMBER_PRIME + get(entry.getValue()));
+    }
+    return mix(hash + object.size());
+  }
+
+
+  /**
+   * Test if two values are equal. The values are only compared if their fingerprints match.
+   *
+   * @param source the first value
+   * @param target the second value
+   *
+   * @return true if they are equal
+   */
+  boolean same(JsonValue source, JsonValue target) {
+    return source == target || (get(source) == get(target) && source.equals(target));
+  }
+
+}
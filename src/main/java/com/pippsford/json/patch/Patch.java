@@ -48,6 +48,35 @@ public Patch(JsonArray array) {
   public <T extends JsonStructure> T apply(T target) {
     @SuppressWarnings("unchecked")
     T output = (T) Canonical.cast(target).copy();
+    return applyAll(output);
+  }
+
+
+  /**
+   * Apply this patch to a target.
+   *
+   * @param target the target
+   * @param mode   how the patch should be applied
+   * @param <T>    the target's type
+   *
+   * @return the patched result
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends JsonStructure> T apply(T target, ApplyMode mode) {
+    switch (mode) {
+      case PATH_COPY:
+        return PathCopier.apply(operations, target);
+      case IN_PLACE:
+        return applyAll((T) Canonical.cast(target));
+      case IN_PLACE_ATOMIC:
+        return UndoLog.apply(operations, target);
+      default:
+        return apply(target);
+    }
+  }
+
+
+  private <T extends JsonStructure> T applyAll(T output) {
     for (PatchOperation op : operations) {
       output = op.apply(output);
     }
@@ -55,6 +84,16 @@ public <T extends JsonStructure> T apply(T target) {
   }
 
 
+  /**
+   * Compile this patch for repeated application. Changes made to this patch after it is compiled do not affect the compiled form.
+   *
+   * @return the compiled patch
+   */
+  public CompiledPatch compile() {
+    return new CompiledPatch(this);
+  }
+
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
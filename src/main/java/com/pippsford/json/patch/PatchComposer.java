@@ -0,0 +1,852 @@
+package com.pippsford.json.patch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import jakarta.json.JsonException;
+import jakarta.json.JsonPatch.Operation;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.patch.ops.Add;
+import com.pippsford.json.patch.ops.Remove;
+import com.pippsford.json.patch.ops.Replace;
+import com.pippsford.json.pointer.Pointer;
+
+/**
+ * Composes a sequence of patches into a single patch. Applying the composed patch has the same effect as applying each patch in turn, but operations which
+ * are overwritten or undone by later operations are removed:
+ *
+ * <ul>
+ *   <li>A replace after an add or replace of the same location is merged into it.</li>
+ *   <li>A remove after a replace becomes a single remove. A remove after an add of an array element cancels out.</li>
+ *   <li>Changes inside a value which was added or replaced are made to the value itself.</li>
+ *   <li>Changes inside a location which is later removed or replaced are dropped.</li>
+ * </ul>
+ *
+ * <p>To bring two operations together, the operations between them may be reordered. When an array element is added or removed, the indices of the elements
+ * after it change, so the indices in the reordered operations are rebased.</p>
+ *
+ * <p>The composed patch is equivalent on every document to which the original patches can be applied. It may succeed on some documents where the original
+ * patches would have failed. A pointer such as "/a/1" may refer to an array element or to an object member named "1", and which it is only matters when
+ * indices must be rebased. Where the patches themselves do not show which it is, the operations are not reordered, unless the composer has been told that
+ * numeric path elements always refer to array elements. Move and copy operations are never reordered.</p>
+ *
+ * <p>The operations composed so far are indexed by path, so an operation being appended only visits the earlier operations which share part of its path or
+ * which may change its indices.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class PatchComposer {
+
+  /** Index of an element which is the '-' end-of-array marker. */
+  private static final int END = -1;
+
+  /** Index of an element which is not an array index. */
+  private static final int KEY = -2;
+
+  /** Index of an element which could be an array index, but not in canonical form, so is not rebased. */
+  private static final int UNUSABLE = -3;
+
+  /** A position after every operation in the composition. */
+  private static final Slot TAIL = new Slot(Long.MAX_VALUE);
+
+
+
+  /** What kind of container a path refers to. */
+  private enum Kind {
+    ARRAY, OBJECT, UNKNOWN
+  }
+
+
+
+  /** An operation being composed, with its path split into elements. */
+  private static final class Edit {
+
+    /**
+     * Create an edit from a patch operation.
+     *
+     * @param operation the operation
+     *
+     * @return the edit
+     */
+    static Edit of(PatchOperation operation) {
+      JsonValue value;
+      switch (operation.getOperation()) {
+        case ADD:
+          value = ((Add) operation).getValue();
+          break;
+        case REPLACE:
+          value = ((Replace) operation).getValue();
+          break;
+        default:
+          value = null;
+          break;
+      }
+      return new Edit(operation.getOperation(), split(operation.getPath()), value, operation);
+    }
+
+
+    /** The unescaped elements of the path. */
+    final String[] keys;
+
+    /** The kind of operation. */
+    final Operation operation;
+
+    /** The operation this edit was created from, or null if it has been changed. */
+    final PatchOperation original;
+
+    /** The value for an add or replace. */
+    final JsonValue value;
+
+
+    Edit(Operation operation, String[] keys, JsonValue value, PatchOperation original) {
+      this.operation = operation;
+      this.keys = keys;
+      this.value = value;
+      this.original = original;
+    }
+
+
+    /**
+     * Convert this edit to a patch operation.
+     *
+     * @return the operation
+     */
+    PatchOperation toOperation() {
+      if (original != null) {
+        return original;
+      }
+      String path = path(keys, 0);
+      switch (operation) {
+        case ADD:
+          return new Add(path, value);
+        case REMOVE:
+          return new Remove(path);
+        default:
+          return new Replace(path, value);
+      }
+    }
+
+
+    /**
+     * Create a copy of this edit with one element of its path replaced by an array index.
+     *
+     * @param depth the depth of the element
+     * @param index the new index
+     *
+     * @return the new edit
+     */
+    Edit withIndex(int depth, int index) {
+      String[] newKeys = keys.clone();
+      newKeys[depth] = Integer.toString(index);
+      return new Edit(operation, newKeys, value, null);
+    }
+
+
+    /**
+     * Create a copy of this edit with a new value.
+     *
+     * @param newValue the new value
+     *
+     * @return the new edit
+     */
+    Edit withValue(JsonValue newValue) {
+      return new Edit(operation, keys, newValue, null);
+    }
+
+  }
+
+
+
+  /** A node in the tree of paths which indexes the operations in the composition. */
+  private static final class Node {
+
+    /** The operations on this node's path. */
+    final TreeSet<Slot> at = new TreeSet<>();
+
+    /** The child nodes. */
+    final Map<String, Node> children = new HashMap<>();
+
+    /** The operations below this node whose next path element could be an array index. */
+    final TreeSet<Slot> indexed = new TreeSet<>();
+
+    /** The adds and removes of this node's elements which could be array indices. */
+    final TreeSet<Slot> indexedShifts = new TreeSet<>();
+
+    /** The operations below this node whose next path element cannot be an array index. */
+    final TreeSet<Slot> keyed = new TreeSet<>();
+
+    /** The adds and removes of this node's elements. */
+    final TreeSet<Slot> shifts = new TreeSet<>();
+
+  }
+
+
+
+  /** A position in the composition. Positions are ordered as their operations are applied. */
+  private static final class Slot implements Comparable<Slot> {
+
+    /** The order of this position. */
+    final long order;
+
+    /** The operation at this position, or null if the position is not in use. */
+    Edit edit = null;
+
+
+    Slot(long order) {
+      this.order = order;
+    }
+
+
+    @Override
+    public int compareTo(Slot other) {
+      return Long.compare(order, other.order);
+    }
+
+  }
+
+
+
+  /** The outcome of moving an operation past an earlier one. */
+  private static final class Step {
+
+    static Step dropped(Edit later) {
+      return new Step(null, later, false);
+    }
+
+
+    static Step merged(Edit merged) {
+      return new Step(null, merged, true);
+    }
+
+
+    static Step swapped(Edit later, Edit earlier) {
+      return new Step(earlier, later, false);
+    }
+
+
+    /** The earlier operation, adjusted to apply after the later one, or null if it is no longer needed. */
+    final Edit earlier;
+
+    /** The later operation, adjusted to apply before the earlier one, or the merged operation, or null if the two cancel out. */
+    final Edit later;
+
+    /** True if the two operations have been merged. */
+    final boolean merged;
+
+
+    private Step(Edit earlier, Edit later, boolean merged) {
+      this.earlier = earlier;
+      this.later = later;
+      this.merged = merged;
+    }
+
+  }
+
+
+  /**
+   * Compose two patches into one.
+   *
+   * @param first  the patch which is applied first
+   * @param second the patch which is applied second
+   *
+   * @return a patch equivalent to applying the first patch and then the second
+   */
+  public static Patch compose(Patch first, Patch second) {
+    return new PatchComposer().append(first).append(second).build();
+  }
+
+
+  /**
+   * Count the leading path elements two paths have in common.
+   *
+   * @param a the first path
+   * @param b the second path
+   *
+   * @return the number of elements in common
+   */
+  private static int common(String[] a, String[] b) {
+    int limit = Math.min(a.length, b.length);
+    int i = 0;
+    while (i < limit && a[i].equals(b[i])) {
+      i++;
+    }
+    return i;
+  }
+
+
+  /**
+   * Find the latest operation before a position in any of the given sets.
+   *
+   * @param sets   the sets of operations
+   * @param before the position
+   *
+   * @return the latest operation, or null if there is none
+   */
+  private static Slot latest(List<TreeSet<Slot>> sets, Slot before) {
+    Slot found = null;
+    for (TreeSet<Slot> set : sets) {
+      Slot slot = set.lower(before);
+      if (slot != null && (found == null || found.order < slot.order)) {
+        found = slot;
+      }
+    }
+    return found;
+  }
+
+
+  /**
+   * Get the array index a path element represents.
+   *
+   * @param key the path element
+   *
+   * @return the index, or END, KEY or UNUSABLE
+   */
+  private static int index(String key) {
+    int length = key.length();
+    if (length == 0) {
+      return KEY;
+    }
+    for (int i = 0; i < length; i++) {
+      char ch = key.charAt(i);
+      if (ch < '0' || '9' < ch) {
+        return "-".equals(key) ? END : KEY;
+      }
+    }
+    if (length > 9 || (length > 1 && key.charAt(0) == '0')) {
+      return UNUSABLE;
+    }
+    return Integer.parseInt(key);
+  }
+
+
+  /**
+   * Find what an earlier operation shows about the kind of a container.
+   *
+   * @param edit  the earlier operation
+   * @param keys  a path which passes through the container
+   * @param depth the depth of the container's elements in the path
+   *
+   * @return OBJECT if the container must be an object, UNKNOWN if earlier operations show nothing, or null if this operation shows nothing
+   */
+  private static Kind evidence(Edit edit, String[] keys, int depth) {
+    if (isTransfer(edit)) {
+      return Kind.UNKNOWN;
+    }
+    int length = edit.keys.length;
+    int common = common(edit.keys, keys);
+    if (common == length && length <= depth) {
+      // An edit which changed the container or one of its parents hides everything before it.
+      return (edit.operation == Operation.TEST) ? null : Kind.UNKNOWN;
+    }
+    if (common >= depth) {
+      // an edit which succeeded with a member name
+      return (index(edit.keys[depth]) == KEY) ? Kind.OBJECT : null;
+    }
+    // an edit which may have changed the index of the container or one of its parents hides everything before it
+    return (isShift(edit, common) && index(keys[common]) != KEY) ? Kind.UNKNOWN : null;
+  }
+
+
+  /**
+   * Test if an operation is always left where it is. Moves, copies, tests and operations on the whole document are never moved, though other operations may
+   * be moved past them.
+   *
+   * @param edit the operation
+   *
+   * @return true if the operation is left where it is
+   */
+  private static boolean isFixed(Edit edit) {
+    switch (edit.operation) {
+      case ADD:
+      case REMOVE:
+      case REPLACE:
+        return edit.keys.length == 0;
+      default:
+        return true;
+    }
+  }
+
+
+  /**
+   * Test if an operation is a move or a copy. Such operations are never reordered, and nothing is moved past them.
+   *
+   * @param edit the operation
+   *
+   * @return true if the operation is a move or a copy
+   */
+  private static boolean isTransfer(Edit edit) {
+    return edit.operation == Operation.MOVE || edit.operation == Operation.COPY;
+  }
+
+
+  /**
+   * Test if an operation adds or removes an element of the container at a given depth, and so may change the indices of the container's other elements.
+   *
+   * @param edit  the operation
+   * @param depth the depth of the container's elements
+   *
+   * @return true if the operation may change indices
+   */
+  private static boolean isShift(Edit edit, int depth) {
+    return edit.keys.length == depth + 1 && (edit.operation == Operation.ADD || edit.operation == Operation.REMOVE);
+  }
+
+
+  /**
+   * Create a path from its elements.
+   *
+   * @param keys the unescaped elements
+   * @param from the first element to include
+   *
+   * @return the path
+   */
+  private static String path(String[] keys, int from) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = from; i < keys.length; i++) {
+      builder.append('/').append(Pointer.escapeKey(keys[i]));
+    }
+    return builder.toString();
+  }
+
+
+  /**
+   * Split a path into its unescaped elements.
+   *
+   * @param path the path
+   *
+   * @return the elements
+   */
+  private static String[] split(String path) {
+    if (path.isEmpty()) {
+      return new String[0];
+    }
+    String[] keys = path.substring(1).split("/", -1);
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = keys[i].replace("~1", "/").replace("~0", "~");
+    }
+    return keys;
+  }
+
+
+  /**
+   * Squash a sequence of patches into one.
+   *
+   * @param patches the patches, in the order they are applied
+   *
+   * @return a patch equivalent to applying each patch in turn
+   */
+  public static Patch squash(Iterable<Patch> patches) {
+    PatchComposer composer = new PatchComposer();
+    for (Patch patch : patches) {
+      composer.append(patch);
+    }
+    return composer.build();
+  }
+
+
+  /** If true, numeric path elements are assumed to refer to array elements. */
+  private final boolean assumeArrays;
+
+  /** The positions of all the operations composed so far. */
+  private final TreeSet<Slot> positions = new TreeSet<>();
+
+  /** The root of the index of the operations by path. */
+  private final Node root = new Node();
+
+  /** The moves and copies composed so far. */
+  private final TreeSet<Slot> transfers = new TreeSet<>();
+
+  /** The order of the next position added to the end of the composition. */
+  private long nextOrder = 0;
+
+
+  /** New instance which makes no assumptions about the documents the patches will be applied to. */
+  public PatchComposer() {
+    this(false);
+  }
+
+
+  /**
+   * New instance.
+   *
+   * @param assumeArrays if true, path elements which are array indices are assumed to refer to array elements, so operations may always be reordered. This
+   *                     must only be used if the documents the patches will be applied to have no objects with member names such as "0" or "1".
+   */
+  public PatchComposer(boolean assumeArrays) {
+    this.assumeArrays = assumeArrays;
+  }
+
+
+  /**
+   * Add an operation to the end of the composition, merging it with an earlier operation if possible.
+   *
+   * @param edit the operation
+   */
+  private void append(Edit edit) {
+    if (isFixed(edit)) {
+      put(new Slot(nextOrder++), edit);
+      return;
+    }
+
+    // The edit is moved back towards the start, so long as it can be exchanged with the operations it passes. The operations it passes are changed to suit,
+    // but these changes are only kept if the edit is merged with an earlier operation. Operations which are not related to the edit are exchanged with it
+    // unchanged, so are not visited.
+    Slot target = null;
+    Edit placed = edit;
+    Map<Slot, Edit> passed = new HashMap<>();
+    Slot slot = related(edit, TAIL);
+    while (slot != null) {
+      Step step = step(slot, slot.edit, edit);
+      if (step == null) {
+        break;
+      }
+      if (step.merged) {
+        passed.forEach(this::put);
+        passed.clear();
+        if (target != null) {
+          put(target, null);
+        }
+        target = slot;
+        placed = step.later;
+        if (placed == null) {
+          // the operations cancelled out
+          put(target, null);
+          return;
+        }
+      } else if (step.earlier == null) {
+        // the earlier operation has no effect, so can be dropped
+        put(slot, null);
+      } else if (step.earlier != slot.edit) {
+        passed.put(slot, step.earlier);
+      }
+      edit = step.later;
+      slot = related(edit, slot);
+    }
+    put((target != null) ? target : new Slot(nextOrder++), placed);
+  }
+
+
+  /**
+   * Append a patch to the composition.
+   *
+   * @param patch the patch
+   *
+   * @return this
+   */
+  public PatchComposer append(Patch patch) {
+    for (PatchOperation operation : patch.getOperations()) {
+      append(Edit.of(operation));
+    }
+    return this;
+  }
+
+
+  /**
+   * Create the patch which is equivalent to all the patches appended so far.
+   *
+   * @return the composed patch
+   */
+  public Patch build() {
+    List<PatchOperation> operations = new ArrayList<>(positions.size());
+    for (Slot slot : positions) {
+      operations.add(slot.edit.toOperation());
+    }
+    return new Patch(operations);
+  }
+
+
+  /**
+   * Find the kind of container an array index or member name refers to.
+   *
+   * @param slot  the position in the composition
+   * @param keys  a path which passes through the container
+   * @param depth the depth of the container's elements in the path
+   * @param other another element of the container
+   *
+   * @return the kind of container
+   */
+  private Kind containerKind(Slot slot, String[] keys, int depth, String other) {
+    if (index(keys[depth]) == KEY || index(other) == KEY) {
+      // only objects have such members
+      return Kind.OBJECT;
+    }
+
+    Slot earlier = witness(keys, depth, slot);
+    while (earlier != null) {
+      Kind kind = evidence(earlier.edit, keys, depth);
+      if (kind == Kind.OBJECT) {
+        return kind;
+      }
+      if (kind == Kind.UNKNOWN) {
+        break;
+      }
+      earlier = witness(keys, depth, earlier);
+    }
+    return assumeArrays ? Kind.ARRAY : Kind.UNKNOWN;
+  }
+
+
+  /**
+   * Get the sets in the index which hold an operation.
+   *
+   * @param edit the operation
+   *
+   * @return the sets
+   */
+  private List<TreeSet<Slot>> holders(Edit edit) {
+    List<TreeSet<Slot>> sets = new ArrayList<>();
+    if (isTransfer(edit)) {
+      sets.add(transfers);
+      return sets;
+    }
+    String[] keys = edit.keys;
+    Node node = root;
+    for (int i = 0; i < keys.length; i++) {
+      boolean isKey = index(keys[i]) == KEY;
+      sets.add(isKey ? node.keyed : node.indexed);
+      if (isShift(edit, i)) {
+        sets.add(node.shifts);
+        if (!isKey) {
+          sets.add(node.indexedShifts);
+        }
+      }
+      node = node.children.computeIfAbsent(keys[i], k -> new Node());
+    }
+    sets.add(node.at);
+    return sets;
+  }
+
+
+  /**
+   * Try to make an operation part of an earlier operation which sets a value at or above its path.
+   *
+   * @param slot    the position of the earlier operation
+   * @param earlier the earlier operation
+   * @param later   the later operation
+   *
+   * @return the step, or null if the operations cannot be merged
+   */
+  private Step merge(Slot slot, Edit earlier, Edit later) {
+    String[] keys = later.keys;
+    if (earlier.keys.length < keys.length) {
+      // apply the later operation to the earlier operation's value
+      if (!(earlier.value instanceof JsonStructure)) {
+        return null;
+      }
+      JsonStructure value = (JsonStructure) Canonical.cast(earlier.value).copy();
+      Edit relative = new Edit(later.operation, Arrays.copyOfRange(keys, earlier.keys.length, keys.length), later.value, null);
+      try {
+        value = relative.toOperation().apply(value);
+      } catch (JsonException e) {
+        // the later operation fails, so leave it to fail
+        return null;
+      }
+      return Step.merged(earlier.withValue(value));
+    }
+
+    int depth = keys.length - 1;
+    switch (later.operation) {
+      case REPLACE:
+        return Step.merged(earlier.withValue(later.value));
+      case REMOVE:
+        if (earlier.operation == Operation.REPLACE) {
+          return Step.merged(later);
+        }
+        // An add and a remove cancel out for an array, but for an object the member may have existed before the add.
+        return (index(keys[depth]) >= 0 && containerKind(slot, keys, depth, keys[depth]) == Kind.ARRAY) ? Step.merged(null) : null;
+      default:
+        // An add to an object replaces the member's value, but an add to an array inserts a new element.
+        return (containerKind(slot, keys, depth, keys[depth]) == Kind.OBJECT) ? Step.merged(earlier.withValue(later.value)) : null;
+    }
+  }
+
+
+  /**
+   * Put an operation at a position in the composition, replacing the operation already there.
+   *
+   * @param slot the position
+   * @param edit the operation, or null to remove the position from the composition
+   */
+  private void put(Slot slot, Edit edit) {
+    if (slot.edit != null) {
+      for (TreeSet<Slot> set : holders(slot.edit)) {
+        set.remove(slot);
+      }
+    }
+    slot.edit = edit;
+    if (edit == null) {
+      positions.remove(slot);
+      return;
+    }
+    positions.add(slot);
+    for (TreeSet<Slot> set : holders(edit)) {
+      set.add(slot);
+    }
+  }
+
+
+  /**
+   * Find the latest operation before a position which a later operation may not simply be exchanged with. Every operation in between has a path which
+   * diverges from the later operation's path where neither changes the indices of the other, or where one is a member name, so the two may be exchanged
+   * unchanged.
+   *
+   * @param later  the later operation
+   * @param before the position
+   *
+   * @return the latest related operation, or null if there is none
+   */
+  private Slot related(Edit later, Slot before) {
+    List<TreeSet<Slot>> sets = new ArrayList<>();
+    sets.add(transfers);
+    String[] keys = later.keys;
+    Node node = root;
+    for (int d = 0; node != null && d < keys.length; d++) {
+      // operations above the later operation, and those which may change its indices
+      boolean unusable = index(keys[d]) == UNUSABLE;
+      sets.add(node.at);
+      sets.add(unusable ? node.shifts : node.indexedShifts);
+      if (isShift(later, d)) {
+        // operations whose indices the later operation may change
+        sets.add(node.indexed);
+        if (unusable) {
+          sets.add(node.keyed);
+        }
+      }
+      node = node.children.get(keys[d]);
+    }
+    if (node != null) {
+      // operations at or inside the later operation's location
+      sets.add(node.at);
+      sets.add(node.indexed);
+      sets.add(node.keyed);
+    }
+    return latest(sets, before);
+  }
+
+
+  /**
+   * Decide how a later operation interacts with an earlier one.
+   *
+   * @param slot    the position of the earlier operation
+   * @param earlier the earlier operation
+   * @param later   the later operation, adjusted to apply at the position after the earlier operation
+   *
+   * @return the step to take, or null if the later operation cannot move past the earlier one
+   */
+  private Step step(Slot slot, Edit earlier, Edit later) {
+    if (isTransfer(earlier)) {
+      return null;
+    }
+    int common = common(earlier.keys, later.keys);
+    if (common < earlier.keys.length && common < later.keys.length) {
+      // the paths diverge
+      return swap(slot, earlier, later, common);
+    }
+    if (common == earlier.keys.length) {
+      // the later operation is at or inside the earlier operation's location
+      boolean sets = earlier.operation == Operation.ADD || earlier.operation == Operation.REPLACE;
+      return sets ? merge(slot, earlier, later) : null;
+    }
+
+    // the earlier operation is inside the later operation's location
+    boolean overwrites = later.operation == Operation.REMOVE || later.operation == Operation.REPLACE;
+    return (overwrites && earlier.operation != Operation.TEST) ? Step.dropped(later) : null;
+  }
+
+
+  /**
+   * Exchange two operations whose paths diverge, so that the later operation is applied first. If either changes the indices in the array where the paths
+   * diverge, the other is rebased.
+   *
+   * @param slot    the position of the earlier operation
+   * @param earlier the earlier operation
+   * @param later   the later operation
+   * @param depth   the depth at which the paths diverge
+   *
+   * @return the step, or null if the operations cannot be exchanged
+   */
+  @SuppressWarnings({"java:S3776", "CyclomaticComplexity", "NPathComplexity"}) // The rebasing rules are clearer together.
+  private Step swap(Slot slot, Edit earlier, Edit later, int depth) {
+    boolean earlierShifts = isShift(earlier, depth);
+    boolean laterShifts = isShift(later, depth);
+    if (!(earlierShifts || laterShifts)) {
+      return Step.swapped(later, earlier);
+    }
+    int ei = index(earlier.keys[depth]);
+    int li = index(later.keys[depth]);
+    if (ei == UNUSABLE || li == UNUSABLE) {
+      return null;
+    }
+    Kind kind = containerKind(slot, later.keys, depth, earlier.keys[depth]);
+    if (kind == Kind.OBJECT) {
+      return Step.swapped(later, earlier);
+    }
+    if (kind == Kind.UNKNOWN || ei < 0) {
+      // An element appended by the earlier operation has an unknown index.
+      return null;
+    }
+
+    // Undo the effect of the earlier operation on the later operation's index.
+    Edit first = later;
+    int moved = li;
+    if (li >= 0 && earlierShifts) {
+      if (earlier.operation == Operation.ADD) {
+        moved = (li > ei) ? li - 1 : li;
+      } else {
+        moved = (li >= ei) ? li + 1 : li;
+      }
+      first = later.withIndex(depth, moved);
+    }
+    if (!laterShifts || li == END) {
+      return Step.swapped(first, earlier);
+    }
+
+    // Apply the effect of the later operation to the earlier operation's index.
+    int shifted;
+    if (later.operation == Operation.ADD) {
+      shifted = (moved < ei || (moved == ei && earlier.operation != Operation.ADD)) ? ei + 1 : ei;
+    } else {
+      shifted = (moved < ei) ? ei - 1 : ei;
+    }
+    if (shifted == ei) {
+      return Step.swapped(first, earlier);
+    }
+    return (earlier.operation == Operation.TEST) ? null : Step.swapped(first, earlier.withIndex(depth, shifted));
+  }
+
+
+  /**
+   * Find the latest operation before a position which may show what kind of container a path passes through.
+   *
+   * @param keys   a path which passes through the container
+   * @param depth  the depth of the container's elements in the path
+   * @param before the position
+   *
+   * @return the latest such operation, or null if there is none
+   */
+  private Slot witness(String[] keys, int depth, Slot before) {
+    List<TreeSet<Slot>> sets = new ArrayList<>();
+    sets.add(transfers);
+    Node node = root;
+    for (int d = 0; node != null && d < depth; d++) {
+      // operations on the container or its parents, and those which may change the indices of the container or its parents
+      sets.add(node.at);
+      if (index(keys[d]) != KEY) {
+        sets.add(node.shifts);
+      }
+      node = node.children.get(keys[d]);
+    }
+    if (node != null) {
+      // operations on the container, and those which use a member name in it
+      sets.add(node.at);
+      sets.add(node.keyed);
+    }
+    return latest(sets, before);
+  }
+}
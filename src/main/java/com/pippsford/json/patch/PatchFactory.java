@@ -1,41 +1,54 @@
 package com.pippsford.json.patch;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import jakarta.json.JsonArray;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonPatch;
+import jakarta.json.JsonStructure;
 import jakarta.json.JsonValue;
 import jakarta.json.JsonValue.ValueType;
 
-import org.apache.commons.collections4.ListUtils;
-
 import com.pippsford.json.patch.key.ArrayKey;
 import com.pippsford.json.patch.key.Key;
 import com.pippsford.json.patch.key.ObjectKey;
+import com.pippsford.json.pointer.JsonExtendedPointer;
 
 /**
  * Factory for creating patches using a Diff algorithm.
  */
 public final class PatchFactory {
 
+  /** The minimum number of members an object must have to be compared in parallel. */
+  private static final int PARALLEL_THRESHOLD = 16;
+
+
   /**
-   * Helper class to improve the speed of the comparison of items in arrays.
+   * Helper class to improve the speed of the comparison of items in arrays. Items are only compared in full if their fingerprints match.
    */
   static class Item {
 
-    final int hashCode;
+    final long fingerprint;
 
     final JsonValue jsonValue;
 
 
-    Item(JsonValue jsonValue) {
+    Item(JsonValue jsonValue, long fingerprint) {
       this.jsonValue = jsonValue;
-      hashCode = jsonValue.hashCode();
+      this.fingerprint = fingerprint;
     }
 
 
@@ -48,13 +61,146 @@ public boolean equals(Object o) {
         return false;
       }
       Item that = (Item) o;
-      return hashCode == that.hashCode && jsonValue.equals(that.jsonValue);
+      return fingerprint == that.fingerprint && (jsonValue == that.jsonValue || jsonValue.equals(that.jsonValue));
     }
 
 
     @Override
     public int hashCode() {
-      return hashCode;
+      return Long.hashCode(fingerprint);
+    }
+
+  }
+
+
+
+  /** A task which compares a range of members of a pair of objects. */
+  private static class MemberTask extends RecursiveTask<PatchBuilder> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The end of the range of members. */
+    private final int end;
+
+    /** The members. */
+    private final transient Members members;
+
+    /** The factory the comparison is for. */
+    private final transient PatchFactory parent;
+
+    /** The start of the range of members. */
+    private final int start;
+
+
+    MemberTask(PatchFactory parent, Members members, int start, int end) {
+      this.parent = parent;
+      this.members = members;
+      this.start = start;
+      this.end = end;
+    }
+
+
+    @Override
+    protected PatchBuilder compute() {
+      PatchFactory factory = new PatchFactory(parent);
+      for (int i = start; i < end; i++) {
+        factory.compareMember(members, members.names.get(i));
+      }
+      return factory.patchBuilder;
+    }
+
+  }
+
+
+
+  /** The members of a pair of objects being compared. */
+  private static class Members {
+
+    /** The member names, in canonical order. */
+    final List<String> names;
+
+    /** The path to the objects. */
+    final Key path;
+
+    /** Map of new member names to the old names of renamed members. */
+    final Map<String, String> renames;
+
+    /** The old names of renamed members. */
+    final Set<String> renamed;
+
+    /** The source object. */
+    final JsonObject source;
+
+    /** The target object. */
+    final JsonObject target;
+
+
+    Members(Key path, JsonObject source, JsonObject target, Map<String, String> renames) {
+      this.path = path;
+      this.source = source;
+      this.target = target;
+      this.renames = renames;
+      renamed = new HashSet<>(renames.values());
+      TreeSet<String> allNames = new TreeSet<>(source.keySet());
+      allNames.addAll(target.keySet());
+      names = new ArrayList<>(allNames);
+    }
+
+  }
+
+
+
+  /**
+   * Counts the source elements of an array which have not yet been placed in their final positions. This is a Fenwick tree, so both updates and queries take
+   * O(log n) time.
+   */
+  private static class Unplaced {
+
+    /** The tree of partial counts. */
+    private final int[] tree;
+
+
+    Unplaced(boolean[] flags) {
+      tree = new int[flags.length + 1];
+      for (int i = 0; i < flags.length; i++) {
+        if (flags[i]) {
+          tree[i + 1]++;
+        }
+      }
+      for (int i = 1; i < tree.length; i++) {
+        int parent = i + (i & -i);
+        if (parent < tree.length) {
+          tree[parent] += tree[i];
+        }
+      }
+    }
+
+
+    /**
+     * Count the unplaced elements before an index.
+     *
+     * @param index the index
+     *
+     * @return the number of unplaced elements with a lower index
+     */
+    int countBefore(int index) {
+      int count = 0;
+      for (int i = index; i > 0; i -= i & -i) {
+        count += tree[i];
+      }
+      return count;
+    }
+
+
+    /**
+     * Mark an element as placed.
+     *
+     * @param index the element's index
+     */
+    void place(int index) {
+      for (int i = index + 1; i < tree.length; i += i & -i) {
+        tree[i]--;
+      }
     }
 
   }
@@ -83,29 +229,124 @@ public static Patch create(JsonValue source, JsonValue target) {
    * @return the patch
    */
   public static Patch create(JsonValue source, JsonValue target, Set<DiffFeatures> features) {
-    PatchFactory diff = new PatchFactory(features);
+    return create(source, target, features, null);
+  }
+
+
+  /**
+   * Create a patch that transforms the source into the target. Array elements are identified by the value found at a pointer relative to each element, such
+   * as "/id". Elements in the source and target with the same key are compared with each other, regardless of their positions. If any element of an array
+   * does not have a key, or two elements of the source or of the target have the same key, the array's elements are compared by their positions instead.
+   *
+   * @param source     the source JSON
+   * @param target     the target JSON
+   * @param features   the features used in creating the patch.
+   * @param elementKey the pointer to the key of an array element. If null, elements are compared by their positions.
+   *
+   * @return the patch
+   */
+  public static Patch create(JsonValue source, JsonValue target, Set<DiffFeatures> features, JsonExtendedPointer elementKey) {
+    PatchFactory diff = new PatchFactory(features, elementKey);
     diff.generateDiffs(source, target);
     return diff.patchBuilder.build();
   }
 
 
+  /**
+   * Pair up the source and target elements left in a gap between matched elements.
+   *
+   * @param origin    for each target element, the source element it derives from
+   * @param kept      the source elements which are kept
+   * @param changed   for each target element, true if it is derived from a changed source element
+   * @param srcIdx    the start of the gap in the source
+   * @param srcEnd    the end of the gap in the source
+   * @param targetIdx the start of the gap in the target
+   * @param targetEnd the end of the gap in the target
+   */
+  private static void pairGap(int[] origin, boolean[] kept, boolean[] changed, int srcIdx, int srcEnd, int targetIdx, int targetEnd) {
+    while (true) {
+      while (srcIdx < srcEnd && kept[srcIdx]) {
+        srcIdx++;
+      }
+      while (targetIdx < targetEnd && origin[targetIdx] != -1) {
+        targetIdx++;
+      }
+      if (srcIdx == srcEnd || targetIdx == targetEnd) {
+        return;
+      }
+      origin[targetIdx] = srcIdx;
+      kept[srcIdx] = true;
+      changed[targetIdx] = true;
+    }
+  }
+
+
+  /**
+   * Pair up the source and target elements left in each gap between matched elements, so that they can be compared. The paired elements are changed.
+   *
+   * @param matches the common subsequence
+   * @param origin  for each target element, the source element it derives from
+   * @param kept    the source elements which are kept
+   *
+   * @return for each target element, true if it is derived from a changed source element
+   */
+  private static boolean[] pairGaps(int[] matches, int[] origin, boolean[] kept) {
+    boolean[] changed = new boolean[origin.length];
+    int srcIdx = 0;
+    int targetIdx = 0;
+    for (int i = 0; i <= matches.length; i++) {
+      int j = (i < matches.length) ? matches[i] : origin.length;
+      if (j != -1) {
+        pairGap(origin, kept, changed, srcIdx, i, targetIdx, j);
+        srcIdx = i + 1;
+        targetIdx = j + 1;
+      }
+    }
+    return changed;
+  }
+
+
+  /**
+   * Locations in the patched document which already hold their final values, indexed by those values. Only structures are indexed, and only when creating
+   * copies. Once the diff has moved past a location, no later operation changes it, so it is always a valid source for a "copy".
+   */
+  private final HashMap<Item, Key> completed = new HashMap<>();
+
+  /** The pointer to the key of an array element, if array elements are identified by key. */
+  private final JsonExtendedPointer elementKey;
+
   /** The flags affecting this patch's creation. */
   private final EnumSet<DiffFeatures> features;
 
+  /** The fingerprints of the values being compared. */
+  private final Fingerprints fingerprints;
+
   /** The patch operations that make up the derived patch. */
   private final PatchBuilder patchBuilder = new PatchBuilder();
 
 
-  private PatchFactory(Set<DiffFeatures> features) {
+  private PatchFactory(Set<DiffFeatures> features, JsonExtendedPointer elementKey) {
+    this.elementKey = elementKey;
     this.features = (features == null || features.isEmpty()) ? EnumSet.noneOf(DiffFeatures.class) : EnumSet.copyOf(features);
+    fingerprints = new Fingerprints();
   }
 
 
-  private int addRemaining(Key path, JsonArray target, int pos, int targetIdx, int targetSize) {
-    while (targetIdx < targetSize) {
-      JsonValue jsonValue = target.get(targetIdx);
-      String itemKey = new ArrayKey(path, pos).toString();
-      patchBuilder.add(itemKey, jsonValue);
+  /**
+   * New instance which compares part of a document for another factory. The other factory must not change whilst this instance is in use.
+   *
+   * @param parent the other factory
+   */
+  private PatchFactory(PatchFactory parent) {
+    elementKey = parent.elementKey;
+    features = parent.features;
+    fingerprints = new Fingerprints(parent.fingerprints);
+  }
+
+
+  private int addRemaining(Key path, JsonArray target, int pos, int targetIdx, int targetEnd) {
+    while (targetIdx < targetEnd) {
+      addValue(new ArrayKey(path, pos), target.get(targetIdx));
       pos++;
       targetIdx++;
     }
@@ -113,102 +354,314 @@ private int addRemaining(Key path, JsonArray target, int pos, int targetIdx, int
   }
 
 
-  @SuppressWarnings({"java:S3776", "JavaNCSS", "CyclomaticComplexity"}) // Ignore cognitive complexity of LCS algorithm.
+  /**
+   * Add a value to the patched document. If an identical structure is already complete, it is copied rather than being included in the patch.
+   *
+   * @param path  the path to add at
+   * @param value the value to add
+   */
+  private void addValue(Key path, JsonValue value) {
+    Key from = findCopy(value);
+    if (from != null) {
+      patchBuilder.copy(path.toString(), from.toString());
+    } else {
+      patchBuilder.add(path.toString(), value);
+    }
+    complete(path, value);
+  }
+
+
   private void compareArray(Key path, JsonArray source, JsonArray target) {
-    List<Item> sourceItems = new ArrayList<>(source.size());
-    for (JsonValue jsonValue : source) {
-      sourceItems.add(new Item(jsonValue));
+    int[] origin = (elementKey != null) ? matchByKey(source, target) : null;
+    if (origin != null) {
+      compareArrayByKey(path, source, target, origin);
+      return;
     }
-    List<Item> targetItems = new ArrayList<>(target.size());
-    for (JsonValue jsonValue : target) {
-      targetItems.add(new Item(jsonValue));
+
+    int[] matches = ArrayDiff.match(source, target, fingerprints);
+    if (features.contains(DiffFeatures.CREATE_MOVES)) {
+      compareArrayWithMoves(path, source, target, matches);
+      return;
     }
-    List<Item> lcs = ListUtils.longestCommonSubsequence(sourceItems, targetItems);
 
-    int srcIdx = 0;
-    int targetIdx = 0;
-    int lcsIdx = 0;
     int srcSize = source.size();
     int targetSize = target.size();
-    int lcsSize = lcs.size();
 
+    int srcIdx = 0;
+    int targetIdx = 0;
     int pos = 0;
-    while (lcsIdx < lcsSize) {
-      Item lcsNode = lcs.get(lcsIdx);
-      Item srcNode = sourceItems.get(srcIdx);
-      Item targetNode = targetItems.get(targetIdx);
+    for (int i = 0; i <= srcSize; i++) {
+      // The end of the arrays acts as a final match
+      int j = (i < srcSize) ? matches[i] : targetSize;
+      if (j == -1) {
+        continue;
+      }
 
-      if (lcsNode.equals(srcNode) && lcsNode.equals(targetNode)) {
-        // These nodes are part of the LCS, simply step forward
-        srcIdx++;
-        targetIdx++;
-        lcsIdx++;
-        pos++;
-      } else {
-        if (lcsNode.equals(srcNode)) {
-          // Source node is part of the LCS, but not target node is not, so this is an addition of the target node.
-          String itemKey = new ArrayKey(path, pos).toString();
-          patchBuilder.add(itemKey, targetNode.jsonValue);
-          pos++;
-          targetIdx++;
-        } else if (lcsNode.equals(targetNode)) {
-          // Target node is part of LCS, but source node is not, so this is a removal of the source node.
-          String itemKey = new ArrayKey(path, pos).toString();
-          if (features.contains(DiffFeatures.EMIT_TESTS)) {
-            patchBuilder.test(itemKey, srcNode.jsonValue);
-          }
-          patchBuilder.remove(itemKey);
-          srcIdx++;
-        } else {
-          Key itemKey = new ArrayKey(path, pos);
-          //both are unequal to lcs node
-          generateDiffs(itemKey, srcNode.jsonValue, targetNode.jsonValue);
-          srcIdx++;
-          targetIdx++;
-          pos++;
-        }
+      // Everything between the previous match and this one has changed
+      pos = compareGap(path, source, srcIdx, i, target, targetIdx, j, pos);
+      if (i < srcSize) {
+        complete(new ArrayKey(path, pos), target.get(j));
+      }
+      srcIdx = i + 1;
+      targetIdx = j + 1;
+      pos++;
+    }
+  }
+
+
+  /**
+   * Compare arrays whose elements are identified by a key. Elements with the same key are compared, and moved if necessary.
+   *
+   * @param path   the path to the array
+   * @param source the source array
+   * @param target the target array
+   * @param origin for each target element, the source element with the same key, or -1
+   */
+  private void compareArrayByKey(Key path, JsonArray source, JsonArray target, int[] origin) {
+    boolean[] kept = new boolean[source.size()];
+    boolean[] changed = new boolean[target.size()];
+    for (int j = 0; j < origin.length; j++) {
+      if (origin[j] != -1) {
+        kept[origin[j]] = true;
+        changed[j] = true;
       }
     }
+    placeElements(path, source, target, origin, kept, changed);
+  }
+
 
-    while ((srcIdx < srcSize) && (targetIdx < targetSize)) {
-      JsonValue srcNode = source.get(srcIdx);
-      JsonValue targetNode = target.get(targetIdx);
-      generateDiffs(new ArrayKey(path, pos), srcNode, targetNode);
+  /**
+   * Compare arrays, moving elements which have been relocated.
+   *
+   * @param path    the path to the array
+   * @param source  the source array
+   * @param target  the target array
+   * @param matches the common subsequence of the arrays
+   */
+  private void compareArrayWithMoves(Key path, JsonArray source, JsonArray target, int[] matches) {
+    // For each target element, the source element it derives from
+    int[] origin = new int[target.size()];
+    Arrays.fill(origin, -1);
+    boolean[] kept = new boolean[source.size()];
+    for (int i = 0; i < matches.length; i++) {
+      if (matches[i] != -1) {
+        origin[matches[i]] = i;
+        kept[i] = true;
+      }
+    }
+    findRelocated(source, target, origin, kept);
+    boolean[] changed = pairGaps(matches, origin, kept);
+    placeElements(path, source, target, origin, kept, changed);
+  }
+
+
+  /**
+   * Create the operations for a gap between matched elements. Elements are compared pairwise, then any extra target elements are added, or any extra source
+   * elements are removed.
+   *
+   * @param path      the path to the array
+   * @param source    the source array
+   * @param srcIdx    the start of the gap in the source
+   * @param srcEnd    the end of the gap in the source
+   * @param target    the target array
+   * @param targetIdx the start of the gap in the target
+   * @param targetEnd the end of the gap in the target
+   * @param pos       the position in the array being patched
+   *
+   * @return the position after the gap
+   */
+  private int compareGap(Key path, JsonArray source, int srcIdx, int srcEnd, JsonArray target, int targetIdx, int targetEnd, int pos) {
+    while (srcIdx < srcEnd && targetIdx < targetEnd) {
+      generateDiffs(new ArrayKey(path, pos), source.get(srcIdx), target.get(targetIdx));
       srcIdx++;
       targetIdx++;
       pos++;
     }
-    pos = addRemaining(path, target, pos, targetIdx, targetSize);
-    removeRemaining(path, pos, srcIdx, srcSize, source);
+    pos = addRemaining(path, target, pos, targetIdx, targetEnd);
+    removeRemaining(path, pos, srcIdx, srcEnd, source);
+    return pos;
+  }
+
+
+  /**
+   * Create the operations for one member of a pair of objects.
+   *
+   * @param members the members of the objects
+   * @param name    the member's name
+   */
+  private void compareMember(Members members, String name) {
+    Key child = new ObjectKey(members.path, name);
+    JsonObject source = members.source;
+    JsonObject target = members.target;
+    if (source.containsKey(name)) {
+      if (target.containsKey(name)) {
+        // in both source and target, so generate diffs
+        generateDiffs(child, source.get(name), target.get(name));
+      } else if (!members.renamed.contains(name)) {
+        // only in source, so remove
+        removeValue(child, source.get(name));
+      }
+    } else {
+      // Not in source so must be in target. Hence, this is an add, unless it is a renamed member.
+      String from = members.renames.get(name);
+      if (from != null) {
+        moveValue(child, new ObjectKey(members.path, from), target.get(name));
+        complete(child, target.get(name));
+      } else {
+        addValue(child, target.get(name));
+      }
+    }
+  }
+
+
+  /**
+   * Compare the members of a pair of objects in parallel. The members are split into ranges, each of which is compared by its own factory. The operations
+   * from each range are then added to this factory's patch in order, so the patch is the same as a sequential comparison would create.
+   *
+   * @param members the members of the objects
+   */
+  private void compareMembersInParallel(Members members) {
+    int size = members.names.size();
+    int ranges = Math.min(size, 4 * ForkJoinPool.getCommonPoolParallelism());
+    List<MemberTask> tasks = new ArrayList<>(ranges);
+    for (int i = 0; i < ranges; i++) {
+      tasks.add(new MemberTask(this, members, (int) ((long) size * i / ranges), (int) ((long) size * (i + 1) / ranges)));
+    }
+    ForkJoinTask.invokeAll(tasks);
+    for (MemberTask task : tasks) {
+      for (PatchOperation operation : task.join()) {
+        patchBuilder.addOperation(patchBuilder.size(), operation);
+      }
+    }
   }
 
 
   private void compareObjects(Key path, JsonObject source, JsonObject target) {
-    TreeSet<String> allNames = new TreeSet<>(source.keySet());
-    allNames.addAll(target.keySet());
-    for (String name : allNames) {
-      Key child = new ObjectKey(path, name);
-      if (source.containsKey(name)) {
-        if (target.containsKey(name)) {
-          // in both source and target, so generate diffs
-          generateDiffs(child, source.get(name), target.get(name));
-        } else {
-          // only in source, so remove
-          String childPath = child.toString();
-          if (features.contains(DiffFeatures.EMIT_TESTS)) {
-            patchBuilder.test(childPath, source.get(name));
-          }
-          patchBuilder.remove(childPath);
+    Map<String, String> renames = features.contains(DiffFeatures.CREATE_MOVES) ? findRenames(source, target) : Map.of();
+    Members members = new Members(path, source, target, renames);
+    if (isParallel(members.names.size())) {
+      compareMembersInParallel(members);
+      return;
+    }
+    for (String name : members.names) {
+      compareMember(members, name);
+    }
+  }
+
+
+  /**
+   * Record that a location in the patched document now holds its final value.
+   *
+   * @param path  the location
+   * @param value the final value
+   */
+  private void complete(Key path, JsonValue value) {
+    if (path == null || !features.contains(DiffFeatures.CREATE_COPIES)) {
+      return;
+    }
+    if (value.getValueType() == ValueType.OBJECT) {
+      completed.putIfAbsent(fingerprints.item(value), path);
+      for (Entry<String, JsonValue> entry : value.asJsonObject().entrySet()) {
+        complete(new ObjectKey(path, entry.getKey()), entry.getValue());
+      }
+    } else if (value.getValueType() == ValueType.ARRAY) {
+      completed.putIfAbsent(fingerprints.item(value), path);
+      int index = 0;
+      for (JsonValue element : value.asJsonArray()) {
+        complete(new ArrayKey(path, index), element);
+        index++;
+      }
+    }
+  }
+
+
+  /**
+   * Find a complete location which holds the same value as one being added.
+   *
+   * @param value the value being added
+   *
+   * @return the location, or null if there is none
+   */
+  private Key findCopy(JsonValue value) {
+    if (completed.isEmpty() || !(value instanceof JsonStructure)) {
+      return null;
+    }
+    return completed.get(fingerprints.item(value));
+  }
+
+
+  /**
+   * Find array elements which have been relocated. An element is relocated if it is not part of the common subsequence, and an identical value in the
+   * target is not part of the common subsequence either.
+   *
+   * @param source the source array
+   * @param target the target array
+   * @param origin for each target element, the source element it derives from
+   * @param kept   the source elements which are kept
+   */
+  private void findRelocated(JsonArray source, JsonArray target, int[] origin, boolean[] kept) {
+    HashMap<Item, ArrayDeque<Integer>> available = new HashMap<>();
+    for (int i = 0; i < kept.length; i++) {
+      if (!kept[i]) {
+        available.computeIfAbsent(fingerprints.item(source.get(i)), k -> new ArrayDeque<>()).add(i);
+      }
+    }
+    if (available.isEmpty()) {
+      return;
+    }
+    for (int j = 0; j < origin.length; j++) {
+      if (origin[j] == -1) {
+        ArrayDeque<Integer> queue = available.get(fingerprints.item(target.get(j)));
+        if (queue != null && !queue.isEmpty()) {
+          int i = queue.poll();
+          origin[j] = i;
+          kept[i] = true;
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Find object members which have been renamed. A member is renamed if it is only in the source, and a member with an identical value is only in the
+   * target.
+   *
+   * @param source the source object
+   * @param target the target object
+   *
+   * @return map of new member names to old member names
+   */
+  private Map<String, String> findRenames(JsonObject source, JsonObject target) {
+    HashMap<Item, ArrayDeque<String>> removed = new HashMap<>();
+    for (Entry<String, JsonValue> entry : source.entrySet()) {
+      if (!target.containsKey(entry.getKey())) {
+        removed.computeIfAbsent(fingerprints.item(entry.getValue()), k -> new ArrayDeque<>()).add(entry.getKey());
+      }
+    }
+    if (removed.isEmpty()) {
+      return Map.of();
+    }
+
+    HashMap<String, String> renames = new HashMap<>();
+    for (Entry<String, JsonValue> entry : target.entrySet()) {
+      if (!source.containsKey(entry.getKey())) {
+        ArrayDeque<String> queue = removed.get(fingerprints.item(entry.getValue()));
+        if (queue != null && !queue.isEmpty()) {
+          renames.put(entry.getKey(), queue.poll());
         }
-      } else {
-        // Not in source so must be in target. Hence, this is an add
-        patchBuilder.add(child.toString(), target.get(name));
       }
     }
+    return renames;
   }
 
 
   private void generateDiffs(JsonValue source, JsonValue target) {
+    if (features.contains(DiffFeatures.PARALLEL)) {
+      // Fingerprint everything up front, so the fingerprints can be shared between threads
+      fingerprints.get(source);
+      fingerprints.get(target);
+    }
+
     if (features.contains(DiffFeatures.EMIT_DIGEST)) {
       patchBuilder.digest("", source);
     }
@@ -222,8 +675,9 @@ private void generateDiffs(JsonValue source, JsonValue target) {
 
 
   private void generateDiffs(Key path, JsonValue source, JsonValue target) {
-    if (source.equals(target)) {
+    if (fingerprints.same(source, target)) {
       // nothing to do
+      complete(path, target);
       return;
     }
 
@@ -242,19 +696,154 @@ private void generateDiffs(Key path, JsonValue source, JsonValue target) {
         patchBuilder.test(path.toString(), source);
       }
       patchBuilder.replace(path.toString(), target);
+      complete(path, target);
     }
   }
 
 
-  private void removeRemaining(Key path, int pos, int srcIdx, int srcSize, JsonArray source) {
-    String itemKey = new ArrayKey(path, pos).toString();
-    while (srcIdx < srcSize) {
-      if (features.contains(DiffFeatures.EMIT_TESTS)) {
-        patchBuilder.test(itemKey, source.get(srcIdx));
+  /**
+   * Should the members of an object be compared in parallel? Parallel comparison is not possible when creating copies, as which copies can be made depends
+   * on the operations before them.
+   *
+   * @param size the number of members
+   *
+   * @return true if the members should be compared in parallel
+   */
+  private boolean isParallel(int size) {
+    return size >= PARALLEL_THRESHOLD && features.contains(DiffFeatures.PARALLEL) && !features.contains(DiffFeatures.CREATE_COPIES);
+  }
+
+
+  /**
+   * Match the elements of two arrays by their keys. This is a hash join, so it takes linear time.
+   *
+   * @param source the source array
+   * @param target the target array
+   *
+   * @return for each target element, the source element with the same key or -1, or null if the elements cannot be matched by key
+   */
+  private int[] matchByKey(JsonArray source, JsonArray target) {
+    HashMap<Item, Integer> sourceKeys = new HashMap<>();
+    int index = 0;
+    for (JsonValue value : source) {
+      Item key = readKey(value);
+      if (key == null || sourceKeys.putIfAbsent(key, index) != null) {
+        return null;
+      }
+      index++;
+    }
+
+    int[] origin = new int[target.size()];
+    HashSet<Item> targetKeys = new HashSet<>();
+    index = 0;
+    for (JsonValue value : target) {
+      Item key = readKey(value);
+      if (key == null || !targetKeys.add(key)) {
+        return null;
       }
-      patchBuilder.remove(itemKey);
+      origin[index] = sourceKeys.getOrDefault(key, -1);
+      index++;
+    }
+    return origin;
+  }
+
+
+  /**
+   * Move a value within the patched document. The value may still need changing after it has been moved.
+   *
+   * @param path  the path to move to
+   * @param from  the path to move from
+   * @param value the value being moved
+   */
+  private void moveValue(Key path, Key from, JsonValue value) {
+    String fromPath = from.toString();
+    if (features.contains(DiffFeatures.EMIT_TESTS)) {
+      patchBuilder.test(fromPath, value);
+    }
+    patchBuilder.move(path.toString(), fromPath);
+  }
+
+
+  /**
+   * Create the operations which turn the source array into the target array, given how the elements correspond. Elements which are only in the source are
+   * removed first, starting from the end of the array so no index needs adjusting. The target is then built from start to end. Each element is added, or is
+   * moved into place from amongst the source elements which have not yet been placed.
+   *
+   * @param path    the path to the array
+   * @param source  the source array
+   * @param target  the target array
+   * @param origin  for each target element, the source element it derives from, or -1 if it is new
+   * @param kept    for each source element, true if some target element derives from it
+   * @param changed for each target element, true if it may differ from the source element it derives from
+   */
+  private void placeElements(Key path, JsonArray source, JsonArray target, int[] origin, boolean[] kept, boolean[] changed) {
+    for (int i = source.size() - 1; i >= 0; i--) {
+      if (!kept[i]) {
+        removeValue(new ArrayKey(path, i), source.get(i));
+      }
+    }
+
+    // The elements not yet placed follow the placed ones, in source order
+    Unplaced unplaced = new Unplaced(kept);
+    for (int j = 0; j < origin.length; j++) {
+      Key child = new ArrayKey(path, j);
+      int i = origin[j];
+      if (i == -1) {
+        addValue(child, target.get(j));
+        continue;
+      }
+
+      int current = j + unplaced.countBefore(i);
+      unplaced.place(i);
+      if (current != j) {
+        moveValue(child, new ArrayKey(path, current), source.get(i));
+      }
+      if (changed[j]) {
+        generateDiffs(child, source.get(i), target.get(j));
+      } else {
+        complete(child, target.get(j));
+      }
+    }
+  }
+
+
+  /**
+   * Read the key of an array element.
+   *
+   * @param value the element
+   *
+   * @return the key, or null if the element does not have one
+   */
+  private Item readKey(JsonValue value) {
+    if (!(value instanceof JsonStructure)) {
+      return null;
+    }
+    JsonValue key = elementKey.optValue((JsonStructure) value);
+    return (key != null) ? fingerprints.item(key) : null;
+  }
+
+
+  private void removeRemaining(Key path, int pos, int srcIdx, int srcEnd, JsonArray source) {
+    Key itemKey = new ArrayKey(path, pos);
+    while (srcIdx < srcEnd) {
+      removeValue(itemKey, source.get(srcIdx));
       srcIdx++;
     }
   }
 
+
+  /**
+   * Remove a value from the patched document.
+   *
+   * @param path  the path to remove
+   * @param value the value being removed
+   */
+  private void removeValue(Key path, JsonValue value) {
+    String itemPath = path.toString();
+    if (features.contains(DiffFeatures.EMIT_TESTS)) {
+      patchBuilder.test(itemPath, value);
+    }
+    patchBuilder.remove(itemPath);
+  }
+
 }
@@ -0,0 +1,181 @@
+package com.pippsford.json.patch;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.patch.ops.Copy;
+import com.pippsford.json.patch.ops.Move;
+import com.pippsford.json.pointer.JsonExtendedPointer;
+import com.pippsford.json.pointer.PathElement;
+
+/**
+ * Applies a patch by path copying. Before an operation changes a location, every object and array from the root to the location's parent is copied, unless
+ * an earlier operation has already copied it. Each copy is shallow, so the values which are not changed are shared with the original.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class PathCopier {
+
+  /**
+   * Apply operations to a target by path copying.
+   *
+   * @param operations the operations
+   * @param target     the target
+   * @param <T>        the target's type
+   *
+   * @return the patched result
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends JsonStructure> T apply(List<PatchOperation> operations, T target) {
+    PathCopier copier = new PathCopier(target);
+    for (PatchOperation operation : operations) {
+      copier.applyOperation(operation);
+    }
+    return (T) copier.root;
+  }
+
+
+  /**
+   * Create a shallow copy of a structure.
+   *
+   * @param structure the structure
+   *
+   * @return the copy
+   */
+  private static JsonStructure shallowCopy(JsonStructure structure) {
+    if (structure.getValueType() == JsonValue.ValueType.OBJECT) {
+      CJObject copy = new CJObject();
+      copy.putAll((JsonObject) structure);
+      return copy;
+    }
+    return new CJArray((JsonArray) structure);
+  }
+
+
+  /** The structures which have been created by this copier, and so can be changed. */
+  private final Set<JsonValue> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /** The root of the patched result. */
+  private JsonStructure root;
+
+
+  private PathCopier(JsonStructure target) {
+    root = own((JsonStructure) Canonical.cast(target));
+  }
+
+
+  private void applyOperation(PatchOperation operation) {
+    switch (operation.getOperation()) {
+      case TEST:
+        // tests do not change anything
+        operation.apply(root);
+        break;
+      case COPY: {
+        // The copied value must not be shared with a structure which may be changed.
+        Copy copy = (Copy) operation;
+        JsonValue value = copy.getFromPointer().getValue(root);
+        if (owned.contains(value)) {
+          value = Canonical.cast(value).copy();
+        }
+        makeWritable(copy.getPathPointer());
+        root = copy.getPathPointer().add(root, value);
+        break;
+      }
+      case MOVE: {
+        // A move is a remove followed by an add. The remove may shift array elements, so the add's path is only made writable after it.
+        JsonExtendedPointer from = ((Move) operation).getFromPointer();
+        JsonValue value = from.getValue(root);
+        makeWritable(from);
+        root = from.remove(root);
+        makeWritable(operation.getPathPointer());
+        root = operation.getPathPointer().add(root, value);
+        break;
+      }
+      default:
+        makeWritable(operation.getPathPointer());
+        root = operation.apply(root);
+        break;
+    }
+
+    // the root may have been replaced
+    root = own(root);
+  }
+
+
+  /**
+   * Copy every structure from the root to the parent of a location, unless it is already owned.
+   *
+   * @param pointer the location
+   */
+  private void makeWritable(JsonExtendedPointer pointer) {
+    JsonStructure current = root;
+    PathElement element = pointer.getPathElement();
+    while (current != null && element != null && element.getChild() != null) {
+      current = ownChild(current, element);
+      element = element.getChild();
+    }
+  }
+
+
+  /**
+   * Get a structure this copier owns, copying the input if it is not already owned.
+   *
+   * @param structure the structure
+   *
+   * @return the owned structure
+   */
+  private JsonStructure own(JsonStructure structure) {
+    if (owned.contains(structure)) {
+      return structure;
+    }
+    JsonStructure copy = shallowCopy(structure);
+    owned.add(copy);
+    return copy;
+  }
+
+
+  /**
+   * Get a child of a structure which this copier owns, copying it if necessary.
+   *
+   * @param parent  the parent structure, which is owned
+   * @param element the path element which identifies the child
+   *
+   * @return the owned child, or null if there is no such structure
+   */
+  private JsonStructure ownChild(JsonStructure parent, PathElement element) {
+    if (parent.getValueType() == JsonValue.ValueType.OBJECT) {
+      JsonObject object = (JsonObject) parent;
+      JsonValue child = object.get(element.getKey());
+      if (!(child instanceof JsonStructure)) {
+        return null;
+      }
+      JsonStructure owner = own((JsonStructure) child);
+      if (owner != child) {
+        object.put(element.getKey(), owner);
+      }
+      return owner;
+    }
+
+    JsonArray array = (JsonArray) parent;
+    int index = element.getIndex();
+    if (!element.isArrayType() || index < 0 || array.size() <= index || !(array.get(index) instanceof JsonStructure)) {
+      return null;
+    }
+    JsonStructure child = (JsonStructure) array.get(index);
+    JsonStructure owner = own(child);
+    if (owner != child) {
+      array.set(index, owner);
+    }
+    return owner;
+  }
+
+}
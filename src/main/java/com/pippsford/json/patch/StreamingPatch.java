@@ -0,0 +1,820 @@
+package com.pippsford.json.patch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import jakarta.json.JsonException;
+import jakarta.json.JsonPatch.Operation;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser.Event;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.exception.InvalidPatchException;
+import com.pippsford.json.exception.NoSuchValueException;
+import com.pippsford.json.exception.PointerIndexException;
+import com.pippsford.json.io.Generator;
+import com.pippsford.json.parser.CJParser;
+import com.pippsford.json.patch.ops.Add;
+import com.pippsford.json.patch.ops.Copy;
+import com.pippsford.json.patch.ops.Move;
+import com.pippsford.json.patch.ops.Replace;
+import com.pippsford.json.pointer.Pointer;
+import com.pippsford.json.primitive.CJString;
+import com.pippsford.json.primitive.CodePointOrder;
+
+/**
+ * Applies a patch to a document as it is read from a parser, writing the result to a generator, so that the document never has to be held in memory. The
+ * operations must be in document order: each operation's path must come after, or inside, the path of the operation before it, taking account of the
+ * changes to array indices made by the earlier operations. The object members of the input must be in canonical order.
+ *
+ * <p>The parts of the document which no operation refers to are copied from the parser to the generator as they are read. A value which is tested, or which
+ * is changed after being added or replaced, is held in memory until it is written. A move or copy is applied in memory to the smallest value which contains
+ * both of its paths, and an operation on the whole document causes the whole document to be read into memory.</p>
+ *
+ * <p>If an operation is found to be out of document order, or it fails, an exception is thrown. Some of the output may already have been written by then.</p>
+ *
+ * <p>A streaming patch holds no state between applications, so it may be shared between threads.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class StreamingPatch {
+
+  /** The location of a value which is being patched. */
+  private static class Slot {
+
+    /** The first event of the value, if it has not yet been read from the parser. */
+    Event event;
+
+    /** The value, if it is held in memory. */
+    JsonValue value;
+
+    /** True if the value has been written to the generator. */
+    boolean written = false;
+
+
+    /**
+     * Test if there is a value at this location.
+     *
+     * @return true if there is a value which has not yet been written
+     */
+    boolean exists() {
+      return event != null || value != null;
+    }
+
+  }
+
+
+
+  /** A patch operation with its path split into elements. */
+  private static class Step {
+
+    /** The elements of the location the operation applies to. For a move or copy, this is the smallest value which contains both its paths. */
+    final String[] keys;
+
+    /** The operation. */
+    final PatchOperation operation;
+
+
+    Step(PatchOperation operation) {
+      this.operation = operation;
+      String[] path = split(operation.getPath());
+      String from = null;
+      if (operation.getOperation() == Operation.MOVE) {
+        from = ((Move) operation).getFrom();
+      } else if (operation.getOperation() == Operation.COPY) {
+        from = ((Copy) operation).getFrom();
+      }
+      if (from == null) {
+        keys = path;
+      } else {
+        // The smallest value containing both paths is the parent of at least one of them.
+        String[] source = split(from);
+        int length = Math.min(Math.min(path.length, source.length) - 1, common(path, source));
+        keys = new String[Math.max(0, length)];
+        System.arraycopy(path, 0, keys, 0, keys.length);
+      }
+    }
+
+
+    /**
+     * Create the equivalent operation for a value held in memory, which is the only element of an array.
+     *
+     * @param depth the depth of the value
+     *
+     * @return the operation on the array
+     */
+    PatchOperation relative(int depth) {
+      CJObject json = fresh(operation).toJsonObject();
+      json.put("path", CJString.create(relativePath(json.getString("path"), depth)));
+      if (json.containsKey("from")) {
+        json.put("from", CJString.create(relativePath(json.getString("from"), depth)));
+      }
+      CJArray array = new CJArray();
+      array.add(json);
+      return PatchOperation.convert(array).get(0);
+    }
+
+  }
+
+
+
+  /** The state of a single application. */
+  private class Run {
+
+    /** The generator receiving the output. */
+    final Generator<?> generator;
+
+    /** The parser supplying events. */
+    final CJParser parser;
+
+
+    Run(CJParser parser, Generator<?> generator) {
+      this.parser = parser;
+      this.generator = generator;
+    }
+
+
+    /**
+     * Apply an operation to a value which is not streamed. If the value is still in the input, it is read into memory.
+     *
+     * @param slot  the location of the value
+     * @param step  the operation
+     * @param depth the depth of the value
+     */
+    void apply(Slot slot, Step step, int depth) {
+      if (slot.written) {
+        throw outOfOrder(step);
+      }
+      if (step.keys.length == depth) {
+        switch (step.operation.getOperation()) {
+          case ADD:
+            discard(slot);
+            slot.value = fresh(((Add) step.operation).getValue());
+            return;
+          case REMOVE:
+            require(slot, step);
+            discard(slot);
+            return;
+          case REPLACE:
+            require(slot, step);
+            discard(slot);
+            slot.value = fresh(((Replace) step.operation).getValue());
+            return;
+          default:
+            // tests, moves and copies are applied in memory
+            break;
+        }
+      }
+
+      require(slot, step);
+      if (slot.event != null) {
+        slot.value = parser.getValue();
+        slot.event = null;
+      }
+      CJArray holder = new CJArray();
+      holder.add(slot.value);
+      step.relative(depth).apply(holder);
+      slot.value = holder.get(0);
+    }
+
+
+    /**
+     * Patch an array as it is read.
+     *
+     * @param from  the first operation inside the array
+     * @param to    the end of the operations inside the array
+     * @param depth the depth of the array's elements
+     */
+    void array(int from, int to, int depth) {
+      generator.writeStartArray();
+      Elements elements = new Elements(this);
+      int i = from;
+      while (i < to) {
+        Step step = steps[i];
+        String key = step.keys[depth];
+        if (isShift(step, depth)) {
+          if (step.operation.getOperation() == Operation.REMOVE) {
+            elements.advance(step, index(key));
+            elements.remove(step);
+          } else if ("-".equals(key)) {
+            // append, after everything else
+            elements.flush();
+            elements.buffer.addLast(fresh(((Add) step.operation).getValue()));
+          } else {
+            elements.advance(step, index(key));
+            elements.buffer.addFirst(fresh(((Add) step.operation).getValue()));
+          }
+          i++;
+          continue;
+        }
+
+        // the following operations on the same element, until the next insertion or removal
+        int index = index(key);
+        elements.advance(step, index);
+        int j = i + 1;
+        while (j < to && index(steps[j].keys[depth]) == index && !isShift(steps[j], depth)) {
+          j++;
+        }
+        Slot slot = elements.take();
+        patch(slot, null, i, j, depth + 1);
+        elements.restore(slot);
+        i = j;
+      }
+
+      elements.flush();
+      generator.writeEnd();
+    }
+
+
+    /**
+     * Copy a value from the parser to the generator.
+     *
+     * @param event the first event of the value
+     */
+    void copy(Event event) {
+      int level = 0;
+      while (true) {
+        switch (event) {
+          case START_ARRAY:
+            generator.writeStartArray();
+            level++;
+            break;
+          case START_OBJECT:
+            generator.writeStartObject();
+            level++;
+            break;
+          case END_ARRAY:
+          case END_OBJECT:
+            generator.writeEnd();
+            level--;
+            break;
+          case KEY_NAME:
+            generator.writeKey(parser.getString());
+            break;
+          default:
+            generator.write(parser.getValue());
+            break;
+        }
+        if (level == 0) {
+          return;
+        }
+        event = parser.next();
+      }
+    }
+
+
+    /**
+     * Remove a value from a location. If the value is still in the input, it is skipped.
+     *
+     * @param slot the location
+     */
+    void discard(Slot slot) {
+      if (slot.event != null) {
+        skip(slot.event);
+      }
+      slot.event = null;
+      slot.value = null;
+    }
+
+
+    /**
+     * Patch an object as it is read.
+     *
+     * @param from  the first operation inside the object
+     * @param to    the end of the operations inside the object
+     * @param depth the depth of the object's members
+     */
+    void object(int from, int to, int depth) {
+      generator.writeStartObject();
+      Members input = new Members(this);
+      int i = from;
+      while (i < to) {
+        String key = steps[i].keys[depth];
+        int j = i + 1;
+        while (j < to && key.equals(steps[j].keys[depth])) {
+          j++;
+        }
+        Slot slot = input.take(steps[i], key);
+        patch(slot, key, i, j, depth + 1);
+        if (slot.value != null) {
+          generator.write(key, slot.value);
+        }
+        i = j;
+      }
+
+      while (input.hasNext()) {
+        input.copy();
+      }
+      generator.writeEnd();
+    }
+
+
+    /**
+     * Apply operations to a value. Where possible, the value is patched as it is read, otherwise it is read into memory. A value left in memory is not
+     * written, as later operations may change it.
+     *
+     * @param slot  the location of the value
+     * @param key   the value's member name, or null if it is not an object member
+     * @param from  the first operation
+     * @param to    the end of the operations
+     * @param depth the depth of the value
+     */
+    void patch(Slot slot, String key, int from, int to, int depth) {
+      int i = from;
+      while (i < to) {
+        Step step = steps[i];
+        if (step.keys.length > depth && isStructure(slot.event)) {
+          // stream the following operations inside the value
+          int j = i + 1;
+          while (j < to && steps[j].keys.length > depth) {
+            j++;
+          }
+          if (key != null) {
+            generator.writeKey(key);
+          }
+          if (slot.event == Event.START_OBJECT) {
+            object(i, j, depth);
+          } else {
+            array(i, j, depth);
+          }
+          slot.event = null;
+          slot.written = true;
+          i = j;
+        } else {
+          apply(slot, step, depth);
+          i++;
+        }
+      }
+    }
+
+
+    /**
+     * Skip a value in the input.
+     *
+     * @param event the first event of the value
+     */
+    void skip(Event event) {
+      if (event == Event.START_ARRAY) {
+        parser.skipArray();
+      } else if (event == Event.START_OBJECT) {
+        parser.skipObject();
+      }
+    }
+
+  }
+
+
+
+  /** The elements of an array which is being patched. */
+  private static class Elements {
+
+    /** Elements which are held in memory and come before the rest of the input. */
+    final ArrayDeque<JsonValue> buffer = new ArrayDeque<>();
+
+    /** The application. */
+    final Run run;
+
+    /** True if the end of the array has been reached in the input. */
+    boolean done = false;
+
+    /** The first event of the next element in the input, if it has been read. */
+    Event next;
+
+    /** The number of elements written. */
+    int written = 0;
+
+
+    Elements(Run run) {
+      this.run = run;
+    }
+
+
+    /**
+     * Write elements until the next element is at an index.
+     *
+     * @param step  the operation which refers to the index
+     * @param index the index
+     */
+    void advance(Step step, int index) {
+      if (index < 0) {
+        throw new NoSuchValueException(step.operation.getPath());
+      }
+      if (index < written) {
+        throw outOfOrder(step);
+      }
+      while (written < index) {
+        if (!buffer.isEmpty()) {
+          run.generator.write(buffer.removeFirst());
+        } else if (hasNext()) {
+          run.copy(takeEvent());
+        } else {
+          throw new PointerIndexException("Array index out of range.", step.operation.getPath(), written);
+        }
+        written++;
+      }
+    }
+
+
+    /** Write all the remaining elements. */
+    void flush() {
+      written += buffer.size();
+      for (JsonValue value : buffer) {
+        run.generator.write(value);
+      }
+      buffer.clear();
+      while (hasNext()) {
+        run.copy(takeEvent());
+        written++;
+      }
+    }
+
+
+    /**
+     * Test if there is another element in the input, reading its first event if necessary.
+     *
+     * @return true if there is another element
+     */
+    boolean hasNext() {
+      if (next == null && !done) {
+        Event event = run.parser.next();
+        if (event == Event.END_ARRAY) {
+          done = true;
+        } else {
+          next = event;
+        }
+      }
+      return next != null;
+    }
+
+
+    /**
+     * Remove the next element.
+     *
+     * @param step the remove operation
+     */
+    void remove(Step step) {
+      if (!buffer.isEmpty()) {
+        buffer.removeFirst();
+      } else if (hasNext()) {
+        run.skip(takeEvent());
+      } else {
+        throw new PointerIndexException("Array index out of range.", step.operation.getPath(), written);
+      }
+    }
+
+
+    /**
+     * Put back an element after it has been patched. If it has been written, it is counted, otherwise it stays next.
+     *
+     * @param slot the element
+     */
+    void restore(Slot slot) {
+      if (slot.written) {
+        written++;
+      } else if (slot.value != null) {
+        buffer.addFirst(slot.value);
+      }
+    }
+
+
+    /**
+     * Take the next element to patch.
+     *
+     * @return the element's location, which is empty if there is no next element
+     */
+    Slot take() {
+      Slot slot = new Slot();
+      if (!buffer.isEmpty()) {
+        slot.value = buffer.removeFirst();
+      } else if (hasNext()) {
+        slot.event = takeEvent();
+      }
+      return slot;
+    }
+
+
+    private Event takeEvent() {
+      Event event = next;
+      next = null;
+      return event;
+    }
+
+  }
+
+
+
+  /** The members of an object in the input. */
+  private static class Members {
+
+    /** The application. */
+    final Run run;
+
+    /** True if the end of the object has been reached. */
+    boolean done = false;
+
+    /** The first event of the next member's value, if it has been read. */
+    Event event;
+
+    /** The name of the next member, if it has been read. */
+    String key;
+
+    /** The name of the previous member patched. */
+    String patched;
+
+    /** The name of the previous member in the input. */
+    String previous;
+
+
+    Members(Run run) {
+      this.run = run;
+    }
+
+
+    /** Copy the next member to the output. */
+    void copy() {
+      run.generator.writeKey(key);
+      run.copy(take());
+    }
+
+
+    /**
+     * Test if there is another member, reading its name and the first event of its value if necessary.
+     *
+     * @return true if there is another member
+     */
+    boolean hasNext() {
+      if (key == null && !done) {
+        if (run.parser.next() == Event.END_OBJECT) {
+          done = true;
+        } else {
+          key = run.parser.getString();
+          if (previous != null && CodePointOrder.INSTANCE.compare(previous, key) >= 0) {
+            throw new JsonException("Object members are not in canonical order at \"" + key + "\"");
+          }
+          event = run.parser.next();
+        }
+      }
+      return key != null;
+    }
+
+
+    /**
+     * Take the next member's value, which must exist.
+     *
+     * @return the value's first event
+     */
+    Event take() {
+      Event first = event;
+      previous = key;
+      key = null;
+      event = null;
+      return first;
+    }
+
+
+    /**
+     * Take the member an operation refers to, copying the members which come before it.
+     *
+     * @param step the operation
+     * @param name the member's name
+     *
+     * @return the member's location, which is empty if there is no such member
+     */
+    Slot take(Step step, String name) {
+      if (patched != null && CodePointOrder.INSTANCE.compare(patched, name) >= 0) {
+        throw outOfOrder(step);
+      }
+      patched = name;
+      while (hasNext() && CodePointOrder.INSTANCE.compare(key, name) < 0) {
+        copy();
+      }
+      Slot slot = new Slot();
+      if (hasNext() && key.equals(name)) {
+        slot.event = take();
+      }
+      return slot;
+    }
+
+  }
+
+
+  /**
+   * Count the leading path elements two paths have in common.
+   *
+   * @param a the first path
+   * @param b the second path
+   *
+   * @return the number of elements in common
+   */
+  private static int common(String[] a, String[] b) {
+    int limit = Math.min(a.length, b.length);
+    int i = 0;
+    while (i < limit && a[i].equals(b[i])) {
+      i++;
+    }
+    return i;
+  }
+
+
+  /**
+   * Get a value to insert into a document. Structures are copied, so that changes to the document cannot change the patch.
+   *
+   * @param value the value from the patch
+   *
+   * @return the value to insert
+   */
+  private static JsonValue fresh(JsonValue value) {
+    return (value instanceof JsonStructure) ? Canonical.cast(value).copy() : value;
+  }
+
+
+  /**
+   * Get an operation to apply to a document. If the operation inserts a value, a new operation is created with a copy of the value, so that changes to the
+   * document cannot change the patch.
+   *
+   * @param operation the operation from the patch
+   *
+   * @return the operation to apply
+   */
+  private static PatchOperation fresh(PatchOperation operation) {
+    switch (operation.getOperation()) {
+      case ADD:
+        return new Add(operation.getPath(), fresh(((Add) operation).getValue()));
+      case REPLACE:
+        return new Replace(operation.getPath(), fresh(((Replace) operation).getValue()));
+      default:
+        return operation;
+    }
+  }
+
+
+  /**
+   * Get the array index a path element represents.
+   *
+   * @param key the path element
+   *
+   * @return the index, or -1 if it is not an index
+   */
+  private static int index(String key) {
+    int length = key.length();
+    if (length == 0 || length > 9) {
+      return -1;
+    }
+    for (int i = 0; i < length; i++) {
+      char ch = key.charAt(i);
+      if (ch < '0' || '9' < ch) {
+        return -1;
+      }
+    }
+    return Integer.parseInt(key);
+  }
+
+
+  /**
+   * Test if an operation inserts or removes an element of the array at a given depth.
+   *
+   * @param step  the operation
+   * @param depth the depth of the array's elements
+   *
+   * @return true if the operation inserts or removes an element
+   */
+  private static boolean isShift(Step step, int depth) {
+    if (step.keys.length != depth + 1) {
+      return false;
+    }
+    Operation operation = step.operation.getOperation();
+    return operation == Operation.ADD || operation == Operation.REMOVE;
+  }
+
+
+  /**
+   * Test if a value in the input is an array or object.
+   *
+   * @param event the first event of the value, or null if it is not in the input
+   *
+   * @return true if it is an array or object
+   */
+  private static boolean isStructure(Event event) {
+    return event == Event.START_OBJECT || event == Event.START_ARRAY;
+  }
+
+
+  private static InvalidPatchException outOfOrder(Step step) {
+    return new InvalidPatchException("Operation is not in document order: " + step.operation);
+  }
+
+
+  /**
+   * Create the path of an operation relative to a value at some depth, where the value is the only element of an array.
+   *
+   * @param path  the full path
+   * @param depth the depth of the value
+   *
+   * @return the relative path
+   */
+  private static String relativePath(String path, int depth) {
+    String[] keys = split(path);
+    StringBuilder builder = new StringBuilder("/0");
+    for (int i = depth; i < keys.length; i++) {
+      builder.append('/').append(Pointer.escapeKey(keys[i]));
+    }
+    return builder.toString();
+  }
+
+
+  /**
+   * Check that there is a value for an operation to act on.
+   *
+   * @param slot the location of the value
+   * @param step the operation
+   */
+  private static void require(Slot slot, Step step) {
+    if (!slot.exists()) {
+      throw new NoSuchValueException(step.operation.getPath());
+    }
+  }
+
+
+  /**
+   * Split a path into its unescaped elements.
+   *
+   * @param path the path
+   *
+   * @return the elements
+   */
+  private static String[] split(String path) {
+    if (path.isEmpty()) {
+      return new String[0];
+    }
+    String[] keys = path.substring(1).split("/", -1);
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = keys[i].replace("~1", "/").replace("~0", "~");
+    }
+    return keys;
+  }
+
+
+  /** The operations. */
+  private final Step[] steps;
+
+  /** True if an operation applies to the whole document. */
+  private final boolean whole;
+
+
+  /**
+   * New instance.
+   *
+   * @param patch the patch to apply. Later changes to the patch do not affect this.
+   */
+  public StreamingPatch(Patch patch) {
+    List<PatchOperation> operations = patch.getOperations();
+    steps = new Step[operations.size()];
+    boolean isWhole = false;
+    for (int i = 0; i < steps.length; i++) {
+      steps[i] = new Step(fresh(operations.get(i)));
+      isWhole |= steps[i].keys.length == 0;
+    }
+    whole = isWhole;
+  }
+
+
+  /**
+   * Apply this patch to the next value from the parser, writing the result to the generator.
+   *
+   * @param parser    the parser
+   * @param generator the generator
+   */
+  public void apply(CJParser parser, Generator<?> generator) {
+    if (!parser.hasNext()) {
+      throw new NoSuchValueException("");
+    }
+    Event event = parser.next();
+    if (whole) {
+      JsonValue document = parser.getValue();
+      if (!(document instanceof JsonStructure)) {
+        throw new NoSuchValueException("");
+      }
+      // The document was created by the parser, so it can be changed in place, but the values inserted into it must not belong to the patch.
+      List<PatchOperation> operations = new ArrayList<>(steps.length);
+      for (Step step : steps) {
+        operations.add(fresh(step.operation));
+      }
+      generator.write(new Patch(operations).apply((JsonStructure) document, ApplyMode.IN_PLACE));
+      return;
+    }
+
+    Run run = new Run(parser, generator);
+    Slot slot = new Slot();
+    slot.event = event;
+    run.patch(slot, null, 0, steps.length, 0);
+    if (slot.value != null) {
+      generator.write(slot.value);
+    } else if (slot.event != null) {
+      run.copy(slot.event);
+    }
+  }
+
+}
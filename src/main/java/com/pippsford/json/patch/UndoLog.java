@@ -0,0 +1,212 @@
+package com.pippsford.json.patch;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonPatch.Operation;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonValue.ValueType;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.patch.ops.Move;
+import com.pippsford.json.pointer.JsonExtendedPointer;
+import com.pippsford.json.pointer.PathElement;
+
+/**
+ * Applies a patch in place, recording how to undo each change. If any operation fails, including a test, the changes are undone in reverse order, so the
+ * target is left as it was. Only the values which are replaced or removed are remembered, so the cost depends on the size of the changes rather than the size
+ * of the target.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class UndoLog {
+
+  /** A change to the document. */
+  @FunctionalInterface
+  private interface Change {
+
+    /**
+     * Make the change.
+     *
+     * @return the new root
+     */
+    JsonStructure apply();
+
+  }
+
+
+
+  /**
+   * Apply operations to a target in place, undoing all the changes if any operation fails.
+   *
+   * @param operations the operations
+   * @param target     the target
+   * @param <T>        the target's type
+   *
+   * @return the patched result
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends JsonStructure> T apply(List<PatchOperation> operations, T target) {
+    UndoLog log = new UndoLog((JsonStructure) Canonical.cast(target));
+    try {
+      for (PatchOperation operation : operations) {
+        log.applyOperation(operation);
+      }
+    } catch (RuntimeException e) {
+      log.rollback();
+      throw e;
+    }
+    return (T) log.root;
+  }
+
+
+  private static JsonStructure child(JsonStructure container, PathElement element) {
+    JsonValue value;
+    if (container.getValueType() == ValueType.OBJECT) {
+      value = ((JsonObject) container).get(element.getKey());
+    } else {
+      JsonArray array = (JsonArray) container;
+      int index = element.getIndex();
+      value = (element.isArrayType() && 0 <= index && index < array.size()) ? array.get(index) : null;
+    }
+    return (value instanceof JsonStructure) ? (JsonStructure) value : null;
+  }
+
+
+  /**
+   * Create the inverse of a change to an array element.
+   *
+   * @param operation the change, which is an add, remove or replace
+   * @param array     the array
+   * @param element   the element
+   *
+   * @return the inverse, or null if the change cannot succeed
+   */
+  private static Runnable inverseInArray(Operation operation, JsonArray array, PathElement element) {
+    int index = element.getIndex();
+    if (operation == Operation.ADD) {
+      // the '-' end-of-array marker adds at the end
+      int added = (index < 0) ? array.size() : index;
+      return () -> array.remove(added);
+    }
+    if (!element.isArrayType() || index < 0 || array.size() <= index) {
+      return null;
+    }
+    JsonValue old = array.get(index);
+    if (operation == Operation.REMOVE) {
+      return () -> array.add(index, old);
+    }
+    return () -> array.set(index, old);
+  }
+
+
+  /**
+   * Create the inverse of a change to an object member. Whatever the change, the inverse restores the member's original state.
+   *
+   * @param object the object
+   * @param key    the member's name
+   *
+   * @return the inverse
+   */
+  private static Runnable inverseInObject(JsonObject object, String key) {
+    JsonValue old = object.get(key);
+    if (old == null) {
+      return () -> object.remove(key);
+    }
+    return () -> object.put(key, old);
+  }
+
+
+  /** How to undo each change, with the most recent first. */
+  private final ArrayDeque<Runnable> changes = new ArrayDeque<>();
+
+  /** The root of the patched result. */
+  private JsonStructure root;
+
+
+  private UndoLog(JsonStructure target) {
+    root = target;
+  }
+
+
+  private void applyOperation(PatchOperation operation) {
+    switch (operation.getOperation()) {
+      case TEST:
+        // tests do not change anything
+        operation.apply(root);
+        break;
+      case COPY:
+        change(Operation.ADD, operation.getPathPointer(), () -> operation.apply(root));
+        break;
+      case MOVE: {
+        // A move is a remove followed by an add, and each is undone separately.
+        JsonExtendedPointer from = ((Move) operation).getFromPointer();
+        JsonValue value = from.getValue(root);
+        change(Operation.REMOVE, from, () -> from.remove(root));
+        change(Operation.ADD, operation.getPathPointer(), () -> operation.getPathPointer().add(root, value));
+        break;
+      }
+      default:
+        change(operation.getOperation(), operation.getPathPointer(), () -> operation.apply(root));
+        break;
+    }
+  }
+
+
+  /**
+   * Make a change, and record how to undo it. The inverse is created before the change is made, but only recorded if the change succeeds.
+   *
+   * @param operation the kind of change, which is an add, remove or replace
+   * @param pointer   the location changed
+   * @param change    the change, which returns the new root
+   */
+  private void change(Operation operation, JsonExtendedPointer pointer, Change change) {
+    Runnable inverse = inverse(operation, pointer);
+    root = change.apply();
+    if (inverse != null) {
+      changes.push(inverse);
+    }
+  }
+
+
+  /**
+   * Create the inverse of a change.
+   *
+   * @param operation the kind of change, which is an add, remove or replace
+   * @param pointer   the location changed
+   *
+   * @return the inverse, or null if the change cannot succeed
+   */
+  private Runnable inverse(Operation operation, JsonExtendedPointer pointer) {
+    PathElement element = pointer.getPathElement();
+    if (element == null) {
+      // the whole document is replaced
+      JsonStructure old = root;
+      return () -> root = old;
+    }
+
+    JsonStructure parent = root;
+    while (element.getChild() != null) {
+      parent = child(parent, element);
+      if (parent == null) {
+        return null;
+      }
+      element = element.getChild();
+    }
+    if (parent.getValueType() == ValueType.OBJECT) {
+      return inverseInObject((JsonObject) parent, element.getKey());
+    }
+    return inverseInArray(operation, (JsonArray) parent, element);
+  }
+
+
+  /** Undo every change, most recent first. */
+  private void rollback() {
+    while (!changes.isEmpty()) {
+      changes.pop().run();
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.pippsford.json.persistent;
+
+import java.util.Collection;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.Canonical;
+
+/**
+ * An immutable JSON array which can produce changed versions of itself cheaply. Each version shares all of its storage with the version it was created from,
+ * except for the path to the changed element, so creating a version takes time and space proportional to the logarithm of the array's size. This applies
+ * to inserting and removing elements anywhere in the array, as well as to replacing them.
+ *
+ * <p>Every value within a persistent array is itself immutable. Objects and arrays stored in it are converted to persistent objects and arrays.</p>
+ *
+ * <p>All the read operations of a regular {@link CJArray} are supported, and it is serialized to the same canonical form. Operations which would modify the
+ * array throw an {@link UnsupportedOperationException}. A mutable version is available from {@link #copy()}.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class PersistentArray extends CJArray {
+
+  /** The empty array. */
+  public static final PersistentArray EMPTY = new PersistentArray(PersistentList.EMPTY);
+
+
+  /**
+   * Create a persistent array holding the same elements as a collection. The elements are converted to immutable JSON values.
+   *
+   * @param values the collection, which may be a JSON array
+   *
+   * @return the persistent array
+   */
+  public static PersistentArray of(Collection<?> values) {
+    if (values instanceof PersistentArray) {
+      return (PersistentArray) values;
+    }
+    Canonical[] array = new Canonical[values.size()];
+    int i = 0;
+    for (Object o : values) {
+      array[i++] = PersistentObject.persist(o);
+    }
+    return new PersistentArray(PersistentList.of(array));
+  }
+
+
+  /** The backing list. */
+  private final PersistentList persistentList;
+
+
+  private PersistentArray(PersistentList list) {
+    super(list);
+    persistentList = list;
+  }
+
+
+  /**
+   * Get a mutable copy of this. The copy uses this array's storage until it is changed or gives out a structure. It then takes its own storage, in which
+   * nested persistent values are replaced by mutable copies, so only the parts of the document which are reached are ever copied.
+   *
+   * @return the mutable copy
+   */
+  @Override
+  public CJArray copy() {
+    return copyOfImmutable();
+  }
+
+
+  /**
+   * As this is immutable, it is its own unmodifiable form.
+   *
+   * @return this
+   */
+  @Override
+  public PersistentArray unmodifiable() {
+    return this;
+  }
+
+
+  /**
+   * Get a version of this array with the element at a position replaced.
+   *
+   * @param index the position
+   * @param value the new element, which is converted to an immutable JSON value
+   *
+   * @return the new version, which is this if the position already held the element
+   */
+  public PersistentArray with(int index, Object value) {
+    PersistentList newList = persistentList.with(index, PersistentObject.persist(value));
+    return newList == persistentList ? this : new PersistentArray(newList);
+  }
+
+
+  /**
+   * Get a version of this array with an element appended.
+   *
+   * @param value the new element, which is converted to an immutable JSON value
+   *
+   * @return the new version
+   */
+  public PersistentArray withAdded(Object value) {
+    return withAdded(persistentList.size(), value);
+  }
+
+
+  /**
+   * Get a version of this array with an element inserted.
+   *
+   * @param index the position of the new element, which may be the size of this array to append it
+   * @param value the new element, which is converted to an immutable JSON value
+   *
+   * @return the new version
+   */
+  public PersistentArray withAdded(int index, Object value) {
+    return new PersistentArray(persistentList.withAdded(index, PersistentObject.persist(value)));
+  }
+
+
+  /**
+   * Get a version of this array without the element at a position.
+   *
+   * @param index the position
+   *
+   * @return the new version
+   */
+  public PersistentArray without(int index) {
+    return new PersistentArray(persistentList.without(index));
+  }
+
+}
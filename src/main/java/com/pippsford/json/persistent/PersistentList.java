@@ -0,0 +1,121 @@
+package com.pippsford.json.persistent;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.Objects;
+
+import com.pippsford.json.Canonical;
+
+/**
+ * An immutable list held in a balanced tree indexed by position. A new version of the list is created by {@link #with(int, Canonical)},
+ * {@link #withAdded(int, Canonical)} or {@link #without(int)}, which share all but the path to the change with this.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class PersistentList extends AbstractList<Canonical> implements Serializable {
+
+  /** The empty list. */
+  static final PersistentList EMPTY = new PersistentList(null);
+
+
+  /**
+   * Create a list holding the same elements as an array.
+   *
+   * @param values the elements
+   *
+   * @return the new list
+   */
+  static PersistentList of(Canonical[] values) {
+    return new PersistentList(TreeNode.build(null, values, 0, values.length));
+  }
+
+
+  /** The root of the tree. */
+  private final TreeNode root;
+
+
+  private PersistentList(TreeNode root) {
+    this.root = root;
+  }
+
+
+  @Override
+  public Canonical get(int index) {
+    Objects.checkIndex(index, size());
+    return TreeNode.get(root, index).value;
+  }
+
+
+  @Override
+  public boolean isEmpty() {
+    return root == null;
+  }
+
+
+  @Override
+  public Iterator<Canonical> iterator() {
+    TreeNode.InOrder nodes = new TreeNode.InOrder(root);
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return nodes.hasNext();
+      }
+
+
+      @Override
+      public Canonical next() {
+        return nodes.next().value;
+      }
+    };
+  }
+
+
+  @Override
+  public int size() {
+    return TreeNode.size(root);
+  }
+
+
+  /**
+   * Get a version of this list with the element at a position replaced.
+   *
+   * @param index the position
+   * @param value the new element
+   *
+   * @return the new version, which is this if the position already held the element
+   */
+  PersistentList with(int index, Canonical value) {
+    Objects.checkIndex(index, size());
+    TreeNode newRoot = TreeNode.set(root, index, value);
+    return newRoot == root ? this : new PersistentList(newRoot);
+  }
+
+
+  /**
+   * Get a version of this list with an element inserted.
+   *
+   * @param index the position of the new element, which may be the size of this list to append it
+   * @param value the new element
+   *
+   * @return the new version
+   */
+  PersistentList withAdded(int index, Canonical value) {
+    Objects.checkIndex(index, size() + 1);
+    return new PersistentList(TreeNode.insert(root, index, value));
+  }
+
+
+  /**
+   * Get a version of this list without the element at a position.
+   *
+   * @param index the position
+   *
+   * @return the new version
+   */
+  PersistentList without(int index) {
+    Objects.checkIndex(index, size());
+    return new PersistentList(TreeNode.remove(root, index));
+  }
+
+}
@@ -0,0 +1,346 @@
+package com.pippsford.json.persistent;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.primitive.CodePointOrder;
+
+/**
+ * An immutable map held in a balanced tree, ordered by {@link CodePointOrder}. A new version of the map is created by {@link #with(String, Canonical)} or
+ * {@link #without(String)}, which share all but the path to the change with this.
+ *
+ * <p>Look-ups and navigation use the tree directly. Sub-maps and descending views are taken from an ordinary sorted map which is created when first needed.
+ * As this never changes, such a copy behaves exactly like a view.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class PersistentMap extends AbstractMap<String, Canonical> implements NavigableMap<String, Canonical>, Serializable {
+
+  /** The map's entries, in order. */
+  private class Entries extends AbstractSet<Entry<String, Canonical>> {
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return containsKey(entry.getKey()) && get(entry.getKey()).equals(entry.getValue());
+    }
+
+
+    @Override
+    public Iterator<Entry<String, Canonical>> iterator() {
+      TreeNode.InOrder nodes = new TreeNode.InOrder(root);
+      return new Iterator<>() {
+        @Override
+        public boolean hasNext() {
+          return nodes.hasNext();
+        }
+
+
+        @Override
+        public Entry<String, Canonical> next() {
+          return entry(nodes.next());
+        }
+      };
+    }
+
+
+    @Override
+    public int size() {
+      return TreeNode.size(root);
+    }
+
+  }
+
+
+
+  /** The empty map. */
+  static final PersistentMap EMPTY = new PersistentMap(null);
+
+
+  private static Entry<String, Canonical> entry(TreeNode node) {
+    return node != null ? new SimpleImmutableEntry<>(node.key, node.value) : null;
+  }
+
+
+  private static String key(TreeNode node) {
+    return node != null ? node.key : null;
+  }
+
+
+  private static String keyOrThrow(TreeNode node) {
+    if (node == null) {
+      throw new NoSuchElementException();
+    }
+    return node.key;
+  }
+
+
+  /**
+   * Create a map holding the same entries as a sorted map.
+   *
+   * @param map the sorted map, which must be in code point order
+   *
+   * @return the new map
+   */
+  static PersistentMap of(SortedMap<String, Canonical> map) {
+    int size = map.size();
+    String[] keys = new String[size];
+    Canonical[] values = new Canonical[size];
+    int i = 0;
+    for (Entry<String, Canonical> e : map.entrySet()) {
+      keys[i] = e.getKey();
+      values[i] = e.getValue();
+      i++;
+    }
+    return new PersistentMap(TreeNode.build(keys, values, 0, size));
+  }
+
+
+  /** The root of the tree. */
+  private final TreeNode root;
+
+  /** An ordinary sorted map holding the same entries, from which views are taken. */
+  private transient volatile NavigableMap<String, Canonical> sorted;
+
+
+  private PersistentMap(TreeNode root) {
+    this.root = root;
+  }
+
+
+  @Override
+  public Entry<String, Canonical> ceilingEntry(String key) {
+    return entry(TreeNode.ceiling(root, key, true));
+  }
+
+
+  @Override
+  public String ceilingKey(String key) {
+    return key(TreeNode.ceiling(root, key, true));
+  }
+
+
+  @Override
+  public Comparator<? super String> comparator() {
+    return CodePointOrder.INSTANCE;
+  }
+
+
+  @Override
+  public boolean containsKey(Object key) {
+    return (key instanceof String) && TreeNode.find(root, (String) key) != null;
+  }
+
+
+  @Override
+  public NavigableSet<String> descendingKeySet() {
+    return sorted().descendingKeySet();
+  }
+
+
+  @Override
+  public NavigableMap<String, Canonical> descendingMap() {
+    return sorted().descendingMap();
+  }
+
+
+  @Override
+  public Set<Entry<String, Canonical>> entrySet() {
+    return new Entries();
+  }
+
+
+  @Override
+  public Entry<String, Canonical> firstEntry() {
+    return entry(TreeNode.first(root));
+  }
+
+
+  @Override
+  public String firstKey() {
+    return keyOrThrow(TreeNode.first(root));
+  }
+
+
+  @Override
+  public Entry<String, Canonical> floorEntry(String key) {
+    return entry(TreeNode.floor(root, key, true));
+  }
+
+
+  @Override
+  public String floorKey(String key) {
+    return key(TreeNode.floor(root, key, true));
+  }
+
+
+  @Override
+  public Canonical get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    TreeNode node = TreeNode.find(root, (String) key);
+    return node != null ? node.value : null;
+  }
+
+
+  @Override
+  public NavigableMap<String, Canonical> headMap(String toKey, boolean inclusive) {
+    return sorted().headMap(toKey, inclusive);
+  }
+
+
+  @Override
+  public SortedMap<String, Canonical> headMap(String toKey) {
+    return sorted().headMap(toKey, false);
+  }
+
+
+  @Override
+  public Entry<String, Canonical> higherEntry(String key) {
+    return entry(TreeNode.ceiling(root, key, false));
+  }
+
+
+  @Override
+  public String higherKey(String key) {
+    return key(TreeNode.ceiling(root, key, false));
+  }
+
+
+  @Override
+  public boolean isEmpty() {
+    return root == null;
+  }
+
+
+  @Override
+  public Entry<String, Canonical> lastEntry() {
+    return entry(TreeNode.last(root));
+  }
+
+
+  @Override
+  public String lastKey() {
+    return keyOrThrow(TreeNode.last(root));
+  }
+
+
+  @Override
+  public Entry<String, Canonical> lowerEntry(String key) {
+    return entry(TreeNode.floor(root, key, false));
+  }
+
+
+  @Override
+  public String lowerKey(String key) {
+    return key(TreeNode.floor(root, key, false));
+  }
+
+
+  @Override
+  public NavigableSet<String> navigableKeySet() {
+    return sorted().navigableKeySet();
+  }
+
+
+  @Override
+  public Entry<String, Canonical> pollFirstEntry() {
+    throw new UnsupportedOperationException();
+  }
+
+
+  @Override
+  public Entry<String, Canonical> pollLastEntry() {
+    throw new UnsupportedOperationException();
+  }
+
+
+  @Override
+  public int size() {
+    return TreeNode.size(root);
+  }
+
+
+  /**
+   * Get an ordinary sorted map holding the same entries as this.
+   *
+   * @return an unmodifiable sorted map
+   */
+  private NavigableMap<String, Canonical> sorted() {
+    NavigableMap<String, Canonical> map = sorted;
+    if (map == null) {
+      TreeMap<String, Canonical> treeMap = new TreeMap<>(CodePointOrder.INSTANCE);
+      treeMap.putAll(this);
+      map = Collections.unmodifiableNavigableMap(treeMap);
+      sorted = map;
+    }
+    return map;
+  }
+
+
+  @Override
+  public NavigableMap<String, Canonical> subMap(String fromKey, boolean fromInclusive, String toKey, boolean toInclusive) {
+    return sorted().subMap(fromKey, fromInclusive, toKey, toInclusive);
+  }
+
+
+  @Override
+  public SortedMap<String, Canonical> subMap(String fromKey, String toKey) {
+    return sorted().subMap(fromKey, true, toKey, false);
+  }
+
+
+  @Override
+  public NavigableMap<String, Canonical> tailMap(String fromKey, boolean inclusive) {
+    return sorted().tailMap(fromKey, inclusive);
+  }
+
+
+  @Override
+  public SortedMap<String, Canonical> tailMap(String fromKey) {
+    return sorted().tailMap(fromKey, true);
+  }
+
+
+  /**
+   * Get a version of this map with a key set to a value.
+   *
+   * @param key   the key
+   * @param value the value
+   *
+   * @return the new version, which is this if the key already had the value
+   */
+  PersistentMap with(String key, Canonical value) {
+    TreeNode newRoot = TreeNode.put(root, key, value);
+    return newRoot == root ? this : new PersistentMap(newRoot);
+  }
+
+
+  /**
+   * Get a version of this map without a key.
+   *
+   * @param key the key
+   *
+   * @return the new version, which is this if the key was not present
+   */
+  PersistentMap without(String key) {
+    TreeNode newRoot = TreeNode.remove(root, key);
+    return newRoot == root ? this : new PersistentMap(newRoot);
+  }
+
+}
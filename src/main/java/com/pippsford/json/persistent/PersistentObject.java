@@ -0,0 +1,126 @@
+package com.pippsford.json.persistent;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.primitive.CodePointOrder;
+
+/**
+ * An immutable JSON object which can produce changed versions of itself cheaply. Each version shares all of its storage with the version it was created from,
+ * except for the path to the changed member, so creating a version takes time and space proportional to the logarithm of the object's size.
+ *
+ * <p>Every value within a persistent object is itself immutable. Objects and arrays stored in it are converted to persistent objects and arrays.</p>
+ *
+ * <p>All the read operations of a regular {@link CJObject} are supported, and it is serialized to the same canonical form. Operations which would modify the
+ * object throw an {@link UnsupportedOperationException}. A mutable version is available from {@link #copy()}.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class PersistentObject extends CJObject {
+
+  /** The empty object. */
+  public static final PersistentObject EMPTY = new PersistentObject(PersistentMap.EMPTY);
+
+
+  /**
+   * Create a persistent object holding the same members as a map. The values are converted to immutable JSON values.
+   *
+   * @param map the map, which may be a JSON object
+   *
+   * @return the persistent object
+   */
+  public static PersistentObject of(Map<String, ?> map) {
+    if (map instanceof PersistentObject) {
+      return (PersistentObject) map;
+    }
+    TreeMap<String, Canonical> sorted = new TreeMap<>(CodePointOrder.INSTANCE);
+    for (Entry<String, ?> e : map.entrySet()) {
+      sorted.put(e.getKey(), persist(e.getValue()));
+    }
+    return new PersistentObject(PersistentMap.of(sorted));
+  }
+
+
+  /**
+   * Convert any value to an immutable JSON value. Objects and arrays are converted to persistent objects and arrays.
+   *
+   * @param value the value
+   *
+   * @return the immutable value
+   */
+  static Canonical persist(Object value) {
+    Canonical canonical = Canonical.cast(value);
+    switch (canonical.getValueType()) {
+      case OBJECT:
+        return of(canonical.asJsonObject());
+      case ARRAY:
+        return PersistentArray.of(canonical.asJsonArray());
+      default:
+        return canonical;
+    }
+  }
+
+
+  /** The backing map. */
+  private final PersistentMap persistentMap;
+
+
+  private PersistentObject(PersistentMap map) {
+    super(map);
+    persistentMap = map;
+  }
+
+
+  /**
+   * Get a mutable copy of this. The copy uses this object's storage until it is changed or gives out a structure. It then takes its own storage, in which
+   * nested persistent values are replaced by mutable copies, so only the parts of the document which are reached are ever copied.
+   *
+   * @return the mutable copy
+   */
+  @Override
+  public CJObject copy() {
+    return copyOfImmutable();
+  }
+
+
+  /**
+   * As this is immutable, it is its own unmodifiable form.
+   *
+   * @return this
+   */
+  @Override
+  public PersistentObject unmodifiable() {
+    return this;
+  }
+
+
+  /**
+   * Get a version of this object with a member set to a value.
+   *
+   * @param key   the member's name
+   * @param value the member's value, which is converted to an immutable JSON value
+   *
+   * @return the new version, which is this if the member already had the value
+   */
+  public PersistentObject with(String key, Object value) {
+    PersistentMap newMap = persistentMap.with(key, persist(value));
+    return newMap == persistentMap ? this : new PersistentObject(newMap);
+  }
+
+
+  /**
+   * Get a version of this object without a member.
+   *
+   * @param key the member's name
+   *
+   * @return the new version, which is this if the member was not present
+   */
+  public PersistentObject without(String key) {
+    PersistentMap newMap = persistentMap.without(key);
+    return newMap == persistentMap ? this : new PersistentObject(newMap);
+  }
+
+}
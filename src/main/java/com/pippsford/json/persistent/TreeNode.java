@@ -0,0 +1,445 @@
+package com.pippsford.json.persistent;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.primitive.CodePointOrder;
+
+/**
+ * An immutable node in a height balanced binary tree. Changing a tree creates new nodes on the path to the change and shares every other node with the
+ * original tree, so both versions remain valid.
+ *
+ * <p>Each node records the size of its sub-tree, so the same tree can be searched by key, for objects, or by position, for arrays. A tree used for an array
+ * has no keys. An empty tree is represented by null.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+final class TreeNode implements Serializable {
+
+  /**
+   * An iterator over the nodes of a tree, in order.
+   */
+  static final class InOrder implements Iterator<TreeNode> {
+
+    /** The nodes whose right sub-trees have yet to be visited, with the next node on top. */
+    private final ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+
+
+    /**
+     * New instance.
+     *
+     * @param root the root of the tree
+     */
+    InOrder(TreeNode root) {
+      pushLeft(root);
+    }
+
+
+    @Override
+    public boolean hasNext() {
+      return !stack.isEmpty();
+    }
+
+
+    @Override
+    public TreeNode next() {
+      TreeNode node = stack.pop();
+      pushLeft(node.right);
+      return node;
+    }
+
+
+    private void pushLeft(TreeNode node) {
+      while (node != null) {
+        stack.push(node);
+        node = node.left;
+      }
+    }
+
+  }
+
+
+
+  /**
+   * Create a node holding the same entry as an existing node, with new children, restoring the balance if the children's heights differ by two.
+   *
+   * @param node  the node holding the entry
+   * @param left  the new left sub-tree
+   * @param right the new right sub-tree
+   *
+   * @return the balanced sub-tree
+   */
+  private static TreeNode balance(TreeNode node, TreeNode left, TreeNode right) {
+    int leftHeight = height(left);
+    int rightHeight = height(right);
+    if (leftHeight > rightHeight + 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new TreeNode(left, left.left, new TreeNode(node, left.right, right));
+      }
+      TreeNode pivot = left.right;
+      return new TreeNode(pivot, new TreeNode(left, left.left, pivot.left), new TreeNode(node, pivot.right, right));
+    }
+    if (rightHeight > leftHeight + 1) {
+      if (height(right.right) >= height(right.left)) {
+        return new TreeNode(right, new TreeNode(node, left, right.left), right.right);
+      }
+      TreeNode pivot = right.left;
+      return new TreeNode(pivot, new TreeNode(node, left, pivot.left), new TreeNode(right, pivot.right, right.right));
+    }
+    return new TreeNode(node, left, right);
+  }
+
+
+  /**
+   * Build a balanced tree from values which are already in order.
+   *
+   * @param keys   the keys, or null for an array
+   * @param values the values
+   * @param from   the index of the first value
+   * @param to     the index after the last value
+   *
+   * @return the root of the tree
+   */
+  static TreeNode build(String[] keys, Canonical[] values, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int mid = (from + to) >>> 1;
+    return new TreeNode(
+        keys != null ? keys[mid] : null,
+        values[mid],
+        build(keys, values, from, mid),
+        build(keys, values, mid + 1, to)
+    );
+  }
+
+
+  /**
+   * Find the node with the least key greater than, or equal to if allowed, the given key.
+   *
+   * @param node      the root of the tree
+   * @param key       the key
+   * @param inclusive if true, the node with the key itself may be returned
+   *
+   * @return the node, or null
+   */
+  static TreeNode ceiling(TreeNode node, String key, boolean inclusive) {
+    TreeNode best = null;
+    while (node != null) {
+      int c = CodePointOrder.INSTANCE.compare(key, node.key);
+      if (c == 0 && inclusive) {
+        return node;
+      }
+      if (c < 0) {
+        best = node;
+        node = node.left;
+      } else {
+        node = node.right;
+      }
+    }
+    return best;
+  }
+
+
+  /**
+   * Find the node with a key.
+   *
+   * @param node the root of the tree
+   * @param key  the key
+   *
+   * @return the node, or null
+   */
+  static TreeNode find(TreeNode node, String key) {
+    while (node != null) {
+      int c = CodePointOrder.INSTANCE.compare(key, node.key);
+      if (c == 0) {
+        return node;
+      }
+      node = c < 0 ? node.left : node.right;
+    }
+    return null;
+  }
+
+
+  /**
+   * Get the first node of a tree.
+   *
+   * @param node the root of the tree
+   *
+   * @return the first node, or null if the tree is empty
+   */
+  static TreeNode first(TreeNode node) {
+    if (node == null) {
+      return null;
+    }
+    while (node.left != null) {
+      node = node.left;
+    }
+    return node;
+  }
+
+
+  /**
+   * Find the node with the greatest key less than, or equal to if allowed, the given key.
+   *
+   * @param node      the root of the tree
+   * @param key       the key
+   * @param inclusive if true, the node with the key itself may be returned
+   *
+   * @return the node, or null
+   */
+  static TreeNode floor(TreeNode node, String key, boolean inclusive) {
+    TreeNode best = null;
+    while (node != null) {
+      int c = CodePointOrder.INSTANCE.compare(key, node.key);
+      if (c == 0 && inclusive) {
+        return node;
+      }
+      if (c > 0) {
+        best = node;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return best;
+  }
+
+
+  /**
+   * Get the node at a position.
+   *
+   * @param node  the root of the tree
+   * @param index the position, which must be valid
+   *
+   * @return the node
+   */
+  static TreeNode get(TreeNode node, int index) {
+    while (true) {
+      int leftSize = size(node.left);
+      if (index == leftSize) {
+        return node;
+      }
+      if (index < leftSize) {
+        node = node.left;
+      } else {
+        index -= leftSize + 1;
+        node = node.right;
+      }
+    }
+  }
+
+
+  private static int height(TreeNode node) {
+    return node != null ? node.height : 0;
+  }
+
+
+  /**
+   * Insert a value at a position.
+   *
+   * @param node  the root of the tree
+   * @param index the position, which may be the size of the tree to append
+   * @param value the value
+   *
+   * @return the root of the new tree
+   */
+  static TreeNode insert(TreeNode node, int index, Canonical value) {
+    if (node == null) {
+      return new TreeNode(null, value, null, null);
+    }
+    int leftSize = size(node.left);
+    if (index <= leftSize) {
+      return balance(node, insert(node.left, index, value), node.right);
+    }
+    return balance(node, node.left, insert(node.right, index - leftSize - 1, value));
+  }
+
+
+  /**
+   * Join two trees, where every node in the left tree comes before every node in the right tree, and their heights differ by at most one.
+   *
+   * @param left  the left tree
+   * @param right the right tree
+   *
+   * @return the root of the joined tree
+   */
+  private static TreeNode join(TreeNode left, TreeNode right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    return balance(first(right), left, removeFirst(right));
+  }
+
+
+  /**
+   * Get the last node of a tree.
+   *
+   * @param node the root of the tree
+   *
+   * @return the last node, or null if the tree is empty
+   */
+  static TreeNode last(TreeNode node) {
+    if (node == null) {
+      return null;
+    }
+    while (node.right != null) {
+      node = node.right;
+    }
+    return node;
+  }
+
+
+  /**
+   * Store a value against a key.
+   *
+   * @param node  the root of the tree
+   * @param key   the key
+   * @param value the value
+   *
+   * @return the root of the new tree, which is the original root if the key already had the value
+   */
+  static TreeNode put(TreeNode node, String key, Canonical value) {
+    if (node == null) {
+      return new TreeNode(key, value, null, null);
+    }
+    int c = CodePointOrder.INSTANCE.compare(key, node.key);
+    if (c == 0) {
+      return node.value.equals(value) ? node : new TreeNode(key, value, node.left, node.right);
+    }
+    if (c < 0) {
+      TreeNode left = put(node.left, key, value);
+      return left == node.left ? node : balance(node, left, node.right);
+    }
+    TreeNode right = put(node.right, key, value);
+    return right == node.right ? node : balance(node, node.left, right);
+  }
+
+
+  /**
+   * Remove the node with a key.
+   *
+   * @param node the root of the tree
+   * @param key  the key
+   *
+   * @return the root of the new tree, which is the original root if the key was not present
+   */
+  static TreeNode remove(TreeNode node, String key) {
+    if (node == null) {
+      return null;
+    }
+    int c = CodePointOrder.INSTANCE.compare(key, node.key);
+    if (c == 0) {
+      return join(node.left, node.right);
+    }
+    if (c < 0) {
+      TreeNode left = remove(node.left, key);
+      return left == node.left ? node : balance(node, left, node.right);
+    }
+    TreeNode right = remove(node.right, key);
+    return right == node.right ? node : balance(node, node.left, right);
+  }
+
+
+  /**
+   * Remove the node at a position.
+   *
+   * @param node  the root of the tree
+   * @param index the position, which must be valid
+   *
+   * @return the root of the new tree
+   */
+  static TreeNode remove(TreeNode node, int index) {
+    int leftSize = size(node.left);
+    if (index == leftSize) {
+      return join(node.left, node.right);
+    }
+    if (index < leftSize) {
+      return balance(node, remove(node.left, index), node.right);
+    }
+    return balance(node, node.left, remove(node.right, index - leftSize - 1));
+  }
+
+
+  private static TreeNode removeFirst(TreeNode node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node, removeFirst(node.left), node.right);
+  }
+
+
+  /**
+   * Replace the value at a position.
+   *
+   * @param node  the root of the tree
+   * @param index the position, which must be valid
+   * @param value the new value
+   *
+   * @return the root of the new tree, which is the original root if the position already held the value
+   */
+  static TreeNode set(TreeNode node, int index, Canonical value) {
+    int leftSize = size(node.left);
+    if (index == leftSize) {
+      return node.value.equals(value) ? node : new TreeNode(null, value, node.left, node.right);
+    }
+    if (index < leftSize) {
+      TreeNode left = set(node.left, index, value);
+      return left == node.left ? node : new TreeNode(null, node.value, left, node.right);
+    }
+    TreeNode right = set(node.right, index - leftSize - 1, value);
+    return right == node.right ? node : new TreeNode(null, node.value, node.left, right);
+  }
+
+
+  /**
+   * Get the number of nodes in a tree.
+   *
+   * @param node the root of the tree
+   *
+   * @return the number of nodes
+   */
+  static int size(TreeNode node) {
+    return node != null ? node.size : 0;
+  }
+
+
+  /** The height of this sub-tree. */
+  final int height;
+
+  /** The key, which is null in an array. */
+  final String key;
+
+  /** The left sub-tree. */
+  final TreeNode left;
+
+  /** The right sub-tree. */
+  final TreeNode right;
+
+  /** The number of nodes in this sub-tree. */
+  final int size;
+
+  /** The value. */
+  final Canonical value;
+
+
+  private TreeNode(String key, Canonical value, TreeNode left, TreeNode right) {
+    this.key = key;
+    this.value = value;
+    this.left = left;
+    this.right = right;
+    height = 1 + Math.max(height(left), height(right));
+    size = 1 + size(left) + size(right);
+  }
+
+
+  private TreeNode(TreeNode entry, TreeNode left, TreeNode right) {
+    this(entry.key, entry.value, left, right);
+  }
+
+}
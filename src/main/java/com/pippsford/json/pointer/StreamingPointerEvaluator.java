@@ -0,0 +1,438 @@
+package com.pippsford.json.pointer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonConfig.KeyStrategy;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser.Event;
+import jakarta.json.stream.JsonParsingException;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.parser.CJParser;
+
+/**
+ * Evaluates a set of pointers against the events from a parser, so that the values can be extracted without creating the whole document. Values are
+ * reported, and parsing stops, as early as the parser's key strategy allows. Parts of the document which no pointer refers to are skipped.
+ *
+ * <p>If an object contains the same key more than once, the parser's key strategy decides which occurrence is used, so the values found are the same as
+ * the parser would create. Parsers use {@link KeyStrategy#LAST} by default. As a later occurrence could then replace an earlier one, the values within an
+ * object are only reported once the whole object has been read, so parsing does not stop part way through an object, only part way through an array. A
+ * parser which uses {@link KeyStrategy#FIRST} allows values to be reported as soon as they are found, and parsing to stop as soon as every pointer has been
+ * resolved. The '-' end-of-array marker never matches an array element.</p>
+ *
+ * <p>An evaluator holds no state between evaluations, so it may be shared between threads.</p>
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class StreamingPointerEvaluator {
+
+  /** A node in the tree of pointer paths. */
+  private static class Node {
+
+    /** The pointers which end below this node, with their path elements. */
+    final List<Target> below = new ArrayList<>();
+
+    /** The depth of this node. */
+    final int depth;
+
+    /** The child nodes for array elements. */
+    final Map<Integer, Node> elements = new HashMap<>();
+
+    /** The child nodes for object members. */
+    final Map<String, Node> members = new HashMap<>();
+
+    /** The pointers which end at this node. */
+    final List<Target> targets = new ArrayList<>();
+
+    /** The number of pointers which end below this node and can be matched by an array element. */
+    int arrayCount = 0;
+
+
+    Node(int depth) {
+      this.depth = depth;
+    }
+
+
+    /**
+     * Add a pointer below this node.
+     *
+     * @param target the pointer
+     */
+    void add(Target target) {
+      if (target.elements.length == depth) {
+        targets.add(target);
+        return;
+      }
+
+      below.add(target);
+      PathElement element = target.elements[depth];
+      members.computeIfAbsent(element.getKey(), k -> new Node(depth + 1)).add(target);
+      if (element.isArrayType()) {
+        arrayCount++;
+        elements.computeIfAbsent(element.getIndex(), k -> new Node(depth + 1)).add(target);
+      }
+    }
+
+
+    /**
+     * Get the number of pointers which end at or below this node.
+     *
+     * @return the number of pointers
+     */
+    int size() {
+      return targets.size() + below.size();
+    }
+
+  }
+
+
+
+  /** The state of a single evaluation. */
+  private static class Run {
+
+    /** The callback for the values found. */
+    final BiConsumer<JsonExtendedPointer, Canonical> callback;
+
+    /** How the parser handles duplicate keys. */
+    final KeyStrategy keyStrategy;
+
+    /** The parser supplying events. */
+    final CJParser parser;
+
+    /** If true, every value must be read to its end, even after all the pointers have been resolved. */
+    final boolean readAll;
+
+    /** The number of pointers which have matched a value. */
+    int found = 0;
+
+    /** The number of pointers which have not yet been resolved. */
+    int remaining;
+
+
+    Run(CJParser parser, BiConsumer<JsonExtendedPointer, Canonical> callback, int remaining, boolean readAll) {
+      this.parser = parser;
+      this.callback = callback;
+      this.remaining = remaining;
+      this.readAll = readAll;
+      keyStrategy = parser.getKeyStrategy();
+    }
+
+
+    /**
+     * Can the evaluation stop without reading the rest of the current value?.
+     *
+     * @return true if the evaluation is complete
+     */
+    boolean isDone() {
+      return remaining == 0 && !readAll;
+    }
+
+  }
+
+
+
+  /** A pointer and its path elements. */
+  private static class Target {
+
+    /** The path elements, from the root. */
+    final PathElement[] elements;
+
+    /** The pointer. */
+    final JsonExtendedPointer pointer;
+
+
+    Target(JsonExtendedPointer pointer) {
+      this.pointer = pointer;
+      ArrayList<PathElement> list = new ArrayList<>();
+      PathElement element = pointer.getPathElement();
+      while (element != null) {
+        list.add(element);
+        element = element.getChild();
+      }
+      elements = list.toArray(new PathElement[0]);
+    }
+
+  }
+
+
+  /** The root of the tree of paths. */
+  private final Node root = new Node(0);
+
+
+  /**
+   * New instance.
+   *
+   * @param pointers the pointers to evaluate
+   */
+  public StreamingPointerEvaluator(Collection<? extends JsonExtendedPointer> pointers) {
+    // remove any duplicates
+    for (JsonExtendedPointer pointer : new LinkedHashSet<>(pointers)) {
+      root.add(new Target(pointer));
+    }
+  }
+
+
+  /**
+   * New instance.
+   *
+   * @param paths the paths of the pointers to evaluate
+   */
+  public StreamingPointerEvaluator(String... paths) {
+    this(createPointers(paths));
+  }
+
+
+  private static List<JsonExtendedPointer> createPointers(String[] paths) {
+    List<JsonExtendedPointer> list = new ArrayList<>(paths.length);
+    for (String path : paths) {
+      list.add(PointerFactory.create(path));
+    }
+    return list;
+  }
+
+
+  /**
+   * Evaluate the pointers against the next value from the parser. The values found are returned in the order they were found. Pointers which do not
+   * match anything in the value are not included.
+   *
+   * @param parser the parser
+   *
+   * @return the values found, keyed by pointer
+   */
+  public Map<JsonExtendedPointer, Canonical> evaluate(CJParser parser) {
+    Map<JsonExtendedPointer, Canonical> map = new LinkedHashMap<>();
+    evaluate(parser, map::put);
+    return map;
+  }
+
+
+  /**
+   * Evaluate the pointers against the next value from the parser. Once all the pointers have been resolved, no more events are read from the parser, so the
+   * parser may be left part way through the value. Unless the parser uses {@link KeyStrategy#FIRST}, every object on a pointer's path is read to its end
+   * before the values within it are reported.
+   *
+   * @param parser   the parser
+   * @param callback the callback for each pointer which matches a value
+   *
+   * @return true if every pointer matched a value
+   */
+  public boolean evaluate(CJParser parser, BiConsumer<JsonExtendedPointer, Canonical> callback) {
+    Run run = new Run(parser, callback, root.size(), false);
+    if (run.remaining == 0 || !parser.hasNext()) {
+      return run.remaining == 0;
+    }
+    Event event = parser.next();
+    visit(run, root, event);
+    return run.found == root.size();
+  }
+
+
+  /**
+   * Resolve all the pointers at and below a node using the value at the node.
+   *
+   * @param run   the evaluation state
+   * @param node  the node
+   * @param value the value
+   */
+  private void resolve(Run run, Node node, Canonical value) {
+    for (Target target : node.targets) {
+      run.callback.accept(target.pointer, value);
+      run.found++;
+    }
+    for (Target target : node.below) {
+      PathElement element = target.elements[node.depth];
+      JsonValue found;
+      switch (value.getValueType()) {
+        case OBJECT:
+          found = element.optValue((JsonObject) value);
+          break;
+        case ARRAY:
+          found = element.optValue((JsonArray) value);
+          break;
+        default:
+          found = null;
+          break;
+      }
+      if (found != null) {
+        run.callback.accept(target.pointer, Canonical.cast(found));
+        run.found++;
+      }
+    }
+    run.remaining -= node.size();
+  }
+
+
+  /**
+   * Skip over a value which no pointer refers to.
+   *
+   * @param parser the parser
+   * @param event  the first event of the value
+   */
+  private void skip(CJParser parser, Event event) {
+    if (event == Event.START_ARRAY) {
+      parser.skipArray();
+    } else if (event == Event.START_OBJECT) {
+      parser.skipObject();
+    }
+  }
+
+
+  /**
+   * Visit a value which the pointers at and below a node may refer to.
+   *
+   * @param run   the evaluation state
+   * @param node  the node
+   * @param event the first event of the value
+   *
+   * @return the number of pointers resolved by the value
+   */
+  private int visit(Run run, Node node, Event event) {
+    if (!node.targets.isEmpty()) {
+      // the whole value is required
+      resolve(run, node, run.parser.getValue());
+      return node.size();
+    }
+
+    int resolved;
+    if (event == Event.START_ARRAY) {
+      resolved = visitArray(run, node);
+    } else if (event == Event.START_OBJECT) {
+      resolved = visitObject(run, node);
+    } else {
+      resolved = 0;
+    }
+
+    if (run.isDone()) {
+      // stopped early
+      return resolved;
+    }
+
+    // Everything not yet resolved does not exist in this value.
+    run.remaining -= node.size() - resolved;
+    return node.size();
+  }
+
+
+  /**
+   * Visit the elements of an array.
+   *
+   * @param run  the evaluation state
+   * @param node the node for the array
+   *
+   * @return the number of pointers resolved
+   */
+  private int visitArray(Run run, Node node) {
+    CJParser parser = run.parser;
+    int resolved = 0;
+    int index = 0;
+    while (resolved < node.arrayCount) {
+      Event event = parser.next();
+      if (event == Event.END_ARRAY) {
+        return resolved;
+      }
+      Node child = node.elements.get(index);
+      index++;
+      if (child == null) {
+        skip(parser, event);
+      } else {
+        resolved += visit(run, child, event);
+        if (run.isDone()) {
+          return resolved;
+        }
+      }
+    }
+
+    // nothing else in this array can match
+    parser.skipArray();
+    return resolved;
+  }
+
+
+  /**
+   * Visit the members of an object.
+   *
+   * @param run  the evaluation state
+   * @param node the node for the object
+   *
+   * @return the number of pointers resolved
+   */
+  private int visitObject(Run run, Node node) {
+    if (run.keyStrategy == KeyStrategy.FIRST) {
+      return visitObjectFirst(run, node);
+    }
+
+    // A later member may replace an earlier one, so the values found in each member are held until the end of the object.
+    CJParser parser = run.parser;
+    Map<String, Map<JsonExtendedPointer, Canonical>> members = new LinkedHashMap<>();
+    Set<String> seen = run.keyStrategy == KeyStrategy.NONE ? new HashSet<>() : null;
+    while (parser.next() != Event.END_OBJECT) {
+      String key = parser.getString();
+      if (seen != null && !seen.add(key)) {
+        throw new JsonParsingException("Duplicate key: " + key, parser.getLocation());
+      }
+      Event event = parser.next();
+      Node child = node.members.get(key);
+      if (child == null) {
+        skip(parser, event);
+      } else {
+        Map<JsonExtendedPointer, Canonical> values = new LinkedHashMap<>();
+        visit(new Run(parser, values::put, child.size(), true), child, event);
+        members.remove(key);
+        members.put(key, values);
+      }
+    }
+
+    for (Map<JsonExtendedPointer, Canonical> values : members.values()) {
+      values.forEach(run.callback);
+      run.found += values.size();
+    }
+    run.remaining -= node.below.size();
+    return node.below.size();
+  }
+
+
+  /**
+   * Visit the members of an object, using only the first occurrence of each key.
+   *
+   * @param run  the evaluation state
+   * @param node the node for the object
+   *
+   * @return the number of pointers resolved
+   */
+  private int visitObjectFirst(Run run, Node node) {
+    CJParser parser = run.parser;
+    int resolved = 0;
+    Set<String> seen = new HashSet<>();
+    while (resolved < node.below.size()) {
+      if (parser.next() == Event.END_OBJECT) {
+        return resolved;
+      }
+      String key = parser.getString();
+      Event event = parser.next();
+      Node child = node.members.get(key);
+      if (child == null || !seen.add(key)) {
+        skip(parser, event);
+      } else {
+        resolved += visit(run, child, event);
+        if (run.isDone()) {
+          return resolved;
+        }
+      }
+    }
+
+    // nothing else in this object can match
+    parser.skipObject();
+    return resolved;
+  }
+
+}
@@ -10,7 +10,7 @@
  *
  * @author Simon Greatrix on 17/02/2020.
  */
-interface Filter {
+interface Filter extends Projection {
 
   /**
    * Add a new path element to this filter.
@@ -19,13 +19,6 @@ interface Filter {
    */
   void add(PathElement element);
 
-  /**
-   * Does the filter accept a non-structural value at this location?.
-   *
-   * @return true if a non-structural value is OK
-   */
-  boolean allowValue();
-
   /**
    * Check if all elements of the array are accessible by paths in this filter.
    *
@@ -44,4 +37,10 @@ interface Filter {
    */
   boolean containsAll(JsonObject jsonObject);
 
+  @Override
+  Filter getElement(int index);
+
+  @Override
+  Filter getMember(String key);
+
 }
@@ -44,4 +44,22 @@ public boolean containsAll(JsonArray jsonArray) {
     return true;
   }
 
+
+  @Override
+  public int getArraySize() {
+    return -1;
+  }
+
+
+  @Override
+  public Filter getElement(int index) {
+    return this;
+  }
+
+
+  @Override
+  public Filter getMember(String key) {
+    return this;
+  }
+
 }
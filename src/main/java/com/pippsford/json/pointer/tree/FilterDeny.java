@@ -44,4 +44,22 @@ public boolean containsAll(JsonArray jsonArray) {
     return false;
   }
 
+
+  @Override
+  public int getArraySize() {
+    return 0;
+  }
+
+
+  @Override
+  public Filter getElement(int index) {
+    return null;
+  }
+
+
+  @Override
+  public Filter getMember(String key) {
+    return null;
+  }
+
 }
@@ -1,8 +1,11 @@
 package com.pippsford.json.pointer.tree;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import jakarta.json.JsonArray;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonValue;
@@ -39,18 +42,76 @@ private static boolean descend(Filter f, JsonValue v) {
   }
 
 
+  /**
+   * Create a filter which accepts everything that either of two filters accepts.
+   *
+   * @param a the first filter (may be null)
+   * @param b the second filter (may be null)
+   *
+   * @return the combined filter
+   */
+  private static Filter union(Filter a, Filter b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    if (a.allowValue() || b.allowValue()) {
+      return FilterAccept.ACCEPT_ALL;
+    }
+
+    // Only trees remain
+    FilterTree treeA = (FilterTree) a;
+    FilterTree treeB = (FilterTree) b;
+    FilterTree result = new FilterTree();
+    result.arraySize = Math.max(treeA.arraySize, treeB.arraySize);
+    union(result.descendants, treeA.descendants, treeB.descendants);
+    union(result.elements, treeA.elements, treeB.elements);
+    return result;
+  }
+
+
+  private static <K> void union(Map<K, Filter> result, Map<K, Filter> a, Map<K, Filter> b) {
+    Set<K> keys = new HashSet<>(a.keySet());
+    keys.addAll(b.keySet());
+    for (K k : keys) {
+      result.put(k, union(a.get(k), b.get(k)));
+    }
+  }
+
+
   private final Map<String, Filter> descendants = new HashMap<>();
 
+  /** The filters for specific array indices. */
+  private final Map<Integer, Filter> elements = new HashMap<>();
+
+  /** Filters for array elements that match both a specific index and the "-" wildcard. */
+  private final Map<Integer, Filter> merged = new ConcurrentHashMap<>();
+
+  /** One more than the highest specific array index in this filter. */
+  private int arraySize = 0;
+
 
   public void add(PathElement element) {
     String key = element.getKey();
     PathElement child = element.getChild();
+    if (element.isArrayType()) {
+      int index = element.getIndex();
+      arraySize = Math.max(arraySize, index + 1);
+      add(elements, index, child);
+    }
+    add(descendants, key, child);
+  }
+
+
+  private <K> void add(Map<K, Filter> map, K key, PathElement child) {
     if (child == null) {
-      descendants.put(key, FilterAccept.ACCEPT_ALL);
+      map.put(key, FilterAccept.ACCEPT_ALL);
       return;
     }
 
-    Filter tree = descendants.computeIfAbsent(key, k -> new FilterTree());
+    Filter tree = map.computeIfAbsent(key, k -> new FilterTree());
     tree.add(child);
   }
 
@@ -94,4 +155,27 @@ public boolean containsAll(JsonArray array) {
     return true;
   }
 
+
+  @Override
+  public int getArraySize() {
+    return descendants.containsKey("-") ? -1 : arraySize;
+  }
+
+
+  @Override
+  public Filter getElement(int index) {
+    Filter wildcard = descendants.get("-");
+    Filter specific = elements.get(index);
+    if (wildcard == null || specific == null) {
+      return (wildcard != null) ? wildcard : specific;
+    }
+    return merged.computeIfAbsent(index, i -> union(wildcard, specific));
+  }
+
+
+  @Override
+  public Filter getMember(String key) {
+    return descendants.get(key);
+  }
+
 }
@@ -45,6 +45,12 @@ public List<JsonExtendedPointer> getPointers() {
   }
 
 
+  @Override
+  public Projection getProjection() {
+    return FilterDeny.DENY;
+  }
+
+
   @Override
   public boolean isParentOf(JsonExtendedPointer pointer) {
     return false;
@@ -48,6 +48,12 @@ public List<JsonExtendedPointer> getPointers() {
   }
 
 
+  @Override
+  public Projection getProjection() {
+    return FilterAccept.ACCEPT_ALL;
+  }
+
+
   @Override
   public boolean isParentOf(JsonExtendedPointer pointer) {
     return true;
@@ -45,6 +45,14 @@ public interface PointerTree {
   List<JsonExtendedPointer> getPointers();
 
 
+  /**
+   * Get a projection of this tree which a parser can use to only create the parts of a document this tree can access.
+   *
+   * @return the projection
+   */
+  Projection getProjection();
+
+
   /**
    * Check if this tree contains a parent of the specified pointer.
    *
@@ -81,6 +81,12 @@ public List<JsonExtendedPointer> getPointers() {
   }
 
 
+  @Override
+  public Projection getProjection() {
+    return filter;
+  }
+
+
   @Override
   public int hashCode() {
     return pointers.hashCode();
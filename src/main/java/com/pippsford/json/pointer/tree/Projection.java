@@ -0,0 +1,47 @@
+package com.pippsford.json.pointer.tree;
+
+/**
+ * A view of a pointer tree which a parser can consult as it reads a document, so that it only creates the parts of the document the tree can access. Every
+ * other part of the document can be skipped over without being decoded. The structure created is the same as that produced by {@link PointerTree#copy}.
+ *
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public interface Projection {
+
+  /**
+   * Does the projection accept the whole value at this location, whether it is a structure or not?.
+   *
+   * @return true if the whole value is required
+   */
+  boolean allowValue();
+
+
+  /**
+   * Get the size a projected array is given. If the array contains fewer elements, it is padded with nulls. If it contains more, the extra elements are
+   * not required.
+   *
+   * @return the size of the projected array, or -1 if the projected array has the same size as the source
+   */
+  int getArraySize();
+
+
+  /**
+   * Get the projection for an element of an array.
+   *
+   * @param index the element's index
+   *
+   * @return the projection for the element, or null if the element is not required
+   */
+  Projection getElement(int index);
+
+
+  /**
+   * Get the projection for a member of an object.
+   *
+   * @param key the member's key
+   *
+   * @return the projection for the member, or null if the member is not required
+   */
+  Projection getMember(String key);
+
+}
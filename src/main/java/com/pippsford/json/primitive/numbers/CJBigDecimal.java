@@ -4,6 +4,9 @@
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import com.pippsford.json.ijson.IJsonNumberSerializer;
 
 /**
  * A BigDecimal number.
@@ -12,6 +15,12 @@
  */
 public class CJBigDecimal extends CJNumber {
 
+  /** The longest canonical form of a compact value: a sign, the digits, the decimal separator, 'E', and an exponent of at most 11 characters. */
+  private static final int MAX_COMPACT_LENGTH = 1 + 18 + 1 + 1 + 11;
+
+  /** The largest precision of an unscaled value which is sure to fit in a long. */
+  private static final int MAX_COMPACT_PRECISION = 18;
+
   /** The numeric value. */
   private final BigDecimal value;
 
@@ -103,6 +112,16 @@ public int intValueExact() {
   }
 
 
+  /**
+   * Test if the unscaled value is small enough to format without converting it to a string.
+   *
+   * @return true if the unscaled value fits in a long
+   */
+  private boolean isCompact() {
+    return value.precision() <= MAX_COMPACT_PRECISION;
+  }
+
+
   @Override
   public boolean isIntegral() {
     return value.scale() <= 0;
@@ -129,8 +148,13 @@ public Number numberValue() {
 
   @Override
   public String toString() {
+    if (isCompact()) {
+      byte[] bytes = new byte[MAX_COMPACT_LENGTH];
+      return new String(bytes, 0, writeCompact(bytes, 0), StandardCharsets.US_ASCII);
+    }
+
     try (StringWriter writer = new StringWriter()) {
-      writeTo(writer);
+      writeLarge(writer);
       return writer.toString();
     } catch (IOException e) {
       throw new InternalError("I/O exception without I/O", e);
@@ -138,14 +162,58 @@ public String toString() {
   }
 
 
-  @Override
-  public void writeTo(Appendable writer) throws IOException {
+  /**
+   * Write the canonical form of a value whose unscaled value fits in a long into an array. The canonical form is always ASCII, so each character is a single
+   * byte.
+   *
+   * @param buffer the array, which must have room for the longest compact form
+   * @param offset the position of the first byte to write
+   *
+   * @return the position just after the last byte written
+   */
+  private int writeCompact(byte[] buffer, int offset) {
     // Handle zero
     if (value.signum() == 0) {
-      writer.append("0");
-      return;
+      buffer[offset] = '0';
+      return offset + 1;
+    }
+
+    // First deal with a leading minus sign. The unscaled value has at most 18 digits, so it can always be negated.
+    long unscaled = value.unscaledValue().longValue();
+    if (unscaled < 0) {
+      buffer[offset++] = '-';
+      unscaled = -unscaled;
+    }
+
+    // Write the digits backwards, with the decimal separator just after the first digit. A single digit needs a fractional part of "0".
+    int precision = value.precision();
+    int end = offset + Math.max(precision, 2) + 1;
+    int index = end;
+    if (precision == 1) {
+      buffer[--index] = '0';
     }
+    do {
+      if (index == offset + 2) {
+        buffer[--index] = '.';
+      }
+      buffer[--index] = (byte) ('0' + unscaled % 10);
+      unscaled /= 10;
+    } while (index > offset);
 
+    // use the scale and precision to calculate the correct exponent
+    buffer[end] = 'E';
+    return IJsonNumberSerializer.serialize(buffer, end + 1, (long) precision - value.scale() - 1);
+  }
+
+
+  /**
+   * Write the canonical form of a value whose unscaled value does not fit in a long.
+   *
+   * @param writer the writer
+   *
+   * @throws IOException if the writer fails
+   */
+  private void writeLarge(Appendable writer) throws IOException {
     // It's a floating point number. First deal with a leading minus sign.
     BigDecimal myValue;
     String sign;
@@ -159,27 +227,31 @@ public void writeTo(Appendable writer) throws IOException {
 
     // Get the digits, insert the decimal separator, and append the exponent.
     String unscaled = myValue.unscaledValue().toString(10);
-    String unscaledInt;
-    String unscaledFraction;
-    if (unscaled.length() == 1) {
-      // A value like "0.03" has an unscaled value of "3" but the canonical representation requires a non-empty fractional part, so we have to add it.
-      unscaledInt = unscaled;
-      unscaledFraction = "0";
-    } else {
-      // insert the decimal separator just after the first digit
-      unscaledInt = unscaled.substring(0, 1);
-      unscaledFraction = unscaled.substring(1);
-    }
 
     // use the scale and precision to calculate the correct exponent
     int scale = myValue.scale();
     int precision = myValue.precision();
     writer.append(sign);
-    writer.append(unscaledInt);
+    writer.append(unscaled.charAt(0));
     writer.append('.');
-    writer.append(unscaledFraction);
+    writer.append(unscaled, 1, unscaled.length());
     writer.append('E');
-    writer.append(Integer.toString(precision - scale - 1));
+    writer.append(Long.toString((long) precision - scale - 1));
+  }
+
+
+  @Override
+  public void writeTo(Appendable writer) throws IOException {
+    if (!isCompact()) {
+      writeLarge(writer);
+      return;
+    }
+
+    byte[] bytes = new byte[MAX_COMPACT_LENGTH];
+    int end = writeCompact(bytes, 0);
+    for (int i = 0; i < end; i++) {
+      writer.append((char) bytes[i]);
+    }
   }
 
 }
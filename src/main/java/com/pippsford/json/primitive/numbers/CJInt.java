@@ -10,12 +10,66 @@
  */
 public class CJInt extends CJNumber {
 
+  /** The largest value which has a shared instance. */
+  static final int SHARED_MAX = 65535;
+
+  /** The smallest value which has a shared instance. */
+  static final int SHARED_MIN = -1024;
+
+  /** Shared instances of small values, created as they are first needed. */
+  private static final CJInt[] SHARED = new CJInt[SHARED_MAX - SHARED_MIN + 1];
+
+
+  /**
+   * Get the shared instance for a small value. Shared instances never go through the number caches, and hold their canonical form ready to write.
+   *
+   * @param value the value
+   *
+   * @return the shared instance, or null if the value is outside the shared range
+   */
+  static CJInt shared(int value) {
+    if (value < SHARED_MIN || SHARED_MAX < value) {
+      return null;
+    }
+    int index = value - SHARED_MIN;
+    CJInt instance = SHARED[index];
+    if (instance == null) {
+      // A race can only create equal immutable instances, so there is no need to synchronize.
+      instance = new CJInt(value, Integer.toString(value));
+      SHARED[index] = instance;
+    }
+    return instance;
+  }
+
+
+  /**
+   * Get an instance for a value, using the shared instance if there is one.
+   *
+   * @param value the value
+   *
+   * @return the instance
+   */
+  static CJInt valueOf(int value) {
+    CJInt instance = shared(value);
+    return instance != null ? instance : new CJInt(value);
+  }
+
+
+  /** The canonical form of the value, if it is known in advance. */
+  private final transient String text;
+
   /** The numeric value. */
   private final int value;
 
 
   CJInt(int value) {
+    this(value, null);
+  }
+
+
+  private CJInt(int value, String text) {
     this.value = value;
+    this.text = text;
   }
 
 
@@ -37,6 +91,13 @@ public BigInteger bigIntegerValueExact() {
   }
 
 
+  @Override
+  protected boolean checkIJsonCompatible() {
+    // every int is exactly representable as a double of no more than 10 digits
+    return true;
+  }
+
+
   @Override
   public double doubleValue() {
     return value;
@@ -131,7 +192,7 @@ public Number numberValue() {
 
   @Override
   public String toString() {
-    return Integer.toString(value);
+    return text != null ? text : Integer.toString(value);
   }
 
 }
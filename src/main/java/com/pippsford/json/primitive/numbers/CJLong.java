@@ -10,6 +10,15 @@
  */
 public class CJLong extends CJNumber {
 
+  /** Every long from MIN_SAFE_LONG to this is exactly representable as a double. */
+  private static final long MAX_SAFE_LONG = 1L << 53;
+
+  /** Upper bound on a long with at most 15 decimal digits. */
+  private static final long MAX_SHORT_DIGITS = 1_000_000_000_000_000L;
+
+  /** Every long from this to MAX_SAFE_LONG is exactly representable as a double. */
+  private static final long MIN_SAFE_LONG = -(1L << 53);
+
   /** The numeric value. */
   private final long value;
 
@@ -37,6 +46,25 @@ public BigInteger bigIntegerValueExact() {
   }
 
 
+  @Override
+  protected boolean checkIJsonCompatible() {
+    // A long with no more than 53 significant bits is exactly representable, and so is its own shortest representation.
+    if (MIN_SAFE_LONG <= value && value <= MAX_SAFE_LONG) {
+      return true;
+    }
+
+    // Otherwise, it is compatible if it has at most 15 significant digits.
+    long digits = value;
+    while (digits % 10 == 0) {
+      digits /= 10;
+    }
+    if (-MAX_SHORT_DIGITS < digits && digits < MAX_SHORT_DIGITS) {
+      return true;
+    }
+    return super.checkIJsonCompatible();
+  }
+
+
   @Override
   public double doubleValue() {
     return value;
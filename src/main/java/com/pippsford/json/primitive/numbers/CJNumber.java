@@ -11,6 +11,7 @@
 
 import com.pippsford.json.Canonical;
 import com.pippsford.json.exception.NonFiniteNumberException;
+import com.pippsford.json.ijson.IJsonNumberSerializer;
 import com.pippsford.json.primitive.CJBase;
 import com.pippsford.json.primitive.CJString;
 import com.pippsford.json.primitive.cache.CacheManager;
@@ -37,6 +38,21 @@ public abstract class CJNumber extends CJBase implements JsonNumber {
   /** The number is represented by a long. */
   public static final int TYPE_LONG = 1;
 
+  /** Cached compatibility: the number is not I-JSON compatible. */
+  private static final byte IJSON_NO = 2;
+
+  /** Cached compatibility: I-JSON compatibility has not been checked. */
+  private static final byte IJSON_UNKNOWN = 0;
+
+  /** Cached compatibility: the number is I-JSON compatible. */
+  private static final byte IJSON_YES = 1;
+
+  /** Largest decimal exponent for which every value with 15 significant digits is a finite, normal double. */
+  private static final int MAX_EXACT_EXPONENT = 307;
+
+  /** Most significant digits a decimal can have and still be guaranteed to be the shortest representation of the nearest double. */
+  private static final int MAX_EXACT_PRECISION = 15;
+
   private static final Map<Class<? extends Number>, Function<Number, CJNumber>> CREATORS = Map.of(
       BigDecimal.class, n -> new CJBigDecimal((BigDecimal) n),
       BigInteger.class, n -> new CJBigInteger((BigInteger) n),
@@ -68,6 +84,10 @@ public abstract class CJNumber extends CJBase implements JsonNumber {
    * @return the canonical JSON representation
    */
   public static CJNumber cast(Number value) {
+    CJNumber shared = shared(value);
+    if (shared != null) {
+      return shared;
+    }
     ICache<Number, CJNumber> cache = CacheManager.valueCache();
     return cache.get(value, CJNumber::create);
   }
@@ -99,6 +119,10 @@ public static CJNumber cast(JsonNumber jsonNumber) {
    * @return the canonical JSON representation
    */
   public static Canonical castUnsafe(Number value) {
+    CJNumber shared = shared(value);
+    if (shared != null) {
+      return shared;
+    }
     ICache<Number, CJNumber> cache = CacheManager.valueCache();
     try {
       return cache.get(value, CJNumber::create);
@@ -140,7 +164,7 @@ private static CJNumber create(Number value) {
    * @return the PNumber
    */
   public static CJNumber create(int i) {
-    return new CJInt(i);
+    return CJInt.valueOf(i);
   }
 
 
@@ -153,12 +177,60 @@ public static CJNumber create(int i) {
    */
   public static CJNumber create(long l) {
     if (Integer.MIN_VALUE <= l && l <= Integer.MAX_VALUE) {
-      return new CJInt((int) l);
+      return CJInt.valueOf((int) l);
     }
     return new CJLong(l);
   }
 
 
+  /**
+   * Test if a decimal is the shortest representation of an IEEE double, and hence can be represented in I-JSON.
+   *
+   * <p>Any decimal of at most 15 significant digits in the normal range of a double is converted to a distinct double, so it must be the shortest
+   * representation of that double. Only longer decimals, and those near the limits of the range, need to be converted and compared.</p>
+   *
+   * @param value the decimal
+   *
+   * @return true if the decimal is the shortest representation of a double
+   */
+  protected static boolean isShortestDouble(BigDecimal value) {
+    // The precision may include trailing zeros, which only makes this test more cautious.
+    int precision = value.precision();
+    if (precision <= MAX_EXACT_PRECISION) {
+      long exponent = (long) precision - value.scale() - 1;
+      if (-MAX_EXACT_EXPONENT <= exponent && exponent <= MAX_EXACT_EXPONENT) {
+        return true;
+      }
+    }
+
+    double doubleValue = value.doubleValue();
+    if (!Double.isFinite(doubleValue)) {
+      return false;
+    }
+    BigDecimal shortest = new BigDecimal(IJsonNumberSerializer.serialize(doubleValue));
+    return value.compareTo(shortest) == 0;
+  }
+
+
+  /**
+   * Get the shared instance for a number, if it is a small integer. Shared instances are found without consulting the value cache.
+   *
+   * @param value the number
+   *
+   * @return the shared instance, or null if there is not one
+   */
+  private static CJNumber shared(Number value) {
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return CJInt.shared(value.intValue());
+    }
+    if (value instanceof Long) {
+      long l = value.longValue();
+      return (int) l == l ? CJInt.shared((int) l) : null;
+    }
+    return null;
+  }
+
+
   /**
    * Simplify a long into either a long or an int.
    *
@@ -276,6 +348,10 @@ public static Double toDouble(JsonValue canonical) {
   }
 
 
+  /** Whether this number is I-JSON compatible, if known. */
+  private transient byte iJsonCompatible = IJSON_UNKNOWN;
+
+
   /** New instance. */
   public CJNumber() {
     // do nothing
@@ -288,6 +364,16 @@ protected void check() {
   }
 
 
+  /**
+   * Check if this number can be represented in I-JSON, which requires it to be the shortest representation of an IEEE double.
+   *
+   * @return true if this number can be represented
+   */
+  protected boolean checkIJsonCompatible() {
+    return isShortestDouble(bigDecimalValue());
+  }
+
+
   /**
    * The JSON API requires we test for equality via BigDecimal values. As the canonical JSON does not retain trailing zeros, we actually test for equality by
    * the total ordering of real numbers.
@@ -371,6 +457,23 @@ public int hashCode() {
   }
 
 
+  /**
+   * Test if this number can be represented in I-JSON, which requires it to be the shortest representation of an IEEE double. The result is remembered, so
+   * the test is only done once for each instance.
+   *
+   * @return true if this number can be represented
+   */
+  public boolean isIJsonCompatible() {
+    byte known = iJsonCompatible;
+    if (known == IJSON_UNKNOWN) {
+      // Concurrent checks all reach the same result, so there is no need to synchronize.
+      known = checkIJsonCompatible() ? IJSON_YES : IJSON_NO;
+      iJsonCompatible = known;
+    }
+    return known == IJSON_YES;
+  }
+
+
   @Override
   public void writeTo(Appendable writer) throws IOException {
     writer.append(toString());
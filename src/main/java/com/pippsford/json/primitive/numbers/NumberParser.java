@@ -8,6 +8,8 @@
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import jakarta.json.stream.JsonLocation;
 import jakarta.json.stream.JsonParsingException;
 
 import com.pippsford.json.io.Input;
@@ -25,6 +27,9 @@ public class NumberParser {
   private static final Set<Class<?>> INTEGER_TYPES = Set.of(
       Byte.class, Short.class, Integer.class, Long.class);
 
+  /** The length of the longest integer which may have a shared instance. */
+  private static final int MAX_SHARED_LENGTH = 5;
+
 
 
   private enum Step {
@@ -287,6 +292,40 @@ public static boolean isPrimitiveIntegerType(Number n) {
   }
 
 
+  /**
+   * Parse a number held in some text which contains the number and nothing else. This avoids reading the number through an {@link Input} when the text
+   * is already in memory, as it is in an indexed or tokenized document.
+   *
+   * @param text     the text of the number
+   * @param location supplies the location to report if the number is invalid
+   *
+   * @return the parsed number
+   *
+   * @throws JsonParsingException if the text is not a valid JSON number
+   */
+  public static CJNumber parseText(CharSequence text, Supplier<JsonLocation> location) {
+    int length = text.length();
+    if (length == 0 || (text.charAt(0) != '-' && !isDigit(text.charAt(0)))) {
+      throw new JsonParsingException("Invalid JSON number: \"" + text + "\"", location.get());
+    }
+    NumberParser parser = new NumberParser(null);
+    Step step = Step.START;
+    for (int i = 0; i < length; i++) {
+      step = step.apply(text.charAt(i), parser);
+      if (step == Step.ERROR) {
+        throw new JsonParsingException("Invalid JSON number: \"" + text + "\"", location.get());
+      }
+    }
+    if (!step.isFinal()) {
+      throw new JsonParsingException("Incomplete JSON number", location.get());
+    }
+    return parser.create(text, location);
+  }
+
+
+  /** If true, reject numbers which are not exactly representable in I-JSON. */
+  final boolean ijsonStrict;
+
   final Input input;
 
   boolean needBigDecimal;
@@ -298,7 +337,19 @@ public static boolean isPrimitiveIntegerType(Number n) {
    * @param input the input to read from
    */
   public NumberParser(Input input) {
+    this(input, false);
+  }
+
+
+  /**
+   * New instance.
+   *
+   * @param input       the input to read from
+   * @param ijsonStrict if true, reject numbers which are not the shortest representation of an IEEE double, as I-JSON requires
+   */
+  public NumberParser(Input input, boolean ijsonStrict) {
     this.input = input;
+    this.ijsonStrict = ijsonStrict;
   }
 
 
@@ -353,6 +404,25 @@ public CJNumber parse(int r) {
       }
     }
 
+    return create(buf, input::getLocation);
+  }
+
+
+  /**
+   * Create the number whose text has been validated.
+   *
+   * @param buf      the text of the number
+   * @param location supplies the location to report if the number is not acceptable
+   *
+   * @return the number
+   */
+  private CJNumber create(CharSequence buf, Supplier<JsonLocation> location) {
+    // Small integers have shared instances, which are found without creating a string or consulting the cache.
+    CJInt shared = shared(buf);
+    if (shared != null) {
+      return shared;
+    }
+
     String txt = buf.toString();
 
     ICache<String, CJNumber> cache = CacheManager.numberCache();
@@ -364,10 +434,29 @@ public CJNumber parse(int r) {
         pNumber = cache.get(txt, NumberParser::doCreate);
       }
     } catch (NumberFormatException | ArithmeticException e) {
-      throw new JsonParsingException("Invalid number", e, input.getLocation());
+      throw new JsonParsingException("Invalid number", e, location.get());
     }
 
+    // The compatibility check is cached on the number, so repeated values are cheap.
+    if (ijsonStrict && !pNumber.isIJsonCompatible()) {
+      throw new JsonParsingException("I-JSON forbids numbers which are not exactly representable as doubles: " + txt, location.get());
+    }
     return pNumber;
   }
 
+
+  /**
+   * Get the shared instance for the number just parsed, if it is a small integer.
+   *
+   * @param buf the text of the number
+   *
+   * @return the shared instance, or null if there is not one
+   */
+  private CJInt shared(CharSequence buf) {
+    if (needBigDecimal || buf.length() > MAX_SHARED_LENGTH) {
+      return null;
+    }
+    return CJInt.shared(Integer.parseInt(buf, 0, buf.length(), 10));
+  }
+
 }
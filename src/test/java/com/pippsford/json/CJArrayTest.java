@@ -346,6 +346,58 @@ public void testContainsAll() {
   }
 
 
+  @Test
+  public void testCopy() {
+    // A copy of a copy starts off sharing everything with its original
+    CJArray original = new CJArray(Arrays.asList(Arrays.asList(1, 2), Map.of("a", 1), "x")).copy();
+    CJArray copy = original.copy();
+    copy.getJsonArray(0).add(3);
+    copy.getJsonObject(1).put("a", 2);
+    copy.add("y");
+    assertEquals("[[1,2],{\"a\":1},\"x\"]", original.toCanonicalString());
+    assertEquals("[[1,2,3],{\"a\":2},\"x\",\"y\"]", copy.toCanonicalString());
+
+    CJArray second = copy.copy();
+    original.getJsonArray(0).clear();
+    copy.remove(2);
+    assertEquals("[[],{\"a\":1},\"x\"]", original.toCanonicalString());
+    assertEquals("[[1,2,3],{\"a\":2},\"y\"]", copy.toCanonicalString());
+    assertEquals("[[1,2,3],{\"a\":2},\"x\",\"y\"]", second.toCanonicalString());
+  }
+
+
+  @Test
+  public void testCopyAfterValueGivenOut() {
+    CJArray original = new CJArray(Arrays.asList(Arrays.asList(1, 2), 3)).copy();
+    CJArray inner = original.getJsonArray(0);
+    CJArray copy = original.copy();
+    inner.add(4);
+    assertEquals("[[1,2,4],3]", original.toCanonicalString());
+    assertEquals("[[1,2],3]", copy.toCanonicalString());
+
+    CJArray added = new CJArray(List.of(5));
+    original.add(added);
+    copy = original.copy();
+    added.add(6);
+    assertEquals("[[1,2,4],3,[5,6]]", original.toCanonicalString());
+    assertEquals("[[1,2,4],3,[5]]", copy.toCanonicalString());
+  }
+
+
+  @Test
+  public void testCopyViews() {
+    CJArray original = new CJArray(Arrays.asList(1, 2, 3, 4)).copy();
+    CJArray copy = original.copy();
+    copy.subList(1, 3).clear();
+    ListIterator<JsonValue> iterator = copy.listIterator();
+    iterator.next();
+    iterator.set(CJNumber.create(5));
+    assertEquals("[1,2,3,4]", original.toCanonicalString());
+    assertEquals("[5,4]", copy.toCanonicalString());
+    assertEquals(original, new CJArray(Arrays.asList(1, 2, 3, 4)).copy());
+  }
+
+
   @Test
   public void testFixCollection() {
     CJArray ja = new CJArray();
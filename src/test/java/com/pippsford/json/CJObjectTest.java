@@ -93,6 +93,74 @@ public void computeIfPresent() {
   }
 
 
+  @Test
+  public void copy() {
+    CJObject original = new CJObject(Map.of("a", Map.of("b", 1), "c", Arrays.asList(1, 2), "d", "x"));
+    CJObject copy = original.copy();
+    copy.getJsonObject("a").put("b", 2);
+    copy.getJsonArray("c").add(3);
+    assertEquals("{\"a\":{\"b\":1},\"c\":[1,2],\"d\":\"x\"}", original.toCanonicalString());
+    assertEquals("{\"a\":{\"b\":2},\"c\":[1,2,3],\"d\":\"x\"}", copy.toCanonicalString());
+
+    CJObject second = copy.copy();
+    original.getJsonObject("a").clear();
+    copy.remove("d");
+    assertEquals("{\"a\":{},\"c\":[1,2],\"d\":\"x\"}", original.toCanonicalString());
+    assertEquals("{\"a\":{\"b\":2},\"c\":[1,2,3]}", copy.toCanonicalString());
+    assertEquals("{\"a\":{\"b\":2},\"c\":[1,2,3],\"d\":\"x\"}", second.toCanonicalString());
+  }
+
+
+  @Test
+  public void copyAfterValueGivenOut() {
+    CJObject original = new CJObject(Map.of("a", Map.of("b", 1)));
+    CJObject inner = original.getJsonObject("a");
+    CJObject copy = original.copy();
+    inner.put("b", 2);
+    assertEquals(2, original.getJsonObject("a").getInt("b"));
+    assertEquals(1, copy.getJsonObject("a").getInt("b"));
+
+    CJObject added = new CJObject(Map.of("f", 1));
+    original.put("e", added);
+    copy = original.copy();
+    added.put("f", 2);
+    assertEquals(2, original.getJsonObject("e").getInt("f"));
+    assertEquals(1, copy.getJsonObject("e").getInt("f"));
+  }
+
+
+  @Test
+  public void copyWhileGivingOutValue() throws InterruptedException {
+    for (int i = 0; i < 1000; i++) {
+      CJObject original = new CJObject(Map.of("a", Map.of("b", 1)));
+      CJObject[] results = new CJObject[2];
+      Thread reader = new Thread(() -> results[0] = original.getJsonObject("a"));
+      Thread copier = new Thread(() -> results[1] = original.copy());
+      reader.start();
+      copier.start();
+      reader.join();
+      copier.join();
+
+      // The value given out must never be shared with the copy
+      results[0].put("b", 2);
+      assertEquals(1, results[1].getJsonObject("a").getInt("b"));
+    }
+  }
+
+
+  @Test
+  public void copyViews() {
+    CJObject original = new CJObject(Map.of("a", 1, "b", 2, "c", 3));
+    CJObject copy = original.copy();
+    copy.keySet().remove("a");
+    copy.tailMap("c").put("d", CJNumber.create(4));
+    copy.entrySet().iterator().next().setValue(JsonValue.TRUE);
+    assertEquals("{\"a\":1,\"b\":2,\"c\":3}", original.toCanonicalString());
+    assertEquals("{\"b\":true,\"c\":3,\"d\":4}", copy.toCanonicalString());
+    assertEquals(original, new CJObject(Map.of("a", 1, "b", 2, "c", 3)).copy());
+  }
+
+
   @Test
   public void descendingKeySet() {
     NavigableSet<String> set = json.descendingKeySet();
@@ -414,9 +482,10 @@ public void optimiseStorage() {
       json.put("a1", "xyz");
       json.put("a2", "xyz");
       json.put("a3", "xyz");
-      json.put("b1", 1);
-      json.put("b2", 1);
-      json.put("b3", 1);
+      // Small integers are always shared, so use one outside that range
+      json.put("b1", 100_000);
+      json.put("b2", 100_000);
+      json.put("b3", 100_000);
 
       IdentityHashMap<JsonValue, Boolean> counter = new IdentityHashMap<>();
       json.forEach((k, v) -> counter.put(v, true));
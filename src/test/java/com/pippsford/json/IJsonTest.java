@@ -1,7 +1,9 @@
 package com.pippsford.json;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -9,25 +11,44 @@
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.StringReader;
+import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 import com.pippsford.json.builder.ArrayBuilder;
 import com.pippsford.json.builder.ObjectBuilder;
 import com.pippsford.json.ijson.ForbiddenIJsonException;
 import com.pippsford.json.exception.JsonIOException;
+import com.pippsford.json.io.ReaderFactory;
 import com.pippsford.json.ijson.IJsonNumberSerializer;
+import com.pippsford.json.parser.CJParser;
+import com.pippsford.json.parser.ParserFactory;
 import com.pippsford.json.primitive.CJString;
 import com.pippsford.json.primitive.numbers.CJNumber;
+import jakarta.json.JsonException;
 import jakarta.json.JsonValue;
 import org.junit.jupiter.api.Test;
 
 class IJsonTest {
 
+  private static void parseAndSerialize(String input) {
+    try (CJParser parser = new ParserFactory(null).createParser(new StringReader(input))) {
+      IJson.serializeParsed(new ByteArrayOutputStream(), parser);
+    }
+  }
+
+
   @Test
   void arrays() {
     CJArray array = new ArrayBuilder()
@@ -42,6 +63,23 @@ void arrays() {
   }
 
 
+  @Test
+  void forbiddenPath() {
+    CJObject object = Canonical.toJsonObject("{\"a\":[1,{\"b/c\":[true,\"ok\"]}],\"b\":2}").asJsonObject();
+    object.getJsonArray("a").getJsonObject(1).getJsonArray("b/c").add(CJString.create("bad \ud800"));
+
+    ForbiddenIJsonException e = assertThrows(ForbiddenIJsonException.class, () -> IJson.serialize(object));
+    assertEquals("/a/1/b~1c/2", e.getPath());
+    assertTrue(e.getMessage().endsWith("[path=/a/1/b~1c/2]"), e.getMessage());
+
+    e = assertThrows(ForbiddenIJsonException.class, () -> IJson.serialize(new ObjectBuilder().add("\ufdd0", 1).build()));
+    assertEquals("/\ufdd0", e.getPath());
+
+    e = assertThrows(ForbiddenIJsonException.class, () -> IJson.serialize(CJNumber.cast(Long.MAX_VALUE)));
+    assertEquals("", e.getPath());
+  }
+
+
   @Test
   void french() {
     CJObject object = new ObjectBuilder()
@@ -58,12 +96,124 @@ void french() {
   }
 
 
+  @Test
+  void serializeCopy() throws ReflectiveOperationException {
+    CJObject template = new CJObject(Map.of("a", Map.of("b", List.of(1, 2)), "c", "x"));
+    CJObject copy = template.copy();
+    assertEquals("{\"a\":{\"b\":[1,2]},\"c\":\"x\"}", IJson.serializeToText(copy));
+    assertTrue(IJson.isCompatible(copy));
+
+    // Reading the copy did not give out its contents, so it and the template's next copy still share the template's map
+    Field field = CJObject.class.getDeclaredField("myMap");
+    field.setAccessible(true);
+    assertSame(field.get(template), field.get(copy));
+    assertSame(field.get(template), field.get(template.copy()));
+  }
+
+
+  @Test
+  void serializeLarge() {
+    // Long strings with escapes cross the block boundaries of the stream buffer
+    ArrayBuilder builder = new ArrayBuilder();
+    for (int i = 0; i < 2000; i++) {
+      builder.add("Line " + i + "\tédition \ud83d\ude00 \"quoted\"\n");
+    }
+    CJArray array = builder.build();
+    String expected = IJson.serializeToText(array);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    IJson.serialize(out, array);
+    assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    assertTrue(expected.length() > 3 * 8192);
+    assertTrue(expected.startsWith("[\"Line 0\\tédition \ud83d\ude00 \\\"quoted\\\"\\n\",\"Line 1"));
+  }
+
+
+  @Test
+  void serializeParsed() {
+    String[] inputs = {
+        "{\"\":\"empty\",\"1\":{\"\\n\":56,\"F\":5,\"f\":\"hi\"},\"10\":{},\"111\":[{\"E\":\"no\",\"e\":[]}],\"A\":null,\"a\":false}",
+        "[1e+30,4.5,0.002,1e-27,true,\"€$\\u000f\\nA'B\\\"\\\\\"]",
+        "{\"a\":1,\"\ue000\":[1],\"\uff01\":{\"\ud83d\ude00\":2,\"\ue000\":3},\"\ud83d\ude00\":{\"x\":[]}}",
+        "\"text\"",
+        "12.5"
+    };
+    for (String input : inputs) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (CJParser parser = new ParserFactory(null).createParser(new StringReader(input))) {
+        IJson.serializeParsed(out, parser);
+      }
+      assertEquals(IJson.serializeToText(Canonical.cast(new ReaderFactory().createReader(new StringReader(input)).readValue())), out.toString(StandardCharsets.UTF_8));
+    }
+
+    ForbiddenIJsonException e = assertThrows(ForbiddenIJsonException.class, () -> parseAndSerialize("{\"a\":[0,123456789012345678901234567890]}"));
+    assertEquals("/a/1", e.getPath());
+    e = assertThrows(ForbiddenIJsonException.class, () -> parseAndSerialize("{\"\ue000\":{\"x\":\"\\ud800\"}}"));
+    assertEquals("/\ue000/x", e.getPath());
+    assertThrows(JsonException.class, () -> parseAndSerialize("{\"b\":1,\"a\":2}"));
+  }
+
+
+  @Test
+  void serializeToArray() {
+    byte[] destination = new byte[20];
+    int length = IJson.serializeTo(new ArrayBuilder().add(1).add("x").build(), destination);
+    assertEquals("[1,\"x\"]", new String(destination, 0, length, StandardCharsets.UTF_8));
+
+    assertThrows(BufferOverflowException.class, () -> IJson.serializeTo(CJString.create("a long string"), new byte[5]));
+  }
+
+
+  @Test
+  void serializeToByteBuffer() {
+    CJArray array = new ArrayBuilder().add(true).add("é").build();
+    byte[] expected = "[true,\"é\"]".getBytes(StandardCharsets.UTF_8);
+
+    ByteBuffer heap = ByteBuffer.allocate(30);
+    heap.position(3);
+    ByteBuffer slice = heap.slice();
+    slice.put((byte) '*');
+    IJson.serialize(array, slice);
+    assertEquals(1 + expected.length, slice.position());
+    assertArrayEquals(expected, Arrays.copyOfRange(heap.array(), 4, 4 + expected.length));
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(30);
+    IJson.serialize(array, direct);
+    direct.flip();
+    byte[] actual = new byte[direct.remaining()];
+    direct.get(actual);
+    assertArrayEquals(expected, actual);
+
+    assertThrows(BufferOverflowException.class, () -> IJson.serialize(array, ByteBuffer.allocate(4)));
+    assertThrows(BufferOverflowException.class, () -> IJson.serialize(array, ByteBuffer.allocateDirect(4)));
+  }
+
+
   @Test
   void serializeToBytes() {
     assertEquals("null", new String(IJson.serialize(null), StandardCharsets.UTF_8));
   }
 
 
+  @Test
+  void surrogateKeyOrder() {
+    // Keys with surrogates and characters above U+E000 sort differently in UTF-16, so each run of them is re-sorted
+    List<String> keys = List.of(
+        "", "a", "a\ue000", "a\ud83d\ude00", "a\ufffd", "b", "\ud800\udc00", "\ue000", "\uff01x", "\uff01\ud800\udc00", "\ufffd", "c"
+    );
+    CJObject object = new CJObject();
+    for (int i = 0; i < keys.size(); i++) {
+      object.put(keys.get(i), i);
+    }
+    StringBuilder expected = new StringBuilder();
+    for (String key : new TreeSet<>(keys)) {
+      expected.append(expected.length() == 0 ? '{' : ',').append(IJson.serializeToText(CJString.create(key))).append(':').append(keys.indexOf(key));
+    }
+    expected.append('}');
+    assertEquals(expected.toString(), IJson.serializeToText(object));
+  }
+
+
   @Test
   void structures() {
     CJObject object = new ObjectBuilder()
@@ -251,6 +401,7 @@ void throwsJsonIOException() throws IOException {
     OutputStream stream = mock(OutputStream.class);
     doThrow(new IOException("TEST")).when(stream).write(anyInt());
     doThrow(new IOException("TEST")).when(stream).write(any(byte[].class));
+    doThrow(new IOException("TEST")).when(stream).write(any(byte[].class), anyInt(), anyInt());
 
     assertThrows(JsonIOException.class, () -> IJson.serialize(stream, null));
   }
@@ -12,7 +12,10 @@
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Random;
 import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
@@ -107,6 +110,57 @@ void powersOfTwo() {
   }
 
 
+  @Test
+  void serializeLong() {
+    byte[] buffer = new byte[IJsonNumberSerializer.MAX_LONG_LENGTH + 2];
+    for (long value : new long[]{0, 7, -7, 10, -10, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1}) {
+      int end = IJsonNumberSerializer.serialize(buffer, 2, value);
+      assertEquals(Long.toString(value), new String(buffer, 2, end - 2, StandardCharsets.US_ASCII));
+    }
+  }
+
+
+  @Test
+  void serializeToArray() {
+    Random random = new Random(46);
+    byte[] buffer = new byte[IJsonNumberSerializer.MAX_DOUBLE_LENGTH + 3];
+    for (int i = 0; i < 10_000; i++) {
+      double value = Double.longBitsToDouble(random.nextLong() & 0xffef_ffff_ffff_ffffL);
+      int end = IJsonNumberSerializer.serialize(buffer, 3, value);
+      assertEquals(IJsonNumberSerializer.serialize(value), new String(buffer, 3, end - 3, StandardCharsets.US_ASCII));
+    }
+
+    // The longest forms
+    assertEquals(25, IJsonNumberSerializer.serialize(buffer, 0, -0.0000012345678901234567));
+    assertEquals(24, IJsonNumberSerializer.serialize(buffer, 0, -1.2345678901234567e-300));
+    assertThrows(ForbiddenIJsonException.class, () -> IJsonNumberSerializer.serialize(buffer, 0, Double.NaN));
+    assertThrows(IndexOutOfBoundsException.class, () -> IJsonNumberSerializer.serialize(new byte[4], 0, 12345L));
+  }
+
+
+  @Test
+  void serializeToByteBuffer() {
+    ByteBuffer heap = ByteBuffer.allocate(100);
+    heap.position(10);
+    assertEquals(15, IJsonNumberSerializer.serialize(heap, 0.125));
+    assertEquals(20, IJsonNumberSerializer.serialize(heap, -1234L));
+    assertEquals("0.125-1234", new String(heap.array(), 10, 10, StandardCharsets.US_ASCII));
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(100);
+    assertEquals(6, IJsonNumberSerializer.serialize(direct, 1e300));
+    assertEquals(8, IJsonNumberSerializer.serialize(direct, 42L));
+    byte[] bytes = new byte[8];
+    direct.flip().get(bytes);
+    assertEquals("1e+30042", new String(bytes, StandardCharsets.US_ASCII));
+
+    // A buffer that is short of space is filled only if the number fits
+    ByteBuffer small = ByteBuffer.allocate(IJsonNumberSerializer.MAX_DOUBLE_LENGTH).position(20);
+    assertEquals(24, IJsonNumberSerializer.serialize(small, 1e-7));
+    assertThrows(BufferOverflowException.class, () -> IJsonNumberSerializer.serialize(small.position(22), 1.5e-7));
+    assertEquals(22, small.position());
+  }
+
+
   @ParameterizedTest
   @CsvSource({
       "0000000000000000,0",
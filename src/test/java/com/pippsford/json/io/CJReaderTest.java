@@ -96,6 +96,20 @@ public void readArray2() {
   }
 
 
+  @Test
+  public void readIJsonStrict() {
+    ReaderFactory factory = new ReaderFactory(Map.of(ReaderFactory.IJSON_STRICT, true, ReaderFactory.LAZY, true));
+    assertEquals(Boolean.TRUE, factory.getConfigInUse().get(ReaderFactory.IJSON_STRICT));
+    assertEquals(null, factory.getConfigInUse().get(ReaderFactory.LAZY));
+
+    assertEquals(1, factory.createReader(new StringReader("{\"a\":[1.5,\"x\"]}")).readObject().size());
+    CJReader reader = factory.createReader(new StringReader("{\"a\":[1.5,\"\\udc00\"]}"));
+    assertThrows(JsonParsingException.class, reader::readObject);
+    CJReader reader2 = factory.createReader(new StringReader("[123456789012345678901234567890]"));
+    assertThrows(JsonParsingException.class, reader2::readArray);
+  }
+
+
   @Test
   public void readObject() {
     CJReader reader = new ReaderFactory().createReader(new ByteArrayInputStream("{\"é\":\"ü\"}".getBytes(ISO_8859_1)), ISO_8859_1);
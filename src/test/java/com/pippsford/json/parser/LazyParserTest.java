@@ -0,0 +1,212 @@
+package com.pippsford.json.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jakarta.json.JsonConfig;
+import jakarta.json.JsonConfig.KeyStrategy;
+import jakarta.json.stream.JsonParsingException;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.io.ReaderFactory;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class LazyParserTest {
+
+  private static final String DOCUMENT = "{ \"b\" : [1, 2.5, \"x\\ty\", true, false, null, {\"z\":[]}],\n \"a\" : {\"q\\u0041\" : \"r\", \"p\" : {}},"
+      + " \"\\uD83D\\uDE00\" : -3 , \"\\uFFFD\" : \"\"}";
+
+
+  private Canonical parse(String text) {
+    return LazyParser.parse(new StringReader(text), KeyStrategy.LAST);
+  }
+
+
+  @Test
+  public void badDocuments() {
+    assertThrows(JsonParsingException.class, () -> parse(""));
+    assertThrows(JsonParsingException.class, () -> parse("[1,2"));
+    assertThrows(JsonParsingException.class, () -> parse("[1,2}"));
+    assertThrows(JsonParsingException.class, () -> parse("{\"a\" 1}"));
+    assertThrows(JsonParsingException.class, () -> parse("{1:1}"));
+    assertThrows(JsonParsingException.class, () -> parse("[1,,2]"));
+    assertThrows(JsonParsingException.class, () -> parse("[1] 2"));
+    assertThrows(JsonParsingException.class, () -> parse("[\"abc]"));
+    assertThrows(JsonParsingException.class, () -> parse("{\"a\":1,}"));
+  }
+
+
+  @Test
+  public void badScalarsRejected() {
+    // Scalars are checked when the document is read, even though they are only decoded when accessed
+    ReaderFactory factory = new ReaderFactory(Map.of(ReaderFactory.LAZY, true));
+    String[] bad = {"{\"a\":tru,\"b\":1}", "{\"a\":01x,\"b\":1}", "{\"a\":\"\\q\",\"b\":1}"};
+    for (String json : bad) {
+      assertThrows(JsonParsingException.class, () -> factory.createReader(new StringReader(json)).readObject(), json);
+    }
+
+    String[] alsoBad = {"[1, tru, 3]", "[truex]", "[nul]", "[01]", "[1e]", "[1.]", "[-]", "[1.5e+]", "[0x1]", "[\"\\u12g4\"]", "[\"\\u12\"]", "{\"\\x\":1}"};
+    for (String json : alsoBad) {
+      assertThrows(JsonParsingException.class, () -> parse(json), json);
+    }
+
+    CJArray numbers = (CJArray) parse("[-0.5e2, 12345678901, 1.0, 0, -0E-1, true, false, null, \"\\u00e9\\/\"]");
+    assertEquals("[-50,12345678901,1,0,0,true,false,null,\"\u00e9/\"]", numbers.toCanonicalString());
+  }
+
+
+  @Test
+  public void concurrentReads() throws Exception {
+    // Some threads read single members while others cause the whole structure to be decoded
+    StringBuilder text = new StringBuilder("{");
+    for (int i = 0; i < 200; i++) {
+      text.append(i > 0 ? "," : "").append("\"k").append(i).append("\":[").append(i).append(']');
+    }
+    String json = text.append('}').toString();
+    CJObject expected = new CJObject((CJObject) parse(json));
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int round = 0; round < 50; round++) {
+        LazyObject object = (LazyObject) parse(json);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+          boolean whole = t % 2 == 0;
+          futures.add(executor.submit(() -> {
+            if (whole) {
+              assertEquals(expected, new CJObject(object));
+            } else {
+              for (int i = 199; i >= 0; i--) {
+                assertEquals(i, object.getJsonArray("k" + i).getInt(0));
+              }
+            }
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+
+  @Test
+  public void duplicateKeys() {
+    CJObject last = (CJObject) parse("{\"a\":1,\"a\":2}");
+    assertEquals(2, last.getInt("a"));
+
+    CJObject first = (CJObject) LazyParser.parse(new StringReader("{\"a\":1,\"a\":2}"), KeyStrategy.FIRST);
+    assertEquals(1, first.getInt("a"));
+
+    // duplicates are only detected when the object is decoded
+    CJArray none = (CJArray) LazyParser.parse(new StringReader("[{\"a\":1,\"a\":2}]"), KeyStrategy.NONE);
+    assertThrows(JsonParsingException.class, () -> none.get(0));
+  }
+
+
+  @Test
+  public void lazyAccess() {
+    LazyObject object = (LazyObject) parse(DOCUMENT);
+    assertEquals(4, object.size());
+    assertEquals("a", object.firstKey());
+    assertEquals("\uD83D\uDE00", object.lastKey());
+    assertTrue(object.containsKey("\uD83D\uDE00"));
+    assertEquals(-3, object.getInt("\uD83D\uDE00"));
+
+    LazyArray array = (LazyArray) object.getJsonArray("b");
+    assertEquals(7, array.size());
+    assertEquals("x\ty", array.getString(2));
+    assertInstanceOf(LazyArray.class, array.getJsonObject(6).getJsonArray("z"));
+    assertFalse(array.isMaterialised());
+    assertFalse(object.isMaterialised());
+
+    // the same instance is returned each time
+    assertSame(object.get("a"), object.get("a"));
+  }
+
+
+  @Test
+  public void matchesRegularParser() {
+    Canonical expected = Canonical.create(new ReaderFactory().createReader(new StringReader(DOCUMENT)).readValue());
+    Canonical actual = parse(DOCUMENT);
+    assertEquals(expected, actual);
+    assertEquals(expected.toCanonicalString(), actual.toCanonicalString());
+    assertEquals(expected.hashCode(), actual.hashCode());
+  }
+
+
+  @Test
+  public void modify() {
+    LazyObject object = (LazyObject) parse(DOCUMENT);
+    object.getJsonObject("a").put("x", Canonical.create(1));
+    assertFalse(object.isMaterialised());
+    assertEquals("{\"p\":{},\"qA\":\"r\",\"x\":1}", object.get("a").toCanonicalString());
+
+    object.remove("b");
+    assertTrue(object.isMaterialised());
+    assertEquals(3, object.size());
+    assertEquals("{\"p\":{},\"qA\":\"r\",\"x\":1}", object.get("a").toCanonicalString());
+
+    LazyArray array = (LazyArray) parse("[1,2,3]");
+    array.remove(1);
+    assertTrue(array.isMaterialised());
+    assertEquals("[1,3]", array.toCanonicalString());
+  }
+
+
+  @Test
+  public void readerFactory() {
+    ReaderFactory factory = new ReaderFactory(Map.of(ReaderFactory.LAZY, "true", JsonConfig.KEY_STRATEGY, KeyStrategy.FIRST));
+    assertEquals(Boolean.TRUE, factory.getConfigInUse().get(ReaderFactory.LAZY));
+    CJObject object = factory.createReader(new StringReader("{\"a\":1,\"a\":2}")).readObject();
+    assertInstanceOf(LazyObject.class, object);
+    assertEquals(1, object.getInt("a"));
+  }
+
+
+  @Test
+  public void scalarRoot() {
+    assertEquals(Canonical.create(12.5), parse(" 12.5 "));
+    assertEquals(Canonical.create("x"), parse("\"x\""));
+  }
+
+
+  @Test
+  public void serialize() throws Exception {
+    Canonical object = parse(DOCUMENT);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    Object copy;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = in.readObject();
+    }
+    assertEquals(CJObject.class, copy.getClass());
+    assertEquals(object, copy);
+  }
+
+}
@@ -3,6 +3,7 @@
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -64,6 +65,51 @@ public void getConfigInUse3() {
   }
 
 
+  @Test
+  public void ijsonStrict() {
+    ParserFactory strict = new ParserFactory(Map.of(ParserFactory.IJSON_STRICT, true));
+    assertEquals(Boolean.TRUE, strict.getConfigInUse().get(ParserFactory.IJSON_STRICT));
+    String[] forbidden = {
+        "\"\\ud800\"",
+        "\"\\ud800x\"",
+        "\"\\ud800\\n\"",
+        "\"\\udc00\"",
+        "\"\ufdd0\"",
+        "\"\\uffff\"",
+        "\"\\ud83f\\udffe\"",
+        "\"\ud83f\udffe\"",
+        "\"\\udbff\\udfff\"",
+        "{\"\\ud800\":1}",
+        "[1,12345678901234567890]",
+        "0.12345678901234567890",
+        "1e400"
+    };
+    for (String json : forbidden) {
+      try (JsonParser parser = strict.createParser(new StringReader(json))) {
+        assertThrows(JsonParsingException.class, () -> {
+          while (parser.hasNext()) {
+            parser.next();
+          }
+        }, json);
+      }
+      try (JsonParser parser = new ParserFactory(null).createParser(new StringReader(json))) {
+        while (parser.hasNext()) {
+          parser.next();
+        }
+      }
+    }
+
+    String[] allowed = {"\"\\ud83d\\ude00 \ud83d\ude00 \ufffd\"", "\"\\ud83c\\udffe \ud83c\udffe\"", "[1,9007199254740993000,0.1,1e300]", "{\"\\u00e9\":true}"};
+    for (String json : allowed) {
+      try (JsonParser parser = strict.createParser(new StringReader(json))) {
+        while (parser.hasNext()) {
+          parser.next();
+        }
+      }
+    }
+  }
+
+
   @Test
   public void testCreateParser() {
     JsonParser parser = new ParserFactory(Map.of(ParserFactory.REQUIRE_SINGLE_ROOT, false)).createParser(
@@ -3,6 +3,7 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.StringReader;
 import java.math.BigDecimal;
@@ -11,6 +12,7 @@
 import java.util.stream.Stream;
 import jakarta.json.JsonValue;
 import jakarta.json.stream.JsonParser.Event;
+import jakarta.json.stream.JsonParsingException;
 
 import org.junit.jupiter.api.Test;
 
@@ -141,6 +143,68 @@ public void testSkipObject() {
   }
 
 
+  @Test
+  public void testSkipArrayAfterHasNext() {
+    Parser parser = create("[[1,[2]],[]]");
+    parser.next();
+    parser.next();
+    // the look-ahead has already opened the nested array
+    assertTrue(parser.hasNext());
+    parser.skipArray();
+    assertEquals(Event.END_ARRAY, parser.getLastEvent());
+    assertEquals(Event.START_ARRAY, parser.next());
+    // the look-ahead is the end of the array being skipped
+    assertTrue(parser.hasNext());
+    parser.skipArray();
+    assertEquals(Event.END_ARRAY, parser.getLastEvent());
+    assertEquals(Event.END_ARRAY, parser.next());
+    assertFalse(parser.hasNext());
+  }
+
+
+  @Test
+  public void testSkipRaw() {
+    Parser parser = create("{\"a\":{\"b\":[\"]}\\\"[{\",{\"c\":[]}],\"d\":1},\"e\":2}");
+    assertEquals(Event.START_OBJECT, parser.next());
+    assertEquals(Event.KEY_NAME, parser.next());
+    assertEquals(Event.START_OBJECT, parser.next());
+    assertEquals(Event.KEY_NAME, parser.next());
+    parser.skipObject();
+    assertEquals(Event.END_OBJECT, parser.getLastEvent());
+    assertEquals(Event.KEY_NAME, parser.next());
+    assertEquals("e", parser.getString());
+    assertEquals(Event.VALUE_NUMBER, parser.next());
+    assertEquals(Event.END_OBJECT, parser.next());
+    assertFalse(parser.hasNext());
+  }
+
+
+  @Test
+  public void testSkipRawErrors() {
+    Parser parser1 = create("[1,[2,3]");
+    parser1.next();
+    assertThrows(JsonParsingException.class, parser1::skipArray);
+
+    Parser parser2 = create("[1,{2,3]]");
+    parser2.next();
+    assertThrows(JsonParsingException.class, parser2::skipArray);
+
+    Parser parser3 = create("{\"a\":\"xyz}");
+    parser3.next();
+    assertThrows(JsonParsingException.class, parser3::skipObject);
+  }
+
+
+  @Test
+  public void testSkipWholeRoot() {
+    Parser parser = create("[1,2,3]");
+    parser.next();
+    parser.skipArray();
+    assertEquals(Event.END_ARRAY, parser.getLastEvent());
+    assertFalse(parser.hasNext());
+  }
+
+
   @Test
   public void testValueStream() {
     Parser parser = create("{}1 2 false[true]");
@@ -0,0 +1,134 @@
+package com.pippsford.json.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import jakarta.json.JsonStructure;
+import jakarta.json.stream.JsonParsingException;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.io.ReaderFactory;
+import com.pippsford.json.pointer.tree.PointerTree;
+import com.pippsford.json.pointer.tree.PointerTreeBuilder;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class ProjectionTest {
+
+  private static final String[] DOCUMENTS = {
+      "{\"a\":{\"b\":1,\"c\":2},\"b\":[{\"a\":1,\"b\":2},{\"a\":3,\"b\":4},5],\"c\":[0,1,2,3,4,5],\"d\":[{\"x\":1,\"y\":2},{\"x\":3,\"y\":4},\"z\"],"
+          + "\"-\":{\"a\":\"A\",\"c\":\"C\"},\"e\":\"\\\"}]\"}",
+      "[{\"a\":1,\"b\":2,\"c\":3},[1,2],true,{\"b\":[1,{\"a\":null}]}]",
+      "{\"a\":7,\"b\":{\"0\":{\"a\":1}},\"c\":[1],\"d\":{}}",
+      "[]",
+      "{}"
+  };
+
+
+  private static PointerTree tree(String... pointers) {
+    PointerTreeBuilder builder = new PointerTreeBuilder();
+    for (String p : pointers) {
+      builder.add(p);
+    }
+    return builder.build();
+  }
+
+
+  private Canonical project(PointerTree tree, String document) {
+    Parser parser = new Parser(new StringReader(document));
+    parser.setProjection(tree.getProjection());
+    parser.next();
+    return parser.getValue();
+  }
+
+
+  @Test
+  public void badDocument() {
+    PointerTree tree = tree("/a");
+    // skipped content is not validated
+    assertEquals(Canonical.create(Map.of("a", 1)), project(tree, "{\"b\":[01x,tru],\"c\":nul,\"a\":1}"));
+
+    // but the structure must be valid
+    assertThrows(JsonParsingException.class, () -> project(tree, "{\"b\":[1,2},\"a\":1}"));
+    assertThrows(JsonParsingException.class, () -> project(tree, "{\"b\":,\"a\":1}"));
+    assertThrows(JsonParsingException.class, () -> project(tree, "{\"b\" 1,\"a\":1}"));
+    assertThrows(JsonParsingException.class, () -> project(tree, "{\"b\":[1,2"));
+  }
+
+
+  @Test
+  public void matchesCopy() {
+    List<PointerTree> trees = List.of(
+        tree("/a/b", "/b/0/a", "/b/1/b", "/-/a", "/-/b"),
+        tree("/c/3", "/e"),
+        tree("/c/-", "/a/c"),
+        tree("/d/-/x", "/d/1/y"),
+        tree("/d/-", "/d/0/x"),
+        tree("/b/0", "/b/1/a", "/3/b/1"),
+        tree("/9"),
+        tree(""),
+        tree()
+    );
+    for (PointerTree tree : trees) {
+      for (String document : DOCUMENTS) {
+        JsonStructure full = (JsonStructure) new Parser(new StringReader(document)).getValueStream().findFirst().orElseThrow();
+        JsonStructure expected = tree.copy(full);
+        if (expected == null) {
+          // the empty tree copies nothing, but the root structure is still created
+          expected = Canonical.createEmpty(full);
+        }
+        assertEquals(expected, project(tree, document), () -> tree.getPointers() + " on " + document);
+      }
+    }
+  }
+
+
+  @Test
+  public void parserFactory() {
+    PointerTree tree = tree("/a");
+    ParserFactory factory = new ParserFactory(Map.of(ParserFactory.PROJECTION, tree, ParserFactory.REQUIRE_SINGLE_ROOT, false));
+    assertSame(tree, factory.getConfigInUse().get(ParserFactory.PROJECTION));
+
+    CJParser parser = factory.createParser(new StringReader("{\"a\":1,\"b\":2} 3 [4] {\"b\":{\"a\":5},\"a\":[6]}"));
+    assertEquals(
+        "{\"a\":1}|3|[]|{\"a\":[6]}",
+        parser.getValueStream().map(v -> ((Canonical) v).toCanonicalString()).collect(Collectors.joining("|"))
+    );
+
+    assertThrows(IllegalArgumentException.class, () -> new ParserFactory(Map.of(ParserFactory.PROJECTION, "/a")));
+  }
+
+
+  @Test
+  public void readerFactory() {
+    PointerTree tree = tree("/a/b");
+    ReaderFactory factory = new ReaderFactory(Map.of(ReaderFactory.PROJECTION, tree, ReaderFactory.LAZY, true));
+    Map<String, ?> config = factory.getConfigInUse();
+    assertSame(tree, config.get(ReaderFactory.PROJECTION));
+    assertFalse(config.containsKey(ReaderFactory.LAZY));
+
+    CJObject object = factory.createReader(new StringReader("{\"a\":{\"a\":1,\"b\":[2,{}]},\"b\":3}")).readObject();
+    assertEquals("{\"a\":{\"b\":[2,{}]}}", object.toCanonicalString());
+  }
+
+
+  @Test
+  public void skipAfterLastIndex() {
+    Parser parser = new Parser(new StringReader("[[1,2,3,4],{\"x\":[5,6,7]},[8]]"));
+    parser.setProjection(tree("/0/1", "/1/x/0").getProjection());
+    parser.next();
+    assertEquals("[[null,2],{\"x\":[5]}]", parser.getArray().toCanonicalString());
+    assertFalse(parser.hasNext());
+  }
+
+}
@@ -0,0 +1,173 @@
+package com.pippsford.json.parser;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser.Event;
+import jakarta.json.stream.JsonParsingException;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class TapeTest {
+
+  private static final String DOCUMENT = "{\"b\":[1,2.5e3,\"x\\ty\",true,false,null,{\"z\":[]}],\n \"a\" : {\"q\\u0041\":\"r\\u00e9é\",\"p\":{}}, \"c\":-0.5}";
+
+
+  private List<String> events(Iterable<Event> events, CJParser parser) {
+    List<String> list = new ArrayList<>();
+    for (Event e : events) {
+      switch (e) {
+        case KEY_NAME: // falls through
+        case VALUE_STRING:
+          list.add(e + ":" + parser.getString());
+          break;
+        case VALUE_NUMBER:
+          list.add(e + ":" + parser.getBigDecimal());
+          break;
+        default:
+          list.add(e.toString());
+          break;
+      }
+    }
+    return list;
+  }
+
+
+  @Test
+  public void badDocuments() {
+    for (String s : new String[]{"", "[1,2", "[1,2}", "{\"a\" 1}", "{1:1}", "[1,,2]", "[1] 2", "[\"abc]", "{\"a\":1,}", "[1,]", "[01]", "[1.]",
+        "[-]", "[1e]", "[tru]", "[nulll]", "{\"a\":1 \"b\":2}", "[\"\u0001\"]",
+        "[\"\\q\"]", "[\"\\u12G4\"]", "[\"\\u12\"]", "{\"\\x\":1}", "[\"\\"}) {
+      assertThrows(JsonParsingException.class, () -> Tape.parse(s.getBytes(UTF_8)), s);
+    }
+  }
+
+
+  @Test
+  public void convert() {
+    Tape tape = Tape.parse(new ByteArrayInputStream(DOCUMENT.getBytes(UTF_8)));
+    Canonical expected = new Parser(new StringReader(DOCUMENT)).getValueStream().map(Canonical::cast).findFirst().orElseThrow();
+    assertEquals(expected, tape.toCanonical());
+    assertEquals(expected.toCanonicalString(), tape.toCanonical().toCanonicalString());
+  }
+
+
+  @Test
+  public void findMember() {
+    Tape tape = Tape.parse(DOCUMENT.getBytes(UTF_8));
+    int a = tape.findMember(0, "a");
+    assertEquals(Event.START_OBJECT, tape.getEvent(a));
+    int q = tape.findMember(a, "qA");
+    assertEquals("réé", tape.getString(q));
+    assertEquals("\"r\\u00e9é\"", tape.getRawText(q));
+    assertEquals(-1, tape.findMember(a, "x"));
+    assertEquals(Canonical.create(-0.5), tape.getValue(tape.findMember(0, "c")));
+    assertThrows(IllegalArgumentException.class, () -> tape.findMember(q, "x"));
+  }
+
+
+  @Test
+  public void layout() {
+    byte[] bytes = " [ 12 , \"ab\" , {} ] ".getBytes(UTF_8);
+    Tape tape = Tape.parse(bytes);
+    assertEquals(6, tape.size());
+    assertEquals(Event.START_ARRAY, tape.getEvent(0));
+    assertEquals(5, tape.getMatch(0));
+    assertEquals(0, tape.getMatch(5));
+    assertEquals(1, tape.getOffset(0));
+    assertEquals(3, tape.getOffset(1));
+    assertEquals(2, tape.getLength(1));
+    assertEquals(8, tape.getOffset(2));
+    assertEquals(4, tape.getLength(2));
+    assertEquals(4, tape.getMatch(3));
+    assertEquals(5, tape.skip(3));
+    assertEquals(6, tape.skip(0));
+    assertThrows(IllegalArgumentException.class, () -> tape.getMatch(1));
+  }
+
+
+  @Test
+  public void sameEventsAsParser() {
+    Parser parser = new Parser(new StringReader(DOCUMENT));
+    List<String> expected = events(() -> parser, parser);
+
+    TapeParser tapeParser = Tape.parse(DOCUMENT.getBytes(UTF_8)).createParser();
+    List<String> actual = events(() -> tapeParser, tapeParser);
+    assertEquals(expected, actual);
+    assertFalse(tapeParser.hasNext());
+  }
+
+
+  @Test
+  public void scalarRoot() {
+    TapeParser parser = Tape.parse("123".getBytes(UTF_8)).createParser();
+    assertEquals(Event.VALUE_NUMBER, parser.next());
+    assertTrue(parser.isIntegralNumber());
+    assertEquals(123, parser.getInt());
+    assertEquals(123L, parser.getLong());
+    assertEquals(new BigDecimal(123), parser.getBigDecimal());
+    assertFalse(parser.hasNext());
+  }
+
+
+  @Test
+  public void skipAndGet() {
+    TapeParser parser = Tape.parse(DOCUMENT.getBytes(UTF_8)).createParser();
+    assertEquals(Event.START_OBJECT, parser.next());
+    assertEquals(Event.KEY_NAME, parser.next());
+    assertEquals(Event.START_ARRAY, parser.next());
+    assertEquals(Event.VALUE_NUMBER, parser.next());
+
+    // skip the rest of the array
+    parser.skipArray();
+    assertEquals(Event.END_ARRAY, parser.getLastEvent());
+    assertEquals(Event.KEY_NAME, parser.next());
+    assertEquals("a", parser.getString());
+    assertEquals(Event.START_OBJECT, parser.next());
+    CJObject object = parser.getObject();
+    assertEquals(2, object.size());
+    assertEquals(Event.KEY_NAME, parser.next());
+    assertEquals("c", parser.getString());
+
+    // skipping an array when in an object does nothing
+    parser.skipArray();
+    assertEquals(Event.VALUE_NUMBER, parser.next());
+    parser.skipObject();
+    assertEquals(Event.END_OBJECT, parser.getLastEvent());
+    assertFalse(parser.hasNext());
+  }
+
+
+  @Test
+  public void streams() {
+    TapeParser parser = Tape.parse("[1,[2],{\"a\":3}]".getBytes(UTF_8)).createParser();
+    parser.next();
+    assertEquals("1|[2]|{\"a\":3}", parser.getArrayStream().map(JsonValue::toString).collect(Collectors.joining("|")));
+
+    parser = Tape.parse("{\"a\":[1],\"b\":2}".getBytes(UTF_8)).createParser();
+    parser.next();
+    assertEquals("a=[1]|b=2", parser.getObjectStream().map(Object::toString).collect(Collectors.joining("|")));
+
+    parser = Tape.parse("[1,[2]]".getBytes(UTF_8)).createParser();
+    CJArray array = (CJArray) parser.getValueStream().findFirst().orElseThrow();
+    assertEquals(2, array.size());
+  }
+
+}
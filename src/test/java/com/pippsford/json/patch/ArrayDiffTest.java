@@ -0,0 +1,121 @@
+package com.pippsford.json.patch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonValue;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.Canonical;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class ArrayDiffTest {
+
+  private static List<JsonValue> list(int... values) {
+    List<JsonValue> list = new ArrayList<>();
+    for (int v : values) {
+      list.add(Canonical.create(v));
+    }
+    return list;
+  }
+
+
+  /** Length of the longest common subsequence by dynamic programming. */
+  private static int lcs(List<JsonValue> a, List<JsonValue> b) {
+    int[][] table = new int[a.size() + 1][b.size() + 1];
+    for (int i = 1; i <= a.size(); i++) {
+      for (int j = 1; j <= b.size(); j++) {
+        table[i][j] = a.get(i - 1).equals(b.get(j - 1)) ? table[i - 1][j - 1] + 1 : Math.max(table[i - 1][j], table[i][j - 1]);
+      }
+    }
+    return table[a.size()][b.size()];
+  }
+
+
+  private static int verify(List<JsonValue> a, List<JsonValue> b, int[] matches) {
+    assertEquals(a.size(), matches.length);
+    int last = -1;
+    int count = 0;
+    for (int i = 0; i < matches.length; i++) {
+      int j = matches[i];
+      if (j != -1) {
+        assertTrue(j > last);
+        assertEquals(a.get(i), b.get(j));
+        last = j;
+        count++;
+      }
+    }
+    return count;
+  }
+
+
+  @Test
+  public void large() {
+    Random random = new Random(0xd1ff);
+    JsonArray source = new CJArray();
+    JsonArray target = new CJArray();
+    for (int i = 0; i < 50_000; i++) {
+      JsonValue value = Canonical.create(random.nextInt(1_000_000));
+      source.add(value);
+      if (random.nextInt(50) != 0) {
+        target.add(value);
+      }
+      if (random.nextInt(50) == 0) {
+        target.add(Canonical.create(-i));
+      }
+    }
+    int[] matches = ArrayDiff.match(source, target);
+    int count = verify(source, target, matches);
+    assertTrue(count > 48_000, () -> "Matched " + count);
+
+    Patch patch = PatchFactory.create(source, target);
+    assertEquals(target, patch.apply(source));
+  }
+
+
+  @Test
+  public void random() {
+    Random random = new Random(0x5eed);
+    for (int t = 0; t < 500; t++) {
+      int[] x = new int[random.nextInt(30)];
+      int[] y = new int[random.nextInt(30)];
+      int range = 1 + random.nextInt(10);
+      for (int i = 0; i < x.length; i++) {
+        x[i] = random.nextInt(range);
+      }
+      for (int i = 0; i < y.length; i++) {
+        y[i] = random.nextInt(range);
+      }
+      List<JsonValue> a = list(x);
+      List<JsonValue> b = list(y);
+      int count = verify(a, b, ArrayDiff.match(a, b));
+
+      // Patience anchors may prevent the optimal result, but only if there are unique values
+      int best = lcs(a, b);
+      assertTrue(count <= best);
+      if (range == 1) {
+        assertEquals(best, count);
+      }
+    }
+  }
+
+
+  @Test
+  public void simple() {
+    assertArrayEquals(new int[]{0, -1, 1, 2}, ArrayDiff.match(list(1, 2, 3, 4), list(1, 3, 4)));
+    assertArrayEquals(new int[]{0, 2, 3}, ArrayDiff.match(list(1, 3, 4), list(1, 2, 3, 4)));
+    assertArrayEquals(new int[]{-1, -1}, ArrayDiff.match(list(1, 2), list(3, 4)));
+    assertArrayEquals(new int[]{1, 2, -1, 3}, ArrayDiff.match(list(5, 6, 7, 8), list(9, 5, 6, 8)));
+    assertArrayEquals(new int[0], ArrayDiff.match(list(), list(1)));
+  }
+
+}
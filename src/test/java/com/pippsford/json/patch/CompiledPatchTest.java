@@ -0,0 +1,117 @@
+package com.pippsford.json.patch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonStructure;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.io.ReaderFactory;
+import com.pippsford.json.patch.PatchFactoryTest.PatchSet;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class CompiledPatchTest {
+
+  private static JsonStructure parse(String json) {
+    return new ReaderFactory().createReader(new StringReader(json)).read();
+  }
+
+
+  @Test
+  public void applyToStream() {
+    PatchBuilder builder = new PatchBuilder();
+    builder.replace("/a/b/c", 1);
+    builder.add("/a/b/d", 2);
+    builder.move("/a/e", "/a/b/c");
+    builder.remove("/x");
+    CompiledPatch compiled = builder.build().compile();
+
+    List<String> results = compiled.apply(Stream.of(
+        parse("{\"a\":{\"b\":{\"c\":0}},\"x\":1}"),
+        parse("{\"a\":{\"b\":{\"c\":[]},\"e\":true},\"x\":null,\"y\":2}")
+    )).map(s -> Canonical.cast(s).toCanonicalString()).collect(Collectors.toList());
+    assertEquals(List.of("{\"a\":{\"b\":{\"d\":2},\"e\":1}}", "{\"a\":{\"b\":{\"d\":2},\"e\":1},\"y\":2}"), results);
+  }
+
+
+  @Test
+  public void arrays() {
+    PatchBuilder builder = new PatchBuilder();
+    builder.add("/a/1/x", 1);
+    builder.remove("/a/0");
+    builder.add("/a/0/y", 2);
+    builder.add("/a/-", 3);
+    builder.copy("/b", "/a/0");
+    builder.test("/b/x", 1);
+    JsonStructure target = parse("{\"a\":[{},{}]}");
+    Patch patch = builder.build();
+    assertEquals(patch.apply(target), patch.compile().apply(target));
+  }
+
+
+  @Test
+  public void failures() {
+    JsonStructure target = parse("{\"a\":{\"b\":[1,2]}}");
+    for (String path : new String[]{"/a/c/d", "/a/b/x/y", "/a/b/5/y", "/q"}) {
+      PatchBuilder builder = new PatchBuilder();
+      builder.remove(path);
+      CompiledPatch compiled = builder.build().compile();
+      assertThrows(JsonException.class, () -> compiled.apply(target), path);
+    }
+
+    PatchBuilder builder = new PatchBuilder();
+    builder.test("/a/b/0", 2);
+    CompiledPatch compiled = builder.build().compile();
+    assertThrows(JsonException.class, () -> compiled.apply(target));
+  }
+
+
+  @Test
+  public void inPlace() {
+    CJObject target = (CJObject) parse("{\"a\":{\"b\":1}}");
+    PatchBuilder builder = new PatchBuilder();
+    builder.replace("/a/b", 2);
+    CJObject result = builder.build().compile().apply(target, ApplyMode.IN_PLACE);
+    assertSame(target, result);
+    assertEquals("{\"a\":{\"b\":2}}", target.toCanonicalString());
+  }
+
+
+  @Test
+  public void randomPatches() {
+    for (int i = 0; i < 1000; i++) {
+      PatchSet<JsonObject> set = PatchFactoryTest.makeObjectSet();
+      CompiledPatch compiled = ((Patch) set.patch).compile();
+      assertEquals(set.after, compiled.apply(set.before));
+      assertEquals(set.after, compiled.apply(set.before, ApplyMode.PATH_COPY));
+    }
+  }
+
+
+  @Test
+  public void rootOperations() {
+    PatchBuilder builder = new PatchBuilder();
+    builder.add("/a", 1);
+    builder.add("", parse("{\"b\":{}}"));
+    builder.add("/b/c", 2);
+    CompiledPatch compiled = builder.build().compile();
+    for (int i = 0; i < 2; i++) {
+      // applying the patch must not change it
+      JsonStructure result = compiled.apply(parse("{}"));
+      assertEquals("{\"b\":{\"c\":2}}", Canonical.cast(result).toCanonicalString());
+    }
+  }
+
+}
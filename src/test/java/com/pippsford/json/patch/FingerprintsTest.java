@@ -0,0 +1,73 @@
+package com.pippsford.json.patch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.Set;
+import jakarta.json.Json;
+import jakarta.json.JsonValue;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJArray;
+import com.pippsford.json.io.ReaderFactory;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class FingerprintsTest {
+
+  private static JsonValue parse(String json) {
+    return new ReaderFactory().createReader(new StringReader(json)).readValue();
+  }
+
+
+  @Test
+  public void differentValues() {
+    Fingerprints fingerprints = new Fingerprints();
+    String[] values = {"1", "2", "\"1\"", "true", "false", "null", "[]", "{}", "[1,2]", "[2,1]", "[[1],2]", "[1,[2]]", "{\"a\":1}", "{\"b\":1}",
+        "{\"a\":2}", "{\"a\":1,\"b\":2}", "{\"a\":2,\"b\":1}", "[\"\"]", "[null]", "[{}]", "[[]]"};
+    Set<Long> seen = new HashSet<>();
+    for (String value : values) {
+      assertTrue(seen.add(fingerprints.get(parse(value))), value);
+    }
+  }
+
+
+  @Test
+  public void equalValues() {
+    Fingerprints fingerprints = new Fingerprints();
+    JsonValue canonical = parse("{\"a\":[1,\"x\",{\"b\":null}],\"c\":true}");
+    JsonValue other = Json.createObjectBuilder()
+        .add("c", true)
+        .add("a", Json.createArrayBuilder().add(1).add("x").add(Json.createObjectBuilder().addNull("b")))
+        .build();
+    assertEquals(fingerprints.get(canonical), fingerprints.get(other));
+    assertTrue(fingerprints.same(canonical, other));
+    assertEquals(fingerprints.item(canonical), fingerprints.item(other));
+
+    JsonValue different = parse("{\"a\":[1,\"x\",{\"b\":false}],\"c\":true}");
+    assertNotEquals(fingerprints.get(canonical), fingerprints.get(different));
+    assertFalse(fingerprints.same(canonical, different));
+  }
+
+
+  @Test
+  public void sharedWithRoot() {
+    Fingerprints root = new Fingerprints();
+    CJArray array = new CJArray();
+    array.add(1);
+    long original = root.get(array);
+
+    // A changed value gets the root's original fingerprint, showing the root's cache was used
+    array.add(2);
+    Fingerprints grandChild = new Fingerprints(new Fingerprints(root));
+    assertEquals(original, grandChild.get(array));
+    assertNotEquals(original, new Fingerprints().get(array));
+  }
+
+}
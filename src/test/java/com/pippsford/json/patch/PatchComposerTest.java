@@ -0,0 +1,201 @@
+package com.pippsford.json.patch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map.Entry;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.io.ReaderFactory;
+import com.pippsford.json.patch.ops.Add;
+import com.pippsford.json.patch.ops.Remove;
+import com.pippsford.json.patch.ops.Replace;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class PatchComposerTest {
+
+  private static boolean hasNumericNames(JsonValue value) {
+    if (value instanceof JsonArray) {
+      for (JsonValue element : (JsonArray) value) {
+        if (hasNumericNames(element)) {
+          return true;
+        }
+      }
+    } else if (value instanceof JsonObject) {
+      for (Entry<String, JsonValue> entry : ((JsonObject) value).entrySet()) {
+        if (entry.getKey().matches("[0-9]+|-") || hasNumericNames(entry.getValue())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+
+  private static Patch patch(String json) {
+    return new Patch((JsonArray) parse(json));
+  }
+
+
+  private static JsonStructure parse(String json) {
+    return new ReaderFactory().createReader(new StringReader(json)).read();
+  }
+
+
+  private static void randomHistories(boolean assumeArrays) {
+    EnumSet<DiffFeatures> features = EnumSet.of(DiffFeatures.CREATE_MOVES, DiffFeatures.EMIT_TESTS);
+    int tested = 0;
+    while (tested < 250) {
+      JsonObject source = PatchFactoryTest.createObject(0);
+      JsonObject current = source;
+      List<Patch> history = new ArrayList<>();
+      for (int j = 0; j < 12; j++) {
+        JsonObject next = Canonical.cast(current).copy().asJsonObject();
+        PatchFactoryTest.mutateObject(0, next);
+        history.add(PatchFactory.create(current, next, (j % 3 == 0) ? features : EnumSet.noneOf(DiffFeatures.class)));
+        current = next;
+      }
+      if (assumeArrays && hasNumericNames(source)) {
+        continue;
+      }
+      tested++;
+
+      PatchComposer composer = new PatchComposer(assumeArrays);
+      history.forEach(composer::append);
+      Patch squashed = composer.build();
+      assertEquals(current, squashed.apply(source), squashed::toString);
+    }
+  }
+
+
+  @Test
+  public void addThenAdd() {
+    // an add to an array inserts a new element
+    Patch patch = patch("[{\"op\":\"add\",\"path\":\"/a/0\",\"value\":1},{\"op\":\"add\",\"path\":\"/a/0\",\"value\":2}]");
+    assertEquals(patch, PatchComposer.squash(List.of(patch)));
+
+    // the member name "x" shows that "a" is an object
+    patch = patch("[{\"op\":\"add\",\"path\":\"/a/x\",\"value\":0},{\"op\":\"add\",\"path\":\"/a/0\",\"value\":1},"
+        + "{\"op\":\"add\",\"path\":\"/a/0\",\"value\":2}]");
+    assertEquals("[{\"op\":\"add\",\"path\":\"/a/x\",\"value\":0},{\"op\":\"add\",\"path\":\"/a/0\",\"value\":2}]",
+        new PatchComposer(true).append(patch).build().toCanonicalString());
+  }
+
+
+  @Test
+  public void addThenRemove() {
+    // the member may have existed before it was added
+    Patch patch = patch("[{\"op\":\"add\",\"path\":\"/a\",\"value\":1},{\"op\":\"remove\",\"path\":\"/a\"}]");
+    assertEquals(patch, PatchComposer.squash(List.of(patch)));
+
+    // an array element did not
+    patch = patch("[{\"op\":\"add\",\"path\":\"/a/2\",\"value\":1},{\"op\":\"remove\",\"path\":\"/a/2\"}]");
+    assertEquals(patch, PatchComposer.squash(List.of(patch)));
+    assertEquals("[]", new PatchComposer(true).append(patch).build().toCanonicalString());
+  }
+
+
+  @Test
+  public void changesInsideRemoved() {
+    Patch first = patch("[{\"op\":\"add\",\"path\":\"/a/b\",\"value\":1},{\"op\":\"remove\",\"path\":\"/a/c/0\"},{\"op\":\"add\",\"path\":\"/x\",\"value\":2}]");
+    Patch second = patch("[{\"op\":\"remove\",\"path\":\"/a\"}]");
+    assertEquals("[{\"op\":\"add\",\"path\":\"/x\",\"value\":2},{\"op\":\"remove\",\"path\":\"/a\"}]",
+        PatchComposer.compose(first, second).toCanonicalString());
+  }
+
+
+  @Test
+  public void changesInsideValue() {
+    Patch first = patch("[{\"op\":\"add\",\"path\":\"/a\",\"value\":{\"b\":[1]}}]");
+    Patch second = patch("[{\"op\":\"add\",\"path\":\"/a/b/-\",\"value\":2},{\"op\":\"add\",\"path\":\"/a/c\",\"value\":true},"
+        + "{\"op\":\"remove\",\"path\":\"/a/b/0\"}]");
+    Patch composed = PatchComposer.compose(first, second);
+    assertEquals("[{\"op\":\"add\",\"path\":\"/a\",\"value\":{\"b\":[2],\"c\":true}}]", composed.toCanonicalString());
+
+    // the original patch is not changed
+    assertEquals("[{\"op\":\"add\",\"path\":\"/a\",\"value\":{\"b\":[1]}}]", first.toCanonicalString());
+  }
+
+
+  @Test
+  public void disjointPaths() {
+    int count = 4000;
+    List<PatchOperation> first = new ArrayList<>();
+    List<PatchOperation> second = new ArrayList<>();
+    JsonObjectBuilder source = CJObject.builder();
+    JsonObjectBuilder expected = CJObject.builder();
+    for (int i = 0; i < count; i++) {
+      source.add("p" + i, false);
+      first.add(new Add("/k" + i, parse("{\"v\":[0,1]}")));
+      first.add(new Replace("/p" + i, Canonical.create(i)));
+      second.add(new Add("/k" + i + "/v/1", Canonical.create(i)));
+      second.add(new Remove("/p" + i));
+      expected.add("k" + i, parse("{\"v\":[0," + i + ",1]}"));
+    }
+
+    // each operation only visits the operations which share its path, so this is quick
+    Patch composed = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> PatchComposer.compose(new Patch(first), new Patch(second)));
+    assertEquals(2 * count, composed.getOperations().size());
+    assertEquals(expected.build(), composed.apply(source.build()));
+  }
+
+
+  @Test
+  public void moveIsABarrier() {
+    Patch patch = patch("[{\"op\":\"add\",\"path\":\"/a\",\"value\":1},{\"op\":\"move\",\"path\":\"/b\",\"from\":\"/a\"},"
+        + "{\"op\":\"replace\",\"path\":\"/a\",\"value\":2}]");
+    assertEquals(patch, PatchComposer.squash(List.of(patch)));
+  }
+
+
+  @Test
+  public void randomHistories() {
+    randomHistories(false);
+  }
+
+
+  @Test
+  public void randomHistoriesAssumingArrays() {
+    randomHistories(true);
+  }
+
+
+  @Test
+  public void rebaseIndices() {
+    Patch patch = patch("[{\"op\":\"add\",\"path\":\"/x/1\",\"value\":\"a\"},{\"op\":\"add\",\"path\":\"/x/0\",\"value\":\"b\"},"
+        + "{\"op\":\"replace\",\"path\":\"/x/2\",\"value\":\"c\"},{\"op\":\"remove\",\"path\":\"/x/3\"}]");
+
+    // without knowing "x" is an array, nothing can be merged
+    assertEquals(patch, PatchComposer.squash(List.of(patch)));
+
+    Patch composed = new PatchComposer(true).append(patch).build();
+    assertEquals("[{\"op\":\"add\",\"path\":\"/x/1\",\"value\":\"c\"},{\"op\":\"add\",\"path\":\"/x/0\",\"value\":\"b\"},"
+        + "{\"op\":\"remove\",\"path\":\"/x/3\"}]", composed.toCanonicalString());
+    JsonStructure target = parse("{\"x\":[0,1,2,3]}");
+    assertEquals(patch.apply(target), composed.apply(target));
+  }
+
+
+  @Test
+  public void replaceThenRemove() {
+    Patch first = patch("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":1},{\"op\":\"add\",\"path\":\"/b\",\"value\":2}]");
+    Patch second = patch("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":3},{\"op\":\"remove\",\"path\":\"/a\"},{\"op\":\"replace\",\"path\":\"/b\",\"value\":4}]");
+    assertEquals("[{\"op\":\"remove\",\"path\":\"/a\"},{\"op\":\"add\",\"path\":\"/b\",\"value\":4}]", PatchComposer.compose(first, second).toCanonicalString());
+  }
+
+}
@@ -1,12 +1,16 @@
 package com.pippsford.json.patch;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Random;
 import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonPatch;
 import jakarta.json.JsonStructure;
@@ -17,6 +21,8 @@
 import com.pippsford.json.CJArray;
 import com.pippsford.json.CJObject;
 import com.pippsford.json.Canonical;
+import com.pippsford.json.io.ReaderFactory;
+import com.pippsford.json.pointer.PointerFactory;
 import com.pippsford.json.primitive.CJFalse;
 import com.pippsford.json.primitive.CJNull;
 import com.pippsford.json.primitive.CJString;
@@ -55,7 +61,7 @@ private static JsonArray createArray(int depth) {
   }
 
 
-  private static JsonObject createObject(int depth) {
+  static JsonObject createObject(int depth) {
     JsonObject object = new CJObject();
     int size = random.nextInt(16);
     for (int i = 0; i < size; i++) {
@@ -142,7 +148,7 @@ private static void mutateArray(int depth, JsonArray array) {
   }
 
 
-  private static void mutateObject(int depth, JsonObject object) {
+  static void mutateObject(int depth, JsonObject object) {
     int op = random.nextInt(4);
     if (object.isEmpty()) {
       String k = Integer.toString(random.nextInt(512), 36);
@@ -176,6 +182,70 @@ private static void mutateObject(int depth, JsonObject object) {
   }
 
 
+  private static List<String> ops(Patch patch) {
+    List<String> list = new ArrayList<>();
+    for (PatchOperation operation : patch.getOperations()) {
+      list.add(operation.getOp());
+    }
+    return list;
+  }
+
+
+  private static JsonValue parse(String json) {
+    return new ReaderFactory().createReader(new StringReader(json)).readValue();
+  }
+
+
+  private static void relocate(JsonArray array) {
+    if (array.size() > 1) {
+      JsonValue value = array.remove(random.nextInt(array.size()));
+      array.add(random.nextInt(array.size() + 1), value);
+    }
+  }
+
+
+  @Test
+  public void testApplyModes() {
+    for (int i = 0; i < 1000; i++) {
+      JsonObject source = createObject(0);
+      JsonObject target = Canonical.cast(source).copy().asJsonObject();
+      for (int j = 0; j < 10; j++) {
+        mutateObject(0, target);
+      }
+
+      Patch patch = PatchFactory.create(source, target, EnumSet.of(DiffFeatures.CREATE_MOVES, DiffFeatures.CREATE_COPIES, DiffFeatures.EMIT_TESTS));
+      String original = Canonical.cast(source).toCanonicalString();
+      JsonObject applied = patch.apply(source, ApplyMode.PATH_COPY);
+      assertEquals(target, applied);
+      assertEquals(original, Canonical.cast(source).toCanonicalString());
+
+      // a failed test at the end undoes every change
+      JsonObject copy = Canonical.cast(source).copy().asJsonObject();
+      List<PatchOperation> operations = new ArrayList<>(patch.getOperations());
+      operations.addAll(new PatchBuilder().test("", JsonValue.EMPTY_JSON_ARRAY).build().getOperations());
+      Patch failing = new Patch(operations);
+      assertThrows(JsonException.class, () -> failing.apply(copy, ApplyMode.IN_PLACE_ATOMIC));
+      assertEquals(original, Canonical.cast(copy).toCanonicalString());
+
+      applied = patch.apply(copy, ApplyMode.IN_PLACE_ATOMIC);
+      assertEquals(target, applied);
+
+      applied = patch.apply(source, ApplyMode.IN_PLACE);
+      assertEquals(target, applied);
+    }
+  }
+
+
+  @Test
+  public void testCopy() {
+    JsonValue source = parse("{\"a\":{\"x\":[1,2,3]},\"c\":[]}");
+    JsonValue target = parse("{\"a\":{\"x\":[1,2,3]},\"b\":{\"x\":[1,2,3]},\"c\":[[1,2,3]]}");
+    Patch patch = PatchFactory.create(source, target, EnumSet.of(DiffFeatures.CREATE_COPIES));
+    assertEquals(List.of("copy", "copy"), ops(patch));
+    assertEquals(target, patch.apply(source.asJsonObject()));
+  }
+
+
   @Test
   public void testDefaultsOnArrays() {
     for (int i = 0; i < 1000; i++) {
@@ -210,6 +280,131 @@ public void testDefaultsOnObjects() {
   }
 
 
+  @Test
+  public void testKeyedArray() {
+    JsonValue source = parse("{\"people\":[{\"id\":1,\"name\":\"Ann\"},{\"id\":2,\"name\":\"Bob\"},{\"id\":3,\"name\":\"Cat\"}]}");
+    JsonValue target = parse("{\"people\":[{\"id\":3,\"name\":\"Cat\"},{\"id\":4,\"name\":\"Dan\"},{\"id\":1,\"name\":\"Anne\"}]}");
+    Patch patch = PatchFactory.create(source, target, EnumSet.noneOf(DiffFeatures.class), PointerFactory.create("/id"));
+    assertEquals(
+        "[{\"op\":\"remove\",\"path\":\"/people/1\"},"
+            + "{\"from\":\"/people/1\",\"op\":\"move\",\"path\":\"/people/0\"},"
+            + "{\"op\":\"add\",\"path\":\"/people/1\",\"value\":{\"id\":4,\"name\":\"Dan\"}},"
+            + "{\"op\":\"replace\",\"path\":\"/people/2/name\",\"value\":\"Anne\"}]",
+        patch.toCanonicalString()
+    );
+    assertEquals(target, patch.apply(source.asJsonObject()));
+
+    // duplicate keys fall back to positional comparison
+    source = parse("[{\"id\":1,\"v\":1},{\"id\":1,\"v\":2}]");
+    target = parse("[{\"id\":1,\"v\":2}]");
+    patch = PatchFactory.create(source, target, EnumSet.noneOf(DiffFeatures.class), PointerFactory.create("/id"));
+    assertEquals(List.of("remove"), ops(patch));
+    assertEquals(target, patch.apply(source.asJsonArray()));
+  }
+
+
+  @Test
+  public void testKeyedArrays() {
+    for (int i = 0; i < 1000; i++) {
+      JsonArray source = new CJArray();
+      int size = random.nextInt(20);
+      for (int j = 0; j < size; j++) {
+        JsonObject record = createObject(MAX_DEPTH - 1);
+        record.put("id", CJNumber.create(j));
+        source.add(record);
+      }
+      JsonArray target = Canonical.cast(source).copy().asJsonArray();
+      for (int j = 0; j < 10; j++) {
+        if (target.isEmpty()) {
+          break;
+        }
+        JsonObject record = target.getJsonObject(random.nextInt(target.size()));
+        mutateObject(MAX_DEPTH - 1, record);
+        record.put("id", CJNumber.create(random.nextInt(40)));
+        relocate(target);
+      }
+
+      JsonPatch patch = PatchFactory.create(source, target, EnumSet.of(DiffFeatures.EMIT_TESTS), PointerFactory.create("/id"));
+      JsonArray applied = patch.apply(source);
+      assertEquals(target, applied);
+    }
+  }
+
+
+  @Test
+  public void testMovesAndCopies() {
+    for (int i = 0; i < 1000; i++) {
+      JsonArray source = createArray(0);
+      JsonArray target = Canonical.cast(source).copy().asJsonArray();
+      for (int j = 0; j < 10; j++) {
+        mutateArray(0, target);
+        relocate(target);
+      }
+      if (!target.isEmpty()) {
+        target.add(target.get(0));
+      }
+
+      JsonPatch patch = PatchFactory.create(source, target, EnumSet.of(DiffFeatures.CREATE_MOVES, DiffFeatures.CREATE_COPIES, DiffFeatures.EMIT_TESTS));
+
+      JsonArray applied = patch.apply(source);
+      assertEquals(target, applied);
+    }
+  }
+
+
+  @Test
+  public void testMovesInArray() {
+    JsonValue source = parse("[{\"a\":1},{\"b\":2},3,4,{\"c\":[5]},6]");
+    JsonValue target = parse("[{\"c\":[5]},{\"a\":1},3,4,6,{\"b\":2}]");
+    Patch patch = PatchFactory.create(source, target, EnumSet.of(DiffFeatures.CREATE_MOVES));
+    List<String> ops = ops(patch);
+    assertTrue(ops.stream().allMatch("move"::equals), ops.toString());
+    assertEquals(target, patch.apply(source.asJsonArray()));
+
+    // reversing an array
+    source = parse("[1,2,3,4,5,6,7,8]");
+    target = parse("[8,7,6,5,4,3,2,1]");
+    patch = PatchFactory.create(source, target, EnumSet.of(DiffFeatures.CREATE_MOVES));
+    ops = ops(patch);
+    assertTrue(ops.stream().allMatch("move"::equals), ops.toString());
+    assertEquals(target, patch.apply(source.asJsonArray()));
+  }
+
+
+  @Test
+  public void testParallel() {
+    for (int i = 0; i < 20; i++) {
+      JsonObject source = new CJObject();
+      for (int j = 0; j < 200; j++) {
+        source.put("s" + j, createObject(MAX_DEPTH - 2));
+      }
+      JsonObject target = Canonical.cast(source).copy().asJsonObject();
+      for (int j = 0; j < 100; j++) {
+        mutateObject(0, target);
+      }
+
+      for (EnumSet<DiffFeatures> features : List.of(EnumSet.noneOf(DiffFeatures.class), EnumSet.of(DiffFeatures.CREATE_MOVES, DiffFeatures.EMIT_TESTS))) {
+        Patch sequential = PatchFactory.create(source, target, features);
+        features.add(DiffFeatures.PARALLEL);
+        Patch parallel = PatchFactory.create(source, target, features);
+        assertEquals(sequential.toCanonicalString(), parallel.toCanonicalString());
+        assertEquals(target, parallel.apply(source));
+      }
+    }
+  }
+
+
+  @Test
+  public void testRename() {
+    JsonValue source = parse("{\"a\":{\"x\":[1,2,3]},\"b\":1}");
+    JsonValue target = parse("{\"b\":1,\"c\":{\"x\":[1,2,3]}}");
+    Patch patch = PatchFactory.create(source, target, EnumSet.of(DiffFeatures.CREATE_MOVES));
+    assertEquals(List.of("move"), ops(patch));
+    assertEquals(target, patch.apply(source.asJsonObject()));
+  }
+
+
+
   @Test
   public void testWithTestsAndDigests() {
     for (int i = 0; i < 1000; i++) {
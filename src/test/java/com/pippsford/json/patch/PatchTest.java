@@ -2,7 +2,9 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -10,14 +12,17 @@
 import com.pippsford.json.CJArray;
 import com.pippsford.json.CJObject;
 import com.pippsford.json.builder.JsonBuilder;
+import com.pippsford.json.io.ReaderFactory;
 import com.pippsford.json.jackson.JsonModule;
 import com.pippsford.json.jackson3.CanonicalJsonModule;
 import com.pippsford.json.patch.ops.Test.Type;
 import com.pippsford.json.pointer.JsonExtendedPointer.ResultOfAdd;
 import com.pippsford.json.primitive.CJString;
+import jakarta.json.JsonArray;
 import jakarta.json.JsonException;
 import jakarta.json.JsonValue;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Base64;
 import java.util.HexFormat;
 import org.junit.jupiter.api.BeforeEach;
@@ -47,6 +52,86 @@ public void createPatch() {
   }
 
 
+  @Test
+  public void applyInPlace() {
+    CJObject target = CJObject.builder().add("a", CJObject.builder().add("b", 1)).add("c", 2).build();
+    PatchBuilder builder = new PatchBuilder();
+    builder.replace("/a/b", 3);
+    CJObject result = builder.build().apply(target, ApplyMode.IN_PLACE);
+    assertSame(target, result);
+    assertEquals(3, target.getJsonObject("a").getInt("b"));
+  }
+
+
+  @Test
+  public void applyInPlaceAtomic() {
+    CJObject target = CJObject.builder()
+        .add("a", CJObject.builder().add("b", 1))
+        .add("c", CJArray.builder().add(1).add(2).add(3))
+        .build();
+    PatchBuilder builder = new PatchBuilder();
+    builder.add("/c/-", 4);
+    builder.move("/a/x", "/c/0");
+    builder.remove("/a/b");
+    builder.replace("/c/0", 9);
+    builder.add("", CJObject.builder().add("z", true).build());
+    builder.digest("/z", "SHA-256", CJString.create("not the value"));
+    Patch failing = builder.build();
+    assertThrows(JsonException.class, () -> failing.apply(target, ApplyMode.IN_PLACE_ATOMIC));
+    assertEquals("{\"a\":{\"b\":1},\"c\":[1,2,3]}", target.toCanonicalString());
+
+    builder = new PatchBuilder();
+    builder.add("/c/-", 4);
+    builder.move("/a/x", "/c/0");
+    builder.remove("/a/b");
+    builder.replace("/c/0", 9);
+    builder.test("/a/x", 1);
+    CJObject result = builder.build().apply(target, ApplyMode.IN_PLACE_ATOMIC);
+    assertSame(target, result);
+    assertEquals("{\"a\":{\"x\":1},\"c\":[9,3,4]}", target.toCanonicalString());
+  }
+
+
+  @Test
+  public void applyPathCopy() {
+    CJObject target = CJObject.builder()
+        .add("a", CJObject.builder().add("b", CJArray.builder().add(1).add(2)))
+        .add("c", CJObject.builder().add("d", 2))
+        .build();
+    PatchBuilder builder = new PatchBuilder();
+    builder.add("/a/b/0", 0);
+    builder.copy("/e", "/a");
+    builder.add("/a/x", true);
+    builder.test("/e/b/0", 0);
+    CJObject result = builder.build().apply(target, ApplyMode.PATH_COPY);
+
+    assertEquals("{\"a\":{\"b\":[0,1,2],\"x\":true},\"c\":{\"d\":2},\"e\":{\"b\":[0,1,2]}}", result.toCanonicalString());
+    assertEquals("{\"a\":{\"b\":[1,2]},\"c\":{\"d\":2}}", target.toCanonicalString());
+
+    // untouched values are shared
+    assertSame(target.get("c"), result.get("c"));
+    assertNotSame(target.get("a"), result.get("a"));
+  }
+
+
+  @Test
+  public void applyPathCopyMove() {
+    // The move's remove shifts the array, so the location the value is added to is only known after the remove.
+    Patch shifting = new Patch((JsonArray) new ReaderFactory().createReader(new StringReader(
+        "[{\"op\":\"add\",\"path\":\"/0\",\"value\":{}},{\"op\":\"replace\",\"path\":\"/1\",\"value\":{\"b\":54,\"c\":{}}},"
+            + "{\"op\":\"copy\",\"from\":\"/1/c\",\"path\":\"/2\"},{\"op\":\"move\",\"from\":\"/0\",\"path\":\"/1/e\"},"
+            + "{\"op\":\"remove\",\"path\":\"/1/e\"}]"
+    )).read());
+    String before = shifting.toJsonArray().toString();
+    CJArray target = CJArray.builder().add(CJArray.builder()).build();
+    CJArray result = shifting.apply(target, ApplyMode.PATH_COPY);
+
+    assertEquals("[{\"b\":54,\"c\":{}},{}]", result.toCanonicalString());
+    assertEquals("[[]]", target.toCanonicalString());
+    assertEquals(before, shifting.toJsonArray().toString());
+  }
+
+
   @Test
   public void getOperations() throws IOException {
     ObjectMapper mapper = new ObjectMapper();
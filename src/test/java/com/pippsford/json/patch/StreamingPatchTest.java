@@ -0,0 +1,172 @@
+package com.pippsford.json.patch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.EnumSet;
+import java.util.Map;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonStructure;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.exception.IncorrectValueException;
+import com.pippsford.json.exception.InvalidPatchException;
+import com.pippsford.json.exception.PointerIndexException;
+import com.pippsford.json.io.Generator;
+import com.pippsford.json.io.GeneratorFactory;
+import com.pippsford.json.io.ReaderFactory;
+import com.pippsford.json.parser.CJParser;
+import com.pippsford.json.parser.ParserFactory;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class StreamingPatchTest {
+
+  private static final GeneratorFactory GENERATORS = new GeneratorFactory(Map.of(GeneratorFactory.TRUST_KEY_ORDER, Boolean.TRUE));
+
+
+  private static String apply(String patch, String document) {
+    return apply(new StreamingPatch(new Patch((JsonArray) parse(patch))), document);
+  }
+
+
+  private static String apply(StreamingPatch patch, String document) {
+    StringWriter writer = new StringWriter();
+    try (
+        CJParser parser = new ParserFactory(null).createParser(new StringReader(document));
+        Generator<?> generator = GENERATORS.createGenerator(writer)
+    ) {
+      patch.apply(parser, generator);
+    }
+    return writer.toString();
+  }
+
+
+  private static JsonStructure parse(String json) {
+    return new ReaderFactory().createReader(new StringReader(json)).read();
+  }
+
+
+  @Test
+  public void arrays() {
+    assertEquals(
+        "[\"a\",1,3,[4,5],\"z\"]",
+        apply("[{\"op\":\"add\",\"path\":\"/0\",\"value\":\"a\"},"
+                + "{\"op\":\"remove\",\"path\":\"/2\"},"
+                + "{\"op\":\"add\",\"path\":\"/3/1\",\"value\":5},"
+                + "{\"op\":\"add\",\"path\":\"/-\",\"value\":\"z\"}]",
+            "[1,2,3,[4]]"
+        )
+    );
+  }
+
+
+  @Test
+  public void appliedTwice() {
+    String[] patches = {
+        "[{\"op\":\"add\",\"path\":\"\",\"value\":[]},{\"op\":\"add\",\"path\":\"/-\",\"value\":1}]",
+        "[{\"op\":\"test\",\"path\":\"/a\",\"value\":{}},{\"op\":\"add\",\"path\":\"/a/b\",\"value\":[]},"
+            + "{\"op\":\"add\",\"path\":\"/a/b/-\",\"value\":1}]",
+        "[{\"op\":\"add\",\"path\":\"/a/b\",\"value\":[]},{\"op\":\"add\",\"path\":\"/a/b/-\",\"value\":1}]"
+    };
+    String[] documents = {"[0]", "{\"a\":{}}", "{\"a\":{}}"};
+    String[] expected = {"[1]", "{\"a\":{\"b\":[1]}}", "{\"a\":{\"b\":[1]}}"};
+    for (int i = 0; i < patches.length; i++) {
+      Patch patch = new Patch((JsonArray) parse(patches[i]));
+      String before = patch.toJsonArray().toString();
+      StreamingPatch streaming = new StreamingPatch(patch);
+      assertEquals(expected[i], apply(streaming, documents[i]), patches[i]);
+      assertEquals(expected[i], apply(streaming, documents[i]), patches[i]);
+      assertEquals(before, patch.toJsonArray().toString(), patches[i]);
+    }
+  }
+
+
+  @Test
+  public void changesInsideAddedValue() {
+    assertEquals(
+        "{\"a\":{\"b\":2,\"c\":3},\"d\":4}",
+        apply("[{\"op\":\"add\",\"path\":\"/a\",\"value\":{\"b\":1}},"
+                + "{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":2},"
+                + "{\"op\":\"add\",\"path\":\"/a/c\",\"value\":3}]",
+            "{\"d\":4}"
+        )
+    );
+  }
+
+
+  @Test
+  public void failedTest() {
+    assertThrows(IncorrectValueException.class, () -> apply("[{\"op\":\"test\",\"path\":\"/a/b\",\"value\":2}]", "{\"a\":{\"b\":1}}"));
+  }
+
+
+  @Test
+  public void indexOutOfRange() {
+    assertThrows(PointerIndexException.class, () -> apply("[{\"op\":\"replace\",\"path\":\"/5\",\"value\":0}]", "[1,2]"));
+  }
+
+
+  @Test
+  public void moveAndCopy() {
+    assertEquals(
+        "{\"a\":{\"x\":1,\"z\":1},\"b\":[1],\"c\":3}",
+        apply("[{\"op\":\"copy\",\"from\":\"/a/x\",\"path\":\"/a/z\"},"
+                + "{\"op\":\"move\",\"from\":\"/b/0\",\"path\":\"/b/1\"},"
+                + "{\"op\":\"remove\",\"path\":\"/b/0\"}]",
+            "{\"a\":{\"x\":1},\"b\":[1,2],\"c\":3}"
+        )
+    );
+  }
+
+
+  @Test
+  public void notInOrder() {
+    assertThrows(InvalidPatchException.class, () -> apply("[{\"op\":\"remove\",\"path\":\"/b\"},{\"op\":\"remove\",\"path\":\"/a\"}]", "{\"a\":1,\"b\":2}"));
+    assertThrows(InvalidPatchException.class, () -> apply("[{\"op\":\"remove\",\"path\":\"/1\"},{\"op\":\"remove\",\"path\":\"/0\"}]", "[1,2,3]"));
+  }
+
+
+  @Test
+  public void randomPatches() {
+    // Differences are not always in document order, but those which are must match the in-memory result.
+    int streamed = 0;
+    for (int i = 0; i < 500; i++) {
+      JsonObject source = PatchFactoryTest.createObject(0);
+      JsonObject target = Canonical.cast(source).copy().asJsonObject();
+      PatchFactoryTest.mutateObject(0, target);
+      Patch patch = PatchFactory.create(source, target, EnumSet.of(DiffFeatures.EMIT_TESTS));
+      String output;
+      try {
+        output = apply(new StreamingPatch(patch), source.toString());
+      } catch (InvalidPatchException e) {
+        continue;
+      }
+      assertEquals(target, parse(output), patch::toString);
+      streamed++;
+    }
+    int count = streamed;
+    assertTrue(count > 100, () -> "Only streamed " + count);
+  }
+
+
+  @Test
+  public void rootOperations() {
+    assertEquals("{\"a\":2}", apply("[{\"op\":\"test\",\"path\":\"\",\"value\":{\"a\":1}},{\"op\":\"replace\",\"path\":\"/a\",\"value\":2}]", "{\"a\":1}"));
+  }
+
+
+  @Test
+  public void unsortedInput() {
+    assertThrows(JsonException.class, () -> apply("[{\"op\":\"add\",\"path\":\"/c\",\"value\":0}]", "{\"b\":1,\"a\":2}"));
+  }
+
+}
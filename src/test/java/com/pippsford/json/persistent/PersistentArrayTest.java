@@ -0,0 +1,129 @@
+package com.pippsford.json.persistent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import jakarta.json.JsonArray;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJArray;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class PersistentArrayTest {
+
+  @Test
+  public void empty() {
+    assertTrue(PersistentArray.EMPTY.isEmpty());
+    assertEquals("[]", PersistentArray.EMPTY.toCanonicalString());
+    assertThrows(IndexOutOfBoundsException.class, () -> PersistentArray.EMPTY.get(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> PersistentArray.EMPTY.without(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> PersistentArray.EMPTY.withAdded(1, "x"));
+  }
+
+
+  @Test
+  public void immutable() {
+    PersistentArray array = PersistentArray.of(List.of(1, 2, 3));
+    assertThrows(UnsupportedOperationException.class, () -> array.add(4));
+    assertThrows(UnsupportedOperationException.class, () -> array.remove(0));
+    assertThrows(UnsupportedOperationException.class, () -> array.set(0, "x"));
+    assertThrows(UnsupportedOperationException.class, () -> array.subList(0, 1).clear());
+    assertSame(array, array.unmodifiable());
+  }
+
+
+  @Test
+  public void mutableCopy() {
+    PersistentArray array = PersistentArray.of(List.of(List.of(1), Map.of("a", 2)));
+    CJArray copy = array.copy();
+    assertEquals(array, copy);
+    copy.getJsonArray(0).add(3);
+    copy.getJsonObject(1).put("b", 4);
+    copy.add(5);
+    assertEquals("[[1,3],{\"a\":2,\"b\":4},5]", copy.toCanonicalString());
+    assertEquals("[[1],{\"a\":2}]", array.toCanonicalString());
+    assertInstanceOf(PersistentArray.class, array.get(0));
+  }
+
+
+  @Test
+  public void nestedValuesArePersistent() {
+    CJArray inner = new CJArray(List.of(1));
+    PersistentArray array = PersistentArray.EMPTY.withAdded(inner).withAdded(Map.of("a", List.of(2)));
+    inner.add(2);
+    assertInstanceOf(PersistentArray.class, array.get(0));
+    assertInstanceOf(PersistentObject.class, array.get(1));
+    assertInstanceOf(PersistentArray.class, array.getJsonObject(1).get("a"));
+    assertEquals("[[1],{\"a\":[2]}]", array.toCanonicalString());
+  }
+
+
+  @Test
+  public void randomVersions() {
+    // Every version must still hold what it held when it was created, however many versions follow it
+    Random random = new Random(0x5eed);
+    List<PersistentArray> versions = new ArrayList<>();
+    List<List<Integer>> expected = new ArrayList<>();
+    PersistentArray array = PersistentArray.EMPTY;
+    List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      int value = random.nextInt(1000);
+      int action = list.isEmpty() ? 0 : random.nextInt(4);
+      if (action == 0) {
+        int index = random.nextInt(list.size() + 1);
+        array = array.withAdded(index, value);
+        list.add(index, value);
+      } else if (action == 1) {
+        int index = random.nextInt(list.size());
+        array = array.without(index);
+        list.remove(index);
+      } else if (action == 2) {
+        int index = random.nextInt(list.size());
+        array = array.with(index, value);
+        list.set(index, value);
+      } else {
+        array = array.withAdded(value);
+        list.add(value);
+      }
+      versions.add(array);
+      expected.add(new ArrayList<>(list));
+    }
+
+    for (int i = 0; i < versions.size(); i++) {
+      PersistentArray version = versions.get(i);
+      CJArray regular = new CJArray(expected.get(i));
+      assertEquals(regular, version);
+      assertEquals(version, regular);
+      assertEquals(regular.hashCode(), version.hashCode());
+      assertEquals(regular.toCanonicalString(), version.toCanonicalString());
+      for (int j = 0; j < regular.size(); j++) {
+        assertEquals(regular.get(j), version.get(j));
+      }
+    }
+  }
+
+
+  @Test
+  public void sharedVersions() {
+    PersistentArray original = PersistentArray.of(List.of(1, 2, 3));
+    PersistentArray changed = original.with(0, "a").without(1).withAdded(1, true).withAdded(null);
+    assertEquals("[1,2,3]", original.toCanonicalString());
+    assertEquals("[\"a\",true,3,null]", changed.toCanonicalString());
+    assertSame(original, original.with(1, 2));
+
+    JsonArray json = changed;
+    assertEquals("a", json.getString(0));
+    assertTrue(json.isNull(3));
+  }
+
+}
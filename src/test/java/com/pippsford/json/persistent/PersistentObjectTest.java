@@ -0,0 +1,178 @@
+package com.pippsford.json.persistent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.CJObject;
+import com.pippsford.json.Canonical;
+import com.pippsford.json.patch.ApplyMode;
+import com.pippsford.json.patch.Patch;
+import com.pippsford.json.patch.PatchBuilder;
+import com.pippsford.json.primitive.CodePointOrder;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class PersistentObjectTest {
+
+  @Test
+  public void empty() {
+    assertTrue(PersistentObject.EMPTY.isEmpty());
+    assertEquals("{}", PersistentObject.EMPTY.toCanonicalString());
+    assertThrows(NoSuchElementException.class, PersistentObject.EMPTY::firstKey);
+    assertNull(PersistentObject.EMPTY.canonicalFirstEntry());
+  }
+
+
+  @Test
+  public void immutable() {
+    PersistentObject object = PersistentObject.of(Map.of("a", 1));
+    assertThrows(UnsupportedOperationException.class, () -> object.put("b", 2));
+    assertThrows(UnsupportedOperationException.class, () -> object.remove("a"));
+    assertThrows(UnsupportedOperationException.class, object::pollFirstEntry);
+    assertThrows(UnsupportedOperationException.class, () -> object.keySet().clear());
+    assertSame(object, object.unmodifiable());
+  }
+
+
+  @Test
+  public void mutableCopy() {
+    PersistentObject object = PersistentObject.of(Map.of("a", Map.of("b", List.of(1, 2)), "c", 3));
+    CJObject copy = object.copy();
+    assertEquals(object, copy);
+    copy.getJsonObject("a").getJsonArray("b").add(3);
+    copy.put("d", 4);
+    assertEquals("{\"a\":{\"b\":[1,2,3]},\"c\":3,\"d\":4}", copy.toCanonicalString());
+    assertEquals("{\"a\":{\"b\":[1,2]},\"c\":3}", object.toCanonicalString());
+    assertInstanceOf(PersistentObject.class, object.get("a"));
+    assertThrows(UnsupportedOperationException.class, () -> object.put("e", 5));
+  }
+
+
+  @Test
+  public void navigation() {
+    PersistentObject object = PersistentObject.of(Map.of("b", 1, "d", 2, "f", 3));
+    assertEquals("b", object.ceilingKey("a"));
+    assertEquals("d", object.ceilingKey("d"));
+    assertEquals("d", object.floorKey("e"));
+    assertEquals("f", object.higherKey("d"));
+    assertEquals("b", object.lowerKey("d"));
+    assertNull(object.lowerKey("b"));
+    assertNull(object.higherKey("f"));
+    assertEquals("b", object.firstKey());
+    assertEquals("f", object.lastKey());
+    assertEquals("{\"d\":2}", object.subMap("c", "e").toString());
+    assertEquals(List.of("f", "d", "b"), new ArrayList<>(object.descendingKeySet()));
+  }
+
+
+  @Test
+  public void nestedValuesArePersistent() {
+    CJObject inner = new CJObject();
+    inner.put("x", 1);
+    PersistentObject object = PersistentObject.EMPTY.with("a", inner).with("b", List.of(1, Map.of("y", 2)));
+    inner.put("x", 2);
+    assertInstanceOf(PersistentObject.class, object.get("a"));
+    assertInstanceOf(PersistentArray.class, object.get("b"));
+    assertInstanceOf(PersistentObject.class, object.getJsonArray("b").get(1));
+    assertEquals("{\"a\":{\"x\":1},\"b\":[1,{\"y\":2}]}", object.toCanonicalString());
+  }
+
+
+  @Test
+  public void patch() {
+    PersistentObject object = PersistentObject.EMPTY.with("a", 1).with("b", Map.of("c", List.of()));
+    Patch patch = new PatchBuilder().add("/c", true).add("/b/c/-", 2).build();
+    for (ApplyMode mode : new ApplyMode[]{ApplyMode.COPY, ApplyMode.PATH_COPY}) {
+      JsonObject result = patch.apply((JsonObject) object, mode);
+      assertEquals("{\"a\":1,\"b\":{\"c\":[2]},\"c\":true}", Canonical.cast(result).toCanonicalString(), mode.name());
+    }
+    assertEquals("{\"a\":1,\"b\":{\"c\":[]}}", object.toCanonicalString());
+  }
+
+
+  @Test
+  public void randomVersions() {
+    // Every version must still hold what it held when it was created, however many versions follow it
+    Random random = new Random(0x5eed);
+    List<PersistentObject> versions = new ArrayList<>();
+    List<TreeMap<String, Integer>> expected = new ArrayList<>();
+    PersistentObject object = PersistentObject.EMPTY;
+    TreeMap<String, Integer> map = new TreeMap<>(CodePointOrder.INSTANCE);
+    for (int i = 0; i < 2000; i++) {
+      String key = Integer.toString(random.nextInt(300), 36);
+      if (random.nextInt(3) == 0) {
+        object = object.without(key);
+        map.remove(key);
+      } else {
+        int value = random.nextInt(10);
+        object = object.with(key, value);
+        map.put(key, value);
+      }
+      versions.add(object);
+      expected.add(new TreeMap<>(map));
+    }
+
+    for (int i = 0; i < versions.size(); i++) {
+      PersistentObject version = versions.get(i);
+      CJObject regular = new CJObject(expected.get(i));
+      assertEquals(regular, version);
+      assertEquals(version, regular);
+      assertEquals(regular.hashCode(), version.hashCode());
+      assertEquals(regular.toCanonicalString(), version.toCanonicalString());
+    }
+  }
+
+
+  @Test
+  public void serialization() throws IOException, ClassNotFoundException {
+    PersistentObject object = PersistentObject.of(Map.of("a", 1, "b", List.of(true, "x")));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    Object copy;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = in.readObject();
+    }
+    assertInstanceOf(PersistentObject.class, copy);
+    assertEquals(object, copy);
+    assertEquals("{\"a\":1,\"b\":[true,\"x\"],\"c\":null}", ((PersistentObject) copy).with("c", null).toCanonicalString());
+  }
+
+
+  @Test
+  public void sharedVersions() {
+    PersistentObject original = PersistentObject.of(Map.of("a", 1, "b", 2));
+    PersistentObject changed = original.with("a", 3).without("b").with("c", JsonValue.TRUE);
+    assertEquals("{\"a\":1,\"b\":2}", original.toCanonicalString());
+    assertEquals("{\"a\":3,\"c\":true}", changed.toCanonicalString());
+    assertSame(original, original.with("a", 1));
+    assertSame(original, original.without("z"));
+
+    JsonObject json = changed;
+    assertEquals(3, json.getInt("a"));
+    assertTrue(json.getBoolean("c"));
+  }
+
+}
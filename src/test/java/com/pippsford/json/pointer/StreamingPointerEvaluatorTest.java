@@ -0,0 +1,153 @@
+package com.pippsford.json.pointer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import jakarta.json.JsonConfig.KeyStrategy;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser.Event;
+import jakarta.json.stream.JsonParsingException;
+
+import org.junit.jupiter.api.Test;
+
+import com.pippsford.json.Canonical;
+import com.pippsford.json.parser.CJParser;
+import com.pippsford.json.parser.Parser;
+import com.pippsford.json.parser.ParserFactory;
+import com.pippsford.json.parser.Tape;
+
+/**
+ * @author Simon Greatrix on 19/10/2026.
+ */
+public class StreamingPointerEvaluatorTest {
+
+  private static final String DOCUMENT = "{\"header\":{\"id\":7,\"type\":\"order\"},\"body\":{\"items\":[{\"sku\":\"a\",\"qty\":1},{\"sku\":\"b\",\"qty\":2}],"
+      + "\"0\":\"zero\",\"-\":\"dash\"},\"tail\":[true,null]}";
+
+  private static final String[] POINTERS = {
+      "", "/header", "/header/type", "/body/items/1/sku", "/body/items/0", "/body/items/0/qty", "/body/0", "/body/-", "/body/items/-", "/tail/1",
+      "/tail/5", "/missing", "/header/type/x", "/body/items/sku"
+  };
+
+
+  private CJParser parser(String text) {
+    return new ParserFactory(null).createParser(new StringReader(text));
+  }
+
+
+  @Test
+  public void defaultReadsWholeObjects() {
+    // With the default key strategy, the root object is read to its end, but the next root value is left unread
+    CJParser parser = new ParserFactory(Map.of(ParserFactory.REQUIRE_SINGLE_ROOT, false))
+        .createParser(new StringReader("{\"header\":{\"type\":\"order\"},\"body\":[1,2]} [3,4,}"));
+    StreamingPointerEvaluator evaluator = new StreamingPointerEvaluator("/header/type");
+    assertTrue(evaluator.evaluate(parser, (p, v) -> assertEquals("\"order\"", v.toString())));
+    assertTrue(parser.hasNext());
+    assertEquals(Event.START_ARRAY, parser.next());
+
+    // so invalid content later in the same object is still found
+    CJParser invalid = parser("{\"header\":{\"type\":\"order\"},\"body\":[1,2,}");
+    assertThrows(JsonParsingException.class, () -> evaluator.evaluate(invalid));
+  }
+
+
+  @Test
+  public void duplicateKeys() {
+    String json = "{\"a\":{\"b\":1,\"c\":2},\"d\":[0],\"a\":{\"b\":3},\"d\":[4,5]}";
+    List<String> paths = List.of("/a/b", "/a/c", "/d/1");
+
+    // the default matches the parser, which keeps the last occurrence
+    JsonStructure full = (JsonStructure) new Parser(new StringReader(json)).getValueStream().findFirst().orElseThrow();
+    Map<JsonExtendedPointer, Canonical> found = new StreamingPointerEvaluator(paths.toArray(new String[0])).evaluate(parser(json));
+    assertEquals(2, found.size());
+    for (String path : paths) {
+      JsonExtendedPointer pointer = PointerFactory.create(path);
+      assertEquals(pointer.optValue(full), found.get(pointer), path);
+    }
+
+    List<JsonExtendedPointer> pointers = List.of(PointerFactory.create("/a/b"), PointerFactory.create("/a/c"));
+    StreamingPointerEvaluator evaluator = new StreamingPointerEvaluator(pointers);
+    found = evaluator.evaluate(new Parser(new StringReader(json), KeyStrategy.FIRST));
+    assertEquals(Canonical.create(1), found.get(pointers.get(0)));
+    assertEquals(Canonical.create(2), found.get(pointers.get(1)));
+
+    assertThrows(JsonParsingException.class, () -> evaluator.evaluate(new Parser(new StringReader(json), KeyStrategy.NONE)));
+  }
+
+
+  @Test
+  public void matchesGetValue() {
+    JsonStructure full = (JsonStructure) new Parser(new StringReader(DOCUMENT)).getValueStream().findFirst().orElseThrow();
+    for (String path : POINTERS) {
+      JsonExtendedPointer pointer = PointerFactory.create(path);
+      Map<JsonExtendedPointer, Canonical> found = new StreamingPointerEvaluator(path).evaluate(parser(DOCUMENT));
+      JsonValue expected = pointer.optValue(full);
+      assertEquals(expected, found.get(pointer), path);
+      assertEquals(expected == null ? 0 : 1, found.size(), path);
+    }
+
+    // all together
+    StreamingPointerEvaluator evaluator = new StreamingPointerEvaluator(POINTERS);
+    Map<JsonExtendedPointer, Canonical> found = evaluator.evaluate(parser(DOCUMENT));
+    for (String path : POINTERS) {
+      JsonExtendedPointer pointer = PointerFactory.create(path);
+      assertEquals(pointer.optValue(full), found.get(pointer), path);
+    }
+
+    // same again from a tape
+    assertEquals(found, evaluator.evaluate(Tape.parse(DOCUMENT.getBytes(UTF_8)).createParser()));
+  }
+
+
+  @Test
+  public void order() {
+    List<String> seen = new ArrayList<>();
+    StreamingPointerEvaluator evaluator = new StreamingPointerEvaluator("/tail/0", "/body/items/1/qty", "/header/id");
+    assertTrue(evaluator.evaluate(parser(DOCUMENT), (p, v) -> seen.add(p.getPath() + "=" + v)));
+    assertEquals(List.of("/header/id=7", "/body/items/1/qty=2", "/tail/0=true"), seen);
+  }
+
+
+  @Test
+  public void stopsEarly() {
+    // Everything after the header is invalid, but it is never read
+    CJParser parser = new Parser(new StringReader("{\"header\":{\"type\":\"order\",\"id\":1},\"body\":[1,2,}"), KeyStrategy.FIRST);
+    StreamingPointerEvaluator evaluator = new StreamingPointerEvaluator("/header/type");
+    assertTrue(evaluator.evaluate(parser, (p, v) -> assertEquals("\"order\"", v.toString())));
+    assertEquals(Event.VALUE_STRING, ((Parser) parser).getLastEvent());
+
+    // a later duplicate key could replace any member, so objects are read to their end, but arrays are not
+    parser = parser("[{\"type\":\"order\",\"id\":1},[1,2,}");
+    evaluator = new StreamingPointerEvaluator("/0/type");
+    assertTrue(evaluator.evaluate(parser, (p, v) -> assertEquals("\"order\"", v.toString())));
+    assertEquals(Event.END_OBJECT, ((Parser) parser).getLastEvent());
+  }
+
+
+  @Test
+  public void unresolved() {
+    CJParser parser = new ParserFactory(Map.of(ParserFactory.REQUIRE_SINGLE_ROOT, false)).createParser(new StringReader("{\"a\":{\"b\":1}} [2]"));
+    StreamingPointerEvaluator evaluator = new StreamingPointerEvaluator("/a/c", "/0");
+    assertFalse(evaluator.evaluate(parser, (p, v) -> {
+      throw new AssertionError();
+    }));
+
+    // parser is positioned at the next root value
+    Map<JsonExtendedPointer, Canonical> found = evaluator.evaluate(parser);
+    Entry<JsonExtendedPointer, Canonical> entry = found.entrySet().iterator().next();
+    assertEquals("/0", entry.getKey().getPath());
+    assertEquals(Canonical.create(2), entry.getValue());
+    assertFalse(parser.hasNext());
+  }
+
+}
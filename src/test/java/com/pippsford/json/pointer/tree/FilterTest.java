@@ -2,6 +2,8 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -10,6 +12,7 @@
 import org.junit.jupiter.api.Test;
 
 import com.pippsford.json.pointer.FilterTestHelper;
+import com.pippsford.json.pointer.PointerFactory;
 
 /**
  * @author Simon Greatrix on 17/02/2020.
@@ -46,4 +49,31 @@ public void containsValue() {
     assertFalse(FilterDeny.DENY.containsAll(JsonValue.EMPTY_JSON_OBJECT));
   }
 
+
+  @Test
+  public void projection() {
+    FilterTree tree = new FilterTree();
+    tree.add(PointerFactory.create("/a/2/x").getPathElement());
+    tree.add(PointerFactory.create("/a/-/y").getPathElement());
+    tree.add(PointerFactory.create("/b/1").getPathElement());
+
+    assertNull(tree.getMember("c"));
+    Filter a = tree.getMember("a");
+    assertEquals(-1, a.getArraySize());
+    Filter b = tree.getMember("b");
+    assertEquals(2, b.getArraySize());
+    assertNull(b.getElement(0));
+    assertSame(FilterAccept.ACCEPT_ALL, b.getElement(1));
+
+    // element 2 matches both the wildcard and the specific index
+    Filter a2 = a.getElement(2);
+    assertSame(a2, a.getElement(2));
+    assertSame(FilterAccept.ACCEPT_ALL, a2.getMember("x"));
+    assertSame(FilterAccept.ACCEPT_ALL, a2.getMember("y"));
+    assertNull(a.getElement(1).getMember("x"));
+
+    assertNull(FilterDeny.DENY.getMember("a"));
+    assertSame(FilterAccept.ACCEPT_ALL, FilterAccept.ACCEPT_ALL.getElement(7));
+  }
+
 }
@@ -7,8 +7,10 @@
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Random;
 
 import jakarta.json.JsonValue.ValueType;
 
@@ -24,6 +26,16 @@ public class CJBigDecimalTest {
   private CJBigDecimal bd = new CJBigDecimal(v);
 
 
+  private static String expected(BigDecimal value) {
+    if (value.signum() == 0) {
+      return "0";
+    }
+    String digits = value.unscaledValue().abs().toString();
+    String fraction = digits.length() == 1 ? "0" : digits.substring(1);
+    return (value.signum() < 0 ? "-" : "") + digits.charAt(0) + "." + fraction + "E" + (value.precision() - value.scale() - 1);
+  }
+
+
   @Test
   public void bigDecimalValue() {
     assertEquals(0, v.compareTo(bd.bigDecimalValue()));
@@ -160,4 +172,27 @@ public void testToString() {
     pbd = new CJBigDecimal(bd);
     assertEquals("-1.234E34", pbd.toString());
   }
+
+
+  @Test
+  public void writeTo() throws IOException {
+    Random random = new Random(47);
+    for (int i = 0; i < 10_000; i++) {
+      // Cover both unscaled values that fit in a long and those that do not
+      BigInteger unscaled = new BigInteger(1 + random.nextInt(80), random);
+      if (random.nextBoolean()) {
+        unscaled = unscaled.negate();
+      }
+      BigDecimal value = new BigDecimal(unscaled, random.nextInt(200) - 100).stripTrailingZeros();
+      String expected = expected(value);
+
+      CJBigDecimal number = new CJBigDecimal(value);
+      assertEquals(expected, number.toString());
+
+      StringBuilder builder = new StringBuilder();
+      number.writeTo(builder);
+      assertEquals(expected, builder.toString());
+    }
+  }
+
 }
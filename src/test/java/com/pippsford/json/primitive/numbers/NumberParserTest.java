@@ -1,6 +1,7 @@
 package com.pippsford.json.primitive.numbers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.StringReader;
@@ -96,6 +97,16 @@ public void testLong() {
   }
 
 
+  @Test
+  public void testShared() {
+    assertSame(CJNumber.create(0), call("0"));
+    assertSame(CJNumber.create(-1024), call("-1024"));
+    assertSame(CJNumber.create(65535), call("65535"));
+    assertEquals(CJNumber.TYPE_INT, call("65536").getNumberType());
+    assertEquals(CJNumber.TYPE_DECIMAL, call("1.5").getNumberType());
+  }
+
+
   @Test
   void testUnsupported() {
     assertThrows(
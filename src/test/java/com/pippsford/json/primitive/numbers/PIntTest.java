@@ -4,6 +4,8 @@
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -129,6 +131,24 @@ public void numberValue() {
   }
 
 
+  @Test
+  public void shared() {
+    CJNumber zero = CJNumber.create(0);
+    assertSame(zero, CJNumber.create(0L));
+    assertSame(zero, CJNumber.cast(0));
+    assertSame(zero, CJNumber.cast((short) 0));
+    assertSame(zero, CJNumber.castUnsafe(0L));
+    assertSame(CJNumber.create(CJInt.SHARED_MIN), CJNumber.cast(CJInt.SHARED_MIN));
+    assertSame(CJNumber.create(CJInt.SHARED_MAX), CJNumber.cast((long) CJInt.SHARED_MAX));
+    assertEquals("-1024", CJNumber.create(-1024).toString());
+
+    // Outside the shared range, instances are equal but distinct
+    assertNotSame(CJNumber.create(CJInt.SHARED_MAX + 1), CJNumber.create(CJInt.SHARED_MAX + 1));
+    assertEquals(CJNumber.create(CJInt.SHARED_MIN - 1), CJNumber.create(CJInt.SHARED_MIN - 1));
+    assertNull(CJInt.shared(CJInt.SHARED_MIN - 1));
+  }
+
+
   @Test
   public void testToString() {
     assertNotNull(pi.toString());
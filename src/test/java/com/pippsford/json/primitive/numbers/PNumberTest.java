@@ -6,9 +6,13 @@
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
+import com.pippsford.json.ijson.IJsonNumberSerializer;
+
 /**
  * @author Simon Greatrix on 26/01/2020.
  */
@@ -33,6 +37,47 @@ public void equals() {
   }
 
 
+  @Test
+  public void isIJsonCompatible() {
+    Random random = new Random(0x1d0c);
+    for (int i = 0; i < 20_000; i++) {
+      BigDecimal value;
+      switch (i % 4) {
+        case 0:
+          // a double printed with fewer digits than its shortest representation may need
+          value = new BigDecimal(Double.toString(Double.longBitsToDouble(random.nextLong() & 0x7fef_ffff_ffff_ffffL))).round(new MathContext(1 + random.nextInt(17)));
+          break;
+        case 1:
+          value = BigDecimal.valueOf(random.nextLong() >> random.nextInt(30));
+          break;
+        case 2:
+          value = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(640) - 320);
+          break;
+        default:
+          value = new BigDecimal(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+          break;
+      }
+      if (!Double.isFinite(value.doubleValue())) {
+        continue;
+      }
+      CJNumber number = CJNumber.cast(value);
+      BigDecimal shortest = new BigDecimal(IJsonNumberSerializer.serialize(value.doubleValue()));
+      boolean expected = value.compareTo(shortest) == 0;
+      assertEquals(expected, number.isIJsonCompatible(), value::toString);
+
+      // the cached result is the same
+      assertEquals(expected, number.isIJsonCompatible(), value::toString);
+    }
+
+    // 2^60 is exactly representable, but it is not the double's shortest representation
+    assertFalse(CJNumber.cast(1L << 60).isIJsonCompatible());
+    assertTrue(CJNumber.cast(123_000_000_000_000_000L).isIJsonCompatible());
+    assertFalse(CJNumber.cast(Long.MAX_VALUE).isIJsonCompatible());
+    assertFalse(CJNumber.cast(new BigDecimal("1e-400")).isIJsonCompatible());
+    assertFalse(CJNumber.cast(new BigDecimal("1e400")).isIJsonCompatible());
+  }
+
+
   @Test
   public void simplifyBigDecimal() {
     Number n = CJNumber.simplify(BigDecimal.TEN);